@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs R snippets that exercise the hot paths of the interpreter in an embedded FastR context. Each
+ * snippet consists of setup code, which is evaluated once per trial, and a body, which is wrapped
+ * into a function that is called once per benchmark operation. The warmup iterations give the
+ * functions time to get compiled if the Graal compiler is available.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RSnippetBenchmark {
+
+    private static final Map<String, String[]> SNIPPETS = new HashMap<>();
+
+    private static void snippet(String name, String setup, String body) {
+        SNIPPETS.put(name, new String[]{setup, body});
+    }
+
+    static {
+        // element access through VectorAccess/FastPathVectorAccess
+        snippet("vectorAccess", "x <- runif(1e5)",
+                        "s <- 0; for (i in seq_along(x)) s <- s + x[[i]]; s");
+        // vectorized arithmetic (BinaryMapNode), including recycling and integer/double coercion
+        snippet("arithmetic", "x <- runif(1e5); y <- runif(1e5); z <- 1:10",
+                        "sum(x * y + 1 - x / y) + sum(x + z)");
+        snippet("subsetting", "x <- runif(1e5); idx <- sample(1e5, 1e4); m <- matrix(x, 100)",
+                        "sum(x[idx]) + sum(x[x > 0.5]) + sum(m[2:50, 10]) + { y <- x; y[idx] <- 0; sum(y) }");
+        // function calls with positional, named and varargs matching (RCallNode/ArgumentMatcher)
+        snippet("functionCalls", "f <- function(a, b = 2, ...) a + b; g <- function(...) f(...)",
+                        "s <- 0; for (i in 1:10000) s <- s + f(i, b = 1) + f(b = i, a = 1) + g(i, 1, 3); s");
+        snippet("environmentLookup", "e <- new.env(); keys <- paste0('v', 1:1000); for (k in keys) assign(k, 1, envir = e); " +
+                        "h <- local({ a <- 1; local({ function(n) { s <- 0; for (i in 1:n) s <- s + a; s } }) })",
+                        "s <- 0; for (k in keys) s <- s + get(k, envir = e) + exists(k, envir = e); s + h(10000)");
+        snippet("matchUnique", "x <- sample(1e4, 1e5, replace = TRUE); tab <- 1:1e4; s <- as.character(x)",
+                        "length(unique(x)) + sum(match(x, tab)) + length(unique(s)) + sum(s %in% c('1', '2'))");
+        snippet("sortOrder", "x <- runif(1e5); i <- sample(1e5); s <- as.character(i)",
+                        "sort(x)[[1L]] + order(x)[[1L]] + sort(i)[[1L]] + order(s)[[1L]]");
+        snippet("serialization", "obj <- list(a = runif(1e4), b = as.character(1:1000), c = list(x = 1L, y = 'z', f = factor(letters)))",
+                        "length(unserialize(serialize(obj, NULL)))");
+        snippet("connections", "lines <- as.character(1:10000)",
+                        "con <- textConnection(lines); r <- readLines(con); close(con); " +
+                                        "rc <- rawConnection(raw(0), 'w'); writeLines(r, rc); n <- length(rawConnectionValue(rc)); close(rc); n");
+    }
+
+    @Param({"vectorAccess", "arithmetic", "subsetting", "functionCalls", "environmentLookup", "matchUnique", "sortOrder", "serialization", "connections"}) public String snippet;
+
+    private Context context;
+    private Value function;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] code = SNIPPETS.get(snippet);
+        if (code == null) {
+            throw new IllegalArgumentException("unknown snippet " + snippet);
+        }
+        context = Context.newBuilder("R").build();
+        context.eval("R", "set.seed(42); " + code[0]);
+        function = context.eval("R", "function() { " + code[1] + " }");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Value run() {
+        return function.execute();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntSequence;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
+import com.oracle.truffle.r.runtime.data.nodes.VectorAccess.SequentialIterator;
+
+/**
+ * Measures the Java-level operations on the vector data structures that the builtins are made of,
+ * without an R context: element access through {@link VectorAccess} versus direct access, and the
+ * creation and copying of vectors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+
+    @Param({"1000", "1000000"}) public int size;
+
+    private RDoubleVector doubles;
+    private RIntSequence sequence;
+    private RStringVector strings;
+    private VectorAccess fastPathAccess;
+
+    @Setup
+    public void setup() {
+        double[] data = new double[size];
+        String[] stringData = new String[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = i * 0.5;
+            stringData[i] = Integer.toString(i % 1000);
+        }
+        doubles = RDataFactory.createDoubleVector(data, RDataFactory.COMPLETE_VECTOR);
+        sequence = RDataFactory.createIntSequence(1, 1, size);
+        strings = RDataFactory.createStringVector(stringData, RDataFactory.COMPLETE_VECTOR);
+        fastPathAccess = doubles.access();
+    }
+
+    @Benchmark
+    public double sumGetDataAt() {
+        double sum = 0;
+        for (int i = 0; i < doubles.getLength(); i++) {
+            sum += doubles.getDataAt(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sumFastPathAccess() {
+        double sum = 0;
+        try (SequentialIterator iter = fastPathAccess.access(doubles)) {
+            while (fastPathAccess.next(iter)) {
+                sum += fastPathAccess.getDouble(iter);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sumSlowPathAccess() {
+        VectorAccess access = doubles.slowPathAccess();
+        double sum = 0;
+        try (SequentialIterator iter = access.access(doubles)) {
+            while (access.next(iter)) {
+                sum += access.getDouble(iter);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumSequenceAccess() {
+        VectorAccess access = sequence.slowPathAccess();
+        long sum = 0;
+        try (SequentialIterator iter = access.access(sequence)) {
+            while (access.next(iter)) {
+                sum += access.getInt(iter);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int stringLengths() {
+        VectorAccess access = strings.slowPathAccess();
+        int sum = 0;
+        try (SequentialIterator iter = access.access(strings)) {
+            while (access.next(iter)) {
+                sum += access.getString(iter).length();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Object materializeSequence() {
+        return sequence.materialize();
+    }
+
+    @Benchmark
+    public Object copyResized() {
+        return doubles.copyResized(size + size / 2, true);
+    }
+
+    @Benchmark
+    public Object createDoubleVector() {
+        return RDataFactory.createDoubleVector(size);
+    }
+}
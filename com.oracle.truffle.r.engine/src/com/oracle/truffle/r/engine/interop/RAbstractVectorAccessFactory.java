@@ -22,15 +22,18 @@
  */
 package com.oracle.truffle.r.engine.interop;
 
+import java.util.Arrays;
 import java.util.List;
 
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.interop.ArityException;
 import com.oracle.truffle.api.interop.ForeignAccess;
 import com.oracle.truffle.api.interop.ForeignAccess.StandardFactory;
 import com.oracle.truffle.api.interop.KeyInfo;
@@ -38,6 +41,8 @@ import com.oracle.truffle.api.interop.Message;
 import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.interop.UnknownIdentifierException;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.api.interop.java.JavaInterop;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.profiles.ConditionProfile;
@@ -52,12 +57,21 @@ import com.oracle.truffle.r.nodes.access.vector.ExtractVectorNode;
 import com.oracle.truffle.r.nodes.access.vector.ReplaceVectorNode;
 import com.oracle.truffle.r.nodes.control.RLengthNode;
 import com.oracle.truffle.r.runtime.data.NativeDataAccess;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RLogical;
+import com.oracle.truffle.r.runtime.data.RRawVector;
+import com.oracle.truffle.r.runtime.data.RVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractRawVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.interop.Foreign2R;
 import com.oracle.truffle.r.runtime.interop.Foreign2RNodeGen;
 import com.oracle.truffle.r.runtime.interop.R2Foreign;
 import com.oracle.truffle.r.runtime.interop.R2ForeignNodeGen;
+import com.oracle.truffle.r.runtime.interop.RVectorBufferMessage;
 import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
 
 abstract class InteropRootNode extends RootNode {
@@ -180,6 +194,138 @@ public final class RAbstractVectorAccessFactory implements StandardFactory {
         }
     }
 
+    /**
+     * Implements the bulk access messages from {@link RVectorBufferMessage}, one root node per
+     * message.
+     */
+    static final class VectorBufferImplNode extends InteropRootNode {
+        private final RVectorBufferMessage message;
+
+        @Child private ReplaceVectorNode replace;
+
+        VectorBufferImplNode(RVectorBufferMessage message) {
+            this.message = message;
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            Object receiver = ForeignAccess.getReceiver(frame);
+            List<Object> arguments = ForeignAccess.getArguments(frame);
+            if (message instanceof RVectorBufferMessage.GetBuffer) {
+                return getBuffer(receiver);
+            } else if (message instanceof RVectorBufferMessage.GetDataAddress) {
+                return getDataAddress(receiver);
+            }
+            if (arguments.size() != 2) {
+                CompilerDirectives.transferToInterpreter();
+                throw ArityException.raise(2, arguments.size());
+            }
+            int offset = toIndex(arguments.get(0));
+            if (message instanceof RVectorBufferMessage.ReadRange) {
+                return readRange(receiver, offset, toIndex(arguments.get(1)));
+            }
+            RAbstractVector values = toVector(arguments.get(1));
+            if (replace == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                replace = insert(ReplaceVectorNode.create(ElementAccessMode.SUBSCRIPT, true));
+            }
+            // offset + 1: R is indexing from 1
+            return replace.apply(receiver, new Object[]{RDataFactory.createIntSequence(offset + 1, 1, values.getLength())}, values);
+        }
+
+        @TruffleBoundary
+        private Object getBuffer(Object receiver) {
+            if (receiver instanceof RDoubleVector || receiver instanceof RIntVector || receiver instanceof RRawVector) {
+                RVector<?> vector = (RVector<?>) receiver;
+                vector.trimToLength();
+                Object data = vector.getInternalManagedData();
+                if (data != null) {
+                    vector.makeSharedPermanent();
+                    return JavaInterop.asTruffleObject(data);
+                }
+            }
+            throw UnsupportedMessageException.raise(message);
+        }
+
+        @TruffleBoundary
+        private long getDataAddress(Object receiver) {
+            if (receiver instanceof RVector<?> && ((RVector<?>) receiver).hasNativeMemoryData()) {
+                long address = NativeDataAccess.getNativeDataAddress((RVector<?>) receiver);
+                if (address != 0) {
+                    return address;
+                }
+            }
+            throw UnsupportedMessageException.raise(message);
+        }
+
+        @TruffleBoundary
+        private Object readRange(Object receiver, int offset, int length) {
+            RAbstractVector vector = (RAbstractVector) receiver;
+            if (offset < 0 || length < 0 || offset > vector.getLength() - length) {
+                throw UnknownIdentifierException.raise(offset + ":" + length);
+            }
+            Object result;
+            if (receiver instanceof RDoubleVector && ((RDoubleVector) receiver).getInternalManagedData() != null) {
+                result = Arrays.copyOfRange(((RDoubleVector) receiver).getInternalManagedData(), offset, offset + length);
+            } else if (receiver instanceof RAbstractDoubleVector) {
+                double[] data = new double[length];
+                for (int i = 0; i < length; i++) {
+                    data[i] = ((RAbstractDoubleVector) receiver).getDataAt(offset + i);
+                }
+                result = data;
+            } else if (receiver instanceof RIntVector && ((RIntVector) receiver).getInternalManagedData() != null) {
+                result = Arrays.copyOfRange(((RIntVector) receiver).getInternalManagedData(), offset, offset + length);
+            } else if (receiver instanceof RAbstractIntVector) {
+                int[] data = new int[length];
+                for (int i = 0; i < length; i++) {
+                    data[i] = ((RAbstractIntVector) receiver).getDataAt(offset + i);
+                }
+                result = data;
+            } else if (receiver instanceof RRawVector && ((RRawVector) receiver).getInternalManagedData() != null) {
+                result = Arrays.copyOfRange(((RRawVector) receiver).getInternalManagedData(), offset, offset + length);
+            } else if (receiver instanceof RAbstractRawVector) {
+                byte[] data = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    data[i] = ((RAbstractRawVector) receiver).getRawDataAt(offset + i);
+                }
+                result = data;
+            } else {
+                throw UnsupportedMessageException.raise(message);
+            }
+            return JavaInterop.asTruffleObject(result);
+        }
+
+        private static int toIndex(Object value) {
+            if (value instanceof Integer) {
+                return (int) value;
+            } else if (value instanceof Long && (long) value == (int) (long) value) {
+                return (int) (long) value;
+            }
+            CompilerDirectives.transferToInterpreter();
+            throw UnsupportedTypeException.raise(new Object[]{value});
+        }
+
+        @TruffleBoundary
+        private static RAbstractVector toVector(Object value) {
+            Object array = value;
+            if (value instanceof TruffleObject && JavaInterop.isJavaObject((TruffleObject) value)) {
+                array = JavaInterop.asJavaObject(Object.class, (TruffleObject) value);
+            }
+            // the values are copied, the host may keep modifying its array
+            if (array instanceof double[]) {
+                double[] data = (double[]) array;
+                return RDataFactory.createDoubleVector(Arrays.copyOf(data, data.length), RDataFactory.INCOMPLETE_VECTOR);
+            } else if (array instanceof int[]) {
+                int[] data = (int[]) array;
+                return RDataFactory.createIntVector(Arrays.copyOf(data, data.length), RDataFactory.INCOMPLETE_VECTOR);
+            } else if (array instanceof byte[]) {
+                byte[] data = (byte[]) array;
+                return RDataFactory.createRawVector(Arrays.copyOf(data, data.length));
+            }
+            throw UnsupportedTypeException.raise(new Object[]{value});
+        }
+    }
+
     abstract static class VectorKeyInfoRootNode extends InteropRootNode {
         @Child private VectorKeyInfoImplNode keyInfoNode = VectorKeyInfoImplNodeGen.create();
 
@@ -336,6 +482,9 @@ public final class RAbstractVectorAccessFactory implements StandardFactory {
 
     @Override
     public CallTarget accessMessage(Message unknown) {
+        if (unknown instanceof RVectorBufferMessage) {
+            return Truffle.getRuntime().createCallTarget(new VectorBufferImplNode((RVectorBufferMessage) unknown));
+        }
         return null;
     }
 
@@ -132,6 +132,14 @@ public final class GPar {
         return new GPar(gpar, singleDrawingCtx);
     }
 
+    /**
+     * Returns {@code true} if all the graphical parameters are scalars and therefore
+     * {@link #getDrawingContext(int)} gives the same context for any index.
+     */
+    public boolean isSingleDrawingContext() {
+        return singleDrawingCtx;
+    }
+
     public DrawingContext getDrawingContext(int cyclicIndex) {
         if (singleDrawingCtx || cyclicIndex == 0) {
             return indexZeroDrawingCtx;
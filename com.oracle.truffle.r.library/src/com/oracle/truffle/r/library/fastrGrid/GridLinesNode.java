@@ -64,6 +64,7 @@ public abstract class GridLinesNode extends Node {
 
         double[] xx = new double[maxIndexesLen + 1];    // plus one for polygons
         double[] yy = new double[maxIndexesLen + 1];
+        double[][] transform = vpTransform.transform;
         for (int unitIndexesListIdx = 0; unitIndexesListIdx < unitIndexesList.length; unitIndexesListIdx++) {
             RAbstractIntVector unitIndexes = unitIndexesList[unitIndexesListIdx];
             DrawingContext drawingCtx = gpar.getDrawingContext(unitIndexesListIdx);
@@ -74,11 +75,11 @@ public abstract class GridLinesNode extends Node {
             // such series as a polyline
             for (int i = 0; i < unitIndexesLen; i++) {
                 int unitIndex = unitIndexes.getDataAt(i) - 1;   // converting R's 1-based index
-                Point origLoc = Point.fromUnits(x, y, unitIndex, conversionCtx);
-                Point loc = TransformMatrix.transLocation(origLoc, vpTransform.transform);
-                xx[i] = loc.x;
-                yy[i] = loc.y;
-                boolean currIsFinite = loc.isFinite();
+                double origX = Unit.convertX(x, unitIndex, conversionCtx);
+                double origY = Unit.convertY(y, unitIndex, conversionCtx);
+                xx[i] = TransformMatrix.transLocationX(origX, origY, transform);
+                yy[i] = TransformMatrix.transLocationY(origX, origY, transform);
+                boolean currIsFinite = Double.isFinite(xx[i]) && Double.isFinite(yy[i]);
                 boolean lastIter = i == (unitIndexesLen - 1);
                 if (currIsFinite && !oldIsFinite) {
                     start = i; // start a new series
@@ -69,13 +69,22 @@ public abstract class LPoints extends RExternalBuiltinNode.Arg4 {
 
         // Note: unlike in other drawing primitives, we only consider length of x
         int length = Unit.getLength(xVec);
-        ContextCache contextCache = new ContextCache(null);
+        double[][] transform = vpTransform.transform;
+        // with scalar graphical parameters, which is the common case for scatter plots, all the
+        // points share the same drawing contexts and we do not look them up for every point
+        boolean singleDrawingCtx = gpar.isSingleDrawingContext();
+        ContextCache contextCache = new ContextCache(singleDrawingCtx ? gpar.getDrawingContext(0) : null);
         for (int i = 0; i < length; i++) {
-            Point loc = TransformMatrix.transLocation(Point.fromUnits(xVec, yVec, i, conversionCtx), vpTransform.transform);
+            double x = Unit.convertX(xVec, i, conversionCtx);
+            double y = Unit.convertY(yVec, i, conversionCtx);
+            double locX = TransformMatrix.transLocationX(x, y, transform);
+            double locY = TransformMatrix.transLocationY(x, y, transform);
             double size = Unit.convertWidth(sizeVec, i, conversionCtx);
-            if (loc.isFinite() && Double.isFinite(size)) {
-                contextCache = contextCache.from(gpar.getDrawingContext(i));
-                drawSymbol(contextCache, dev, cex, pchVec.getDataAt(i % pchVec.getLength()), size * SIZE_FACTOR, loc.x, loc.y);
+            if (Double.isFinite(locX) && Double.isFinite(locY) && Double.isFinite(size)) {
+                if (!singleDrawingCtx) {
+                    contextCache = contextCache.from(gpar.getDrawingContext(i));
+                }
+                drawSymbol(contextCache, dev, cex, pchVec.getDataAt(i % pchVec.getLength()), size * SIZE_FACTOR, locX, locY);
             }
         }
         return RNull.instance;
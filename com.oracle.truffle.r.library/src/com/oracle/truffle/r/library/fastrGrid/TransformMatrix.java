@@ -88,6 +88,21 @@ final class TransformMatrix {
         return new Point(locationX(newLoc), locationY(newLoc));
     }
 
+    /**
+     * Allocation free variant of {@link #transLocation(Point, double[][])} that gives the x
+     * coordinate of the transformed location. Used when drawing many points at once.
+     */
+    static double transLocationX(double x, double y, double[][] m) {
+        return x * m[0][0] + y * m[1][0] + m[2][0];
+    }
+
+    /**
+     * @see #transLocationX(double, double, double[][])
+     */
+    static double transLocationY(double x, double y, double[][] m) {
+        return x * m[0][1] + y * m[1][1] + m[2][1];
+    }
+
     private static double locationX(double[] loc) {
         return loc[0];
     }
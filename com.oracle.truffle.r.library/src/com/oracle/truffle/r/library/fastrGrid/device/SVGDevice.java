@@ -26,13 +26,15 @@ import static com.oracle.truffle.r.library.fastrGrid.device.DrawingContext.GRID_
 import static com.oracle.truffle.r.library.fastrGrid.device.DrawingContext.INCH_TO_POINTS_FACTOR;
 import static java.lang.Math.round;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
 import java.util.Base64;
-import java.util.Collections;
 
 import com.oracle.truffle.r.library.fastrGrid.GridColorUtils;
 import com.oracle.truffle.r.library.fastrGrid.device.DrawingContext.GridFontStyle;
@@ -41,10 +43,23 @@ import com.oracle.truffle.r.library.fastrGrid.device.DrawingContext.GridLineJoin
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.Utils;
 
+/**
+ * Device that produces SVG documents. The document is not kept in memory: the SVG elements are
+ * written to a temporary file next to the target file as they are drawn, and the temporary file is
+ * moved to the target file once the page is finished. Consecutive lines, unfilled polygons and
+ * unfilled circles drawn with the same opaque color are merged into a single {@code <path>}
+ * element, which keeps the documents for plots with many points or line segments compact.
+ */
 public class SVGDevice implements GridDevice, FileGridDevice {
     private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("0.000");
     private static final double COORD_FACTOR = INCH_TO_POINTS_FACTOR;
 
+    /**
+     * The contents of {@link #data} are written out once it grows beyond this size.
+     */
+    private static final int WRITE_THRESHOLD = 64 * 1024;
+    private static final int MAX_PATH_LENGTH = 16 * 1024;
+
     private final StringBuilder data = new StringBuilder(1024);
     private String filename;
     private final double width;
@@ -52,6 +67,24 @@ public class SVGDevice implements GridDevice, FileGridDevice {
 
     private DrawingContext cachedCtx;
 
+    private boolean pageOpen;
+
+    /**
+     * The temporary file and writer for the current page. If the file cannot be written, the
+     * writer is {@code null} and the document is kept in {@link #data}.
+     */
+    private Path pageFile;
+    private BufferedWriter pageWriter;
+    private IOException writeError;
+
+    /**
+     * The path data of lines, polygons and circles that can be merged into one {@code <path>} element,
+     * {@link #pathCtx} is {@code null} if there are no pending lines or polygons.
+     */
+    private final StringBuilder path = new StringBuilder();
+    private DrawingContext pathCtx;
+    private boolean pathNoFill;
+
     public SVGDevice(String filename, double width, double height) {
         this.filename = filename;
         this.width = width;
@@ -60,7 +93,17 @@ public class SVGDevice implements GridDevice, FileGridDevice {
 
     public String closeAndGetContents() {
         closeSVGDocument();
-        return data.toString();
+        try {
+            if (pageWriter == null) {
+                return data.toString();
+            }
+            finishPage();
+            return new String(Files.readAllBytes(pageFile), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw RInternalError.shouldNotReachHere(e);
+        } finally {
+            deletePage();
+        }
     }
 
     @Override
@@ -68,7 +111,11 @@ public class SVGDevice implements GridDevice, FileGridDevice {
         // We stay compatible with GnuR: opening new page wipes out what has been drawn without
         // saving it anywhere.
         data.setLength(0);
+        path.setLength(0);
+        pathCtx = null;
         cachedCtx = null;
+        pageOpen = true;
+        openPageFile();
         data.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
         data.append("<!DOCTYPE svg PUBLIC \"-//W3C//DTD SVG 1.1//EN\" \"http://www.w3.org/Graphics/SVG/1.1/DTD/svg11.dtd\">\n");
         append("<svg xmlns='http://www.w3.org/2000/svg' xmlns:xlink='http://www.w3.org/1999/xlink' version='1.1' viewBox='0 0 %d %d' style='fill:transparent'>\n",
@@ -98,6 +145,7 @@ public class SVGDevice implements GridDevice, FileGridDevice {
         }
         appendColorStyle(ctx);
         data.append("/>\n"); // end of 'rect' tag
+        writeIfNeeded();
     }
 
     @Override
@@ -112,19 +160,32 @@ public class SVGDevice implements GridDevice, FileGridDevice {
 
     @Override
     public void drawCircle(DrawingContext ctx, double centerX, double centerY, double radius) {
+        if (isMergeable(ctx, false)) {
+            startPath(ctx, false);
+            // a circle as two half circle arcs
+            int r = trRound(radius);
+            path.append('M').append(trRound(centerX) - r).append(',').append(trRound(transY(centerY)));
+            path.append('a').append(r).append(',').append(r).append(" 0 1,0 ").append(2 * r).append(",0");
+            path.append('a').append(r).append(',').append(r).append(" 0 1,0 ").append(-2 * r).append(",0");
+            flushPathIfNeeded();
+            return;
+        }
         appendStyle(ctx);
         data.append("<circle cx='").append(trRound(centerX)).append("' cy='").append(trRound(transY(centerY))).append("' r='").append(trRound(radius)).append('\'');
         appendColorStyle(ctx);
         data.append("/>\n");
+        writeIfNeeded();
     }
 
     @Override
     public void drawRaster(double leftX, double bottomY, double width, double height, int[] pixels, int pixelsColumnsCount, ImageInterpolation interpolation) {
+        flushPath();
         byte[] bitmap = Bitmap.create(pixels, pixelsColumnsCount);
         String base64 = Base64.getEncoder().encodeToString(bitmap);
         data.append("<image x='").append(round(leftX * COORD_FACTOR)).append("' y='").append(trRound(transY(bottomY + height)));
         data.append("' width='").append(round(width * COORD_FACTOR)).append("' height='").append(trRound(height));
         data.append("' preserveAspectRatio='none' xlink:href='data:image/bmp;base64,").append(base64).append("'/>\n");
+        writeIfNeeded();
     }
 
     @Override
@@ -137,6 +198,7 @@ public class SVGDevice implements GridDevice, FileGridDevice {
             appendTransform((int) round(toDegrees(rotationAnticlockWise)), trRound(leftX), trRound(transY(bottomY)));
         }
         data.append(">").append(text).append("</text>\n");
+        writeIfNeeded();
     }
 
     @Override
@@ -191,6 +253,21 @@ public class SVGDevice implements GridDevice, FileGridDevice {
     }
 
     private void drawPoly(DrawingContext ctx, double[] x, double[] y, int startIndex, int length, boolean noFill) {
+        if (length == 0) {
+            return;
+        }
+        if (isMergeable(ctx, noFill)) {
+            startPath(ctx, noFill);
+            path.append('M');
+            for (int i = 0; i < length; i++) {
+                if (i != 0) {
+                    path.append(' ');
+                }
+                path.append(trRound(x[i + startIndex])).append(',').append(trRound(transY(y[i + startIndex])));
+            }
+            flushPathIfNeeded();
+            return;
+        }
         appendStyle(ctx);
         data.append("<polyline points='");
         for (int i = 0; i < length; i++) {
@@ -204,21 +281,140 @@ public class SVGDevice implements GridDevice, FileGridDevice {
         data.append('\'');
         appendColorStyle(ctx, noFill);
         data.append("/>\n");
+        writeIfNeeded();
+    }
+
+    /**
+     * Lines, polygons and circles can share one {@code <path>} element if that gives the same
+     * picture as drawing them one by one. This is the case for opaque outlines without any fill: overlapping
+     * semi-transparent strokes of one path would not blend and filled sub-paths may cancel each
+     * other out depending on their orientation.
+     */
+    private static boolean isMergeable(DrawingContext ctx, boolean noFill) {
+        if (ctx.getLineType() != GRID_LINE_BLANK && ctx.getColor().getAlpha() != GridColor.OPAQUE_ALPHA) {
+            return false;
+        }
+        return noFill || ctx.getFillColor().equals(GridColor.TRANSPARENT);
+    }
+
+    /**
+     * Makes sure that the pending path is drawn with the styles of given context, any pending path
+     * with different styles is flushed first.
+     */
+    private void startPath(DrawingContext ctx, boolean noFill) {
+        if (pathCtx == null || pathNoFill != noFill || !areSameGlobalStyles(pathCtx, ctx) || !pathCtx.getColor().equals(ctx.getColor()) ||
+                        !pathCtx.getFillColor().equals(ctx.getFillColor())) {
+            appendStyle(ctx); // flushes the pending path
+            pathCtx = ctx;
+            pathNoFill = noFill;
+        }
+    }
+
+    private void flushPathIfNeeded() {
+        if (path.length() > MAX_PATH_LENGTH) {
+            flushPath();
+            writeIfNeeded();
+        }
+    }
+
+    private void flushPath() {
+        if (pathCtx != null) {
+            data.append("<path d='").append(path).append('\'');
+            appendColorStyle(pathCtx, pathNoFill);
+            data.append("/>\n");
+            path.setLength(0);
+            pathCtx = null;
+        }
+    }
+
+    private void openPageFile() {
+        writeError = null;
+        try {
+            if (pageWriter != null) {
+                pageWriter.close();
+                pageWriter = null;
+            }
+            if (pageFile == null) {
+                Path target = Paths.get(filename).toAbsolutePath();
+                pageFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+                pageFile.toFile().deleteOnExit();
+            }
+            // truncates the file if the page is being restarted
+            pageWriter = Files.newBufferedWriter(pageFile, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // the document is kept in memory then, any problems with the target file are reported
+            // when the device is closed
+            pageWriter = null;
+        }
+    }
+
+    private void writeIfNeeded() {
+        if (data.length() > WRITE_THRESHOLD && pageWriter != null) {
+            try {
+                pageWriter.append(data);
+            } catch (IOException e) {
+                writeError = e;
+            }
+            data.setLength(0);
+        }
+    }
+
+    /**
+     * Writes out the rest of the document and closes the writer of the current page. The page file
+     * then has the same contents as {@link #data} would have if nothing was streamed.
+     */
+    private void finishPage() throws IOException {
+        if (writeError != null) {
+            throw writeError;
+        }
+        pageWriter.append(data);
+        pageWriter.close();
+        pageWriter = null;
+        data.setLength(0);
+    }
+
+    private void deletePage() {
+        try {
+            if (pageWriter != null) {
+                pageWriter.close();
+                pageWriter = null;
+            }
+            if (pageFile != null) {
+                Files.deleteIfExists(pageFile);
+            }
+        } catch (IOException e) {
+            // nothing we can do about a left over temporary file
+        }
+        pageFile = null;
+        writeError = null;
+        pageOpen = false;
     }
 
     private void saveFile() throws DeviceCloseException {
         closeSVGDocument();
         try {
-            Files.write(Paths.get(filename), Collections.singleton(data.toString()), StandardCharsets.UTF_8);
+            if (pageWriter == null) {
+                // nothing has been streamed to the temporary file
+                Files.write(Paths.get(filename), (data + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            } else {
+                // the saved file, unlike the contents returned by #closeAndGetContents, ends with
+                // a new line
+                data.append(System.lineSeparator());
+                finishPage();
+                Files.move(pageFile, Paths.get(filename), StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (IOException e) {
             throw new DeviceCloseException(e);
+        } finally {
+            deletePage();
         }
     }
 
     private void closeSVGDocument() {
-        if (data.length() == 0) {
+        if (!pageOpen) {
             return;
         }
+        flushPath();
         if (cachedCtx != null) {
             // see #appendStyle
             data.append("</g>");
@@ -228,6 +424,7 @@ public class SVGDevice implements GridDevice, FileGridDevice {
 
     // closes opened <g> tag if necessary
     private void closeStyle() {
+        flushPath();
         if (cachedCtx != null) {
             cachedCtx = null;
             data.append("</g>");
@@ -235,6 +432,7 @@ public class SVGDevice implements GridDevice, FileGridDevice {
     }
 
     private void appendStyle(DrawingContext ctx) {
+        flushPath();
         if (cachedCtx == null || !areSameGlobalStyles(cachedCtx, ctx)) {
             if (cachedCtx != null) {
                 data.append("</g>"); // close the previous style definition
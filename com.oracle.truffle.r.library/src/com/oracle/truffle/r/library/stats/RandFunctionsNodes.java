@@ -27,6 +27,7 @@ import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.BranchProfile;
+import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.api.profiles.LoopConditionProfile;
 import com.oracle.truffle.r.library.stats.RandFunctionsNodesFactory.ConvertToLengthNodeGen;
 import com.oracle.truffle.r.library.stats.RandFunctionsNodesFactory.RandFunction1NodeGen;
@@ -153,6 +154,7 @@ public final class RandFunctionsNodes {
         protected final BranchProfile nanResult = BranchProfile.create();
         protected final BranchProfile nan = BranchProfile.create();
         protected final LoopConditionProfile loopConditionProfile = LoopConditionProfile.createCountingProfile();
+        private final ConditionProfile blocksProfile = ConditionProfile.createBinaryProfile();
 
         protected RandFunctionIterator(Supplier<? extends RandFunction3_Double> functionFactory) {
             this.functionFactory = functionFactory;
@@ -164,6 +166,20 @@ public final class RandFunctionsNodes {
 
         public abstract RAbstractVector execute(int length, RAbstractDoubleVector a, RAbstractDoubleVector b, RAbstractDoubleVector c, RandomNumberProvider rand);
 
+        /**
+         * If the parameters are scalars for which the function draws at least one uniform number for
+         * every value, the uniform numbers are generated in blocks, which produces the same values
+         * as drawing them one by one.
+         */
+        protected final RandomNumberProvider getProvider(int length, RAbstractDoubleVector a, RAbstractDoubleVector b, RAbstractDoubleVector c, RandFunction3_Double function,
+                        RandomNumberProvider rand) {
+            if (blocksProfile.profile(length > 1 && a.getLength() == 1 && b.getLength() == 1 && c.getLength() == 1 &&
+                            function.alwaysDraws(a.getDataAt(0), b.getDataAt(0), c.getDataAt(0), rand))) {
+                return rand.withBlocks(length);
+            }
+            return rand;
+        }
+
         static void putRNGState() {
             // Note: we call putRNGState only if we actually changed the state, i.e. called random
             // number generation. We do not need to getRNGState() because the parent wrapper node
@@ -199,12 +215,14 @@ public final class RandFunctionsNodes {
 
                 boolean nans = false;
                 int[] result = new int[length];
+                RandomNumberProvider rand = getProvider(length, a, b, c, function, randProvider);
                 loopConditionProfile.profileCounted(length);
                 for (int i = 0; loopConditionProfile.inject(i < length); i++) {
                     aAccess.nextWithWrap(aIter);
                     bAccess.nextWithWrap(bIter);
                     cAccess.nextWithWrap(cIter);
-                    double value = function.execute(aAccess.getDouble(aIter), bAccess.getDouble(bIter), cAccess.getDouble(cIter), randProvider);
+                    rand.nextValue(length - i);
+                    double value = function.execute(aAccess.getDouble(aIter), bAccess.getDouble(bIter), cAccess.getDouble(cIter), rand);
                     if (Double.isNaN(value) || value <= Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
                         nan.enter();
                         nans = true;
@@ -251,12 +269,14 @@ public final class RandFunctionsNodes {
 
                 boolean nans = false;
                 double[] result = new double[length];
+                RandomNumberProvider rand = getProvider(length, a, b, c, function, randProvider);
                 loopConditionProfile.profileCounted(length);
                 for (int i = 0; loopConditionProfile.inject(i < length); i++) {
                     aAccess.nextWithWrap(aIter);
                     bAccess.nextWithWrap(bIter);
                     cAccess.nextWithWrap(cIter);
-                    double value = function.execute(aAccess.getDouble(aIter), bAccess.getDouble(bIter), cAccess.getDouble(cIter), randProvider);
+                    rand.nextValue(length - i);
+                    double value = function.execute(aAccess.getDouble(aIter), bAccess.getDouble(bIter), cAccess.getDouble(cIter), rand);
                     if (Double.isNaN(value) || RRuntime.isNA(value)) {
                         nan.enter();
                         nans = true;
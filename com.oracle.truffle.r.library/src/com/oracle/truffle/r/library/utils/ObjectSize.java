@@ -32,9 +32,9 @@ import com.oracle.truffle.r.runtime.data.RObjectSize;
 import com.oracle.truffle.r.runtime.data.RTypedValue;
 
 /**
- * Similarly to GNU R's version, this is approximate and based, for {@link RTypedValue} instances on
- * {@link RObjectSize#getObjectSize}. As per GNU R the AST size for a closure is included. TODO AST
- * size not included owing to problems sizing it automatically.
+ * Based, for {@link RTypedValue} instances, on {@link RObjectSize#getRecursiveObjectSize}, which
+ * sizes the Java objects that represent the value. As per GNU R the AST size for a closure is
+ * included. TODO AST size not included owing to problems sizing it automatically.
  */
 public abstract class ObjectSize extends RExternalBuiltinNode.Arg1 {
 
@@ -122,7 +122,10 @@ import com.oracle.truffle.r.nodes.builtin.fastr.FastRStackTrace;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRStackTraceNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRStats.FastRProfAttr;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRStats.FastRProfFuncounts;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRStats.FastRProfSample;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRStats.FastRProfTypecounts;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRStats.FastRStatsCalls;
+import com.oracle.truffle.r.nodes.builtin.fastr.FastRStats.FastRStatsCallsData;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRStatsFactory;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSyntaxTree;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastRSyntaxTreeNodeGen;
@@ -140,6 +143,10 @@ import com.oracle.truffle.r.nodes.builtin.fastr.FastrDqrls;
 import com.oracle.truffle.r.nodes.builtin.fastr.FastrDqrlsNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmem;
 import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmemNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmemRetained;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmemRetainedNodeGen;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmemRetainedSnapshot;
+import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmemRetainedSnapshotNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmemShow;
 import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmemShowNodeGen;
 import com.oracle.truffle.r.nodes.builtin.fastr.memprof.FastRprofmemSnapshot;
@@ -335,6 +342,8 @@ public class BasePackage extends RBuiltinPackage {
         add(ConnectionFunctions.ReadLines.class, ConnectionFunctionsFactory.ReadLinesNodeGen::create);
         add(ConnectionFunctions.Seek.class, ConnectionFunctionsFactory.SeekNodeGen::create);
         add(ConnectionFunctions.Truncate.class, ConnectionFunctionsFactory.TruncateNodeGen::create);
+        add(ConnectionFunctions.ServerSocket.class, ConnectionFunctionsFactory.ServerSocketNodeGen::create);
+        add(ConnectionFunctions.SocketAccept.class, ConnectionFunctionsFactory.SocketAcceptNodeGen::create);
         add(ConnectionFunctions.SocketConnection.class, ConnectionFunctionsFactory.SocketConnectionNodeGen::create);
         add(ConnectionFunctions.RawConnection.class, ConnectionFunctionsFactory.RawConnectionNodeGen::create);
         add(ConnectionFunctions.RawConnectionValue.class, ConnectionFunctionsFactory.RawConnectionValueNodeGen::create);
@@ -371,6 +380,7 @@ public class BasePackage extends RBuiltinPackage {
         add(DatePOSIXFunctions.FormatPOSIXlt.class, DatePOSIXFunctionsFactory.FormatPOSIXltNodeGen::create);
         add(DatePOSIXFunctions.POSIXlt2Date.class, DatePOSIXFunctionsFactory.POSIXlt2DateNodeGen::create);
         add(DatePOSIXFunctions.StrPTime.class, DatePOSIXFunctionsFactory.StrPTimeNodeGen::create);
+        add(DatePOSIXFunctions.FastRStrPTimeCt.class, DatePOSIXFunctionsFactory.FastRStrPTimeCtNodeGen::create);
         add(DebugFunctions.Debug.class, DebugFunctionsFactory.DebugNodeGen::create);
         add(DebugFunctions.DebugOnce.class, DebugFunctionsFactory.DebugOnceNodeGen::create);
         add(DebugFunctions.IsDebugged.class, DebugFunctionsFactory.IsDebuggedNodeGen::create);
@@ -468,6 +478,9 @@ public class BasePackage extends RBuiltinPackage {
         add(FastRProfAttr.class, FastRStatsFactory.FastRProfAttrNodeGen::create);
         add(FastRProfTypecounts.class, FastRStatsFactory.FastRProfTypecountsNodeGen::create);
         add(FastRProfFuncounts.class, FastRStatsFactory.FastRProfFuncountsNodeGen::create);
+        add(FastRProfSample.class, FastRStatsFactory.FastRProfSampleNodeGen::create);
+        add(FastRStatsCalls.class, FastRStatsFactory.FastRStatsCallsNodeGen::create);
+        add(FastRStatsCallsData.class, FastRStatsFactory.FastRStatsCallsDataNodeGen::create);
         add(FastRSlotAssign.class, FastRSlotAssignNodeGen::create);
         add(FastRSyntaxTree.class, FastRSyntaxTreeNodeGen::create);
         add(FastRThrowIt.class, FastRThrowItNodeGen::create);
@@ -479,6 +492,8 @@ public class BasePackage extends RBuiltinPackage {
         add(FastRprofmemShow.class, FastRprofmemShowNodeGen::create);
         add(FastRprofmemSource.class, FastRprofmemSourceNodeGen::create);
         add(FastRprofmemSnapshot.class, FastRprofmemSnapshotNodeGen::create);
+        add(FastRprofmemRetained.class, FastRprofmemRetainedNodeGen::create);
+        add(FastRprofmemRetainedSnapshot.class, FastRprofmemRetainedSnapshotNodeGen::create);
         add(FastRLibPaths.class, FastRLibPathsNodeGen::create);
         add(FileFunctions.BaseName.class, FileFunctionsFactory.BaseNameNodeGen::create);
         add(FileFunctions.DirCreate.class, FileFunctionsFactory.DirCreateNodeGen::create);
@@ -520,6 +535,7 @@ public class BasePackage extends RBuiltinPackage {
         add(GcFunctions.Gc.class, GcFunctionsFactory.GcNodeGen::create);
         add(GcFunctions.Gctorture.class, GcFunctionsFactory.GctortureNodeGen::create);
         add(GcFunctions.Gctorture2.class, GcFunctionsFactory.Gctorture2NodeGen::create);
+        add(GcFunctions.MemoryProfile.class, GcFunctionsFactory.MemoryProfileNodeGen::create);
         add(GetClass.class, GetClassNodeGen::create);
         add(GetFunctions.Get.class, GetFunctionsFactory.GetNodeGen::create);
         add(GetFunctions.Get0.class, GetFunctionsFactory.Get0NodeGen::create);
@@ -22,11 +22,14 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.ops.BinaryArithmetic;
+import com.oracle.truffle.r.runtime.ops.ParallelMatrixSums;
 
 //Implements .colMeans
 @RBuiltin(name = "colMeans", kind = INTERNAL, parameterNames = {"X", "m", "n", "na.rm"}, behavior = PURE)
 public abstract class ColMeans extends ColSumsBase {
 
+    private static final ParallelMatrixSums.FinalTransform MEAN = (sum, count) -> count == 0 ? Double.NaN : sum / count;
+
     @Child private BinaryArithmetic add = BinaryArithmetic.ADD.createOperation();
 
     static {
@@ -36,6 +39,9 @@ public abstract class ColMeans extends ColSumsBase {
     @Specialization(guards = "!naRm")
     protected RDoubleVector colMeansNaRmFalse(RAbstractDoubleVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm) {
         checkVectorLength(x, rowNum, colNum);
+        if (useParallel(x)) {
+            return ParallelMatrixSums.colSums(x, rowNum, colNum, false, MEAN);
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
@@ -63,6 +69,9 @@ public abstract class ColMeans extends ColSumsBase {
     @Specialization(guards = "naRm")
     protected RDoubleVector colMeansNaRmTrue(RAbstractDoubleVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm) {
         checkVectorLength(x, rowNum, colNum);
+        if (useParallel(x)) {
+            return ParallelMatrixSums.colSums(x, rowNum, colNum, true, MEAN);
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
@@ -90,6 +99,9 @@ public abstract class ColMeans extends ColSumsBase {
     @Specialization(guards = "!naRm")
     protected RDoubleVector colMeansNaRmFalse(RAbstractLogicalVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm) {
         checkVectorLength(x, rowNum, colNum);
+        if (useParallel(x)) {
+            return ParallelMatrixSums.colSums(x, rowNum, colNum, false, MEAN);
+        }
 
         double[] result = new double[colNum];
         na.enable(x);
@@ -111,6 +123,9 @@ public abstract class ColMeans extends ColSumsBase {
     @Specialization(guards = "naRm")
     protected RDoubleVector colMeansNaRmTrue(RAbstractLogicalVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm) {
         checkVectorLength(x, rowNum, colNum);
+        if (useParallel(x)) {
+            return ParallelMatrixSums.colSums(x, rowNum, colNum, true, MEAN);
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
@@ -138,6 +153,9 @@ public abstract class ColMeans extends ColSumsBase {
     @Specialization(guards = "!naRm")
     protected RDoubleVector colMeansNaRmFalse(RAbstractIntVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm) {
         checkVectorLength(x, rowNum, colNum);
+        if (useParallel(x)) {
+            return ParallelMatrixSums.colSums(x, rowNum, colNum, false, MEAN);
+        }
 
         double[] result = new double[colNum];
         na.enable(x);
@@ -159,6 +177,9 @@ public abstract class ColMeans extends ColSumsBase {
     @Specialization(guards = "naRm")
     protected RDoubleVector colMeansNaRmTrue(RAbstractIntVector x, int rowNum, int colNum, @SuppressWarnings("unused") boolean naRm) {
         checkVectorLength(x, rowNum, colNum);
+        if (useParallel(x)) {
+            return ParallelMatrixSums.colSums(x, rowNum, colNum, true, MEAN);
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
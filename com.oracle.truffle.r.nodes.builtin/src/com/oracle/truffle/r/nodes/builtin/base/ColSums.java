@@ -36,6 +36,7 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.ops.BinaryArithmetic;
+import com.oracle.truffle.r.runtime.ops.ParallelMatrixSums;
 
 @RBuiltin(name = "colSums", kind = INTERNAL, parameterNames = {"X", "m", "n", "na.rm"}, behavior = PURE)
 public abstract class ColSums extends ColSumsBase {
@@ -52,6 +53,9 @@ public abstract class ColSums extends ColSumsBase {
     @Specialization
     protected RDoubleVector colSums(RAbstractDoubleVector x, int rowNum, int colNum, boolean rnaParam) {
         checkVectorLength(x, rowNum, colNum);
+        if (useParallel(x)) {
+            return ParallelMatrixSums.colSums(x, rowNum, colNum, rnaParam, (sum, count) -> sum);
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
@@ -91,6 +95,9 @@ public abstract class ColSums extends ColSumsBase {
     @Specialization
     protected RDoubleVector colSums(RAbstractLogicalVector x, int rowNum, int colNum, boolean rna) {
         checkVectorLength(x, rowNum, colNum);
+        if (useParallel(x)) {
+            return ParallelMatrixSums.colSums(x, rowNum, colNum, rna, (sum, count) -> sum);
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
@@ -123,6 +130,9 @@ public abstract class ColSums extends ColSumsBase {
     @Specialization
     protected RDoubleVector colSums(RAbstractIntVector x, int rowNum, int colNum, boolean rna) {
         checkVectorLength(x, rowNum, colNum);
+        if (useParallel(x)) {
+            return ParallelMatrixSums.colSums(x, rowNum, colNum, rna, (sum, count) -> sum);
+        }
 
         double[] result = new double[colNum];
         boolean isComplete = true;
@@ -34,6 +34,8 @@ import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.ops.ParallelMatrixSums;
+import com.oracle.truffle.r.runtime.ops.ParallelReduce;
 import com.oracle.truffle.r.runtime.ops.na.NACheck;
 
 /**
@@ -45,6 +47,7 @@ public abstract class ColSumsBase extends RBuiltinNode.Arg4 {
 
     protected final NACheck na = NACheck.create();
     private final ConditionProfile vectorLengthProfile = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile parallelProfile = ConditionProfile.createBinaryProfile();
 
     protected static Casts createCasts(Class<? extends ColSumsBase> extCls) {
         Casts casts = new Casts(extCls);
@@ -61,6 +64,13 @@ public abstract class ColSumsBase extends RBuiltinNode.Arg4 {
         }
     }
 
+    /**
+     * Large materialized matrices are summed up in parallel by {@link ParallelMatrixSums}.
+     */
+    protected final boolean useParallel(RAbstractVector x) {
+        return parallelProfile.profile(ParallelReduce.isApplicable(x));
+    }
+
     @Specialization(guards = {"rowNum == 0", "colNum == 0"})
     @SuppressWarnings("unused")
     protected static RDoubleVector doEmptyMatrix(Object x, int rowNum, int colNum, boolean naRm) {
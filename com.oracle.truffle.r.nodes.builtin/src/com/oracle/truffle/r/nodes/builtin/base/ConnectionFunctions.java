@@ -87,6 +87,7 @@ import com.oracle.truffle.r.runtime.conn.FileConnections.FileRConnection;
 import com.oracle.truffle.r.runtime.conn.PipeConnections.PipeRConnection;
 import com.oracle.truffle.r.runtime.conn.RConnection;
 import com.oracle.truffle.r.runtime.conn.RawConnections.RawRConnection;
+import com.oracle.truffle.r.runtime.conn.SocketConnections.RServerSocket;
 import com.oracle.truffle.r.runtime.conn.SocketConnections.RSocketConnection;
 import com.oracle.truffle.r.runtime.conn.TextConnections.TextRConnection;
 import com.oracle.truffle.r.runtime.conn.URLConnections.URLRConnection;
@@ -412,6 +413,59 @@ public abstract class ConnectionFunctions {
         }
     }
 
+    @RBuiltin(name = "serverSocket", kind = INTERNAL, parameterNames = {"port"}, behavior = IO)
+    public abstract static class ServerSocket extends RBuiltinNode.Arg1 {
+
+        static {
+            Casts casts = new Casts(ServerSocket.class);
+            casts.arg("port").asIntegerVector().findFirst().mustNotBeNA().mustBe(gte(0));
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RAbstractIntVector serverSocket(int port) {
+            try {
+                return new RServerSocket(port).asVector();
+            } catch (IOException ex) {
+                throw error(RError.Message.CANNOT_OPEN_CONNECTION);
+            }
+        }
+    }
+
+    @RBuiltin(name = "socketAccept", kind = INTERNAL, parameterNames = {"socket", "blocking", "open", "encoding", "timeout"}, behavior = IO)
+    public abstract static class SocketAccept extends RBuiltinNode.Arg5 {
+
+        static {
+            Casts casts = new Casts(SocketAccept.class);
+            casts.arg("socket").defaultError(Message.INVALID_CONNECTION).mustNotBeNull().asIntegerVector().findFirst();
+            CastsHelper.blocking(casts);
+            CastsHelper.open(casts);
+            CastsHelper.encoding(casts);
+            casts.arg("timeout").asIntegerVector().findFirst();
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RAbstractIntVector socketAccept(int socket, boolean blocking, String open, String encoding, int timeout) {
+            BaseRConnection baseConnection = getBaseConnection(RConnection.fromIndex(socket));
+            if (!(baseConnection instanceof RServerSocket)) {
+                throw error(RError.Message.GENERIC, "not a server socket connection");
+            }
+            RSocketConnection accepted;
+            try {
+                accepted = ((RServerSocket) baseConnection).accept(open, blocking, timeout, encoding);
+            } catch (IOException ex) {
+                throw error(RError.Message.CANNOT_OPEN_CONNECTION);
+            } catch (IllegalCharsetNameException ex) {
+                throw error(RError.Message.UNSUPPORTED_ENCODING_CONVERSION, encoding, "");
+            }
+            if (accepted == null) {
+                throw error(RError.Message.GENERIC, "no client connected within the timeout");
+            }
+            return accepted.asVector();
+        }
+    }
+
     @RBuiltin(name = "url", kind = INTERNAL, parameterNames = {"description", "open", "blocking", "encoding", "method"}, behavior = IO)
     public abstract static class URLConnection extends RBuiltinNode.Arg5 {
 
@@ -1401,14 +1455,14 @@ public abstract class ConnectionFunctions {
             Casts casts = new Casts(SockSelect.class);
             casts.arg("socklist").defaultError(Message.NOT_A_LIST_OF_SOCKETS).mustNotBeMissing().mustNotBeNull().asIntegerVector();
             casts.arg("write").mustNotBeMissing().mustBe(logicalValue()).asLogicalVector().findFirst().map(toBoolean());
-            casts.arg("timeout").mustNotBeMissing().asIntegerVector().findFirst();
+            casts.arg("timeout").mustNotBeMissing().asDoubleVector().findFirst();
         }
 
         @Specialization
-        protected RLogicalVector selectMultiple(RAbstractIntVector socklist, boolean write, int timeout) {
+        protected RLogicalVector selectMultiple(RAbstractIntVector socklist, boolean write, double timeout) {
             RSocketConnection[] socketConnections = getSocketConnections(socklist);
             try {
-                byte[] selected = RSocketConnection.select(socketConnections, write, timeout * 1000L);
+                byte[] selected = RSocketConnection.select(socketConnections, write, timeout < 0 ? -1 : (long) Math.ceil(timeout * 1000));
                 return RDataFactory.createLogicalVector(selected, true);
             } catch (IOException e) {
                 throw error(RError.Message.GENERIC, e.getMessage());
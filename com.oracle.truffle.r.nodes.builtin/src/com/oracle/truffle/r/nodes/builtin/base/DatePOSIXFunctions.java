@@ -16,16 +16,19 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.emptyStringV
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.missingValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.notEmpty;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.nullValue;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.READS_STATE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
 
 import java.text.ParsePosition;
 import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -34,8 +37,11 @@ import java.time.format.DateTimeParseException;
 import java.time.format.TextStyle;
 import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalAccessor;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
@@ -51,13 +57,13 @@ import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractListVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
-import java.time.LocalTime;
 
 // from GnuR datatime.c
 
@@ -106,6 +112,18 @@ public class DatePOSIXFunctions {
             isdst[index] = newIsDst;
         }
 
+        /**
+         * Sets an entry from the fields filled in by {@link CompiledFormat#parse}.
+         */
+        public void setEntry(int index, double newSec, int[] fields) {
+            int newYear = fields[CompiledFormat.YEAR];
+            int newMon = fields[CompiledFormat.MONTH];
+            int newMDay = fields[CompiledFormat.DAY];
+            long day = epochDay(newYear, newMon, newMDay);
+            setEntry(index, newSec, fields[CompiledFormat.MINUTE], fields[CompiledFormat.HOUR], newMDay, newMon - 1, newYear - 1900, (int) Math.floorMod(day + 4, 7L),
+                            (int) (day - epochDay(newYear, 1, 1)), 0);
+        }
+
         public void setIncompleteEntry(int index) {
             sec[index] = RRuntime.DOUBLE_NA;
             min[index] = RRuntime.INT_NA;
@@ -137,6 +155,397 @@ public class DatePOSIXFunctions {
         }
     }
 
+    /**
+     * A strptime/format.POSIXlt format string, compiled once and cached. Formats that consist only
+     * of the numeric fields {@code %Y %m %d %H %M %S %OS} (and {@code %F}, {@code %T}) and literal
+     * text, e.g. the ISO 8601 formats tried by {@code as.POSIXlt.character}, are parsed and printed
+     * by hand without allocating; everything else goes through a {@link DateTimeFormatter}.
+     */
+    static final class CompiledFormat {
+
+        private static final ConcurrentHashMap<String, CompiledFormat> CACHE = new ConcurrentHashMap<>();
+        private static final int MAX_CACHE_SIZE = 256;
+
+        /**
+         * Returned by {@link #parse} if the string does not match the format.
+         */
+        static final double NO_MATCH = -1;
+        /**
+         * Returned by {@link #parse} if the string has to be parsed with the
+         * {@link DateTimeFormatter}, either because the format is not a simple one or because the
+         * value needs special treatment (e.g. {@code 24:00:00} or leap seconds).
+         */
+        static final double UNSUPPORTED = -2;
+
+        static final int YEAR = 0;
+        static final int MONTH = 1;
+        static final int DAY = 2;
+        static final int HOUR = 3;
+        static final int MINUTE = 4;
+        static final int FIELD_COUNT = 5;
+
+        // item kinds, numeric fields use the field index
+        private static final int SECOND = 5;
+        private static final int FRACTIONAL_SECOND = 6;
+        private static final int LITERAL = 7;
+        private static final int SPACE = 8;
+
+        // limits of the numeric fields as in R's strptime
+        private static final int[] MIN_VALUE = {0, 1, 1, 0, 0, 0};
+        private static final int[] MAX_VALUE = {9999, 12, 31, 24, 59, 61};
+        private static final int[] MAX_DIGITS = {4, 2, 2, 2, 2, 2};
+
+        private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+        private final String format;
+        private final boolean forInput;
+        private final boolean withZone;
+        /**
+         * The items of a simple format, {@code null} otherwise.
+         */
+        private final int[] kinds;
+        /**
+         * The character of {@link #LITERAL} items and the number of digits of
+         * {@link #FRACTIONAL_SECOND} items on output.
+         */
+        private final int[] values;
+        private DateTimeFormatter formatter;
+
+        private CompiledFormat(String format, boolean forInput, boolean withZone) {
+            this.format = format;
+            this.forInput = forInput;
+            this.withZone = withZone;
+            int[][] items = withZone ? null : compile(format, forInput);
+            this.kinds = items == null ? null : items[0];
+            this.values = items == null ? null : items[1];
+        }
+
+        static CompiledFormat get(String format, boolean forInput, boolean withZone) {
+            String key = (forInput ? 'i' : withZone ? 'z' : 'o') + format;
+            CompiledFormat result = CACHE.get(key);
+            if (result == null) {
+                if (CACHE.size() >= MAX_CACHE_SIZE) {
+                    CACHE.clear();
+                }
+                result = new CompiledFormat(format, forInput, withZone);
+                CACHE.put(key, result);
+            }
+            return result;
+        }
+
+        static CompiledFormat[] get(RAbstractStringVector formats, boolean forInput, boolean withZone) {
+            CompiledFormat[] result = new CompiledFormat[formats.getLength()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = get(formats.getDataAt(i), forInput, withZone);
+            }
+            return result;
+        }
+
+        boolean isSimple() {
+            return kinds != null;
+        }
+
+        DateTimeFormatter getFormatter() {
+            DateTimeFormatter result = formatter;
+            if (result == null) {
+                DateTimeFormatterBuilder builder = createFormatter(format, forInput);
+                if (withZone) {
+                    builder.appendLiteral(' ').appendZoneText(TextStyle.SHORT);
+                }
+                result = builder.toFormatter();
+                formatter = result;
+            }
+            return result;
+        }
+
+        private static int[][] compile(String format, boolean forInput) {
+            int[] kinds = new int[format.length() * 5];
+            int[] values = new int[kinds.length];
+            int n = 0;
+            boolean date = false;
+            int i = 0;
+            while (i < format.length()) {
+                char c = format.charAt(i++);
+                if (c != '%') {
+                    kinds[n] = forInput && Character.isWhitespace(c) ? SPACE : LITERAL;
+                    values[n++] = c;
+                    continue;
+                }
+                if (i == format.length()) {
+                    return null;
+                }
+                c = format.charAt(i++);
+                switch (c) {
+                    case 'Y':
+                        kinds[n++] = YEAR;
+                        date = true;
+                        break;
+                    case 'm':
+                        kinds[n++] = MONTH;
+                        break;
+                    case 'd':
+                        kinds[n++] = DAY;
+                        break;
+                    case 'H':
+                        kinds[n++] = HOUR;
+                        break;
+                    case 'M':
+                        kinds[n++] = MINUTE;
+                        break;
+                    case 'S':
+                        kinds[n++] = SECOND;
+                        break;
+                    case 'F':
+                        kinds[n++] = YEAR;
+                        kinds[n] = LITERAL;
+                        values[n++] = '-';
+                        kinds[n++] = MONTH;
+                        kinds[n] = LITERAL;
+                        values[n++] = '-';
+                        kinds[n++] = DAY;
+                        date = true;
+                        break;
+                    case 'T':
+                        kinds[n++] = HOUR;
+                        kinds[n] = LITERAL;
+                        values[n++] = ':';
+                        kinds[n++] = MINUTE;
+                        kinds[n] = LITERAL;
+                        values[n++] = ':';
+                        kinds[n++] = SECOND;
+                        break;
+                    case 'O':
+                        if (i == format.length() || format.charAt(i) != 'S') {
+                            return null;
+                        }
+                        i++;
+                        boolean digit = i < format.length() && format.charAt(i) >= '0' && format.charAt(i) <= '6';
+                        if (forInput == digit) {
+                            // %OS without digits on output depends on getOption("digits.secs")
+                            return null;
+                        }
+                        kinds[n] = FRACTIONAL_SECOND;
+                        values[n++] = digit ? format.charAt(i++) - '0' : 0;
+                        break;
+                    case '%':
+                        kinds[n] = LITERAL;
+                        values[n++] = '%';
+                        break;
+                    default:
+                        return null;
+                }
+            }
+            if (forInput) {
+                // a missing date has to be filled in from the current date
+                boolean month = false;
+                boolean day = false;
+                for (int k = 0; k < n; k++) {
+                    month |= kinds[k] == MONTH;
+                    day |= kinds[k] == DAY;
+                }
+                if (!date || !month || !day) {
+                    return null;
+                }
+            }
+            return new int[][]{Arrays.copyOf(kinds, n), Arrays.copyOf(values, n)};
+        }
+
+        /**
+         * Parses {@code s} into {@code fields} (full year, month 1-12, day, hour and minute) and
+         * returns the seconds, or {@link #NO_MATCH} or {@link #UNSUPPORTED}. As in R's strptime,
+         * numeric fields may be preceded by spaces, whitespace in the format matches any amount of
+         * whitespace and trailing input is ignored.
+         */
+        double parse(String s, int[] fields) {
+            if (kinds == null) {
+                return UNSUPPORTED;
+            }
+            if (RRuntime.isNA(s)) {
+                return NO_MATCH;
+            }
+            fields[HOUR] = 0;
+            fields[MINUTE] = 0;
+            double sec = 0;
+            int len = s.length();
+            int pos = 0;
+            for (int k = 0; k < kinds.length; k++) {
+                int kind = kinds[k];
+                switch (kind) {
+                    case LITERAL:
+                        if (pos == len || s.charAt(pos) != values[k]) {
+                            return NO_MATCH;
+                        }
+                        pos++;
+                        break;
+                    case SPACE:
+                        while (pos < len && Character.isWhitespace(s.charAt(pos))) {
+                            pos++;
+                        }
+                        break;
+                    case FRACTIONAL_SECOND:
+                        while (pos < len && Character.isWhitespace(s.charAt(pos))) {
+                            pos++;
+                        }
+                        if (pos < len && (s.charAt(pos) == '+' || s.charAt(pos) == '-')) {
+                            // signs, exponents and hex numbers are left to the formatter
+                            return UNSUPPORTED;
+                        }
+                        long mantissa = 0;
+                        int digits = 0;
+                        int scale = 0;
+                        boolean point = false;
+                        while (pos < len) {
+                            char c = s.charAt(pos);
+                            if (c == '.' && !point) {
+                                point = true;
+                            } else if (isDigit(c)) {
+                                if (digits < 15) {
+                                    mantissa = mantissa * 10 + (c - '0');
+                                    digits++;
+                                    scale += point ? 1 : 0;
+                                } else if (!point) {
+                                    return NO_MATCH;
+                                }
+                            } else {
+                                break;
+                            }
+                            pos++;
+                        }
+                        if (pos < len && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E' || (mantissa == 0 && digits == 1 && (s.charAt(pos) == 'x' || s.charAt(pos) == 'X')))) {
+                            return UNSUPPORTED;
+                        }
+                        if (digits == 0) {
+                            return NO_MATCH;
+                        }
+                        sec = mantissa / POW10[scale];
+                        if (sec > 61) {
+                            return NO_MATCH;
+                        }
+                        break;
+                    default:
+                        while (pos < len && s.charAt(pos) == ' ') {
+                            pos++;
+                        }
+                        if (pos == len || !isDigit(s.charAt(pos))) {
+                            return NO_MATCH;
+                        }
+                        int max = MAX_VALUE[kind];
+                        int value = 0;
+                        int n = MAX_DIGITS[kind];
+                        do {
+                            value = value * 10 + (s.charAt(pos++) - '0');
+                        } while (--n > 0 && value * 10 <= max && pos < len && isDigit(s.charAt(pos)));
+                        if (value < MIN_VALUE[kind] || value > max) {
+                            return NO_MATCH;
+                        }
+                        if (kind == SECOND) {
+                            sec = value;
+                        } else {
+                            fields[kind] = value;
+                        }
+                }
+            }
+            if (fields[HOUR] > 23 || sec >= 60) {
+                return UNSUPPORTED;
+            }
+            if (fields[DAY] > daysInMonth(fields[YEAR], fields[MONTH])) {
+                return NO_MATCH;
+            }
+            return sec;
+        }
+
+        /**
+         * Appends the given date and time to {@code sb} and returns {@code true}, or returns
+         * {@code false} if this is not a simple format or the values are out of the usual ranges.
+         */
+        boolean format(StringBuilder sb, int year, int month, int day, int hour, int minute, double sec) {
+            if (kinds == null || year < 0 || year > 9999 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour < 0 || hour > 23 || minute < 0 || minute > 59 ||
+                            !(sec >= 0 && sec < 60)) {
+                return false;
+            }
+            for (int k = 0; k < kinds.length; k++) {
+                switch (kinds[k]) {
+                    case LITERAL:
+                        sb.append((char) values[k]);
+                        break;
+                    case YEAR:
+                        appendTwoDigits(sb, year / 100);
+                        appendTwoDigits(sb, year % 100);
+                        break;
+                    case MONTH:
+                        appendTwoDigits(sb, month);
+                        break;
+                    case DAY:
+                        appendTwoDigits(sb, day);
+                        break;
+                    case HOUR:
+                        appendTwoDigits(sb, hour);
+                        break;
+                    case MINUTE:
+                        appendTwoDigits(sb, minute);
+                        break;
+                    case SECOND:
+                        appendTwoDigits(sb, (int) sec);
+                        break;
+                    case FRACTIONAL_SECOND:
+                        int digits = values[k];
+                        if (digits == 0) {
+                            appendTwoDigits(sb, (int) sec);
+                        } else {
+                            // truncated, not rounded
+                            String str = FormatSpec.fixed(Math.floor(sec * POW10[digits]) / POW10[digits], digits);
+                            if (str.length() < digits + 3) {
+                                sb.append('0');
+                            }
+                            sb.append(str);
+                        }
+                        break;
+                    default:
+                        throw RInternalError.shouldNotReachHere();
+                }
+            }
+            return true;
+        }
+
+        private static void appendTwoDigits(StringBuilder sb, int value) {
+            sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 of the given date in the proleptic Gregorian calendar.
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * ((month + 9) % 12) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
     @RBuiltin(name = "Date2POSIXlt", kind = INTERNAL, parameterNames = "x", behavior = PURE)
     public abstract static class Date2POSIXlt extends RBuiltinNode.Arg1 {
 
@@ -187,12 +596,7 @@ public class DatePOSIXFunctions {
         @Specialization
         @TruffleBoundary
         protected RList asPOSIXlt(RAbstractDoubleVector x, String tz) {
-            TimeZone zone;
-            if (tz.isEmpty()) {
-                zone = RContext.getInstance().stateREnvVars.getSystemTimeZone();
-            } else {
-                zone = TimeZone.getTimeZone(tz);
-            }
+            TimeZone zone = getTimeZone(tz);
             int xLen = x.getLength();
             POSIXltBuilder builder = new POSIXltBuilder(xLen, zone.getDisplayName(false, TimeZone.SHORT));
             for (int i = 0; i < xLen; i++) {
@@ -233,12 +637,7 @@ public class DatePOSIXFunctions {
             RAbstractVector mdayVector = (RAbstractVector) RRuntime.convertScalarVectors(x.getDataAt(3));
             RAbstractVector monVector = (RAbstractVector) RRuntime.convertScalarVectors(x.getDataAt(4));
             RAbstractVector yearVector = (RAbstractVector) RRuntime.convertScalarVectors(x.getDataAt(5));
-            TimeZone zone;
-            if (tz.isEmpty()) {
-                zone = RContext.getInstance().stateREnvVars.getSystemTimeZone();
-            } else {
-                zone = TimeZone.getTimeZone(tz);
-            }
+            TimeZone zone = getTimeZone(tz);
 
             ZoneId zoneId = zone.toZoneId();
             int length = max(secVector.getLength(), minVector.getLength(), hourVector.getLength(), mdayVector.getLength(), monVector.getLength(), yearVector.getLength());
@@ -352,24 +751,19 @@ public class DatePOSIXFunctions {
             RAbstractIntVector monVector = (RAbstractIntVector) RRuntime.convertScalarVectors(x.getDataAt(4));
             RAbstractIntVector yearVector = (RAbstractIntVector) RRuntime.convertScalarVectors(x.getDataAt(5));
             ZoneId zone;
-            DateTimeFormatterBuilder[] builders = createFormatters(format, false);
             String tzone = getTimeZomeFromAttribute(x);
-            if (usetz && !tzone.isEmpty()) {
+            boolean withZone = usetz && !tzone.isEmpty();
+            if (withZone) {
                 zone = ZoneId.of(tzone, TIME_ZONE_MAPPING);
-                for (DateTimeFormatterBuilder builder : builders) {
-                    builder.appendLiteral(' ').appendZoneText(TextStyle.SHORT);
-                }
             } else {
                 zone = RContext.getInstance().stateREnvVars.getSystemTimeZone().toZoneId();
             }
 
-            DateTimeFormatter[] formatters = new DateTimeFormatter[builders.length];
-            for (int i = 0; i < builders.length; i++) {
-                formatters[i] = builders[i].toFormatter();
-            }
+            CompiledFormat[] formats = CompiledFormat.get(format, false, withZone);
             int length = secVector.getLength();
             String[] data = new String[length];
             boolean complete = true;
+            StringBuilder sb = new StringBuilder();
             for (int i = 0; i < length; i++) {
                 double sec = secVector.getDataAt(i);
                 if (RRuntime.isFinite(sec)) {
@@ -378,9 +772,15 @@ public class DatePOSIXFunctions {
                     int mday = mdayVector.getDataAt(i);
                     int mon = monVector.getDataAt(i) + 1;
                     int year = yearVector.getDataAt(i) + 1900;
-                    LocalDateTime time = LocalDateTime.of(year, mon, mday, hour, min, (int) sec, (int) ((sec - Math.floor(sec)) * 1000000000L));
-                    ZonedDateTime zoned = time.atZone(zone);
-                    data[i] = formatters[i % formatters.length].format(zoned);
+                    CompiledFormat f = formats[i % formats.length];
+                    sb.setLength(0);
+                    if (f.format(sb, year, mon, mday, hour, min, sec)) {
+                        data[i] = sb.toString();
+                    } else {
+                        LocalDateTime time = LocalDateTime.of(year, mon, mday, hour, min, (int) sec, (int) ((sec - Math.floor(sec)) * 1000000000L));
+                        ZonedDateTime zoned = time.atZone(zone);
+                        data[i] = f.getFormatter().format(zoned);
+                    }
                 } else {
                     data[i] = RRuntime.STRING_NA;
                     complete = false;
@@ -403,62 +803,160 @@ public class DatePOSIXFunctions {
         @Specialization
         @TruffleBoundary
         protected RList strptime(RAbstractStringVector x, RAbstractStringVector format, RAbstractStringVector tz) {
-            TimeZone zone;
-            String zoneString = RRuntime.asString(tz);
-            if (zoneString.isEmpty()) {
-                zone = RContext.getInstance().stateREnvVars.getSystemTimeZone();
-            } else {
-                zone = TimeZone.getTimeZone(zoneString);
-            }
+            TimeZone zone = getTimeZone(RRuntime.asString(tz));
             int length = x.getLength();
             POSIXltBuilder builder = new POSIXltBuilder(length, zone.getDisplayName(false, TimeZone.SHORT));
-            DateTimeFormatterBuilder[] builders = createFormatters(format, true);
-            DateTimeFormatter[] formatters = new DateTimeFormatter[builders.length];
-            for (int i = 0; i < builders.length; i++) {
-                formatters[i] = builders[i].toFormatter();
-            }
-
+            CompiledFormat[] formats = CompiledFormat.get(format, true, false);
+            int[] fields = new int[CompiledFormat.FIELD_COUNT];
             for (int i = 0; i < length; i++) {
                 String str = x.getDataAt(i);
-                TemporalAccessor parse;
-                try {
-                    parse = formatters[i % formatters.length].parse(str, new ParsePosition(0));
-                } catch (DateTimeParseException e) {
+                CompiledFormat f = formats[i % formats.length];
+                double sec = f.parse(str, fields);
+                if (sec >= 0) {
+                    builder.setEntry(i, sec, fields);
+                } else if (sec == CompiledFormat.NO_MATCH) {
                     builder.setIncompleteEntry(i);
-                    continue;
+                } else {
+                    parse(builder, i, str, f.getFormatter());
                 }
+            }
+            return builder.finish();
+        }
+
+        private static void parse(POSIXltBuilder builder, int i, String str, DateTimeFormatter formatter) {
+            TemporalAccessor parse;
+            try {
+                parse = formatter.parse(str, new ParsePosition(0));
+            } catch (DateTimeParseException e) {
+                builder.setIncompleteEntry(i);
+                return;
+            }
+            try {
+                LocalDateTime time;
                 try {
-                    LocalDateTime time;
-                    try {
-                        time = LocalDateTime.from(parse);
-                    } catch (DateTimeException e) {
-                        // Try just time and use current date
-                        LocalTime tm = LocalTime.from(parse);
-                        time = LocalDateTime.of(LocalDate.now(), tm);
-                    }
-                    builder.setEntry(i, time.getSecond(), time.getMinute(), time.getHour(), time.getDayOfMonth(), time.getMonthValue() - 1, time.getYear() - 1900, time.getDayOfWeek().ordinal(),
-                                    time.getDayOfYear(), 0);
-                    continue;
+                    time = LocalDateTime.from(parse);
                 } catch (DateTimeException e) {
-                    // try without time
+                    // Try just time and use current date
+                    LocalTime tm = LocalTime.from(parse);
+                    time = LocalDateTime.of(LocalDate.now(), tm);
                 }
-                try {
-                    LocalDate date = LocalDate.from(parse);
-                    builder.setEntry(i, 0, 0, 0, date.getDayOfMonth(), date.getMonthValue() - 1, date.getYear() - 1900, date.getDayOfWeek().ordinal(), date.getDayOfYear(), 0);
-                } catch (DateTimeException e) {
-                    throw RInternalError.shouldNotReachHere(e);
+                builder.setEntry(i, time.getSecond(), time.getMinute(), time.getHour(), time.getDayOfMonth(), time.getMonthValue() - 1, time.getYear() - 1900,
+                                time.getDayOfWeek().getValue() % 7, time.getDayOfYear() - 1, 0);
+                return;
+            } catch (DateTimeException e) {
+                // try without time
+            }
+            try {
+                LocalDate date = LocalDate.from(parse);
+                builder.setEntry(i, 0, 0, 0, date.getDayOfMonth(), date.getMonthValue() - 1, date.getYear() - 1900, date.getDayOfWeek().getValue() % 7, date.getDayOfYear() - 1, 0);
+            } catch (DateTimeException e) {
+                throw RInternalError.shouldNotReachHere(e);
+            }
+        }
+    }
+
+    /**
+     * Parses character date-times straight into seconds since the epoch for
+     * {@code as.POSIXct.default}, without building the intermediate POSIXlt list. If no format is
+     * given, the same formats as in {@code as.POSIXlt.character} are tried. Returns {@code NULL}
+     * if the formats or the values are not handled by {@link CompiledFormat}, or none of the
+     * standard formats matches, in which case the caller takes the usual route.
+     */
+    @RBuiltin(name = ".fastr.strptime.ct", kind = PRIMITIVE, parameterNames = {"x", "tz", "format"}, behavior = READS_STATE)
+    public abstract static class FastRStrPTimeCt extends RBuiltinNode.Arg3 {
+
+        private static final String[] STANDARD_FORMATS = {"%Y-%m-%d %H:%M:%OS", "%Y/%m/%d %H:%M:%OS", "%Y-%m-%d %H:%M", "%Y/%m/%d %H:%M", "%Y-%m-%d", "%Y/%m/%d"};
+
+        static {
+            Casts casts = new Casts(FastRStrPTimeCt.class);
+            casts.arg("x").mustBe(stringValue()).asStringVector();
+            casts.arg("tz").asStringVector().findFirst("");
+            casts.arg("format").allowNull().mustBe(stringValue()).asStringVector();
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected Object strptime(RAbstractStringVector x, String tz, @SuppressWarnings("unused") RNull format) {
+            ZoneId zone = getTimeZone(tz).toZoneId();
+            double[] data = new double[x.getLength()];
+            int[] fields = new int[CompiledFormat.FIELD_COUNT];
+            for (String standard : STANDARD_FORMATS) {
+                CompiledFormat f = CompiledFormat.get(standard, true, false);
+                boolean matches = true;
+                for (int i = 0; i < data.length && matches; i++) {
+                    String str = x.getDataAt(i);
+                    if (RRuntime.isNA(str)) {
+                        data[i] = RRuntime.DOUBLE_NA;
+                        continue;
+                    }
+                    double sec = f.parse(str, fields);
+                    if (sec == CompiledFormat.UNSUPPORTED) {
+                        return RNull.instance;
+                    }
+                    matches = sec >= 0;
+                    data[i] = matches ? toEpochSeconds(fields, sec, zone) : 0;
+                }
+                if (matches) {
+                    return createResult(x, data);
                 }
             }
-            return builder.finish();
+            return RNull.instance;
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected Object strptime(RAbstractStringVector x, String tz, RAbstractStringVector format) {
+            ZoneId zone = getTimeZone(tz).toZoneId();
+            CompiledFormat[] formats = CompiledFormat.get(format, true, false);
+            for (CompiledFormat f : formats) {
+                if (!f.isSimple()) {
+                    return RNull.instance;
+                }
+            }
+            double[] data = new double[x.getLength()];
+            int[] fields = new int[CompiledFormat.FIELD_COUNT];
+            for (int i = 0; i < data.length; i++) {
+                double sec = formats[i % formats.length].parse(x.getDataAt(i), fields);
+                if (sec == CompiledFormat.UNSUPPORTED) {
+                    return RNull.instance;
+                }
+                data[i] = sec >= 0 ? toEpochSeconds(fields, sec, zone) : RRuntime.DOUBLE_NA;
+            }
+            return createResult(x, data);
+        }
+
+        private static RDoubleVector createResult(RAbstractStringVector x, double[] data) {
+            boolean complete = true;
+            for (double d : data) {
+                complete &= !RRuntime.isNA(d);
+            }
+            RDoubleVector result = RDataFactory.createDoubleVector(data, complete);
+            result.copyNamesFrom(x);
+            return result;
+        }
+
+        private static double toEpochSeconds(int[] fields, double sec, ZoneId zone) {
+            int year = fields[CompiledFormat.YEAR];
+            int month = fields[CompiledFormat.MONTH];
+            int day = fields[CompiledFormat.DAY];
+            int hour = fields[CompiledFormat.HOUR];
+            int minute = fields[CompiledFormat.MINUTE];
+            ZoneRules rules = zone.getRules();
+            if (rules.isFixedOffset()) {
+                long local = epochDay(year, month, day) * 86400L + hour * 3600 + minute * 60;
+                return local - rules.getOffset(Instant.EPOCH).getTotalSeconds() + sec;
+            }
+            LocalDateTime time = LocalDateTime.of(year, month, day, hour, minute, (int) sec);
+            return time.atZone(zone).toEpochSecond() + (sec - Math.floor(sec));
         }
     }
 
-    private static DateTimeFormatterBuilder[] createFormatters(RAbstractStringVector formats, boolean forInput) {
-        DateTimeFormatterBuilder[] result = new DateTimeFormatterBuilder[formats.getLength()];
-        for (int i = 0; i < result.length; i++) {
-            result[i] = createFormatter(formats.getDataAt(i), forInput);
+    private static TimeZone getTimeZone(String tz) {
+        if (tz.isEmpty()) {
+            return RContext.getInstance().stateREnvVars.getSystemTimeZone();
+        } else {
+            return TimeZone.getTimeZone(tz);
         }
-        return result;
     }
 
     private static DateTimeFormatterBuilder createFormatter(String format, boolean forInput) {
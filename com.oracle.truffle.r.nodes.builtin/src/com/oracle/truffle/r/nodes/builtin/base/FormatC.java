@@ -104,10 +104,13 @@ public abstract class FormatC extends RBuiltinNode.Arg7 {
 
         String[] result = new String[x.getLength()];
         if ("d".equals(format)) {
-            String form = "%" + flag + width + "d";
+            FormatSpec form = FormatSpec.parse("%" + flag + width + "d");
             if (type == RType.Integer) {
+                StringBuilder sb = new StringBuilder();
                 for (int i = 0; i < x.getLength(); i++) {
-                    result[i] = String.format(form, x.getDataAtAsObject(i));
+                    sb.setLength(0);
+                    form.format(sb, x.getDataAtAsObject(i));
+                    result[i] = sb.toString();
                 }
             } else {
                 throw error(Message.GENERIC, "'type' must be \"integer\" for  \"d\"-format");
@@ -159,12 +162,17 @@ public abstract class FormatC extends RBuiltinNode.Arg7 {
                         } /* xx != 0 */
                     } /* if(do_fg) for(i..) */
                 } else {
-                    String form = "%" + flag + width + "." + dig + format;
-                    String form2 = "%" + width + "s";
+                    FormatSpec form = FormatSpec.parse("%" + flag + width + "." + dig + format);
+                    FormatSpec form2 = FormatSpec.parse("%" + width + "s");
+                    boolean trim = "g".equals(format) || "f".equals(format);
+                    StringBuilder sb = new StringBuilder();
                     for (int i = 0; i < x.getLength(); i++) {
-                        String str = String.format(form, x.getDataAtAsObject(i));
-                        str = ("g".equals(format) || "f".equals(format)) ? trimZero(str) : str;
-                        result[i] = String.format(form2, str);
+                        sb.setLength(0);
+                        form.format(sb, x.getDataAtAsObject(i));
+                        String str = trim ? trimZero(sb.toString()) : sb.toString();
+                        sb.setLength(0);
+                        form2.format(sb, str);
+                        result[i] = sb.toString();
                     }
                 }
             } else {
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.Locale;
+
+/**
+ * A single Java format conversion ({@code %[flags][width][.precision]conversion}, without an
+ * argument index) that is parsed once and can then be applied to many values. The common cases,
+ * i.e. {@code d} on integers, {@code s} on strings and {@code f} on finite doubles, are written
+ * directly into the given {@link StringBuilder}; all other conversions go through a
+ * {@link Formatter}. No localization is applied in either case.
+ *
+ * Unlike {@link Formatter}, {@code f} is rounded from the exact binary value of the double, as C's
+ * {@code printf} does, e.g. {@code 0.125} gives {@code "0.12"} and {@code 2.675} gives
+ * {@code "2.67"} with precision {@code 2}.
+ */
+final class FormatSpec {
+
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+    /**
+     * Below this limit, scaling a double by a power of ten is off by less than {@code 2^-12}, so
+     * the decision to round up can be made on the scaled value unless it is close to a tie.
+     */
+    private static final double FAST_FIXED_LIMIT = 1e12;
+
+    private final String spec;
+    private final char conversion;
+    private final boolean fast;
+    private final boolean adjustLeft;
+    private final boolean alwaysSign;
+    private final boolean spacePrefix;
+    private final boolean padZero;
+    private final int width;
+    private final int precision;
+
+    private FormatSpec(String spec, char conversion, boolean fast, boolean adjustLeft, boolean alwaysSign, boolean spacePrefix, boolean padZero, int width, int precision) {
+        this.spec = spec;
+        this.conversion = conversion;
+        this.fast = fast;
+        this.adjustLeft = adjustLeft;
+        this.alwaysSign = alwaysSign;
+        this.spacePrefix = spacePrefix;
+        this.padZero = padZero;
+        this.width = width;
+        this.precision = precision;
+    }
+
+    String getSpec() {
+        return spec;
+    }
+
+    static FormatSpec parse(String spec) {
+        int len = spec.length();
+        if (len < 2 || spec.charAt(0) != '%') {
+            return generic(spec);
+        }
+        boolean adjustLeft = false;
+        boolean alwaysSign = false;
+        boolean spacePrefix = false;
+        boolean padZero = false;
+        int i = 1;
+        flags: while (i < len) {
+            boolean duplicate;
+            switch (spec.charAt(i)) {
+                case '-':
+                    duplicate = adjustLeft;
+                    adjustLeft = true;
+                    break;
+                case '+':
+                    duplicate = alwaysSign;
+                    alwaysSign = true;
+                    break;
+                case ' ':
+                    duplicate = spacePrefix;
+                    spacePrefix = true;
+                    break;
+                case '0':
+                    duplicate = padZero;
+                    padZero = true;
+                    break;
+                case '#':
+                case ',':
+                case '(':
+                    // rarely used, left to the formatter
+                    return generic(spec);
+                default:
+                    break flags;
+            }
+            if (duplicate) {
+                return generic(spec);
+            }
+            i++;
+        }
+        int width = -1;
+        int start = i;
+        while (i < len && isDigit(spec.charAt(i))) {
+            i++;
+        }
+        if (i > start) {
+            if (i - start > 9) {
+                return generic(spec);
+            }
+            width = Integer.parseInt(spec.substring(start, i));
+        }
+        int precision = -1;
+        if (i < len && spec.charAt(i) == '.') {
+            start = ++i;
+            while (i < len && isDigit(spec.charAt(i))) {
+                i++;
+            }
+            if (i == start || i - start > 9) {
+                return generic(spec);
+            }
+            precision = Integer.parseInt(spec.substring(start, i));
+        }
+        if (i != len - 1) {
+            return generic(spec);
+        }
+        char conversion = spec.charAt(i);
+        boolean validFlags = !(adjustLeft && padZero) && !(alwaysSign && spacePrefix) && ((!adjustLeft && !padZero) || width >= 0);
+        boolean fast;
+        switch (conversion) {
+            case 'd':
+                fast = validFlags && precision < 0;
+                break;
+            case 'f':
+                fast = validFlags;
+                if (precision < 0) {
+                    precision = 6;
+                }
+                break;
+            case 's':
+                fast = validFlags && !alwaysSign && !spacePrefix && !padZero;
+                break;
+            default:
+                fast = false;
+        }
+        return new FormatSpec(spec, conversion, fast, adjustLeft, alwaysSign, spacePrefix, padZero, width, precision);
+    }
+
+    private static FormatSpec generic(String spec) {
+        return new FormatSpec(spec, '\0', false, false, false, false, false, -1, -1);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Appends {@code value} formatted according to this spec to {@code sb}.
+     *
+     * @throws java.util.IllegalFormatException if the spec is not valid for {@code value}
+     */
+    void format(StringBuilder sb, Object value) {
+        if (fast) {
+            switch (conversion) {
+                case 'd':
+                    if (value instanceof Integer || value instanceof Long) {
+                        long l = ((Number) value).longValue();
+                        appendNumber(sb, l < 0, Long.toString(l), l < 0 ? 1 : 0);
+                        return;
+                    }
+                    break;
+                case 'f':
+                    if (value instanceof Double) {
+                        double d = (Double) value;
+                        if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+                            appendNumber(sb, Double.compare(d, 0.0) < 0, fixed(Math.abs(d), precision), 0);
+                            return;
+                        }
+                    }
+                    break;
+                case 's':
+                    if (!(value instanceof Formattable)) {
+                        String s = String.valueOf(value);
+                        if (precision >= 0 && precision < s.length()) {
+                            s = s.substring(0, precision);
+                        }
+                        appendJustified(sb, s);
+                        return;
+                    }
+                    break;
+            }
+        }
+        new Formatter(sb, (Locale) null).format(spec, value);
+    }
+
+    /**
+     * Appends a sign (as requested by the flags), then {@code digits} (starting at
+     * {@code digitsStart}) zero padded to the width if requested, and justifies the result.
+     */
+    private void appendNumber(StringBuilder sb, boolean negative, String digits, int digitsStart) {
+        int signLength = negative || alwaysSign || spacePrefix ? 1 : 0;
+        int digitsLength = digits.length() - digitsStart;
+        int padding = width - signLength - digitsLength;
+        if (!adjustLeft && !padZero) {
+            appendSpaces(sb, padding);
+        }
+        if (negative) {
+            sb.append('-');
+        } else if (alwaysSign) {
+            sb.append('+');
+        } else if (spacePrefix) {
+            sb.append(' ');
+        }
+        if (padZero) {
+            for (int i = 0; i < padding; i++) {
+                sb.append('0');
+            }
+        }
+        sb.append(digits, digitsStart, digits.length());
+        if (adjustLeft) {
+            appendSpaces(sb, padding);
+        }
+    }
+
+    private void appendJustified(StringBuilder sb, String s) {
+        int padding = width - s.length();
+        if (!adjustLeft) {
+            appendSpaces(sb, padding);
+        }
+        sb.append(s);
+        if (adjustLeft) {
+            appendSpaces(sb, padding);
+        }
+    }
+
+    private static void appendSpaces(StringBuilder sb, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append(' ');
+        }
+    }
+
+    /**
+     * Formats the non-negative finite {@code value} with {@code precision} digits after the decimal
+     * point, rounding ties (of the exact binary value) to even.
+     */
+    static String fixed(double value, int precision) {
+        if (precision < POW10.length) {
+            double scaled = value * POW10[precision];
+            if (scaled < FAST_FIXED_LIMIT) {
+                double floor = Math.floor(scaled);
+                double fraction = scaled - floor;
+                if (Math.abs(fraction - 0.5) > 1e-3) {
+                    long rounded = (long) floor + (fraction > 0.5 ? 1 : 0);
+                    return insertPoint(Long.toString(rounded), precision);
+                }
+            }
+        }
+        return new BigDecimal(value).setScale(precision, RoundingMode.HALF_EVEN).toPlainString();
+    }
+
+    private static String insertPoint(String digits, int precision) {
+        if (precision == 0) {
+            return digits;
+        }
+        int intLength = digits.length() - precision;
+        StringBuilder sb = new StringBuilder(Math.max(digits.length(), precision + 1) + 1);
+        if (intLength <= 0) {
+            sb.append("0.");
+            for (int i = intLength; i < 0; i++) {
+                sb.append('0');
+            }
+            sb.append(digits);
+        } else {
+            sb.append(digits, 0, intLength).append('.').append(digits, intLength, digits.length());
+        }
+        return sb.toString();
+    }
+}
@@ -166,7 +166,7 @@ public class FrameFunctions {
                         }
                     }
                 }
-                return Utils.getStackFrame(access, actualFrame);
+                return Utils.getStackFrame(access, actualFrame, RArguments.getCall(frame));
             }
         }
 
@@ -28,14 +28,42 @@ import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 import static com.oracle.truffle.r.runtime.RVisibility.OFF;
 
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Property;
+import com.oracle.truffle.api.object.Shape;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.conn.StdConnections;
+import com.oracle.truffle.r.runtime.data.NativeDataAccess;
+import com.oracle.truffle.r.runtime.data.RAttributable;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RNull;
-import java.util.Arrays;
+import com.oracle.truffle.r.runtime.data.RPromise;
+import com.oracle.truffle.r.runtime.data.RTypedValue;
+import com.oracle.truffle.r.runtime.data.model.RAbstractListBaseVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.env.REnvironment;
 
 /**
  * Implementation of GC related builtins.
@@ -46,25 +74,191 @@ public final class GcFunctions {
     @RBuiltin(name = "gc", kind = INTERNAL, parameterNames = {"verbose", "reset"}, behavior = COMPLEX)
     public abstract static class Gc extends RBuiltinNode.Arg2 {
 
+        /**
+         * Size of a cons cell in GNU R, native memory is reported in this unit as "Ncells".
+         */
+        private static final int NCELL_SIZE = 56;
+        /**
+         * Size of a vector cell in GNU R, the Java heap is reported in this unit as "Vcells".
+         */
+        private static final int VCELL_SIZE = 8;
+        private static final double MEGA = 1024 * 1024;
+
         static {
             Casts casts = new Casts(Gc.class);
             casts.arg("verbose").asLogicalVector().findFirst().map(toBoolean());
             casts.arg("reset").asLogicalVector().findFirst().map(toBoolean());
         }
 
-        @SuppressWarnings("unused")
+        /**
+         * Returns the 2x7 matrix (column-major) of GNU R's {@code gc()}, i.e. used, used (Mb), gc
+         * trigger, gc trigger (Mb), limit (Mb), max used and max used (Mb) of Ncells and Vcells.
+         * Vcells stand for the Java heap with the committed memory as the trigger and the maximum
+         * heap size as the limit. Ncells stand for the memory allocated for native copies of
+         * vectors, which has neither a trigger nor a limit.
+         */
         @Specialization
+        @TruffleBoundary
         protected RDoubleVector gc(boolean verbose, boolean reset) {
-            /*
-             * It is rarely advisable to actually force a gc in Java, therefore we simply ignore
-             * this builtin.
-             */
-            // TODO: somehow produce the (semi?) correct values
+            if (FastROptions.GcCollect.getBooleanValue()) {
+                System.gc();
+            }
+            if (reset) {
+                NativeDataAccess.resetMaxNativeBytes();
+            }
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            long heapUsed = heap.getUsed();
+            long heapMaxUsed = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                    if (reset) {
+                        pool.resetPeakUsage();
+                    }
+                    MemoryUsage peak = pool.getPeakUsage();
+                    if (peak != null) {
+                        heapMaxUsed += peak.getUsed();
+                    }
+                }
+            }
+            heapMaxUsed = Math.max(heapMaxUsed, heapUsed);
+            long nativeUsed = NativeDataAccess.getNativeBytes();
+            long nativeMaxUsed = Math.max(NativeDataAccess.getMaxNativeBytes(), nativeUsed);
+
             double[] data = new double[14];
             Arrays.fill(data, RRuntime.DOUBLE_NA);
+            data[0] = cells(nativeUsed, NCELL_SIZE);
+            data[1] = cells(heapUsed, VCELL_SIZE);
+            data[2] = megabytes(nativeUsed);
+            data[3] = megabytes(heapUsed);
+            data[5] = cells(heap.getCommitted(), VCELL_SIZE);
+            data[7] = megabytes(heap.getCommitted());
+            if (heap.getMax() != -1) {
+                data[9] = megabytes(heap.getMax());
+            }
+            data[10] = cells(nativeMaxUsed, NCELL_SIZE);
+            data[11] = cells(heapMaxUsed, VCELL_SIZE);
+            data[12] = megabytes(nativeMaxUsed);
+            data[13] = megabytes(heapMaxUsed);
+            if (verbose) {
+                printCollectors();
+            }
             return RDataFactory.createDoubleVector(data, RDataFactory.INCOMPLETE_VECTOR);
         }
 
+        private static double cells(long bytes, int cellSize) {
+            return (bytes + cellSize - 1) / cellSize;
+        }
+
+        private static double megabytes(long bytes) {
+            // rounded up to 0.1Mb as GNU R does
+            return Math.ceil(10 * bytes / MEGA) / 10;
+        }
+
+        private void printCollectors() {
+            try {
+                for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                    StdConnections.getStderr().writeString(String.format("Garbage collector '%s': %d collections, %d ms", collector.getName(), collector.getCollectionCount(),
+                                    collector.getCollectionTime()), true);
+                }
+            } catch (IOException ex) {
+                throw RError.ioError(this, ex);
+            }
+        }
+    }
+
+    /**
+     * Counts the objects by type that are reachable from the global environment, i.e. the values in
+     * the environments of the search path and, transitively, their attributes, elements, evaluated
+     * promises and the enclosing environments of closures. Unlike GNU R, which counts all the
+     * allocated cells, unreachable objects are not included, because the Java heap cannot be
+     * walked.
+     */
+    @RBuiltin(name = "memory.profile", kind = INTERNAL, parameterNames = {}, behavior = COMPLEX)
+    public abstract static class MemoryProfile extends RBuiltinNode.Arg0 {
+
+        private static final String[] TYPES = {"NULL", "symbol", "pairlist", "closure", "environment", "promise", "language", "special", "builtin", "char", "logical", "integer", "double",
+                        "complex", "character", "...", "any", "list", "expression", "bytecode", "externalptr", "weakref", "raw", "S4"};
+        private static final int CHAR = 9;
+
+        @Specialization
+        @TruffleBoundary
+        protected RIntVector memoryProfile() {
+            int[] counts = new int[TYPES.length];
+            ArrayDeque<Object> stack = new ArrayDeque<>();
+            Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            stack.push(REnvironment.globalEnv());
+            visited.add(REnvironment.globalEnv());
+            while (!stack.isEmpty()) {
+                Object obj = stack.pop();
+                if (obj instanceof String) {
+                    counts[CHAR]++;
+                    continue;
+                }
+                if (!(obj instanceof RTypedValue)) {
+                    continue;
+                }
+                int index = typeIndex(((RTypedValue) obj).getRType().getName());
+                if (index != -1) {
+                    counts[index]++;
+                }
+                pushReferences(stack, visited, obj);
+            }
+            return RDataFactory.createIntVector(counts, RDataFactory.COMPLETE_VECTOR, RDataFactory.createStringVector(TYPES, RDataFactory.COMPLETE_VECTOR));
+        }
+
+        private static int typeIndex(String name) {
+            for (int i = 0; i < TYPES.length; i++) {
+                if (TYPES[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static void pushReferences(ArrayDeque<Object> stack, Set<Object> visited, Object obj) {
+            if (obj instanceof RAttributable) {
+                DynamicObject attrs = ((RAttributable) obj).getAttributes();
+                if (attrs != null) {
+                    Shape shape = attrs.getShape();
+                    for (Property prop : shape.getProperties()) {
+                        push(stack, visited, prop.get(attrs, shape));
+                    }
+                }
+            }
+            if (obj instanceof RAbstractListBaseVector) {
+                RAbstractListBaseVector list = (RAbstractListBaseVector) obj;
+                for (int i = 0; i < list.getLength(); i++) {
+                    push(stack, visited, list.getDataAt(i));
+                }
+            } else if (obj instanceof RAbstractStringVector) {
+                RAbstractStringVector strings = (RAbstractStringVector) obj;
+                for (int i = 0; i < strings.getLength(); i++) {
+                    push(stack, visited, strings.getDataAt(i));
+                }
+            } else if (obj instanceof REnvironment) {
+                REnvironment env = (REnvironment) obj;
+                for (String name : env.ls(true, null, false).getReadonlyData()) {
+                    push(stack, visited, env.get(name));
+                }
+                push(stack, visited, env.getParent());
+            } else if (obj instanceof RFunction) {
+                MaterializedFrame enclosing = ((RFunction) obj).getEnclosingFrame();
+                if (enclosing != null) {
+                    push(stack, visited, REnvironment.frameToEnvironment(enclosing));
+                }
+            } else if (obj instanceof RPromise) {
+                RPromise promise = (RPromise) obj;
+                if (promise.isEvaluated()) {
+                    push(stack, visited, promise.getValue());
+                }
+            }
+        }
+
+        private static void push(ArrayDeque<Object> stack, Set<Object> visited, Object obj) {
+            if (obj != null && visited.add(obj)) {
+                stack.push(obj);
+            }
+        }
     }
 
     @RBuiltin(name = "gctorture", visibility = OFF, kind = INTERNAL, parameterNames = "on", behavior = PURE)
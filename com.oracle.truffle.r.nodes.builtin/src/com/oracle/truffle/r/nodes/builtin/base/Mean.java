@@ -37,11 +37,14 @@ import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess.SequentialIterator;
+import com.oracle.truffle.r.runtime.ops.ParallelReduce;
 
 @ImportStatic(RType.class)
 @RBuiltin(name = "mean", kind = INTERNAL, parameterNames = {"x"}, dispatch = INTERNAL_GENERIC, behavior = PURE_SUMMARY)
 public abstract class Mean extends RBuiltinNode.Arg1 {
 
+    private final ConditionProfile parallelProfile = ConditionProfile.createBinaryProfile();
+
     static {
         Casts.noCasts(Mean.class);
     }
@@ -50,6 +53,9 @@ public abstract class Mean extends RBuiltinNode.Arg1 {
     protected double meanDoubleCached(RAbstractVector x,
                     @Cached("x.access()") VectorAccess access,
                     @Cached("createBinaryProfile()") ConditionProfile emptyProfile) {
+        if (parallelProfile.profile(ParallelReduce.isApplicable(x))) {
+            return ParallelReduce.mean(x);
+        }
         try (SequentialIterator iter = access.access(x)) {
             if (emptyProfile.profile(!access.next(iter))) {
                 return Double.NaN;
@@ -30,6 +30,7 @@ import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess;
 import com.oracle.truffle.r.runtime.data.nodes.VectorAccess.SequentialIterator;
 import com.oracle.truffle.r.runtime.ops.BinaryArithmetic;
+import com.oracle.truffle.r.runtime.ops.ParallelReduce;
 
 @ImportStatic(RType.class)
 @RBuiltin(name = "prod", kind = PRIMITIVE, parameterNames = {"...", "na.rm"}, dispatch = SUMMARY_GROUP_GENERIC, behavior = PURE_SUMMARY)
@@ -158,6 +159,10 @@ public abstract class Prod extends RBuiltinNode.Arg2 {
     }
 
     protected static double prodDouble(Object v, VectorAccess access, boolean naRm) {
+        if (ParallelReduce.isApplicable(v)) {
+            ParallelReduce.Partial partial = ParallelReduce.reduce(ParallelReduce.Kind.PROD, v, naRm, false);
+            return partial.isNA() ? RRuntime.DOUBLE_NA : partial.getDoubleValue();
+        }
         try (SequentialIterator iter = access.access(v)) {
             double value = 1;
             while (access.next(iter)) {
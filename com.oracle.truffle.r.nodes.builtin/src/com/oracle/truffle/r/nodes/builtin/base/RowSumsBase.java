@@ -29,6 +29,7 @@ import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.ops.BinaryArithmetic;
+import com.oracle.truffle.r.runtime.ops.ParallelMatrixSums;
 import com.oracle.truffle.r.runtime.ops.na.NACheck;
 
 /**
@@ -60,6 +61,10 @@ public abstract class RowSumsBase extends ColSumsBase {
 
     protected final <T extends RAbstractVector> RDoubleVector accumulateRows(T x, int rowNum, int colNum, boolean naRm, FinalTransform finalTransform, RowSumsBase.GetFunction<T> get) {
         reportWork(x.getLength());
+        if (useParallel(x)) {
+            checkVectorLength(x, rowNum, colNum);
+            return ParallelMatrixSums.rowSums(x, rowNum, colNum, naRm, finalTransform::get);
+        }
         double[] result = new double[rowNum];
         na.enable(x);
         outerProfile.profileCounted(rowNum / 4);
@@ -26,8 +26,8 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.PURE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
+import java.util.ArrayList;
 import java.util.IllegalFormatException;
-import java.util.Locale;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -296,89 +296,171 @@ public abstract class Sprintf extends RBuiltinNode.Arg2 {
     }
 
     private String format(String fmt, Object... args) {
+        CompiledFormat compiled = compile(fmt);
         char[] conversions = new char[args.length];
-        String format = processFormat(fmt, args, conversions);
+        FormatSpec[] specs = new FormatSpec[compiled.conversions.length];
+        for (int k = 0; k < specs.length; k++) {
+            Conversion c = compiled.conversions[k];
+            FormatInfo fi = c.info;
+            if (fi.numArg > conversions.length) {
+                throw error(Message.TOO_FEW_ARGUMENTS);
+            }
+            Object arg = args[fi.numArg - 1];
+            char conversion = fi.conversion;
+            boolean alwaysSign = fi.alwaysSign;
+            boolean padZero = fi.padZero;
+            boolean constant = c.spec != null;
+            if (isNA(arg)) {
+                conversion = 's';
+                padZero = false;
+                alwaysSign = false;
+                args[fi.numArg - 1] = "NA";
+                constant = false;
+            }
+            if (Character.toLowerCase(conversion) == 'g' && arg instanceof Number && !(arg instanceof Double)) {
+                // Only for g/G type and numeric value other than doubles (including logical)
+                // the type is converted to 'd', which discards any decimal points even if
+                // requested by the formatting command. Otherwise method 'adjustValues' takes
+                // care of converting the value to Double (e.g. for 'f').
+                conversion = 'd';
+                constant = false;
+            }
+            conversions[fi.numArg - 1] = conversion;
+            specs[k] = constant ? c.spec : c.getSpec(javaSpec(fi, conversion, alwaysSign, padZero, args));
+        }
         adjustValues(args, conversions);
-        return stringFormat(format, fmt, args);
+        return stringFormat(compiled, specs, args);
+    }
+
+    /**
+     * A format string parsed into literal text and conversions. Formatting a vector element then
+     * only has to pick the argument values and append the pieces, instead of translating and
+     * parsing the whole format string again.
+     */
+    private static final class CompiledFormat {
+        private final String fmt;
+        /**
+         * Literal text ({@link String}) and conversions ({@link Conversion}) in order.
+         */
+        private final Object[] segments;
+        private final Conversion[] conversions;
+
+        CompiledFormat(String fmt, Object[] segments, Conversion[] conversions) {
+            this.fmt = fmt;
+            this.segments = segments;
+            this.conversions = conversions;
+        }
+    }
+
+    private static final class Conversion {
+        private final FormatInfo info;
+        /**
+         * The spec used when neither the width nor the precision is given by an argument and the
+         * value does not force a different conversion, {@code null} if the width or precision is
+         * given by an argument.
+         */
+        private final FormatSpec spec;
+        private FormatSpec lastSpec;
+
+        Conversion(FormatInfo info, FormatSpec spec) {
+            this.info = info;
+            this.spec = spec;
+        }
+
+        FormatSpec getSpec(String javaSpec) {
+            FormatSpec result = lastSpec;
+            if (result == null || !result.getSpec().equals(javaSpec)) {
+                result = FormatSpec.parse(javaSpec);
+                lastSpec = result;
+            }
+            return result;
+        }
     }
 
-    private String processFormat(String fmt, Object[] args, char[] conversions) {
+    private CompiledFormat lastFormat;
+
+    private CompiledFormat compile(String fmt) {
+        CompiledFormat result = lastFormat;
+        if (result == null || !result.fmt.equals(fmt)) {
+            result = parseFormat(fmt);
+            lastFormat = result;
+        }
+        return result;
+    }
+
+    private static CompiledFormat parseFormat(String fmt) {
         int i = 0;
         char[] cs = fmt.toCharArray();
-        StringBuilder sb = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        ArrayList<Object> segments = new ArrayList<>();
+        ArrayList<Conversion> conversions = new ArrayList<>();
         int argc = 1;
 
         while (i < cs.length) {
             // skip up to and including next %
             while (i < cs.length && cs[i] != '%') {
-                sb.append(cs[i++]);
+                literal.append(cs[i++]);
             }
             if (i == cs.length) {
                 break;
             }
-            sb.append(cs[i++]);
+            i++;
 
             FormatInfo fi = extractFormatInfo(cs, i, argc);
             argc = fi.argc;
-            if (fi.conversion != '%') {
-                if (fi.numArg > conversions.length) {
-                    throw error(Message.TOO_FEW_ARGUMENTS);
-                }
-                Object arg = args[fi.numArg - 1];
-                if (isNA(arg)) {
-                    fi.conversion = 's';
-                    fi.padZero = false;
-                    fi.alwaysSign = false;
-                    args[fi.numArg - 1] = "NA";
-                }
-                // take care of width/precision being defined by args
-                int w = 0;
-                int p = 0;
-                if (fi.width >= 0 || fi.widthIsArg) {
-                    w = fi.widthIsArg ? intValue(args[fi.width - 1]) : fi.width;
-                }
-                if (fi.precision >= 0 || fi.precisionIsArg) {
-                    p = fi.precisionIsArg ? intValue(args[fi.precision - 1]) : fi.precision;
-                }
-                // which argument to print
-                sb.append(intString(fi.numArg)).append('$');
-                // flags
-                if (fi.adjustLeft) {
-                    sb.append('-');
-                }
-                if (fi.alwaysSign) {
-                    sb.append('+');
-                }
-                if (fi.alternate) {
-                    sb.append('#');
-                }
-                if (fi.padZero) {
-                    sb.append('0');
-                }
-                if (fi.spacePrefix) {
-                    sb.append(' ');
-                }
-                // width and precision
-                if (fi.width >= 0 || fi.widthIsArg) {
-                    sb.append(intString(w));
-                }
-                if (fi.precision >= 0 || fi.precisionIsArg) {
-                    sb.append('.').append(intString(p));
+            if (fi.conversion == '%') {
+                literal.append('%');
+            } else {
+                if (literal.length() > 0) {
+                    segments.add(literal.toString());
+                    literal.setLength(0);
                 }
-                if (Character.toLowerCase(fi.conversion) == 'g' && arg instanceof Number && !(arg instanceof Double)) {
-                    // Only for g/G type and numeric value other than doubles (including logical)
-                    // the type is converted to 'd', which discards any decimal points even if
-                    // requested by the formatting command. Otherwise method 'adjustValues' takes
-                    // care of converting the value to Double (e.g. for 'f').
-                    fi.conversion = 'd';
+                FormatSpec spec = null;
+                if (!fi.widthIsArg && !fi.precisionIsArg) {
+                    spec = FormatSpec.parse(javaSpec(fi, fi.conversion, fi.alwaysSign, fi.padZero, null));
                 }
-                conversions[fi.numArg - 1] = fi.conversion;
+                Conversion conversion = new Conversion(fi, spec);
+                segments.add(conversion);
+                conversions.add(conversion);
             }
-            sb.append(fi.conversion);
             i = fi.nextChar;
         }
+        if (literal.length() > 0) {
+            segments.add(literal.toString());
+        }
+        return new CompiledFormat(fmt, segments.toArray(), conversions.toArray(new Conversion[conversions.size()]));
+    }
 
-        return sb.toString();
+    /**
+     * Translates a conversion to a Java format specifier (without argument index), taking the
+     * width and precision from {@code args} if the format says so.
+     */
+    private static String javaSpec(FormatInfo fi, char conversion, boolean alwaysSign, boolean padZero, Object[] args) {
+        StringBuilder sb = new StringBuilder().append('%');
+        // flags
+        if (fi.adjustLeft) {
+            sb.append('-');
+        }
+        if (alwaysSign) {
+            sb.append('+');
+        }
+        if (fi.alternate) {
+            sb.append('#');
+        }
+        if (padZero) {
+            sb.append('0');
+        }
+        if (fi.spacePrefix) {
+            sb.append(' ');
+        }
+        // width and precision
+        if (fi.width >= 0 || fi.widthIsArg) {
+            sb.append(fi.widthIsArg ? intValue(args[fi.width - 1]) : fi.width);
+        }
+        if (fi.precision >= 0 || fi.precisionIsArg) {
+            sb.append('.').append(fi.precisionIsArg ? intValue(args[fi.precision - 1]) : fi.precision);
+        }
+        return sb.append(conversion).toString();
     }
 
     private static boolean isNA(Object val) {
@@ -399,11 +481,6 @@ public abstract class Sprintf extends RBuiltinNode.Arg2 {
         }
     }
 
-    @TruffleBoundary
-    private static String intString(int x) {
-        return Integer.toString(x);
-    }
-
     private static char firstFormatChar(String fmt) {
         int pos = 0;
         char f;
@@ -423,13 +500,23 @@ public abstract class Sprintf extends RBuiltinNode.Arg2 {
     }
 
     @TruffleBoundary
-    private static String stringFormat(String format, String originalFormat, Object[] args) {
-        try {
-            return String.format((Locale) null, format, args);
-        } catch (IllegalFormatException ex) {
-            String message = String.format("Error in Java format String '%s', R format string was '%s'.", format, originalFormat);
-            throw RInternalError.shouldNotReachHere(ex, message);
+    private static String stringFormat(CompiledFormat compiled, FormatSpec[] specs, Object[] args) {
+        StringBuilder sb = new StringBuilder(compiled.fmt.length() + 16);
+        int k = 0;
+        for (Object segment : compiled.segments) {
+            if (segment instanceof String) {
+                sb.append((String) segment);
+            } else {
+                FormatSpec spec = specs[k++];
+                try {
+                    spec.format(sb, args[((Conversion) segment).info.numArg - 1]);
+                } catch (IllegalFormatException ex) {
+                    String message = String.format("Error in Java format String '%s', R format string was '%s'.", spec.getSpec(), compiled.fmt);
+                    throw RInternalError.shouldNotReachHere(ex, message);
+                }
+            }
         }
+        return sb.toString();
     }
 
     private void adjustValues(Object[] args, char[] conversions) {
@@ -76,6 +76,8 @@ import com.oracle.truffle.r.runtime.builtins.RBuiltin;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RInteropScalar;
 import com.oracle.truffle.r.runtime.data.RInteropScalar.RInteropByte;
 import com.oracle.truffle.r.runtime.data.RInteropScalar.RInteropChar;
@@ -632,27 +634,40 @@ public class FastRInterop {
 
         @Specialization
         @TruffleBoundary
-        public Object toArray(RAbstractIntVector vec, @SuppressWarnings("unused") RMissing className, boolean flat,
-                        @Cached("createR2Foreign()") R2Foreign r2Foreign) {
-            return toArray(vec, flat, int.class, (array, i) -> Array.set(array, i, r2Foreign.execute(vec.getDataAt(i))));
+        public Object toArray(RAbstractIntVector vec, @SuppressWarnings("unused") RMissing className, boolean flat) {
+            if (isOneDimensional(flat, vec)) {
+                return JavaInterop.asTruffleObject(copyIntData(vec));
+            }
+            return toArray(vec, flat, int.class, (array, i) -> Array.set(array, i, vec.getDataAt(i)));
         }
 
         @Specialization
         @TruffleBoundary
         public Object toArray(RAbstractIntVector vec, String className, boolean flat) {
-            return toArray(vec, flat, getClazz(className), (array, i) -> Array.set(array, i, vec.getDataAt(i)));
+            Class<?> clazz = getClazz(className);
+            if (clazz == int.class && isOneDimensional(flat, vec)) {
+                return JavaInterop.asTruffleObject(copyIntData(vec));
+            }
+            return toArray(vec, flat, clazz, (array, i) -> Array.set(array, i, vec.getDataAt(i)));
         }
 
         @Specialization
         @TruffleBoundary
         public Object toArray(RAbstractDoubleVector vec, @SuppressWarnings("unused") RMissing className, boolean flat) {
+            if (isOneDimensional(flat, vec)) {
+                return JavaInterop.asTruffleObject(copyDoubleData(vec));
+            }
             return toArray(vec, flat, double.class, (array, i) -> Array.set(array, i, vec.getDataAt(i)));
         }
 
         @Specialization
         @TruffleBoundary
         public Object toArray(RAbstractDoubleVector vec, String className, boolean flat) {
-            return toArray(vec, flat, getClazz(className), (array, i) -> Array.set(array, i, vec.getDataAt(i)));
+            Class<?> clazz = getClazz(className);
+            if (clazz == double.class && isOneDimensional(flat, vec)) {
+                return JavaInterop.asTruffleObject(copyDoubleData(vec));
+            }
+            return toArray(vec, flat, clazz, (array, i) -> Array.set(array, i, vec.getDataAt(i)));
         }
 
         @Specialization
@@ -726,6 +741,41 @@ public class FastRInterop {
             return dims;
         }
 
+        private static boolean isOneDimensional(boolean flat, RAbstractVector vec) {
+            return getDim(flat, vec).length == 1;
+        }
+
+        /**
+         * Copies the vector data into a fresh {@code int[]} with a single bulk copy instead of
+         * reflectively setting each element. The Java side may write into the array, so it must
+         * never alias the backing store of an R vector. Sequences and foreign wrappers have no
+         * backing array and are read element-wise into the fresh one.
+         */
+        private static int[] copyIntData(RAbstractIntVector vec) {
+            if (vec instanceof RIntVector) {
+                return ((RIntVector) vec).getDataCopy();
+            }
+            int[] result = new int[vec.getLength()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = vec.getDataAt(i);
+            }
+            return result;
+        }
+
+        /**
+         * @see #copyIntData(RAbstractIntVector)
+         */
+        private static double[] copyDoubleData(RAbstractDoubleVector vec) {
+            if (vec instanceof RDoubleVector) {
+                return ((RDoubleVector) vec).getDataCopy();
+            }
+            double[] result = new double[vec.getLength()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = vec.getDataAt(i);
+            }
+            return result;
+        }
+
         private static Object toArray(RAbstractVector vec, boolean flat, Class<?> clazz, VecElementToArray vecToArray) throws IllegalArgumentException, ArrayIndexOutOfBoundsException {
             int[] dims = getDim(flat, vec);
             final Object array = Array.newInstance(clazz, dims);
@@ -810,6 +860,11 @@ public class FastRInterop {
                         @Cached("HAS_SIZE.createNode()") Node hasSize,
                         @Cached("create()") ForeignArray2R array2R) {
             if (isArrayProfile.profile(ForeignAccess.sendHasSize(hasSize, obj))) {
+                // primitive arrays are wrapped without copying only on this explicit request
+                RAbstractVector wrapped = ForeignArray2R.wrapJavaPrimitiveArray(obj, false);
+                if (wrapped != null) {
+                    return wrapped;
+                }
                 return array2R.convert(obj);
             } else {
                 throw error(RError.Message.GENERIC, "not a java array");
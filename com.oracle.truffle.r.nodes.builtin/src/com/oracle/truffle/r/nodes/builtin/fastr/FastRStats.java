@@ -22,6 +22,7 @@
  */
 package com.oracle.truffle.r.nodes.builtin.fastr;
 
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.gt;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
 import static com.oracle.truffle.r.runtime.RVisibility.OFF;
@@ -32,6 +33,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedMap;
@@ -52,11 +54,16 @@ import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.AttributeTracer;
 import com.oracle.truffle.r.runtime.data.AttributeTracer.Change;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.data.RTypedValue;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.instrument.CallMetrics;
 import com.oracle.truffle.r.runtime.instrument.InstrumentationState.RprofState;
+import com.oracle.truffle.r.runtime.instrument.sampler.RSampler;
+import com.oracle.truffle.r.runtime.instrument.sampler.RSamplerInstrument;
 import com.oracle.truffle.tools.Profiler;
 import com.oracle.truffle.tools.Profiler.Counter.TimeKind;
 
@@ -435,4 +442,164 @@ public class FastRStats {
             }
         }
     }
+
+    /**
+     * Starts/stops the sampling profiler in "folded stacks" mode, i.e. one line per distinct
+     * stack with the number of samples taken in it, which is the input format of the usual flame
+     * graph tools. On stop, returns the number of samples whose innermost frame was compiled and
+     * interpreted respectively.
+     */
+    @RBuiltin(name = ".fastr.prof.sample", visibility = OFF, kind = PRIMITIVE, parameterNames = {"filename", "interval", "line.profiling", "gc.profiling"}, behavior = COMPLEX)
+    public abstract static class FastRProfSample extends RBuiltinNode.Arg4 {
+        @Override
+        public Object[] getDefaultParameterValues() {
+            return new Object[]{"Rprof.folded", 0.01, RRuntime.LOGICAL_FALSE, RRuntime.LOGICAL_FALSE};
+        }
+
+        static {
+            Casts casts = new Casts(FastRProfSample.class);
+            CastsHelper.filename(casts);
+            casts.arg("interval").asDoubleVector().findFirst().mustBe(gt(0.0));
+            casts.arg("line.profiling").asLogicalVector().findFirst().mustNotBeNA().map(toBoolean());
+            casts.arg("gc.profiling").asLogicalVector().findFirst().mustNotBeNA().map(toBoolean());
+        }
+
+        @SuppressWarnings("unused")
+        @Specialization
+        @TruffleBoundary
+        protected Object profSample(RNull filenameVec, double interval, boolean lineProfiling, boolean gcProfiling) {
+            return endProfiling();
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected Object profSample(RAbstractStringVector filenameVec, double interval, boolean lineProfiling, boolean gcProfiling) {
+            if (filenameVec.getLength() == 0) {
+                return endProfiling();
+            }
+            RSampler sampler = getSampler();
+            try {
+                sampler.start(new RSampler.Config(null, false, filenameVec.getDataAt(0), (long) (1E6 * interval), lineProfiling, false, gcProfiling), 0);
+            } catch (IOException ex) {
+                throw error(RError.Message.GENERIC, String.format(".fastr.prof.sample: cannot open profile file '%s'", filenameVec.getDataAt(0)));
+            }
+            return RNull.instance;
+        }
+
+        private Object endProfiling() {
+            RSampler sampler = getSampler();
+            if (!sampler.isActive()) {
+                return RNull.instance;
+            }
+            sampler.stop();
+            double[] data = new double[]{sampler.getCompiledSamples(), sampler.getInterpretedSamples()};
+            RStringVector names = RDataFactory.createStringVector(new String[]{"compiled", "interpreted"}, RDataFactory.COMPLETE_VECTOR);
+            return RDataFactory.createDoubleVector(data, RDataFactory.COMPLETE_VECTOR, names);
+        }
+
+        private RSampler getSampler() {
+            RSampler sampler = RSamplerInstrument.getSampler(RContext.getInstance());
+            if (sampler == null) {
+                throw error(RError.Message.GENERIC, "sampling profiler is not available");
+            }
+            return sampler;
+        }
+    }
+
+    /**
+     * Enables/disables the collection of {@link CallMetrics}. If a file name is given, the metrics
+     * are also written to that file every {@code interval} seconds and when disabled.
+     */
+    @RBuiltin(name = ".fastr.stats.calls", visibility = OFF, kind = PRIMITIVE, parameterNames = {"enable", "filename", "interval"}, behavior = COMPLEX)
+    public abstract static class FastRStatsCalls extends RBuiltinNode.Arg3 {
+        @Override
+        public Object[] getDefaultParameterValues() {
+            return new Object[]{RRuntime.LOGICAL_TRUE, RNull.instance, 60};
+        }
+
+        static {
+            Casts casts = new Casts(FastRStatsCalls.class);
+            casts.arg("enable").asLogicalVector().findFirst().mustNotBeNA().map(toBoolean());
+            CastsHelper.filename(casts);
+            casts.arg("interval").asIntegerVector().findFirst().mustNotBeNA();
+        }
+
+        @SuppressWarnings("unused")
+        @Specialization
+        @TruffleBoundary
+        protected RNull statsCalls(boolean enable, RNull filenameVec, int interval) {
+            return setEnabled(enable, null, interval);
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RNull statsCalls(boolean enable, RAbstractStringVector filenameVec, int interval) {
+            return setEnabled(enable, filenameVec.getLength() == 0 ? null : filenameVec.getDataAt(0), interval);
+        }
+
+        private static RNull setEnabled(boolean enable, String filename, int interval) {
+            if (enable) {
+                CallMetrics.start(filename, interval);
+            } else {
+                CallMetrics.stop();
+            }
+            return RNull.instance;
+        }
+    }
+
+    /**
+     * Returns the {@link CallMetrics} collected so far as a data frame, sorted by self time. Times
+     * are in milliseconds.
+     */
+    @RBuiltin(name = ".fastr.stats.calls.data", kind = PRIMITIVE, parameterNames = {"reset"}, behavior = COMPLEX)
+    public abstract static class FastRStatsCallsData extends RBuiltinNode.Arg1 {
+        private static final String[] COLUMNS = new String[]{"name", "kind", "calls", "self.time", "total.time", "allocated", "deopts"};
+
+        @Override
+        public Object[] getDefaultParameterValues() {
+            return new Object[]{RRuntime.LOGICAL_FALSE};
+        }
+
+        static {
+            Casts casts = new Casts(FastRStatsCallsData.class);
+            casts.arg("reset").asLogicalVector().findFirst().mustNotBeNA().map(toBoolean());
+        }
+
+        @Specialization
+        @TruffleBoundary
+        protected RList statsCallsData(boolean reset) {
+            Collection<CallMetrics.Snapshot> snapshots = CallMetrics.snapshot();
+            if (reset) {
+                CallMetrics.reset();
+            }
+            int n = snapshots.size();
+            String[] names = new String[n];
+            String[] kinds = new String[n];
+            double[] calls = new double[n];
+            double[] selfTime = new double[n];
+            double[] totalTime = new double[n];
+            double[] allocated = new double[n];
+            int[] deopts = new int[n];
+            int i = 0;
+            for (CallMetrics.Snapshot snapshot : snapshots) {
+                names[i] = snapshot.name;
+                kinds[i] = snapshot.kind;
+                calls[i] = snapshot.calls;
+                selfTime[i] = snapshot.selfNanos / 1E6;
+                totalTime[i] = snapshot.totalNanos / 1E6;
+                allocated[i] = snapshot.allocated;
+                deopts[i] = (int) Math.min(snapshot.deopts, Integer.MAX_VALUE);
+                i++;
+            }
+            Object[] columns = new Object[]{RDataFactory.createStringVector(names, RDataFactory.COMPLETE_VECTOR), RDataFactory.createStringVector(kinds, RDataFactory.COMPLETE_VECTOR),
+                            RDataFactory.createDoubleVector(calls, RDataFactory.COMPLETE_VECTOR), RDataFactory.createDoubleVector(selfTime, RDataFactory.COMPLETE_VECTOR),
+                            RDataFactory.createDoubleVector(totalTime, RDataFactory.COMPLETE_VECTOR), RDataFactory.createDoubleVector(allocated, RDataFactory.COMPLETE_VECTOR),
+                            RDataFactory.createIntVector(deopts, RDataFactory.COMPLETE_VECTOR)};
+            RList result = RDataFactory.createList(columns, RDataFactory.createStringVector(COLUMNS, RDataFactory.COMPLETE_VECTOR));
+            result.setClassAttr(RDataFactory.createStringVectorFromScalar(RRuntime.CLASS_DATA_FRAME));
+            // compact row names, as used by GNU R for automatic row names
+            result.setRowNames(RDataFactory.createIntVector(new int[]{RRuntime.INT_NA, -n}, RDataFactory.INCOMPLETE_VECTOR));
+            return result;
+        }
+    }
 }
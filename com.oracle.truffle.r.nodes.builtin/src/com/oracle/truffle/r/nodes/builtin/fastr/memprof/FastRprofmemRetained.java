@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.fastr.memprof;
+
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.eq;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.singleElement;
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.IO;
+import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
+
+import java.util.List;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RList;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.instrument.memprof.MemAllocProfilerRetention.Row;
+import com.oracle.truffle.r.runtime.instrument.memprof.MemAllocProfilerRetention.Snapshot;
+import com.oracle.truffle.r.runtime.instrument.memprof.MemAllocProfilerStacks;
+
+/**
+ * Reports the estimated live bytes per allocation site or per R type as a data frame. If a
+ * snapshot taken by {@code .fastr.profmem.retained.snapshot} is given, only the sites whose live
+ * bytes grew since the snapshot are reported, together with the growth.
+ */
+@RBuiltin(name = ".fastr.profmem.retained", kind = PRIMITIVE, parameterNames = {"by", "gc", "since"}, behavior = IO)
+public abstract class FastRprofmemRetained extends RBuiltinNode.Arg3 {
+
+    private static final String NOT_A_SNAPSHOT = "'since' must be a snapshot taken by .fastr.profmem.retained.snapshot";
+
+    static {
+        Casts casts = new Casts(FastRprofmemRetained.class);
+        casts.arg("by").asStringVector().mustBe(singleElement()).findFirst().mustBe(eq("site").or(eq("type")));
+        casts.arg("gc").asLogicalVector().mustBe(singleElement()).findFirst().map(toBoolean());
+        casts.arg("since").allowNull().mustBe(TruffleObject.class, RError.Message.GENERIC, NOT_A_SNAPSHOT);
+    }
+
+    @Override
+    public Object[] getDefaultParameterValues() {
+        return new Object[]{"site", RRuntime.LOGICAL_TRUE, RNull.instance};
+    }
+
+    @Specialization
+    @TruffleBoundary
+    public RList doRetained(String by, boolean gc, @SuppressWarnings("unused") RNull since) {
+        Snapshot now = MemAllocProfilerStacks.getInstance().getRetention().snapshot(gc);
+        return "type".equals(by) ? toDataFrame(now.getTypes(), false) : toDataFrame(now.getSites(), true);
+    }
+
+    @Specialization
+    @TruffleBoundary
+    public RList doRetained(String by, boolean gc, TruffleObject since) {
+        if (!Snapshot.isSnapshot(since)) {
+            // any R value is a TruffleObject
+            throw error(RError.Message.GENERIC, NOT_A_SNAPSHOT);
+        }
+        if ("type".equals(by)) {
+            throw error(RError.Message.GENERIC, "growth since a snapshot is reported only by site");
+        }
+        Snapshot now = MemAllocProfilerStacks.getInstance().getRetention().snapshot(gc);
+        return toDataFrame(now.sitesGrownSince(Snapshot.fromTruffleObject(since)), true);
+    }
+
+    private static RList toDataFrame(List<Row> rows, boolean bySite) {
+        int n = rows.size();
+        int[] ids = new int[n];
+        String[] names = new String[n];
+        String[] locations = new String[n];
+        double[] bytes = new double[n];
+        double[] counts = new double[n];
+        boolean locationsComplete = true;
+        for (int i = 0; i < n; i++) {
+            Row row = rows.get(i);
+            ids[i] = row.getId();
+            names[i] = row.getName();
+            locations[i] = row.getLocation() == null ? RRuntime.STRING_NA : row.getLocation();
+            locationsComplete &= row.getLocation() != null;
+            bytes[i] = row.getBytes();
+            counts[i] = row.getCount();
+        }
+        Object[] columns;
+        String[] columnNames;
+        if (bySite) {
+            columns = new Object[]{RDataFactory.createIntVector(ids, RDataFactory.COMPLETE_VECTOR), RDataFactory.createStringVector(names, RDataFactory.COMPLETE_VECTOR),
+                            RDataFactory.createStringVector(locations, locationsComplete), RDataFactory.createDoubleVector(bytes, RDataFactory.COMPLETE_VECTOR),
+                            RDataFactory.createDoubleVector(counts, RDataFactory.COMPLETE_VECTOR)};
+            columnNames = new String[]{"id", "name", "location", "bytes", "count"};
+        } else {
+            columns = new Object[]{RDataFactory.createStringVector(names, RDataFactory.COMPLETE_VECTOR), RDataFactory.createDoubleVector(bytes, RDataFactory.COMPLETE_VECTOR),
+                            RDataFactory.createDoubleVector(counts, RDataFactory.COMPLETE_VECTOR)};
+            columnNames = new String[]{"type", "bytes", "count"};
+        }
+        RList result = RDataFactory.createList(columns, RDataFactory.createStringVector(columnNames, RDataFactory.COMPLETE_VECTOR));
+        result.setClassAttr(RDataFactory.createStringVectorFromScalar(RRuntime.CLASS_DATA_FRAME));
+        result.setRowNames(RDataFactory.createIntVector(new int[]{RRuntime.INT_NA, -n}, RDataFactory.INCOMPLETE_VECTOR));
+        return result;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.access;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.api.profiles.ValueProfile;
+import com.oracle.truffle.r.nodes.access.variables.LocalReadVariableNode;
+import com.oracle.truffle.r.nodes.access.variables.ReadVariableNode;
+import com.oracle.truffle.r.nodes.function.RCallBaseNode;
+import com.oracle.truffle.r.runtime.ArgumentsSignature;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.Utils;
+import com.oracle.truffle.r.runtime.builtins.RBuiltinDescriptor;
+import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.RVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
+import com.oracle.truffle.r.runtime.nodes.RNode;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxCall;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxConstant;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxElement;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxLookup;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
+
+/**
+ * Evaluates the right hand side of {@code x <- c(x, value)}. If the vector bound to the local
+ * variable {@code x} is not referenced from anywhere else, it can be grown in place (see
+ * {@link RVector#growInPlace(int)}) instead of being copied into the result of {@code c}, since the
+ * result replaces it anyway. A loop of such appends then takes amortized linear time. This is only
+ * done for integer, double and character vectors without attributes, a {@code value} that is a
+ * constant or a local variable holding a compatible vector or scalar without attributes and only if
+ * {@code c} is the builtin, the original call is executed in all other cases.
+ */
+public final class CombineAppendNode extends RNode {
+
+    @Child private RCallBaseNode call;
+    @Child private ReadVariableNode function = ReadVariableNode.createForcedFunctionLookup("c");
+    @Child private LocalReadVariableNode readTarget;
+    @Child private LocalReadVariableNode readValue;
+
+    private final Object constantValue;
+    private final RBuiltinDescriptor expectedFunction = RContext.lookupBuiltinDescriptor("c");
+
+    @CompilationFinal private Assumption containsNoActiveBinding;
+
+    private final ValueProfile targetProfile = ValueProfile.createClassProfile();
+    private final ValueProfile valueProfile = ValueProfile.createClassProfile();
+    private final ConditionProfile appendedProfile = ConditionProfile.createBinaryProfile();
+
+    private CombineAppendNode(RCallBaseNode call, String name, String valueName, Object constantValue) {
+        this.call = call;
+        this.readTarget = LocalReadVariableNode.create(Utils.intern(name), false);
+        this.readValue = valueName == null ? null : LocalReadVariableNode.create(Utils.intern(valueName), false);
+        this.constantValue = constantValue;
+    }
+
+    /**
+     * Wraps {@code rhs} of an assignment to the local variable {@code name} if it has the form
+     * {@code c(name, value)}, returns {@code rhs} itself otherwise.
+     */
+    public static RNode wrapIfAppend(String name, RNode rhs) {
+        if (!(rhs instanceof RCallBaseNode) || !(rhs.asRSyntaxNode() instanceof RSyntaxCall)) {
+            return rhs;
+        }
+        RSyntaxCall syntaxCall = (RSyntaxCall) rhs.asRSyntaxNode();
+        RSyntaxElement lhs = syntaxCall.getSyntaxLHS();
+        RSyntaxElement[] args = syntaxCall.getSyntaxArguments();
+        ArgumentsSignature signature = syntaxCall.getSyntaxSignature();
+        if (!(lhs instanceof RSyntaxLookup) || !"c".equals(((RSyntaxLookup) lhs).getIdentifier()) || args.length != 2 || signature.getNonNullCount() != 0) {
+            return rhs;
+        }
+        if (!(args[0] instanceof RSyntaxLookup) || !name.equals(((RSyntaxLookup) args[0]).getIdentifier())) {
+            return rhs;
+        }
+        if (args[1] instanceof RSyntaxLookup) {
+            String valueName = ((RSyntaxLookup) args[1]).getIdentifier();
+            if (valueName.isEmpty() || valueName.startsWith("..")) {
+                // varargs cannot be read as a local variable
+                return rhs;
+            }
+            return new CombineAppendNode((RCallBaseNode) rhs, name, valueName, null);
+        } else if (args[1] instanceof RSyntaxConstant) {
+            Object value = ((RSyntaxConstant) args[1]).getValue();
+            if (value instanceof Integer || value instanceof Double || value instanceof String) {
+                return new CombineAppendNode((RCallBaseNode) rhs, name, null, value);
+            }
+        }
+        return rhs;
+    }
+
+    @Override
+    protected RSyntaxNode getRSyntaxNode() {
+        return call.asRSyntaxNode();
+    }
+
+    @Override
+    public Object execute(VirtualFrame frame) {
+        Object f = function.execute(frame);
+        if (f instanceof RFunction && ((RFunction) f).getRBuiltin() == expectedFunction && containsNoActiveBinding(frame)) {
+            Object target = targetProfile.profile(readTarget.execute(frame));
+            if (target instanceof RVector && isAppendable((RVector<?>) target)) {
+                Object value = valueProfile.profile(readValue == null ? constantValue : readValue.execute(frame));
+                if (appendedProfile.profile(value != null && value != target && append((RVector<?>) target, value))) {
+                    return target;
+                }
+            }
+        }
+        return call.execute(frame, f);
+    }
+
+    /**
+     * Reading a variable has no side effects unless it is an active binding, in which case it must
+     * be left to the original call, which reads each argument exactly once.
+     */
+    private boolean containsNoActiveBinding(VirtualFrame frame) {
+        if (containsNoActiveBinding == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            containsNoActiveBinding = FrameSlotChangeMonitor.getContainsNoActiveBindingAssumption(frame.getFrameDescriptor());
+        }
+        return containsNoActiveBinding.isValid();
+    }
+
+    private static boolean isAppendable(RVector<?> target) {
+        return !target.isShared() && target.getAttributes() == null && (target instanceof RIntVector || target instanceof RDoubleVector || target instanceof RStringVector);
+    }
+
+    @TruffleBoundary
+    private static boolean append(RVector<?> target, Object value) {
+        if (value instanceof RAbstractVector && ((RAbstractVector) value).getAttributes() != null) {
+            // c would keep the names of value
+            return false;
+        }
+        if (target instanceof RIntVector) {
+            return appendInt((RIntVector) target, value);
+        } else if (target instanceof RDoubleVector) {
+            return appendDouble((RDoubleVector) target, value);
+        } else {
+            return appendString((RStringVector) target, value);
+        }
+    }
+
+    private static boolean appendInt(RIntVector target, Object value) {
+        int length = target.getLength();
+        boolean complete = target.isComplete();
+        if (value instanceof Integer) {
+            int v = (int) value;
+            if (!target.growInPlace(length + 1)) {
+                return false;
+            }
+            target.setDataAt(target.getInternalStore(), length, v);
+            target.setComplete(complete && !RRuntime.isNA(v));
+        } else if (value instanceof RAbstractIntVector) {
+            RAbstractIntVector v = (RAbstractIntVector) value;
+            if (!target.growInPlace(length + v.getLength())) {
+                return false;
+            }
+            Object store = target.getInternalStore();
+            for (int i = 0; i < v.getLength(); i++) {
+                target.setDataAt(store, length + i, v.getDataAt(i));
+            }
+            target.setComplete(complete && v.isComplete());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean appendDouble(RDoubleVector target, Object value) {
+        int length = target.getLength();
+        boolean complete = target.isComplete();
+        if (value instanceof Double || value instanceof Integer) {
+            double v = value instanceof Double ? (double) value : RRuntime.int2double((int) value);
+            if (!target.growInPlace(length + 1)) {
+                return false;
+            }
+            target.setDataAt(target.getInternalStore(), length, v);
+            target.setComplete(complete && !RRuntime.isNA(v));
+        } else if (value instanceof RAbstractDoubleVector || value instanceof RAbstractIntVector) {
+            RAbstractVector v = (RAbstractVector) value;
+            if (!target.growInPlace(length + v.getLength())) {
+                return false;
+            }
+            Object store = target.getInternalStore();
+            for (int i = 0; i < v.getLength(); i++) {
+                double d = v instanceof RAbstractDoubleVector ? ((RAbstractDoubleVector) v).getDataAt(i) : RRuntime.int2double(((RAbstractIntVector) v).getDataAt(i));
+                target.setDataAt(store, length + i, d);
+            }
+            target.setComplete(complete && v.isComplete());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean appendString(RStringVector target, Object value) {
+        int length = target.getLength();
+        boolean complete = target.isComplete();
+        if (value instanceof String) {
+            String v = (String) value;
+            if (!target.growInPlace(length + 1)) {
+                return false;
+            }
+            target.setDataAt(target.getInternalStore(), length, v);
+            target.setComplete(complete && !RRuntime.isNA(v));
+        } else if (value instanceof RAbstractStringVector) {
+            RAbstractStringVector v = (RAbstractStringVector) value;
+            if (!target.growInPlace(length + v.getLength())) {
+                return false;
+            }
+            Object store = target.getInternalStore();
+            for (int i = 0; i < v.getLength(); i++) {
+                target.setDataAt(store, length + i, v.getDataAt(i));
+            }
+            target.setComplete(complete && v.isComplete());
+        } else {
+            return false;
+        }
+        return true;
+    }
+}
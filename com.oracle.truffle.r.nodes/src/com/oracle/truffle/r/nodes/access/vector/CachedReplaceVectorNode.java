@@ -42,6 +42,7 @@ import com.oracle.truffle.r.nodes.access.vector.PositionsCheckNode.PositionProfi
 import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.GetNamesAttributeNode;
 import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.SetNamesAttributeNode;
 import com.oracle.truffle.r.nodes.binary.CastTypeNode;
+import com.oracle.truffle.r.nodes.function.opt.ReplacementCopyTracer;
 import com.oracle.truffle.r.nodes.profile.VectorLengthProfile;
 import com.oracle.truffle.r.nodes.unary.CastListNodeGen;
 import com.oracle.truffle.r.nodes.unary.CastNode;
@@ -235,6 +236,9 @@ final class CachedReplaceVectorNode extends CachedVectorNode {
                 shareable = (RShareable) vector.copy();
                 vector = (RAbstractVector) shareable;
                 assert shareable.isTemporary();
+                if (ReplacementCopyTracer.isEnabled()) {
+                    ReplacementCopyTracer.traceCopy(this, vector);
+                }
             }
         }
         vector = sharedClassProfile.profile(vector);
@@ -389,9 +393,15 @@ final class CachedReplaceVectorNode extends CachedVectorNode {
     @TruffleBoundary
     private static RVector<?> resizeVector(RAbstractVector vector, int size) {
         RStringVector oldNames = vector.getNames();
-        RVector<?> res = vector.copyResized(size, true).materialize();
-        if (vector instanceof RVector) {
-            res.copyAttributesFrom(vector);
+        RVector<?> res;
+        if (vector instanceof RVector && ((RVector<?>) vector).growInPlace(size)) {
+            // the vector is not shared at this point, so it can be extended in place
+            res = (RVector<?>) vector;
+        } else {
+            res = vector.copyResized(size, true).materialize();
+            if (vector instanceof RVector) {
+                res.copyAttributesFrom(vector);
+            }
         }
         res.setDimensionsNoCheck(null);
         res.setDimNamesNoCheck(null);
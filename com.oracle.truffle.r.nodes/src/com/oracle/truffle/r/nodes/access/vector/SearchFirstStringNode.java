@@ -22,8 +22,11 @@
  */
 package com.oracle.truffle.r.nodes.access.vector;
 
+import java.util.Arrays;
+
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.api.profiles.ConditionProfile;
@@ -184,7 +187,8 @@ final class SearchFirstStringNode extends Node {
         NonRecursiveHashMapCharacter map;
         if (hashingProfile.profile(nestedLoopCost > hashingCost + lookupCost)) {
             map = new NonRecursiveHashMapCharacter(targetLength);
-            for (int i = 0; i < targetLength; i++) {
+            // filled backwards so that the first of duplicate names wins
+            for (int i = targetLength - 1; i >= 0; i--) {
                 String name = target.getDataAt(i);
                 if (!targetNACheck.check(name)) {
                     map.put(name, i);
@@ -193,6 +197,8 @@ final class SearchFirstStringNode extends Node {
         } else {
             map = null;
         }
+        PrefixIndex prefixIndex = null;
+        NonRecursiveHashMapCharacter notFoundMap = null;
         int notFoundIndex = notFoundStartIndex;
         for (int i = 0; i < elementsLength; i++) {
             String element = elements.getDataAt(i);
@@ -203,7 +209,10 @@ final class SearchFirstStringNode extends Node {
                     index = map.get(element);
                     if (!exactMatch && index < 0) {
                         // the map is only good for exact matches
-                        index = findNonExactIndex(target, targetLength, element);
+                        if (prefixIndex == null) {
+                            prefixIndex = PrefixIndex.create(target, targetLength);
+                        }
+                        index = prefixIndex.findUnique(element);
                     }
                 } else {
                     index = findIndex(target, targetLength, element);
@@ -219,7 +228,20 @@ final class SearchFirstStringNode extends Node {
             } else {
                 int prevDuplicateIndex = -1;
                 if (!isElementNA) {
-                    prevDuplicateIndex = findFirstDuplicate(elements, element, i);
+                    if (map != null) {
+                        // elements not found so far, to avoid quadratic search for duplicates
+                        if (notFoundMap == null) {
+                            notFoundMap = new NonRecursiveHashMapCharacter(elementsLength);
+                        }
+                        prevDuplicateIndex = notFoundMap.get(element);
+                        if (prevDuplicateIndex == -1) {
+                            notFoundMap.put(element, i);
+                        } else {
+                            everFoundDuplicate.enter();
+                        }
+                    } else {
+                        prevDuplicateIndex = findFirstDuplicate(elements, element, i);
+                    }
                 }
                 int nextIndex;
                 if (prevDuplicateIndex == -1) {
@@ -238,22 +260,63 @@ final class SearchFirstStringNode extends Node {
         return RDataFactory.createIntVector(indices, resultComplete && elements.isComplete(), names);
     }
 
-    private int findNonExactIndex(RAbstractStringVector target, int targetLength, String element) {
-        assert !exactMatch;
-        int nonExactIndex = -1;
-        for (int j = 0; j < targetLength; j++) {
-            String targetValue = target.getDataAt(j);
-            if (!targetNACheck.check(targetValue)) {
-                if (stringStartsWith.executeCompare(targetValue, element)) {
-                    if (nonExactIndex == -1) {
-                        nonExactIndex = j;
-                    } else {
-                        return -1;
-                    }
+    /**
+     * The non-NA target strings sorted lexicographically, so that the target strings starting with
+     * a given prefix form a contiguous range that can be found by binary search. Used for partial
+     * matching when the exact matches are looked up by hashing.
+     */
+    private static final class PrefixIndex {
+        private final String[] sorted;
+        private final int[] indices;
+
+        private PrefixIndex(String[] sorted, int[] indices) {
+            this.sorted = sorted;
+            this.indices = indices;
+        }
+
+        @TruffleBoundary
+        static PrefixIndex create(RAbstractStringVector target, int targetLength) {
+            Integer[] order = new Integer[targetLength];
+            int count = 0;
+            for (int i = 0; i < targetLength; i++) {
+                if (!RRuntime.isNA(target.getDataAt(i))) {
+                    order[count++] = i;
                 }
             }
+            Arrays.sort(order, 0, count, (a, b) -> target.getDataAt(a).compareTo(target.getDataAt(b)));
+            String[] sorted = new String[count];
+            int[] indices = new int[count];
+            for (int i = 0; i < count; i++) {
+                indices[i] = order[i];
+                sorted[i] = target.getDataAt(order[i]);
+            }
+            return new PrefixIndex(sorted, indices);
+        }
+
+        /**
+         * Returns the index of the only target string starting with {@code prefix}, or -1 if there
+         * is no such string or more than one.
+         */
+        @TruffleBoundary
+        int findUnique(String prefix) {
+            int lo = 0;
+            int hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid].compareTo(prefix) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (lo < sorted.length && sorted[lo].startsWith(prefix)) {
+                if (lo + 1 < sorted.length && sorted[lo + 1].startsWith(prefix)) {
+                    return -1;
+                }
+                return indices[lo];
+            }
+            return -1;
         }
-        return nonExactIndex;
     }
 
     private int findIndex(RAbstractStringVector target, int targetLength, String element) {
@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.Node;
@@ -43,6 +44,7 @@ import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
 import com.oracle.truffle.r.runtime.data.REmpty;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.instrument.CallMetrics;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 import com.oracle.truffle.r.runtime.nodes.RNode;
 import com.oracle.truffle.r.runtime.nodes.RSyntaxCall;
@@ -194,6 +196,8 @@ public abstract class InternalNode extends OperatorNode {
         @Child private RBuiltinNode builtin;
         @Child private SetVisibilityNode visibility = SetVisibilityNode.create();
 
+        @CompilationFinal private CallMetrics.Entry metricsEntry;
+
         InternalCallNode(SourceSection src, RSyntaxLookup operator, ArgumentsSignature outerSignature, RSyntaxNode[] outerArgs, RBuiltinFactory factory, RSyntaxElement[] args) {
             super(src, operator, outerSignature, outerArgs);
             this.factory = factory;
@@ -214,7 +218,7 @@ public abstract class InternalNode extends OperatorNode {
 
         @Override
         public Object execute(VirtualFrame frame) {
-            Object result = builtin.call(frame, prepareArgs(frame));
+            Object result = callBuiltin(frame, prepareArgs(frame));
             assert result != null : "builtins cannot return 'null': " + factory.getName();
             assert !(result instanceof RConnection) : "builtins cannot return connection': " + factory.getName();
             visibility.execute(frame, factory.getVisibility());
@@ -223,7 +227,23 @@ public abstract class InternalNode extends OperatorNode {
 
         @Override
         public void voidExecute(VirtualFrame frame) {
-            builtin.call(frame, prepareArgs(frame));
+            callBuiltin(frame, prepareArgs(frame));
+        }
+
+        private Object callBuiltin(VirtualFrame frame, Object[] args) {
+            if (!CallMetrics.isEnabled()) {
+                return builtin.call(frame, args);
+            }
+            if (metricsEntry == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                metricsEntry = CallMetrics.getBuiltinEntry(factory.getName());
+            }
+            CallMetrics.enter(metricsEntry, CompilerDirectives.inCompiledCode());
+            try {
+                return builtin.call(frame, args);
+            } finally {
+                CallMetrics.exit(CompilerDirectives.inInterpreter());
+            }
         }
     }
 
@@ -348,7 +368,7 @@ public abstract class InternalNode extends OperatorNode {
                     "phyper", "qhyper", "dnbeta", "pnbeta", "qnbeta", "dnf", "pnf", "qnf", "dtukey", "ptukey", "qtukey", "rchisq", "rexp", "rgeom", "rpois", "rt", "rsignrank", "rbeta", "rbinom",
                     "rcauchy", "rf", "rgamma", "rlnorm", "rlogis", "rnbinom", "rnbinom_mu", "rnchisq", "rnorm", "runif", "rweibull", "rwilcox", "rhyper",
                     "grepRaw", "regexec", "adist", "aregexec", "chartr", "strtrim", "eapply", "machine", "save", "dump", "prmatrix", "gcinfo",
-                    "memory.profile", "sys.on.exit", "builtins", "bodyCode", "rapply", "inspect",
+                    "sys.on.exit", "builtins", "bodyCode", "rapply", "inspect",
                     "mem.limits", "capabilitiesX11", "Cstack_info", "file.choose", "polyroot",
                     "setNumMathThreads", "setMaxNumMathThreads", "isatty", "isIncomplete", "pipe", "fifo", "unz", "truncate", "rawConnection",
                     "rawConnectionValue", "sockSelect", "gzcon", "memCompress", "memDecompress", "mkUnbound", "env.profile", "setSessionTimeLimit", "icuSetCollate", "findInterval", "rowsum_df",
@@ -26,6 +26,7 @@ import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.source.SourceSection;
@@ -35,6 +36,7 @@ import com.oracle.truffle.r.nodes.function.FormalArguments;
 import com.oracle.truffle.r.nodes.function.RCallNode.BuiltinCallNode;
 import com.oracle.truffle.r.nodes.function.visibility.SetVisibilityNode;
 import com.oracle.truffle.r.runtime.ArgumentsSignature;
+import com.oracle.truffle.r.runtime.RFrameStack;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.builtins.FastPathFactory;
 import com.oracle.truffle.r.runtime.builtins.RBuiltinKind;
@@ -90,6 +92,19 @@ public final class RBuiltinRootNode extends RRootNode {
     @Override
     @ExplodeLoop
     public Object execute(VirtualFrame frame) {
+        if (!RFrameStack.isEnabled()) {
+            return executeBuiltin(frame);
+        }
+        MaterializedFrame materialized = frame.materialize();
+        Object token = RFrameStack.enter(materialized);
+        try {
+            return executeBuiltin(frame);
+        } finally {
+            RFrameStack.exit(materialized, token);
+        }
+    }
+
+    private Object executeBuiltin(VirtualFrame frame) {
         verifyEnclosingAssumptions(frame);
         try {
             initialize();
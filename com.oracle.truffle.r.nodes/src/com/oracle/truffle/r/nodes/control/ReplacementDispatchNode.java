@@ -32,6 +32,7 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.source.SourceSection;
 import com.oracle.truffle.r.nodes.RASTUtils;
+import com.oracle.truffle.r.nodes.access.CombineAppendNode;
 import com.oracle.truffle.r.nodes.access.WriteVariableNode;
 import com.oracle.truffle.r.nodes.access.WriteVariableSyntaxNode;
 import com.oracle.truffle.r.runtime.ArgumentsSignature;
@@ -118,7 +119,8 @@ public final class ReplacementDispatchNode extends OperatorNode {
         if (name.isEmpty()) {
             throw RError.error(RError.NO_CALLER, RError.Message.ZERO_LENGTH_VARIABLE);
         }
-        return new WriteVariableSyntaxNode(getLazySourceSection(), operator, lhsSyntax, name, rhs, isSuper);
+        RNode value = isSuper ? rhs : CombineAppendNode.wrapIfAppend(name, rhs);
+        return new WriteVariableSyntaxNode(getLazySourceSection(), operator, lhsSyntax, name, value, isSuper);
     }
 
     @Override
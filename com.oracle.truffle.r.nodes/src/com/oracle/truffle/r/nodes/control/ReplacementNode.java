@@ -26,25 +26,34 @@ package com.oracle.truffle.r.nodes.control;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.api.profiles.ValueProfile;
 import com.oracle.truffle.api.source.SourceSection;
 import com.oracle.truffle.r.nodes.access.RemoveAndAnswerNode;
 import com.oracle.truffle.r.nodes.access.WriteVariableNode;
+import com.oracle.truffle.r.nodes.access.variables.LocalReadVariableNode;
 import com.oracle.truffle.r.nodes.access.variables.ReadVariableNode;
 import com.oracle.truffle.r.nodes.function.PeekLocalVariableNode;
 import com.oracle.truffle.r.nodes.function.RCallSpecialNode;
+import com.oracle.truffle.r.nodes.function.opt.ReplacementCopyTracer;
 import com.oracle.truffle.r.nodes.function.visibility.SetVisibilityNode;
 import com.oracle.truffle.r.nodes.unary.GetNonSharedNode;
 import com.oracle.truffle.r.runtime.ArgumentsSignature;
+import com.oracle.truffle.r.runtime.Utils;
 import com.oracle.truffle.r.runtime.builtins.RSpecialFactory.FullCallNeededException;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.Closure;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RLanguage;
+import com.oracle.truffle.r.runtime.data.RVector;
+import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 import com.oracle.truffle.r.runtime.nodes.RCodeBuilder;
 import com.oracle.truffle.r.runtime.nodes.RCodeBuilder.CodeBuilderContext;
 import com.oracle.truffle.r.runtime.nodes.RNode;
@@ -178,6 +187,63 @@ abstract class ReplacementNode extends OperatorNode {
         }
     }
 
+    /**
+     * Creates the node that takes ownership of the target of a simple local replacement like
+     * {@code x[i] <- v}, or {@code null} if the replacement is nested or non-local. In the nested
+     * case, e.g. {@code x$a[i] <- v}, copying {@code x} would not help, because the elements of a
+     * shared list are shared too.
+     */
+    private static OwnTargetNode createOwnTarget(RSyntaxLookup variable, List<RSyntaxCall> calls, boolean isSuper) {
+        return isSuper || calls.size() != 1 ? null : new OwnTargetNode(variable.getIdentifier());
+    }
+
+    /**
+     * The special calls bail out to the generic replacement if the target vector is shared, which
+     * is always the case in the first iteration of a loop that modifies an argument or a vector
+     * that was assigned to another variable. The replacement would then stay generic for good, even
+     * though it updates the vector in place from the second iteration on. This node performs the
+     * copy the generic replacement would have done up front: afterwards the local variable holds
+     * the only reference to its value and the special call can update it in place. Active bindings
+     * are left to the replacement, since reading or writing them calls their function.
+     */
+    private static final class OwnTargetNode extends Node {
+
+        @Child private LocalReadVariableNode read;
+        @Child private WriteVariableNode write;
+
+        private final ValueProfile valueProfile = ValueProfile.createClassProfile();
+        private final ConditionProfile isSharedProfile = ConditionProfile.createBinaryProfile();
+
+        @CompilationFinal private Assumption containsNoActiveBinding;
+
+        OwnTargetNode(String name) {
+            this.read = LocalReadVariableNode.create(Utils.intern(name), true);
+            this.write = WriteVariableNode.createAnonymous(name, WriteVariableNode.Mode.REGULAR, null);
+        }
+
+        void execute(VirtualFrame frame) {
+            if (containsNoActiveBinding == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                containsNoActiveBinding = FrameSlotChangeMonitor.getContainsNoActiveBindingAssumption(frame.getFrameDescriptor());
+            }
+            if (!containsNoActiveBinding.isValid()) {
+                return;
+            }
+            Object value = valueProfile.profile(read.execute(frame));
+            if (value instanceof RVector) {
+                RVector<?> vector = (RVector<?>) value;
+                if (isSharedProfile.profile(vector.isShared())) {
+                    RVector<?> copy = vector.copy();
+                    assert copy.isTemporary();
+                    if (ReplacementCopyTracer.isEnabled()) {
+                        ReplacementCopyTracer.traceCopy(this, vector);
+                    }
+                    write.execute(frame, copy);
+                }
+            }
+        }
+    }
+
     private abstract static class ReplacementWithRhsNode extends ReplacementNode {
 
         @Child private WriteVariableNode storeRhs;
@@ -237,6 +303,7 @@ abstract class ReplacementNode extends OperatorNode {
     private static final class SpecialReplacementNode extends ReplacementWithRhsNode {
 
         @Child private RCallSpecialNode replaceCall;
+        @Child private OwnTargetNode ownTarget;
 
         private final List<RSyntaxCall> calls;
         private final int tempNamesStartIndex;
@@ -262,10 +329,14 @@ abstract class ReplacementNode extends OperatorNode {
             this.replaceCall = (RCallSpecialNode) createFunctionUpdate(source, extractFunc.asRSyntaxNode(), createLookup(RSyntaxNode.INTERNAL, getRHSTemp(tempNamesStartIndex)), calls.get(0),
                             codeBuilderContext);
             this.replaceCall.setPropagateFullCallNeededException();
+            this.ownTarget = createOwnTarget(variable, calls, isSuper);
         }
 
         @Override
         protected void executeReplacement(VirtualFrame frame) {
+            if (ownTarget != null) {
+                ownTarget.execute(frame);
+            }
             try {
                 // Note: the very last call is the actual assignment, e.g. [[<-, if this call's
                 // argument is shared, it bails out. Moreover, if that call's argument is not
@@ -288,6 +359,7 @@ abstract class ReplacementNode extends OperatorNode {
     private static final class SpecialVoidReplacementNode extends ReplacementNode {
 
         @Child private RCallSpecialNode replaceCall;
+        @Child private OwnTargetNode ownTarget;
 
         private final RNode rhs;
         private final List<RSyntaxCall> calls;
@@ -315,6 +387,7 @@ abstract class ReplacementNode extends OperatorNode {
             }
             this.replaceCall = (RCallSpecialNode) createFunctionUpdate(source, extractFunc.asRSyntaxNode(), rhs.asRSyntaxNode(), calls.get(0), codeBuilderContext);
             this.replaceCall.setPropagateFullCallNeededException();
+            this.ownTarget = createOwnTarget(variable, calls, isSuper);
         }
 
         @Override
@@ -327,6 +400,9 @@ abstract class ReplacementNode extends OperatorNode {
 
         @Override
         public void voidExecute(VirtualFrame frame) {
+            if (ownTarget != null) {
+                ownTarget.execute(frame);
+            }
             try {
                 // Note: the very last call is the actual assignment, e.g. [[<-, if this call's
                 // argument is shared, it bails out. Moreover, if that call's argument is not
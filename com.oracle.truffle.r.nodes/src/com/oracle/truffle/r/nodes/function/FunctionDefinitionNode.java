@@ -35,6 +35,7 @@ import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.FrameSlot;
 import com.oracle.truffle.api.frame.FrameSlotKind;
 import com.oracle.truffle.api.frame.FrameSlotTypeException;
+import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeUtil;
@@ -62,6 +63,7 @@ import com.oracle.truffle.r.runtime.RArguments.S4Args;
 import com.oracle.truffle.r.runtime.RDeparse;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RErrorHandling;
+import com.oracle.truffle.r.runtime.RFrameStack;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
@@ -76,6 +78,7 @@ import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RPairList;
 import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 import com.oracle.truffle.r.runtime.env.frame.RFrameSlot;
+import com.oracle.truffle.r.runtime.instrument.CallMetrics;
 import com.oracle.truffle.r.runtime.nodes.RCodeBuilder;
 import com.oracle.truffle.r.runtime.nodes.RNode;
 import com.oracle.truffle.r.runtime.nodes.RSyntaxCall;
@@ -132,6 +135,8 @@ public final class FunctionDefinitionNode extends RRootNode implements RSyntaxNo
     @CompilationFinal private FrameSlot handlerStackSlot;
     @CompilationFinal private FrameSlot restartStackSlot;
 
+    @CompilationFinal private CallMetrics.Entry metricsEntry;
+
     /**
      * Profiling for catching {@link ReturnException}s.
      */
@@ -279,6 +284,39 @@ public final class FunctionDefinitionNode extends RRootNode implements RSyntaxNo
 
     @Override
     public Object execute(VirtualFrame frame) {
+        if (CallMetrics.isEnabled()) {
+            return executeWithMetrics(frame);
+        }
+        return executeIndexed(frame);
+    }
+
+    private Object executeWithMetrics(VirtualFrame frame) {
+        if (metricsEntry == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            metricsEntry = CallMetrics.getClosureEntry(name);
+        }
+        CallMetrics.enter(metricsEntry, CompilerDirectives.inCompiledCode());
+        try {
+            return executeIndexed(frame);
+        } finally {
+            CallMetrics.exit(CompilerDirectives.inInterpreter());
+        }
+    }
+
+    private Object executeIndexed(VirtualFrame frame) {
+        if (!RFrameStack.isEnabled()) {
+            return executeFunction(frame);
+        }
+        MaterializedFrame materialized = frame.materialize();
+        Object token = RFrameStack.enter(materialized);
+        try {
+            return executeFunction(frame);
+        } finally {
+            RFrameStack.exit(materialized, token);
+        }
+    }
+
+    private Object executeFunction(VirtualFrame frame) {
         boolean runOnExitHandlers = true;
         try {
             verifyEnclosingAssumptions(frame);
@@ -494,6 +532,7 @@ public final class FunctionDefinitionNode extends RRootNode implements RSyntaxNo
 
     public void setName(String name) {
         this.name = name;
+        this.metricsEntry = null;
     }
 
     @Override
@@ -100,6 +100,7 @@ import com.oracle.truffle.r.runtime.data.RPromise;
 import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.env.REnvironment;
 import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
+import com.oracle.truffle.r.runtime.instrument.CallMetrics;
 import com.oracle.truffle.r.runtime.interop.Foreign2R;
 import com.oracle.truffle.r.runtime.interop.R2Foreign;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
@@ -885,6 +886,8 @@ public abstract class RCallNode extends RCallBaseNode implements RSyntaxNode, RS
         private final RBuiltinDescriptor builtinDescriptor;
         private final boolean explicitArgs;
 
+        @CompilationFinal private CallMetrics.Entry metricsEntry;
+
         public BuiltinCallNode(RBuiltinNode builtin, RBuiltinDescriptor builtinDescriptor, FormalArguments formalArguments, RCallNode originalCall, boolean explicitArgs) {
             super(originalCall);
             this.builtin = builtin;
@@ -1013,12 +1016,26 @@ public abstract class RCallNode extends RCallBaseNode implements RSyntaxNode, RS
 
         @Override
         public Object execute(VirtualFrame frame, RFunction currentFunction, RArgsValuesAndNames orderedArguments, S3Args s3Args) {
-            Object result = builtin.call(frame, castArguments(frame, orderedArguments.getArguments()));
+            Object[] args = castArguments(frame, orderedArguments.getArguments());
+            Object result = CallMetrics.isEnabled() ? callWithMetrics(frame, args) : builtin.call(frame, args);
             assert result != null : "builtins cannot return 'null': " + builtinDescriptor.getName();
             assert !(result instanceof RConnection) : "builtins cannot return connection': " + builtinDescriptor.getName();
             visibility.execute(frame, builtinDescriptor.getVisibility());
             return result;
         }
+
+        private Object callWithMetrics(VirtualFrame frame, Object[] args) {
+            if (metricsEntry == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                metricsEntry = CallMetrics.getBuiltinEntry(builtinDescriptor.getName());
+            }
+            CallMetrics.enter(metricsEntry, CompilerDirectives.inCompiledCode());
+            try {
+                return builtin.call(frame, args);
+            } finally {
+                CallMetrics.exit(CompilerDirectives.inInterpreter());
+            }
+        }
     }
 
     private static final class DispatchedCallNode extends LeafCallFunctionNode {
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.function.opt;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
+
+/**
+ * Reports the replacement sites, e.g. {@code x[i] <- v}, that copy their target because it is
+ * shared. A replacement inside a loop that shows up here more than once copies the whole vector in
+ * every iteration. Enabled by {@link FastROptions#TraceReplacementCopies}.
+ */
+public final class ReplacementCopyTracer {
+
+    private static final ConcurrentHashMap<SourceSection, AtomicInteger> copies = new ConcurrentHashMap<>();
+
+    private ReplacementCopyTracer() {
+        // no instances
+    }
+
+    public static boolean isEnabled() {
+        return FastROptions.TraceReplacementCopies.getBooleanValue();
+    }
+
+    /**
+     * Records a copy of {@code value} made by {@code node}, the replacement site is the closest
+     * enclosing node with a source section.
+     */
+    @TruffleBoundary
+    public static void traceCopy(Node node, RAbstractContainer value) {
+        SourceSection site = node.getEncapsulatingSourceSection();
+        StringBuilder str = new StringBuilder("Replacement copy: ");
+        if (site == null || !site.isAvailable()) {
+            str.append("<unknown site>");
+        } else {
+            int count = copies.computeIfAbsent(site, s -> new AtomicInteger()).incrementAndGet();
+            str.append(RSource.getOrigin(site.getSource())).append(':').append(site.getStartLine());
+            str.append(" '").append(site.getCharacters().toString().replace('\n', ' ')).append("' (").append(count).append(count == 1 ? " copy)" : " copies)");
+        }
+        str.append(", ").append(value.getRType().getName()).append(" of length ").append(value.getLength());
+        System.out.println(str);
+    }
+}
@@ -61,6 +61,9 @@ public abstract class ReuseNonSharedNode extends Node {
             if (isSharedProfile.profile(shareable.isShared())) {
                 RShareable res = shareable.copy();
                 assert res.isTemporary();
+                if (ReplacementCopyTracer.isEnabled()) {
+                    ReplacementCopyTracer.traceCopy(this, profiledValue);
+                }
                 return (RVector<?>) res;
             } else {
                 return (RVector<?>) profiledValue;
@@ -74,13 +77,16 @@ public abstract class ReuseNonSharedNode extends Node {
 
     @Specialization
     @TruffleBoundary
-    public static RVector<?> reuseSlow(RAbstractVector value) {
+    public RVector<?> reuseSlow(RAbstractVector value) {
         RSharingAttributeStorage.verify(value);
         if (value instanceof RSharingAttributeStorage) {
             RShareable shareable = (RShareable) value;
             if (shareable.isShared()) {
                 RShareable res = shareable.copy();
                 assert res.isTemporary();
+                if (ReplacementCopyTracer.isEnabled()) {
+                    ReplacementCopyTracer.traceCopy(this, value);
+                }
                 return (RVector<?>) res;
             } else {
                 return (RVector<?>) value;
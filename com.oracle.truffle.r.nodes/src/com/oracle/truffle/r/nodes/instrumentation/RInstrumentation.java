@@ -31,9 +31,11 @@ import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.api.source.SourceSection;
 import com.oracle.truffle.r.nodes.function.FunctionDefinitionNode;
 import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RSource;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.instrument.CallMetrics;
 
 /**
  * Handles the initialization of the (NEW) instrumentation system which sets up various instruments
@@ -48,6 +50,8 @@ public class RInstrumentation {
      */
     @CompilationFinal(dimensions = 1) private static String[] debugFunctionNames;
 
+    private static final long DEFAULT_CALL_METRICS_INTERVAL = 60;
+
     public static FunctionDefinitionNode getFunctionDefinitionNode(RFunction func) {
         assert !func.isBuiltin();
         return (FunctionDefinitionNode) func.getRootNode();
@@ -118,6 +122,22 @@ public class RInstrumentation {
         }
         // Check for function tracing
         RContext.getRRuntimeASTAccess().traceAllFunctions();
+        // Check for call metrics, which are global and thus started only once
+        String callMetricsValue = FastROptions.CallMetrics.getStringValue();
+        if (callMetricsValue != null && !CallMetrics.isEnabled()) {
+            String[] parts = callMetricsValue.split(",");
+            long interval = DEFAULT_CALL_METRICS_INTERVAL;
+            if (parts.length > 1) {
+                try {
+                    interval = Long.parseLong(parts[1].trim());
+                } catch (NumberFormatException ex) {
+                    // a bad option must not bring down the host VM of an embedded FastR
+                    RError.warning(RError.NO_CALLER, RError.Message.GENERIC,
+                                    "integer interval expected with CallMetrics, using the default of " + DEFAULT_CALL_METRICS_INTERVAL + " seconds");
+                }
+            }
+            CallMetrics.start(parts[0], interval);
+        }
     }
 
     public static Instrumenter getInstrumenter() {
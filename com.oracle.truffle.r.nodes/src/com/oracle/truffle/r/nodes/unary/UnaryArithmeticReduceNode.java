@@ -48,6 +48,7 @@ import com.oracle.truffle.r.runtime.interop.ForeignArray2R;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 import com.oracle.truffle.r.runtime.ops.BinaryArithmetic;
 import com.oracle.truffle.r.runtime.ops.BinaryArithmeticFactory;
+import com.oracle.truffle.r.runtime.ops.ParallelReduce;
 import com.oracle.truffle.r.runtime.ops.na.NACheck;
 
 /**
@@ -72,9 +73,11 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNode {
     protected final ReduceSemantics semantics;
     protected final boolean supportString;
     protected final boolean supportComplex;
+    private final ParallelReduce.Kind parallelKind;
 
     private final NACheck na = NACheck.create();
     private final ConditionProfile naRmProfile = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile parallelProfile = ConditionProfile.createBinaryProfile();
     private final BranchProfile emptyProfile = BranchProfile.create();
     private final BranchProfile naResultProfile = BranchProfile.create();
 
@@ -84,6 +87,11 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNode {
         this.arithmetic = factory.createOperation();
         this.supportString = semantics.supportString;
         this.supportComplex = semantics.supportComplex;
+        this.parallelKind = ParallelReduce.Kind.fromFactory(factory);
+    }
+
+    private boolean useParallel(RAbstractVector vector) {
+        return parallelProfile.profile(parallelKind != null && ParallelReduce.isApplicable(vector));
     }
 
     private void emptyWarning() {
@@ -199,7 +207,31 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNode {
         }
     }
 
+    private Object doIntParallel(RAbstractVector vector, boolean naRm) {
+        ParallelReduce.Partial partial = ParallelReduce.reduce(parallelKind, vector, naRm, false);
+        if (partial.isNA()) {
+            return RRuntime.INT_NA;
+        }
+        if (partial.isEmpty()) {
+            emptyWarning();
+            if (semantics.isUseDoubleStartForEmptyVector()) {
+                return semantics.getDoubleStart();
+            }
+            return semantics.getIntStart();
+        }
+        long result = partial.getLongValue();
+        if (result > Integer.MAX_VALUE || result <= Integer.MIN_VALUE) {
+            // GnuR also accumulates into a 64 bit integer and checks for overflow at the end
+            naResultWarning();
+            return RRuntime.INT_NA;
+        }
+        return (int) result;
+    }
+
     private Object doInt(RAbstractVector vector, boolean naRm, VectorAccess access) {
+        if (useParallel(vector)) {
+            return doIntParallel(vector, naRm);
+        }
         boolean profiledNaRm = naRmProfile.profile(naRm);
         int result = semantics.getIntStart();
         boolean empty = true;
@@ -270,7 +302,22 @@ public abstract class UnaryArithmeticReduceNode extends RBaseNode {
         return doInt(vector, naRm, vector.slowPathAccess());
     }
 
+    private double doDoubleParallel(RAbstractDoubleVector vector, boolean naRm, boolean finite) {
+        ParallelReduce.Partial partial = ParallelReduce.reduce(parallelKind, vector, naRm, finite);
+        if (partial.isNA()) {
+            return RRuntime.DOUBLE_NA;
+        }
+        if (partial.isEmpty()) {
+            emptyWarning();
+            return semantics.getDoubleStart();
+        }
+        return partial.getDoubleValue();
+    }
+
     private double doDouble(RAbstractDoubleVector vector, boolean naRm, boolean finite, ConditionProfile finiteProfile, ConditionProfile isInfiniteProfile, VectorAccess access) {
+        if (useParallel(vector)) {
+            return doDoubleParallel(vector, naRm, finite);
+        }
         boolean profiledNaRm = naRmProfile.profile(naRm);
         boolean profiledFinite = finiteProfile.profile(finite);
         double result = semantics.getDoubleStart();
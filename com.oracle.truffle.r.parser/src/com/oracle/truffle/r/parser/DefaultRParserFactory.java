@@ -41,11 +41,25 @@ public class DefaultRParserFactory extends RParserFactory {
 
     private static class DefaultParser<T> implements Parser<T> {
 
+        private final boolean handwrittenLexer;
+
+        DefaultParser(boolean handwrittenLexer) {
+            this.handwrittenLexer = handwrittenLexer;
+        }
+
+        private RParser<T> createRParser(Source source, RCodeBuilder<T> builder, TruffleRLanguage language) {
+            if (handwrittenLexer) {
+                return new RParser<>(source, builder, language, new RTokenSource(source.getCharacters()));
+            } else {
+                return new RParser<>(source, builder, language);
+            }
+        }
+
         @Override
         public List<T> script(Source source, RCodeBuilder<T> builder, TruffleRLanguage language) throws ParseException {
             try {
                 try {
-                    RParser<T> parser = new RParser<>(source, builder, language);
+                    RParser<T> parser = createRParser(source, builder, language);
                     return parser.script();
                 } catch (IllegalArgumentException e) {
                     // the lexer will wrap exceptions in IllegalArgumentExceptions
@@ -62,7 +76,7 @@ public class DefaultRParserFactory extends RParserFactory {
 
         @Override
         public RootCallTarget rootFunction(Source source, String name, RCodeBuilder<T> builder, TruffleRLanguage language) throws ParseException {
-            RParser<T> parser = new RParser<>(source, builder, language);
+            RParser<T> parser = createRParser(source, builder, language);
             try {
                 return parser.root_function(name);
             } catch (RecognitionException e) {
@@ -87,6 +101,11 @@ public class DefaultRParserFactory extends RParserFactory {
             return ((RecognitionException) t).charPositionInLine;
         }
 
+        @Override
+        public Class<?>[] getImplementationClasses() {
+            return new Class<?>[]{DefaultParser.class, RParser.class, handwrittenLexer ? RTokenSource.class : RLexer.class};
+        }
+
         private static ParseException handleRecognitionException(Source source, RecognitionException e) throws IncompleteSourceException, ParseException {
             CharSequence line = e.line <= source.getLineCount() ? source.getCharacters(e.line) : "";
             String substring = line.subSequence(0, Math.min(line.length(), e.charPositionInLine + 1)).toString();
@@ -101,8 +120,16 @@ public class DefaultRParserFactory extends RParserFactory {
         }
     }
 
+    /**
+     * Determines whether the parsers created by this factory use the hand-written
+     * {@link RTokenSource} instead of the ANTLR generated lexer.
+     */
+    protected boolean useHandwrittenLexer() {
+        return false;
+    }
+
     @Override
     protected <T> Parser<T> createParser() {
-        return new DefaultParser<>();
+        return new DefaultParser<>(useHandwrittenLexer());
     }
 }
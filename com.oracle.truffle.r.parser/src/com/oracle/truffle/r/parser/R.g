@@ -76,7 +76,15 @@ import com.oracle.truffle.r.runtime.RError;
      * Always use this constructor to initialize the R specific fields.
      */
     public RParser(Source source, RCodeBuilder<T> builder, TruffleRLanguage language) {
-        super(new CommonTokenStream(new RLexer(new ANTLRStringStream(source.getCharacters().toString()))));
+        this(source, builder, language, new RLexer(new ANTLRStringStream(source.getCharacters().toString())));
+    }
+
+    /**
+     * Creates a parser that reads its tokens from the given token source instead of a new
+     * {@link RLexer}, e.g., from a {@link RTokenSource}.
+     */
+    public RParser(Source source, RCodeBuilder<T> builder, TruffleRLanguage language, TokenSource tokenSource) {
+        super(new CommonTokenStream(tokenSource));
         assert source != null && builder != null;
         this.source = source;
         this.initialSource = source;
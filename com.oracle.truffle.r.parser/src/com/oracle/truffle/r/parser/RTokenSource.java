@@ -0,0 +1,704 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.parser;
+
+import java.util.Arrays;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.BitSet;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.MismatchedSetException;
+import org.antlr.runtime.MismatchedTokenException;
+import org.antlr.runtime.NoViableAltException;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+
+import com.oracle.truffle.r.runtime.RError;
+
+/**
+ * A hand-written replacement for the ANTLR generated {@code RLexer}. It recognizes exactly the
+ * tokens described by the lexer rules in {@code R.g}, but works directly on a {@code char[]} and
+ * decides every token with a single switch on its first character instead of going through the
+ * generated prediction DFAs.
+ *
+ * Tokens that {@code RLexer} would put on the hidden channel (white space, and line breaks and
+ * comments inside of parentheses or brackets) are never handed to the parser, so they are simply
+ * skipped here. Errors are reported the same way as in {@code RLexer}: as
+ * {@link IllegalArgumentException}s that wrap a {@link RecognitionException}.
+ */
+public final class RTokenSource implements TokenSource {
+
+    private final char[] data;
+    private final int length;
+    private final ANTLRStringStream input;
+
+    private int pos;
+    private int line = 1;
+    private int lineStart;
+
+    /*
+     * The nesting level is maintained for "{", "(", "[" and "[[", so that line breaks can be ignored
+     * while the nesting is larger than zero.
+     */
+    private int incompleteNesting;
+    private int[] nestingStack = new int[16];
+    private int nestingStackSize;
+
+    public RTokenSource(CharSequence text) {
+        this.data = text.toString().toCharArray();
+        this.length = data.length;
+        this.input = new ANTLRStringStream(data, length);
+    }
+
+    @Override
+    public String getSourceName() {
+        return input.getSourceName();
+    }
+
+    @Override
+    public Token nextToken() {
+        while (true) {
+            int start = pos;
+            int startLine = line;
+            int startColumn = pos - lineStart;
+            if (pos >= length) {
+                return token(Token.EOF, length, length, startLine, startColumn, null);
+            }
+            char c = data[pos];
+            int type;
+            String text = null;
+            switch (c) {
+                case '\t':
+                case ' ':
+                case '\u00A0':
+                    pos++;
+                    continue;
+                case '\n':
+                case '\r':
+                case '\f':
+                    lineBreak();
+                    if (incompleteNesting > 0) {
+                        continue;
+                    }
+                    type = RParser.NEWLINE;
+                    break;
+                case '#':
+                    pos++;
+                    while (pos < length && !isLineBreak(data[pos])) {
+                        pos++;
+                    }
+                    if (pos < length) {
+                        lineBreak();
+                    }
+                    if (incompleteNesting > 0) {
+                        continue;
+                    }
+                    type = RParser.COMMENT;
+                    break;
+                case '<':
+                    if (peek(1) == '<' && peek(2) == '-') {
+                        pos += 3;
+                        type = RParser.SUPER_ARROW;
+                    } else if (peek(1) == '-') {
+                        pos += 2;
+                        type = RParser.ARROW;
+                    } else if (peek(1) == '=') {
+                        pos += 2;
+                        type = RParser.LE;
+                    } else {
+                        pos++;
+                        type = RParser.LT;
+                    }
+                    break;
+                case ':':
+                    if (peek(1) == ':' && peek(2) == ':') {
+                        pos += 3;
+                        type = RParser.NS_GET_INT;
+                    } else if (peek(1) == ':') {
+                        pos += 2;
+                        type = RParser.NS_GET;
+                    } else if (peek(1) == '=') {
+                        pos += 2;
+                        type = RParser.ARROW;
+                    } else {
+                        pos++;
+                        type = RParser.COLON;
+                    }
+                    break;
+                case '-':
+                    if (peek(1) == '>' && peek(2) == '>') {
+                        pos += 3;
+                        type = RParser.SUPER_RIGHT_ARROW;
+                    } else if (peek(1) == '>') {
+                        pos += 2;
+                        type = RParser.RIGHT_ARROW;
+                    } else {
+                        pos++;
+                        type = RParser.MINUS;
+                    }
+                    break;
+                case '=':
+                    type = twoCharOperator('=', RParser.EQ, RParser.ASSIGN);
+                    break;
+                case '!':
+                    type = twoCharOperator('=', RParser.NE, RParser.NOT);
+                    break;
+                case '>':
+                    type = twoCharOperator('=', RParser.GE, RParser.GT);
+                    break;
+                case '&':
+                    type = twoCharOperator('&', RParser.AND, RParser.ELEMENTWISEAND);
+                    break;
+                case '|':
+                    type = twoCharOperator('|', RParser.OR, RParser.ELEMENTWISEOR);
+                    break;
+                case '*':
+                    type = twoCharOperator('*', RParser.CARET, RParser.MULT);
+                    break;
+                case '^':
+                    pos++;
+                    type = RParser.CARET;
+                    break;
+                case '{':
+                    pos++;
+                    if (nestingStackSize == nestingStack.length) {
+                        nestingStack = Arrays.copyOf(nestingStack, nestingStackSize * 2);
+                    }
+                    nestingStack[nestingStackSize++] = incompleteNesting;
+                    incompleteNesting = 0;
+                    type = RParser.LBRACE;
+                    break;
+                case '}':
+                    pos++;
+                    if (nestingStackSize > 0) {
+                        incompleteNesting = nestingStack[--nestingStackSize];
+                    }
+                    type = RParser.RBRACE;
+                    break;
+                case '(':
+                    pos++;
+                    incompleteNesting++;
+                    type = RParser.LPAR;
+                    break;
+                case ')':
+                    pos++;
+                    incompleteNesting--;
+                    type = RParser.RPAR;
+                    break;
+                case '[':
+                    if (peek(1) == '[') {
+                        pos += 2;
+                        incompleteNesting += 2;
+                        type = RParser.LBB;
+                    } else {
+                        pos++;
+                        incompleteNesting++;
+                        type = RParser.LBRAKET;
+                    }
+                    break;
+                case ']':
+                    pos++;
+                    incompleteNesting--;
+                    type = RParser.RBRAKET;
+                    break;
+                case '%':
+                    type = percentOperator();
+                    break;
+                case '~':
+                    pos++;
+                    type = RParser.TILDE;
+                    break;
+                case '?':
+                    pos++;
+                    type = RParser.QM;
+                    break;
+                case '+':
+                    pos++;
+                    type = RParser.PLUS;
+                    break;
+                case '/':
+                    pos++;
+                    type = RParser.DIV;
+                    break;
+                case '$':
+                    pos++;
+                    type = RParser.FIELD;
+                    break;
+                case '@':
+                    pos++;
+                    type = RParser.AT;
+                    break;
+                case ';':
+                    pos++;
+                    type = RParser.SEMICOLON;
+                    break;
+                case ',':
+                    pos++;
+                    type = RParser.COMMA;
+                    break;
+                case '"':
+                case '\'':
+                    text = quoted(c);
+                    type = RParser.STRING;
+                    break;
+                case '`':
+                    text = quoted('`');
+                    if (text.isEmpty()) {
+                        throw RError.error(RError.NO_CALLER, RError.Message.ZERO_LENGTH_VARIABLE);
+                    }
+                    type = RParser.ID;
+                    break;
+                case '.':
+                    type = dots();
+                    break;
+                default:
+                    if (isDigit(c)) {
+                        type = number();
+                    } else if (isIdStart(c)) {
+                        pos = identifierEnd(pos + 1);
+                        text = new String(data, start, pos - start);
+                        type = keyword(text);
+                    } else {
+                        throw noViableAlt(start);
+                    }
+                    break;
+            }
+            if (text == null && (type == RParser.INTEGER || type == RParser.COMPLEX)) {
+                // the "L" and "i" suffixes are not part of the token text
+                text = new String(data, start, pos - start - 1);
+            }
+            return token(type, start, pos - 1, startLine, startColumn, text);
+        }
+    }
+
+    private Token token(int type, int start, int stop, int tokenLine, int tokenColumn, String text) {
+        CommonToken token = new CommonToken(input, type, Token.DEFAULT_CHANNEL, start, stop);
+        token.setLine(tokenLine);
+        token.setCharPositionInLine(tokenColumn);
+        if (text != null) {
+            token.setText(text);
+        }
+        return token;
+    }
+
+    private int peek(int offset) {
+        int index = pos + offset;
+        return index < length ? data[index] : CharStream.EOF;
+    }
+
+    private int twoCharOperator(char second, int longType, int shortType) {
+        if (peek(1) == second) {
+            pos += 2;
+            return longType;
+        }
+        pos++;
+        return shortType;
+    }
+
+    private void newLineAt(int index) {
+        line++;
+        lineStart = index + 1;
+    }
+
+    private static boolean isLineBreak(int c) {
+        return c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * Consumes a line break: "\n", "\r", "\f", "\r\n" or "\f\n".
+     */
+    private void lineBreak() {
+        char c = data[pos];
+        if (c != '\n' && peek(1) == '\n') {
+            pos++;
+        }
+        if (data[pos] == '\n') {
+            newLineAt(pos);
+        }
+        pos++;
+    }
+
+    /**
+     * Handles "%%" and the "%op%" user-defined operators.
+     */
+    private int percentOperator() {
+        int start = pos;
+        if (peek(1) == '%') {
+            pos += 2;
+            return RParser.MOD;
+        }
+        int p = start + 1;
+        if (p >= length || isLineBreak(data[p])) {
+            throw noViableAlt(start);
+        }
+        while (p < length && data[p] != '%' && !isLineBreak(data[p])) {
+            p++;
+        }
+        if (p >= length || data[p] != '%') {
+            throw mismatchedToken('%', p);
+        }
+        pos = p + 1;
+        return RParser.OP;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(int c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isOctDigit(int c) {
+        return c >= '0' && c <= '7';
+    }
+
+    private static boolean isIdStart(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || (c >= '\u03B1' && c <= '\u03C9') || (c >= '\u0391' && c <= '\u03A9');
+    }
+
+    private int identifierEnd(int from) {
+        int p = from;
+        while (p < length) {
+            char c = data[p];
+            if (!isIdStart(c) && !isDigit(c) && c != '.') {
+                break;
+            }
+            p++;
+        }
+        return p;
+    }
+
+    private static int keyword(String text) {
+        switch (text) {
+            case "function":
+                return RParser.FUNCTION;
+            case "NULL":
+                return RParser.NULL;
+            case "NA":
+                return RParser.NA;
+            case "NA_integer_":
+                return RParser.NAINT;
+            case "NA_real_":
+                return RParser.NAREAL;
+            case "NA_character_":
+                return RParser.NACHAR;
+            case "NA_complex_":
+                return RParser.NACOMPL;
+            case "TRUE":
+                return RParser.TRUE;
+            case "FALSE":
+                return RParser.FALSE;
+            case "Inf":
+                return RParser.INF;
+            case "NaN":
+                return RParser.NAN;
+            case "while":
+                return RParser.WHILE;
+            case "for":
+                return RParser.FOR;
+            case "repeat":
+                return RParser.REPEAT;
+            case "in":
+                return RParser.IN;
+            case "if":
+                return RParser.IF;
+            case "else":
+                return RParser.ELSE;
+            case "next":
+                return RParser.NEXT;
+            case "break":
+                return RParser.BREAK;
+            default:
+                return RParser.ID;
+        }
+    }
+
+    /**
+     * Handles everything that starts with a ".": numbers like ".5", "..1", "...", identifiers like
+     * ".x", "..x" or "..1x", and the (deprecated) identifiers ".", ".." and "....".
+     */
+    private int dots() {
+        int start = pos;
+        int p = start;
+        while (p < length && data[p] == '.') {
+            p++;
+        }
+        int dotCount = p - start;
+        if (p < length && isDigit(data[p])) {
+            if (dotCount == 1) {
+                return number();
+            }
+            int q = p;
+            while (q < length && isDigit(data[q])) {
+                q++;
+            }
+            if (q < length && isIdStart(data[q])) {
+                pos = identifierEnd(q + 1);
+                return RParser.ID;
+            }
+            if (dotCount == 2) {
+                pos = q;
+                return RParser.DD;
+            }
+        }
+        if (p < length && isIdStart(data[p])) {
+            pos = identifierEnd(p + 1);
+            return RParser.ID;
+        }
+        pos = p;
+        return dotCount == 3 ? RParser.VARIADIC : RParser.ID;
+    }
+
+    /**
+     * Returns the end of an exponent ("e-3", "p+2", ...) starting at {@code p}, or -1 if there is
+     * no complete exponent at that position.
+     */
+    private int exponentEnd(int p, char lower, char upper) {
+        if (p < length && (data[p] == lower || data[p] == upper)) {
+            int q = p + 1;
+            if (q < length && (data[q] == '+' || data[q] == '-')) {
+                q++;
+            }
+            if (q < length && isDigit(data[q])) {
+                while (q < length && isDigit(data[q])) {
+                    q++;
+                }
+                return q;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Scans DOUBLE, INTEGER and COMPLEX literals, in decimal as well as hexadecimal notation.
+     */
+    private int number() {
+        int p = pos;
+        if (data[p] == '0' && p + 2 < length && data[p + 1] == 'x' && isHexDigit(data[p + 2])) {
+            p += 2;
+            while (p < length && isHexDigit(data[p])) {
+                p++;
+            }
+            if (p < length && data[p] == 'L') {
+                pos = p + 1;
+                return RParser.INTEGER;
+            }
+            int q = p;
+            if (q < length && data[q] == '.') {
+                q++;
+            }
+            while (q < length && isHexDigit(data[q])) {
+                q++;
+            }
+            int exponent = exponentEnd(q, 'p', 'P');
+            if (exponent != -1) {
+                p = exponent;
+            }
+            if (p < length && data[p] == 'i') {
+                pos = p + 1;
+                return RParser.COMPLEX;
+            }
+            pos = p;
+            return RParser.DOUBLE;
+        }
+        boolean leadingDot = data[p] == '.';
+        if (leadingDot) {
+            p++;
+        }
+        while (p < length && isDigit(data[p])) {
+            p++;
+        }
+        boolean fraction = false;
+        if (!leadingDot && p < length && data[p] == '.') {
+            fraction = true;
+            p++;
+            while (p < length && isDigit(data[p])) {
+                p++;
+            }
+        }
+        int exponent = exponentEnd(p, 'e', 'E');
+        if (exponent != -1) {
+            p = exponent;
+        }
+        if (p < length && data[p] == 'L' && !(fraction && exponent != -1)) {
+            pos = p + 1;
+            return RParser.INTEGER;
+        } else if (p < length && data[p] == 'i') {
+            pos = p + 1;
+            return RParser.COMPLEX;
+        }
+        pos = p;
+        return RParser.DOUBLE;
+    }
+
+    /**
+     * Scans a string or backtick name delimited by {@code quote} and returns its unescaped
+     * contents.
+     */
+    private String quoted(char quote) {
+        int p = pos + 1;
+        int chunkStart = p;
+        StringBuilder buf = null;
+        while (true) {
+            if (p >= length) {
+                throw mismatchedToken(quote, p);
+            }
+            char c = data[p];
+            if (c == quote) {
+                String result;
+                if (buf == null) {
+                    result = new String(data, chunkStart, p - chunkStart);
+                } else {
+                    result = buf.append(data, chunkStart, p - chunkStart).toString();
+                }
+                pos = p + 1;
+                return result;
+            } else if (c == '\\') {
+                if (buf == null) {
+                    buf = new StringBuilder(p - chunkStart + 16);
+                }
+                buf.append(data, chunkStart, p - chunkStart);
+                p = escape(p + 1, buf);
+                chunkStart = p;
+            } else {
+                if (c == '\n') {
+                    newLineAt(p);
+                }
+                p++;
+            }
+        }
+    }
+
+    /**
+     * Decodes the escape sequence following the backslash at {@code p - 1} and returns the index
+     * of the first character after it.
+     */
+    private int escape(int p, StringBuilder buf) {
+        if (p >= length) {
+            throw noViableAlt(p);
+        }
+        char c = data[p];
+        switch (c) {
+            case 't':
+                buf.append('\t');
+                return p + 1;
+            case 'n':
+                buf.append('\n');
+                return p + 1;
+            case 'a':
+                buf.append((char) 7);
+                return p + 1;
+            case 'v':
+                buf.append((char) 11);
+                return p + 1;
+            case 'r':
+                buf.append('\r');
+                return p + 1;
+            case 'b':
+                buf.append('\b');
+                return p + 1;
+            case 'f':
+                buf.append('\f');
+                return p + 1;
+            case '"':
+            case '`':
+            case '\'':
+            case ' ':
+            case '\\':
+                buf.append(c);
+                return p + 1;
+            case '\n':
+                newLineAt(p);
+                buf.append('\n');
+                return p + 1;
+            case 'x':
+                if (!isHexDigit(peekAt(p + 1))) {
+                    throw mismatchedSet(p + 1);
+                } else if (!isHexDigit(peekAt(p + 2))) {
+                    throw mismatchedSet(p + 2);
+                }
+                return hexEscape(p + 1, 2, buf);
+            case 'u':
+                return hexEscape(p + 1, 4, buf);
+            case 'U':
+                return hexEscape(p + 1, 8, buf);
+            default:
+                if (isOctDigit(c)) {
+                    int value = 0;
+                    int q = p;
+                    while (q < p + 3 && q < length && isOctDigit(data[q])) {
+                        value = value * 8 + (data[q] - '0');
+                        q++;
+                    }
+                    // octal escape sequences are clamped the 0-255 range
+                    buf.appendCodePoint(value & 0xff);
+                    return q;
+                }
+                throw noViableAlt(p);
+        }
+    }
+
+    private int peekAt(int index) {
+        return index < length ? data[index] : CharStream.EOF;
+    }
+
+    private int hexEscape(int p, int maxDigits, StringBuilder buf) {
+        if (!isHexDigit(peekAt(p))) {
+            throw mismatchedSet(p);
+        }
+        int value = 0;
+        int q = p;
+        while (q < p + maxDigits && q < length && isHexDigit(data[q])) {
+            value = value * 16 + Character.digit(data[q], 16);
+            q++;
+        }
+        buf.appendCodePoint(value);
+        return q;
+    }
+
+    private IllegalArgumentException noViableAlt(int index) {
+        return error(new NoViableAltException("", 0, 0, input), index);
+    }
+
+    private IllegalArgumentException mismatchedToken(int expected, int index) {
+        return error(new MismatchedTokenException(expected, input), index);
+    }
+
+    private IllegalArgumentException mismatchedSet(int index) {
+        return error(new MismatchedSetException(new BitSet(), input), index);
+    }
+
+    /**
+     * Positions the exception at {@code index} and wraps it like {@code RLexer.reportError} does.
+     */
+    private IllegalArgumentException error(RecognitionException e, int index) {
+        e.index = index;
+        e.c = peekAt(index);
+        e.line = line;
+        e.charPositionInLine = index - lineStart;
+        return new IllegalArgumentException(e);
+    }
+}
@@ -46,11 +46,17 @@ public enum FastROptions {
     TraceNativeCalls("Trace all native function calls (performed via .Call, .External, etc.)", false),
     Rdebug("Rdebug=f1,f2.,,,; list of R function to call debug on (implies +Instrument)", null, true),
     PerformanceWarnings("Print FastR performance warning", false),
+    CallMetrics("CallMetrics=file[,seconds]; collect per-builtin and per-function call metrics, written to 'file' every 'seconds' (default 60) and at exit", null, true),
+    MemAllocSampleInterval("Average number of bytes allocated between two allocations tracked for retention by the memory allocation profiler, 0 disables the tracking", "524288", true),
     LoadProfiles("Load the system, site and user profile scripts.", !FastRConfig.ManagedMode),
     PrintComplexLookups("Print a message for each non-trivial variable lookup", false),
+    FrameStackIndex("Index the frames on the call stack by depth once sys.function, parent.frame and similar builtins walk the stack, this materializes the frames of all calls", false),
+    GcCollect("Whether gc() triggers a collection of the Java heap before reporting the memory usage", false),
     FullPrecisionSum("Use 128 bit arithmetic in sum builtin", false),
+    ParallelReduceThreshold("Minimal length of vectors reduced in parallel by sum, prod, min, max, range and mean, 0 disables the parallel reduction", "1000000", true),
     InvisibleArgs("Argument writes do not trigger state transitions", true),
     RefCountIncrementOnly("Disable reference count decrements for experimental state transition implementation", false),
+    TraceReplacementCopies("Print the source location of each replacement (e.g. x[i] <- v) that copies its shared target vector", false),
     UseInternalGridGraphics("Whether the internal (Java) grid graphics implementation should be used", true),
     UseSpecials("Whether the fast-path special call nodes should be created for simple enough arguments.", true),
     ForceSources("Generate source sections for unserialized code", false),
@@ -60,6 +66,11 @@ public enum FastROptions {
     EmitTmpSource("Write deparsed source code to temporary files for better debugging.", true),
     EmitTmpDir("The directory where to allocate temporary files with deparsed source code.", null, true),
     EmitTmpHashed("Use an SHA-256 hash as file name to reduce temporary file creation.", true),
+    ParseCache("Cache the parse results of larger R sources on disk, keyed by the hash of their contents", true),
+    ParseCacheDir("The directory of the parse cache, defaults to ~/.cache/fastr/parse", null, true),
+    ParseCacheSize("Maximal size of the parse cache in megabytes, least recently used entries are evicted first", "64", true),
+    StartupImage("Use the parse results of the startup and default package sources pre-built into R_HOME/etc/startup-image", true),
+    StartupImageDir("The directory of the startup image, defaults to R_HOME/etc/startup-image", null, true),
     SpawnUsesPolyglot("use PolyglotEngine for .fastr.context.spwan", false),
     SynchronizeNativeCode("allow only one thread to enter packages' native code", false),
     ForeignObjectWrappers("use wrappers for foreign objects (as opposed to full conversion)", false),
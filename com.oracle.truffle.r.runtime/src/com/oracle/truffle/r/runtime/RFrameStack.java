@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.r.runtime.context.RContext;
+
+/**
+ * A per-thread index of the R frames on the call stack by their depth, which allows
+ * {@link Utils#getStackFrame} to answer queries of {@code sys.function}, {@code parent.frame} and
+ * similar builtins without walking the Truffle frames.
+ *
+ * Maintaining the index requires the frames of all closure and builtin calls to be materialized,
+ * therefore it is only used if the {@link FastROptions#FrameStackIndex} option is set, and even
+ * then only after {@link Utils#getStackFrame} had to walk the stack for the first time, before that
+ * {@link #isEnabled()} folds to {@code false} in compiled code. The frames entered before the
+ * index was enabled are not in the index and the lookups fall back to the stack walk for them.
+ *
+ * Entering a frame at a given depth shadows any frame recorded for the same depth, which is
+ * restored on exit. This happens when promises are evaluated deeper in the stack than where they
+ * were created, and it gives the same result as the stack walk, which returns the top-most frame
+ * with the requested depth. Every entry also records the context that entered it, so that the
+ * frames of a context are never returned to another context running on the same thread.
+ */
+public final class RFrameStack {
+
+    private static final Assumption noFrameStackAssumption = Truffle.getRuntime().createAssumption("no frame stack");
+
+    private static final ThreadLocal<Stack> stacks = ThreadLocal.withInitial(Stack::new);
+
+    /**
+     * Returned by {@link #enter(MaterializedFrame)} if the frame was not recorded.
+     */
+    private static final Object NOT_ENTERED = new Object();
+
+    private RFrameStack() {
+        // only static methods
+    }
+
+    private static final class Entry {
+        private final Frame frame;
+        private final RContext context;
+
+        private Entry(Frame frame, RContext context) {
+            this.frame = frame;
+            this.context = context;
+        }
+    }
+
+    private static final class Stack {
+        private Entry[] entries = new Entry[64];
+
+        private Entry set(int depth, Entry entry) {
+            if (depth >= entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(entries.length * 2, depth + 1));
+            }
+            Entry previous = entries[depth];
+            entries[depth] = entry;
+            return previous;
+        }
+
+        private Frame get(int depth) {
+            Entry entry = depth < entries.length ? entries[depth] : null;
+            return entry != null && entry.context == RContext.getInstance() ? entry.frame : null;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return !noFrameStackAssumption.isValid();
+    }
+
+    static void enable() {
+        if (noFrameStackAssumption.isValid() && FastROptions.FrameStackIndex.getBooleanValue()) {
+            noFrameStackAssumption.invalidate();
+        }
+    }
+
+    /**
+     * Records {@code frame} as the top-most frame with its depth, the result must be passed to
+     * {@link #exit(MaterializedFrame, Object)} when the execution of the frame ends.
+     */
+    @TruffleBoundary
+    public static Object enter(MaterializedFrame frame) {
+        RCaller call = RArguments.getCall(frame);
+        if (call == null || call.isPromise()) {
+            return NOT_ENTERED;
+        }
+        return stacks.get().set(call.getDepth(), new Entry(frame, RContext.getInstance()));
+    }
+
+    @TruffleBoundary
+    public static void exit(MaterializedFrame frame, Object token) {
+        if (token != NOT_ENTERED) {
+            stacks.get().set(RArguments.getCall(frame).getDepth(), (Entry) token);
+        }
+    }
+
+    /**
+     * Calls {@code target} with the frame of an evaluation (see {@code VirtualEvalFrame}) as its
+     * only argument, recording the frame while the call is in progress.
+     */
+    public static Object call(CallTarget target, MaterializedFrame frame) {
+        if (!isEnabled()) {
+            return target.call(frame);
+        }
+        Object token = enter(frame);
+        try {
+            return target.call(frame);
+        } finally {
+            exit(frame, token);
+        }
+    }
+
+    /**
+     * Returns the top-most recorded frame with the given depth, or {@code null} if there is none or
+     * if it cannot be verified that it is on the call chain of {@code current}.
+     */
+    static Frame get(int depth, RCaller current) {
+        Frame frame = stacks.get().get(depth);
+        if (frame == null) {
+            return null;
+        }
+        RCaller call = RArguments.getCall(frame);
+        if (call.isPromise() || call.getDepth() != depth) {
+            return null;
+        }
+        for (RCaller c = current; c != null && c.getDepth() >= depth; c = c.getParent()) {
+            if (c == call) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the recorded frame of {@code call}, or {@code null} if it is not recorded.
+     */
+    static Frame get(RCaller call) {
+        Frame frame = stacks.get().get(call.getDepth());
+        if (frame != null && RArguments.getCall(frame) == call) {
+            return frame;
+        }
+        return null;
+    }
+}
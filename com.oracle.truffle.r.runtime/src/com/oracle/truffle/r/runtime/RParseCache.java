@@ -0,0 +1,666 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.runtime.context.Engine.ParseException;
+import com.oracle.truffle.r.runtime.context.TruffleRLanguage;
+import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.nodes.RCodeBuilder;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
+
+/**
+ * A persistent on-disk cache of parse results, keyed by the SHA-256 hash of the source contents.
+ *
+ * Instead of serializing the resulting trees, the cache records the sequence of
+ * {@link RCodeBuilder} calls the parser makes while building them, together with the character
+ * ranges of all source sections. On a cache hit, the calls are replayed against the builder in the
+ * same order, which yields the same AST (including source sections and thereby srcrefs) without
+ * running the lexer and parser. Results that cannot be replayed faithfully, e.g., because the
+ * parser switched to another source due to a {@code #line} directive, are not cached.
+ *
+ * Only non-interactive sources of at least {@link #MIN_SOURCE_LENGTH} characters are cached. The
+ * cache is controlled by {@link FastROptions#ParseCache}, {@link FastROptions#ParseCacheDir} and
+ * {@link FastROptions#ParseCacheSize}; the least recently used entries are evicted first. In
+ * addition, a read-only startup image (see {@link FastROptions#StartupImage} and
+ * {@link FastROptions#StartupImageDir}) is consulted first.
+ */
+public final class RParseCache {
+
+    private static final int MAGIC = 0x52415354; // "RAST"
+    /**
+     * Must be incremented whenever the encoding below changes.
+     */
+    private static final int FORMAT_VERSION = 1;
+    private static final int MIN_SOURCE_LENGTH = 1024;
+    private static final String SUFFIX = ".ast";
+
+    private static final byte OP_CALL = 1;
+    private static final byte OP_CONSTANT = 2;
+    private static final byte OP_LOOKUP = 3;
+    private static final byte OP_FUNCTION = 4;
+    private static final byte OP_RESULT = 5;
+
+    private static final byte CONST_NULL = 0;
+    private static final byte CONST_LOGICAL = 1;
+    private static final byte CONST_INT = 2;
+    private static final byte CONST_DOUBLE = 3;
+    private static final byte CONST_COMPLEX = 4;
+    private static final byte CONST_STRING = 5;
+    private static final byte CONST_STRING_NA = 6;
+
+    private static final int NO_SECTION = -1;
+    private static final int UNAVAILABLE_SECTION = -2;
+
+    private static final byte ASSIGNED_NONE = 0;
+    private static final byte ASSIGNED_NODE = 1;
+    private static final byte ASSIGNED_NAME = 2;
+
+    private static Path cacheDir;
+    private static boolean cacheDirUsable;
+    private static Path imageDir;
+    private static boolean imageDirExists;
+    private static final HashMap<Class<?>, String> parserStamps = new HashMap<>();
+
+    private RParseCache() {
+        // no instances
+    }
+
+    /**
+     * Parses the given source using {@code parser}, or replays a cached parse result if there is
+     * one for the same source contents.
+     */
+    public static <T> List<T> script(RParserFactory.Parser<T> parser, Source source, RCodeBuilder<T> builder, TruffleRLanguage language) throws ParseException {
+        if (source.isInteractive() || source.getLength() < MIN_SOURCE_LENGTH) {
+            return parser.script(source, builder, language);
+        }
+        Path image = getImageDir();
+        Path dir = FastROptions.ParseCache.getBooleanValue() ? getCacheDir() : null;
+        if (image == null && dir == null) {
+            return parser.script(source, builder, language);
+        }
+        String key = key(parser, source);
+        if (image != null) {
+            List<T> result = lookup(image.resolve(key + SUFFIX), false, source, builder, language);
+            if (result != null) {
+                return result;
+            }
+        }
+        if (dir == null) {
+            return parser.script(source, builder, language);
+        }
+        Path file = dir.resolve(key + SUFFIX);
+        List<T> cached = lookup(file, true, source, builder, language);
+        if (cached != null) {
+            return cached;
+        }
+        Recorder<T> recorder = new Recorder<>(builder, source);
+        List<T> result = parser.script(source, recorder, language);
+        byte[] data = recorder.finish(result);
+        if (data != null) {
+            store(dir, file, data);
+        }
+        return result;
+    }
+
+    /**
+     * Replays the entry in {@code file}, if there is one. Broken entries in the writable cache are
+     * deleted (and then overwritten by the fresh parse result), read-only image entries are left
+     * alone.
+     */
+    private static <T> List<T> lookup(Path file, boolean writable, Source source, RCodeBuilder<T> builder, TruffleRLanguage language) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            List<T> result = replay(Files.readAllBytes(file), source, builder, language);
+            if (writable) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            // a truncated or corrupt entry, the builder may also fail on garbage
+            if (writable) {
+                deleteQuietly(file);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The startup image is a parse cache directory populated by the manual {@code mx
+     * r-startup-image} command with the parse results of the sources evaluated while starting FastR
+     * and loading the default packages. Neither {@code mx build} nor the release distribution
+     * produce it, without it only the per-user cache is used. It is only ever read.
+     */
+    private static synchronized Path getImageDir() {
+        if (!FastROptions.StartupImage.getBooleanValue()) {
+            return null;
+        }
+        String dirName = FastROptions.StartupImageDir.getStringValue();
+        Path dir = dirName != null ? Paths.get(dirName) : Paths.get(REnvVars.rHome(), "etc", "startup-image");
+        if (!dir.equals(imageDir)) {
+            imageDir = dir;
+            imageDirExists = Files.isDirectory(dir);
+        }
+        return imageDirExists ? imageDir : null;
+    }
+
+    private static synchronized Path getCacheDir() {
+        String dirName = FastROptions.ParseCacheDir.getStringValue();
+        Path dir = dirName != null ? Paths.get(dirName) : Paths.get(System.getProperty("user.home"), ".cache", "fastr", "parse");
+        if (!dir.equals(cacheDir)) {
+            cacheDir = dir;
+            try {
+                Files.createDirectories(dir);
+                cacheDirUsable = true;
+            } catch (IOException | SecurityException e) {
+                cacheDirUsable = false;
+            }
+        }
+        return cacheDirUsable ? cacheDir : null;
+    }
+
+    private static <T> String key(RParserFactory.Parser<T> parser, Source source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(getParserStamp(parser).getBytes(StandardCharsets.UTF_8));
+            digest.update(source.getCharacters().toString().getBytes(StandardCharsets.UTF_8));
+            return Utils.toHexString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw RInternalError.shouldNotReachHere("SHA-256 is an unknown algorithm");
+        }
+    }
+
+    /**
+     * Identifies the parser version by the hash of the class files of its implementation, so that a
+     * changed parser does not pick up entries recorded by an older one, while the entries (and the
+     * startup image) stay valid when FastR is rebuilt without changes to the parser, relocated or
+     * packaged.
+     */
+    private static synchronized String getParserStamp(RParserFactory.Parser<?> parser) {
+        String stamp = parserStamps.get(parser.getClass());
+        if (stamp == null) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                digest.update(Integer.toString(FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+                for (Class<?> implementationClass : parser.getImplementationClasses()) {
+                    digest.update(implementationClass.getName().getBytes(StandardCharsets.UTF_8));
+                    // without the class file (e.g. in an AOT image) the names have to suffice
+                    byte[] classFile = readClassFile(implementationClass);
+                    if (classFile != null) {
+                        digest.update(classFile);
+                    }
+                }
+                stamp = Utils.toHexString(digest.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw RInternalError.shouldNotReachHere("SHA-256 is an unknown algorithm");
+            }
+            parserStamps.put(parser.getClass(), stamp);
+        }
+        return stamp;
+    }
+
+    private static byte[] readClassFile(Class<?> clazz) {
+        String name = clazz.getName();
+        try (InputStream in = clazz.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static void store(Path dir, Path file, byte[] data) {
+        try {
+            Path tmp = Files.createTempFile(dir, "parse", ".tmp");
+            Files.write(tmp, data);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            evict(dir);
+        } catch (IOException | SecurityException e) {
+            // caching is best effort only
+        }
+    }
+
+    private static final class CacheEntry {
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+
+        CacheEntry(Path path) throws IOException {
+            this.path = path;
+            this.size = Files.size(path);
+            this.lastModified = Files.getLastModifiedTime(path).toMillis();
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries once the cache grows over its limit, until it is
+     * below three quarters of the limit.
+     */
+    private static synchronized void evict(Path dir) throws IOException {
+        long limit = FastROptions.ParseCacheSize.getNonNegativeIntValue() * 1024L * 1024L;
+        ArrayList<CacheEntry> entries = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                CacheEntry entry = new CacheEntry(path);
+                entries.add(entry);
+                total += entry.size;
+            }
+        }
+        if (total <= limit) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong(e -> e.lastModified));
+        for (CacheEntry entry : entries) {
+            if (total <= limit / 4 * 3) {
+                break;
+            }
+            deleteQuietly(entry.path);
+            total -= entry.size;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException | SecurityException e) {
+            // ignore, will be retried next time
+        }
+    }
+
+    /**
+     * Passes all calls to the delegate builder and records them. Each node returned by the builder
+     * is identified by the index of the call that created it.
+     */
+    private static final class Recorder<T> implements RCodeBuilder<T> {
+        private final RCodeBuilder<T> delegate;
+        private final Source source;
+        private final IdentityHashMap<Object, Integer> ids = new IdentityHashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private int nodeCount;
+        private boolean valid = true;
+
+        Recorder(RCodeBuilder<T> delegate, Source source) {
+            this.delegate = delegate;
+            this.source = source;
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(source.getLength());
+            } catch (IOException e) {
+                throw RInternalError.shouldNotReachHere(e);
+            }
+        }
+
+        private T created(T node) {
+            ids.put(node, nodeCount++);
+            return node;
+        }
+
+        private void writeNode(Object node) throws IOException {
+            if (node == null) {
+                out.writeInt(-1);
+            } else {
+                Integer id = ids.get(node);
+                if (id == null) {
+                    throw new IOException("node not created by this builder");
+                }
+                out.writeInt(id);
+            }
+        }
+
+        private void writeSection(SourceSection section) throws IOException {
+            if (section == null) {
+                out.writeInt(NO_SECTION);
+            } else if (section == RSyntaxNode.SOURCE_UNAVAILABLE) {
+                out.writeInt(UNAVAILABLE_SECTION);
+            } else if (section.getSource() == source && section.isAvailable()) {
+                out.writeInt(section.getCharIndex());
+                out.writeInt(section.getCharLength());
+            } else {
+                throw new IOException("section from another source");
+            }
+        }
+
+        private void writeArguments(List<Argument<T>> arguments) throws IOException {
+            out.writeInt(arguments.size());
+            for (Argument<T> argument : arguments) {
+                writeSection(argument.source);
+                writeString(out, argument.name);
+                writeNode(argument.value);
+            }
+        }
+
+        private void writeConstant(Object value) throws IOException {
+            if (value == RNull.instance) {
+                out.writeByte(CONST_NULL);
+            } else if (value instanceof Byte) {
+                out.writeByte(CONST_LOGICAL);
+                out.writeByte((byte) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(CONST_INT);
+                out.writeInt((int) value);
+            } else if (value instanceof Double) {
+                out.writeByte(CONST_DOUBLE);
+                out.writeLong(Double.doubleToRawLongBits((double) value));
+            } else if (value instanceof RComplex) {
+                out.writeByte(CONST_COMPLEX);
+                out.writeLong(Double.doubleToRawLongBits(((RComplex) value).getRealPart()));
+                out.writeLong(Double.doubleToRawLongBits(((RComplex) value).getImaginaryPart()));
+            } else if (value instanceof String) {
+                if (RRuntime.isNA((String) value)) {
+                    out.writeByte(CONST_STRING_NA);
+                } else {
+                    out.writeByte(CONST_STRING);
+                    writeString(out, (String) value);
+                }
+            } else {
+                throw new IOException("unexpected constant " + value.getClass().getSimpleName());
+            }
+        }
+
+        @Override
+        public T call(SourceSection source, T lhs, List<Argument<T>> arguments) {
+            T result = delegate.call(source, lhs, arguments);
+            if (valid) {
+                try {
+                    out.writeByte(OP_CALL);
+                    writeSection(source);
+                    writeNode(lhs);
+                    writeArguments(arguments);
+                } catch (IOException e) {
+                    valid = false;
+                }
+            }
+            return created(result);
+        }
+
+        @Override
+        public T constant(SourceSection source, Object value) {
+            T result = delegate.constant(source, value);
+            if (valid) {
+                try {
+                    out.writeByte(OP_CONSTANT);
+                    writeSection(source);
+                    writeConstant(value);
+                } catch (IOException e) {
+                    valid = false;
+                }
+            }
+            return created(result);
+        }
+
+        @Override
+        public T lookup(SourceSection source, String symbol, boolean functionLookup) {
+            T result = delegate.lookup(source, symbol, functionLookup);
+            if (valid) {
+                try {
+                    out.writeByte(OP_LOOKUP);
+                    writeSection(source);
+                    writeString(out, symbol);
+                    out.writeBoolean(functionLookup);
+                } catch (IOException e) {
+                    valid = false;
+                }
+            }
+            return created(result);
+        }
+
+        @Override
+        public T function(TruffleRLanguage language, SourceSection source, List<Argument<T>> arguments, T body, Object assignedTo) {
+            T result = delegate.function(language, source, arguments, body, assignedTo);
+            if (valid) {
+                try {
+                    out.writeByte(OP_FUNCTION);
+                    writeSection(source);
+                    writeArguments(arguments);
+                    writeNode(body);
+                    if (assignedTo == null) {
+                        out.writeByte(ASSIGNED_NONE);
+                    } else if (assignedTo instanceof String) {
+                        out.writeByte(ASSIGNED_NAME);
+                        writeString(out, (String) assignedTo);
+                    } else {
+                        out.writeByte(ASSIGNED_NODE);
+                        writeNode(assignedTo);
+                    }
+                } catch (IOException e) {
+                    valid = false;
+                }
+            }
+            return created(result);
+        }
+
+        @Override
+        public RootCallTarget rootFunction(TruffleRLanguage language, SourceSection source, List<Argument<T>> arguments, T body, String name) {
+            // only used when parsing single functions, which are not cached
+            valid = false;
+            return delegate.rootFunction(language, source, arguments, body, name);
+        }
+
+        @Override
+        public void setContext(CodeBuilderContext context) {
+            valid = false;
+            delegate.setContext(context);
+        }
+
+        @Override
+        public CodeBuilderContext getContext() {
+            return delegate.getContext();
+        }
+
+        /**
+         * Returns the encoded parse result, or {@code null} if it cannot be cached.
+         */
+        byte[] finish(List<T> result) {
+            if (valid) {
+                try {
+                    out.writeByte(OP_RESULT);
+                    out.writeInt(result.size());
+                    for (T node : result) {
+                        writeNode(node);
+                    }
+                    out.flush();
+                    return bytes.toByteArray();
+                } catch (IOException e) {
+                    valid = false;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static <T> List<T> replay(byte[] data, Source source, RCodeBuilder<T> builder, TruffleRLanguage language) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readInt() != source.getLength()) {
+            throw new IOException("incompatible cache entry");
+        }
+        ArrayList<T> nodes = new ArrayList<>();
+        while (true) {
+            byte op = in.readByte();
+            switch (op) {
+                case OP_CALL: {
+                    SourceSection section = readSection(in, source);
+                    T lhs = readNode(in, nodes);
+                    nodes.add(builder.call(section, lhs, readArguments(in, source, nodes)));
+                    break;
+                }
+                case OP_CONSTANT: {
+                    SourceSection section = readSection(in, source);
+                    nodes.add(builder.constant(section, readConstant(in)));
+                    break;
+                }
+                case OP_LOOKUP: {
+                    SourceSection section = readSection(in, source);
+                    String symbol = readString(in);
+                    nodes.add(builder.lookup(section, symbol, in.readBoolean()));
+                    break;
+                }
+                case OP_FUNCTION: {
+                    SourceSection section = readSection(in, source);
+                    List<RCodeBuilder.Argument<T>> arguments = readArguments(in, source, nodes);
+                    T body = readNode(in, nodes);
+                    Object assignedTo;
+                    byte kind = in.readByte();
+                    if (kind == ASSIGNED_NONE) {
+                        assignedTo = null;
+                    } else if (kind == ASSIGNED_NAME) {
+                        assignedTo = readString(in);
+                    } else {
+                        assignedTo = readNode(in, nodes);
+                    }
+                    nodes.add(builder.function(language, section, arguments, body, assignedTo));
+                    break;
+                }
+                case OP_RESULT: {
+                    int count = in.readInt();
+                    ArrayList<T> result = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        result.add(readNode(in, nodes));
+                    }
+                    return result;
+                }
+                default:
+                    throw new IOException("unknown operation " + op);
+            }
+        }
+    }
+
+    private static <T> T readNode(DataInputStream in, ArrayList<T> nodes) throws IOException {
+        int id = in.readInt();
+        if (id == -1) {
+            return null;
+        } else if (id < 0 || id >= nodes.size()) {
+            throw new IOException("invalid node reference " + id);
+        }
+        return nodes.get(id);
+    }
+
+    private static SourceSection readSection(DataInputStream in, Source source) throws IOException {
+        int index = in.readInt();
+        if (index == NO_SECTION) {
+            return null;
+        } else if (index == UNAVAILABLE_SECTION) {
+            return RSyntaxNode.SOURCE_UNAVAILABLE;
+        }
+        int length = in.readInt();
+        if (index < 0 || length < 0 || index + length > source.getLength()) {
+            throw new IOException("invalid source section");
+        }
+        return source.createSection(index, length);
+    }
+
+    private static <T> List<RCodeBuilder.Argument<T>> readArguments(DataInputStream in, Source source, ArrayList<T> nodes) throws IOException {
+        int count = in.readInt();
+        ArrayList<RCodeBuilder.Argument<T>> arguments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SourceSection section = readSection(in, source);
+            String name = readString(in);
+            T value = readNode(in, nodes);
+            arguments.add(RCodeBuilder.argument(section, name, value));
+        }
+        return arguments;
+    }
+
+    private static Object readConstant(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case CONST_NULL:
+                return RNull.instance;
+            case CONST_LOGICAL:
+                return in.readByte();
+            case CONST_INT:
+                return in.readInt();
+            case CONST_DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case CONST_COMPLEX:
+                double re = Double.longBitsToDouble(in.readLong());
+                return RComplex.valueOf(re, Double.longBitsToDouble(in.readLong()));
+            case CONST_STRING:
+                return readString(in);
+            case CONST_STRING_NA:
+                return RRuntime.STRING_NA;
+            default:
+                throw new IOException("unknown constant kind " + kind);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            // written as UTF-16 chars, so that even unpaired surrogates survive the round trip
+            out.writeInt(value.length());
+            out.writeChars(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        } else if (length < 0) {
+            throw new IOException("invalid string length");
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = in.readChar();
+        }
+        return new String(chars);
+    }
+}
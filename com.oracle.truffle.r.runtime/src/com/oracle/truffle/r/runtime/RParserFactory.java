@@ -44,6 +44,14 @@ public abstract class RParserFactory {
         int line(Throwable t);
 
         int charPositionInLine(Throwable t);
+
+        /**
+         * The classes that determine the result of parsing, used to identify the parser version,
+         * e.g. in persistent caches of parse results.
+         */
+        default Class<?>[] getImplementationClasses() {
+            return new Class<?>[]{getClass()};
+        }
     }
 
     static {
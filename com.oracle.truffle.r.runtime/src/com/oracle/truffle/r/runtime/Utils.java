@@ -363,14 +363,22 @@ public final class Utils {
      * {@link #getActualCurrentFrame()} as suggested. But if they don't, then this will incorrectly
      * return {@code null}.
      *
+     * The frame is looked up in {@link RFrameStack} first, the stack is walked only if it is not
+     * recorded there.
+     *
      * @param fa kind of access required to the frame
      * @param target identifies which frame is required
      * @return {@link Frame} instance or {@code null} if {@code depth} is out of range
      */
     @TruffleBoundary
     public static Frame getStackFrame(FrameAccess fa, RCaller target) {
-        RError.performanceWarning("slow frame access - getStackFrame1");
         assert target != null;
+        Frame indexed = RFrameStack.get(target);
+        if (indexed != null) {
+            return indexed;
+        }
+        RError.performanceWarning("slow frame access - getStackFrame1");
+        RFrameStack.enable();
         return Truffle.getRuntime().iterateFrames(new FrameInstanceVisitor<Frame>() {
             boolean first = true;
 
@@ -393,10 +401,17 @@ public final class Utils {
 
     /**
      * Like {@link #getStackFrame(FrameAccess, RCaller)}, but identifying the stack with its depth.
+     * {@code current} is the caller of the frame the lookup is made from, it is used to verify the
+     * frames found in {@link RFrameStack}.
      */
     @TruffleBoundary
-    public static Frame getStackFrame(FrameAccess fa, int depth) {
+    public static Frame getStackFrame(FrameAccess fa, int depth, RCaller current) {
+        Frame indexed = RFrameStack.get(depth, current);
+        if (indexed != null) {
+            return indexed;
+        }
         RError.performanceWarning("slow frame access - getStackFrame2");
+        RFrameStack.enable();
         return Truffle.getRuntime().iterateFrames(new FrameInstanceVisitor<Frame>() {
             boolean first = true;
 
@@ -330,6 +330,7 @@ public class ConnectionSupport {
         BZFile("bzfile"),
         XZFile("xzfile"),
         Socket("sockconn"),
+        ServerSocket("servsockconn"),
         Text("textConnection"),
         URL("url"),
         RAW("rawConnection"),
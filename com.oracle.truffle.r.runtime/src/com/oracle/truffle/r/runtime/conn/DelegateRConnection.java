@@ -522,11 +522,8 @@ abstract class DelegateRConnection extends RObject implements RConnection, ByteC
     private boolean ensureDataAvailable(int i) throws IOException {
         assert cache != null;
         if (cache.remaining() < i) {
-            byte[] rem = new byte[cache.remaining()];
-            cache.get(rem);
-            assert !cache.hasRemaining();
-            cache.clear();
-            cache.put(rem);
+            // move the remaining bytes to the start of the buffer
+            cache.compact();
             int read = getChannel().read(cache);
             cache.flip();
             return read == -1;
@@ -24,13 +24,14 @@ package com.oracle.truffle.r.runtime.conn;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.util.HashMap;
 import java.util.Set;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -39,7 +40,91 @@ import com.oracle.truffle.r.runtime.conn.ConnectionSupport.AbstractOpenMode;
 import com.oracle.truffle.r.runtime.conn.ConnectionSupport.BaseRConnection;
 import com.oracle.truffle.r.runtime.conn.ConnectionSupport.ConnectionClass;
 
+/**
+ * Socket connections. All socket channels are non-blocking, blocking connections wait for the
+ * channel to become ready using a {@link Selector} that is kept per thread and reused by all
+ * waits and by {@link RSocketConnection#select}. A channel stays registered with that selector
+ * once it was waited on, its interest set is cleared after each wait.
+ */
 public class SocketConnections {
+
+    private static final ThreadLocal<ThreadSelector> selectors = new ThreadLocal<>();
+
+    private static final class ThreadSelector {
+        private final Selector selector;
+
+        ThreadSelector() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        @Override
+        protected void finalize() throws Throwable {
+            super.finalize();
+            selector.close();
+        }
+    }
+
+    private static Selector getSelector() throws IOException {
+        ThreadSelector result = selectors.get();
+        if (result == null) {
+            result = new ThreadSelector();
+            selectors.set(result);
+        }
+        return result.selector;
+    }
+
+    private static SelectionKey register(Selector selector, SelectableChannel channel, int ops) throws IOException {
+        SelectionKey key = channel.keyFor(selector);
+        if (key == null || !key.isValid()) {
+            // drop the cancelled key of a channel that was registered before
+            selector.selectNow();
+            return channel.register(selector, ops);
+        }
+        key.interestOps(ops);
+        return key;
+    }
+
+    /**
+     * Waits until {@code channel} is ready for {@code op} or {@code timeoutMillis} elapsed, a
+     * negative timeout waits indefinitely.
+     *
+     * @return {@code false} if the timeout elapsed
+     */
+    @TruffleBoundary
+    private static boolean await(SelectableChannel channel, int op, long timeoutMillis) throws IOException {
+        Selector selector = getSelector();
+        SelectionKey key = register(selector, channel, op);
+        try {
+            long deadline = timeoutMillis < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + timeoutMillis;
+            while (true) {
+                selector.selectedKeys().clear();
+                long remaining = deadline - System.currentTimeMillis();
+                if (timeoutMillis < 0) {
+                    selector.select();
+                } else if (remaining > 0) {
+                    selector.select(remaining);
+                } else {
+                    selector.selectNow();
+                }
+                if (selector.selectedKeys().contains(key)) {
+                    return true;
+                }
+                if (remaining <= 0) {
+                    return false;
+                }
+            }
+        } finally {
+            if (key.isValid()) {
+                key.interestOps(0);
+            }
+            selector.selectedKeys().clear();
+        }
+    }
+
+    private static long timeoutMillis(int timeoutSeconds) {
+        return timeoutSeconds < 0 ? -1 : timeoutSeconds * 1000L;
+    }
+
     /**
      * Base class for socket connections.
      *
@@ -51,28 +136,40 @@ public class SocketConnections {
         protected final String host;
         protected final int port;
         protected final int timeout;
+        /**
+         * The channel of a connection accepted by a {@link RServerSocket}, {@code null} otherwise.
+         */
+        private SocketChannel accepted;
 
         public RSocketConnection(String modeString, boolean server, String host, int port, boolean blocking, int timeout, String encoding) throws IOException {
-            super(ConnectionClass.Socket, modeString, AbstractOpenMode.Read, blocking, encoding);
+            this(ConnectionClass.Socket, modeString, server, host, port, blocking, timeout, encoding);
+            openNonLazyConnection();
+        }
+
+        private RSocketConnection(String modeString, SocketChannel accepted, String host, int port, boolean blocking, int timeout, String encoding) throws IOException {
+            this(ConnectionClass.Socket, modeString, true, host, port, blocking, timeout, encoding);
+            this.accepted = accepted;
+            openNonLazyConnection();
+        }
+
+        protected RSocketConnection(ConnectionClass conClass, String modeString, boolean server, String host, int port, boolean blocking, int timeout, String encoding) throws IOException {
+            super(conClass, modeString, AbstractOpenMode.Read, blocking, encoding);
             this.server = server;
             this.host = host;
             this.port = port;
             this.timeout = timeout;
-            openNonLazyConnection();
         }
 
         @Override
         @TruffleBoundary
         protected void createDelegateConnection() throws IOException {
             DelegateRConnection delegate;
-            if (server) {
+            if (accepted != null) {
+                delegate = new RAcceptedSocketConnection(this, accepted);
+            } else if (server) {
                 delegate = new RServerSocketConnection(this);
             } else {
-                if (isBlocking()) {
-                    delegate = new RClientSocketConnection(this);
-                } else {
-                    delegate = new RClientSocketNonBlockConnection(this);
-                }
+                delegate = new RClientSocketConnection(this);
             }
             setDelegate(delegate);
         }
@@ -82,97 +179,204 @@ public class SocketConnections {
             return (server ? "<-" : "->") + host + ":" + port;
         }
 
+        /**
+         * Returns for each connection whether it is ready for reading (or accepting a client in
+         * case of a {@link RServerSocket}) or writing, waiting at most {@code timeout}
+         * milliseconds (indefinitely if negative) for at least one to become ready.
+         */
         @TruffleBoundary
         public static byte[] select(RSocketConnection[] socketConnections, boolean write, long timeout) throws IOException {
-            int op = write ? SelectionKey.OP_WRITE : SelectionKey.OP_READ;
-
-            HashMap<RSocketConnection, SelectionKey> table = new HashMap<>();
-            Selector selector = Selector.open();
-            for (RSocketConnection con : socketConnections) {
-                con.checkOpen();
-
-                SocketChannel sc = (SocketChannel) con.theConnection.getChannel();
-                sc.configureBlocking(false);
-                table.put(con, sc.register(selector, op));
-            }
-            int select;
-            if (timeout >= 0) {
-                select = selector.select(timeout);
-            } else {
-                select = selector.select();
-            }
-
+            Selector selector = getSelector();
+            SelectionKey[] keys = new SelectionKey[socketConnections.length];
             byte[] result = new byte[socketConnections.length];
-            if (select > 0) {
+            boolean ready = false;
+            try {
+                for (int i = 0; i < socketConnections.length; i++) {
+                    RSocketConnection con = socketConnections[i];
+                    con.checkOpen();
+                    SocketDelegate delegate = (SocketDelegate) con.theConnection;
+                    result[i] = RRuntime.LOGICAL_FALSE;
+                    if (!write && delegate.hasBufferedInput()) {
+                        result[i] = RRuntime.LOGICAL_TRUE;
+                        ready = true;
+                    } else {
+                        int op = delegate.getSelectOp(write);
+                        if (op != 0) {
+                            keys[i] = register(selector, delegate.getSelectableChannel(), op);
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+                if (ready || timeout == 0) {
+                    selector.selectNow();
+                } else if (timeout > 0) {
+                    selector.select(timeout);
+                } else {
+                    selector.select();
+                }
                 Set<SelectionKey> selectedKeys = selector.selectedKeys();
-                for (int i = 0; i < result.length; i++) {
-                    result[i] = RRuntime.asLogical(selectedKeys.contains(table.get(socketConnections[i])));
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != null && selectedKeys.contains(keys[i])) {
+                        result[i] = RRuntime.LOGICAL_TRUE;
+                    }
                 }
+            } finally {
+                for (SelectionKey key : keys) {
+                    if (key != null && key.isValid()) {
+                        key.interestOps(0);
+                    }
+                }
+                selector.selectedKeys().clear();
             }
             return result;
         }
     }
 
-    private abstract static class RSocketReadWriteConnection extends DelegateReadWriteRConnection {
-        private Socket socket;
+    /**
+     * A listening server socket (class {@code servsockconn}) that accepts any number of clients
+     * with {@link #accept}, each of them as a new {@link RSocketConnection}.
+     */
+    public static final class RServerSocket extends RSocketConnection {
+
+        public RServerSocket(int port) throws IOException {
+            super(ConnectionClass.ServerSocket, "a+", true, "localhost", port, true, -1, null);
+            openNonLazyConnection();
+        }
+
+        @Override
+        @TruffleBoundary
+        protected void createDelegateConnection() throws IOException {
+            setDelegate(new RServerSocketListener(this));
+        }
+
+        /**
+         * Accepts the next client, waiting at most {@code acceptTimeout} seconds.
+         *
+         * @return the connection to the client or {@code null} if the timeout elapsed
+         */
+        @TruffleBoundary
+        public RSocketConnection accept(String modeString, boolean blocking, int acceptTimeout, String encoding) throws IOException {
+            checkOpen();
+            ServerSocketChannel channel = ((RServerSocketListener) theConnection).channel;
+            SocketChannel client = channel.accept();
+            if (client == null) {
+                if (!await(channel, SelectionKey.OP_ACCEPT, timeoutMillis(acceptTimeout))) {
+                    return null;
+                }
+                client = channel.accept();
+                if (client == null) {
+                    return null;
+                }
+            }
+            InetSocketAddress remote = (InetSocketAddress) client.getRemoteAddress();
+            return new RSocketConnection(modeString, client, remote.getHostString(), remote.getPort(), blocking, acceptTimeout, encoding);
+        }
+    }
+
+    /**
+     * The delegates of socket connections provide the channel to select on.
+     */
+    private interface SocketDelegate {
+        SelectableChannel getSelectableChannel();
+
+        /**
+         * The selection operation for readiness to read or write, 0 if the connection can never be
+         * ready for that.
+         */
+        int getSelectOp(boolean write);
+
+        boolean hasBufferedInput();
+    }
+
+    /**
+     * A connected socket. Input is read through the (reused) read cache of
+     * {@link DelegateRConnection}, output is written directly. If the connection is blocking, reads
+     * and writes wait for the channel, at most for the connection's timeout, otherwise reads return
+     * whatever is available. Writes always complete, waiting for the channel when the socket's
+     * send buffer is full.
+     */
+    private abstract static class RSocketReadWriteConnection extends DelegateReadWriteRConnection implements SocketDelegate {
         private SocketChannel channel;
+        private final SocketIO io = new SocketIO();
         protected final RSocketConnection thisBase;
 
         protected RSocketReadWriteConnection(RSocketConnection base) {
-            super(base, 0);
+            super(base, DEFAULT_CACHE_SIZE);
             this.thisBase = base;
         }
 
         protected void openStreams(SocketChannel socketArg) throws IOException {
             channel = socketArg;
-            socket = socketArg.socket();
-            if (thisBase.isBlocking()) {
-                channel.configureBlocking(true);
-                // Java (int) timeouts do not meet the POSIX standard of 31 days
-                long millisTimeout = ((long) thisBase.timeout) * 1000;
-                if (millisTimeout > Integer.MAX_VALUE) {
-                    millisTimeout = Integer.MAX_VALUE;
+            channel.configureBlocking(false);
+        }
+
+        /**
+         * Emulates blocking reads and writes on the non-blocking channel.
+         */
+        private final class SocketIO implements ByteChannel {
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                int n = channel.read(dst);
+                while (n == 0 && thisBase.isBlocking() && dst.hasRemaining()) {
+                    // returning 0 would be taken as the end of the input
+                    if (!await(channel, SelectionKey.OP_READ, timeoutMillis(thisBase.timeout))) {
+                        throw new SocketTimeoutException("timeout reading from " + thisBase.getSummaryDescription());
+                    }
+                    n = channel.read(dst);
                 }
-                socket.setSoTimeout((int) millisTimeout);
-            } else {
-                channel.configureBlocking(false);
+                return n;
+            }
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                int total = 0;
+                while (src.hasRemaining()) {
+                    int n = channel.write(src);
+                    if (n == 0 && !await(channel, SelectionKey.OP_WRITE, timeoutMillis(thisBase.timeout))) {
+                        throw new IOException("timeout writing to " + thisBase.getSummaryDescription());
+                    }
+                    total += n;
+                }
+                return total;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
             }
         }
 
         @Override
         public ByteChannel getChannel() {
-            return channel;
+            return io;
         }
 
         @Override
-        public boolean isSeekable() {
-            return false;
-        }
-    }
-
-    private abstract static class RSocketReadWriteNonBlockConnection extends DelegateReadWriteRConnection {
-        private Socket socket;
-        private SocketChannel socketChannel;
-
-        protected RSocketReadWriteNonBlockConnection(RSocketConnection base) {
-            super(base, 0);
+        @TruffleBoundary
+        public int write(ByteBuffer src) throws IOException {
+            // unlike for files, writing must not drop the input that was read ahead
+            return io.write(src);
         }
 
-        protected void openStreams(Socket socketArg) throws IOException {
-            this.socket = socketArg;
-            this.socketChannel = socket.getChannel();
-            socketChannel.configureBlocking(false);
+        @Override
+        public SelectableChannel getSelectableChannel() {
+            return channel;
         }
 
         @Override
-        public void close() throws IOException {
-            socketChannel.close();
-            socket.close();
+        public int getSelectOp(boolean write) {
+            return write ? SelectionKey.OP_WRITE : SelectionKey.OP_READ;
         }
 
         @Override
-        public ByteChannel getChannel() {
-            return socketChannel;
+        public boolean hasBufferedInput() {
+            return bytesInCache() > 0;
         }
 
         @Override
@@ -182,7 +386,6 @@ public class SocketConnections {
     }
 
     private static class RServerSocketConnection extends RSocketReadWriteConnection {
-        private final SocketChannel connectionSocket;
 
         RServerSocketConnection(RSocketConnection base) throws IOException {
             super(base);
@@ -195,22 +398,17 @@ public class SocketConnections {
             // address reuse to be able to open the next connection after the current one closes
             serverSocketChannel.socket().setReuseAddress(true);
             serverSocketChannel.socket().bind(addr);
-            connectionSocket = serverSocketChannel.accept();
-            openStreams(connectionSocket);
+            openStreams(serverSocketChannel.accept());
             serverSocketChannel.close();
         }
+    }
 
-        @Override
-        public void close() throws IOException {
-            super.close();
-            connectionSocket.close();
-        }
+    private static class RAcceptedSocketConnection extends RSocketReadWriteConnection {
 
-        @Override
-        public ByteChannel getChannel() {
-            return connectionSocket;
+        RAcceptedSocketConnection(RSocketConnection base, SocketChannel channel) throws IOException {
+            super(base);
+            openStreams(channel);
         }
-
     }
 
     private static class RClientSocketConnection extends RSocketReadWriteConnection {
@@ -222,12 +420,45 @@ public class SocketConnections {
         }
     }
 
-    private static class RClientSocketNonBlockConnection extends RSocketReadWriteNonBlockConnection {
+    private static final class RServerSocketListener extends DelegateRConnection implements SocketDelegate {
+        private final ServerSocketChannel channel;
 
-        RClientSocketNonBlockConnection(RSocketConnection base) throws IOException {
-            super(base);
-            SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress(base.host, base.port));
-            openStreams(socketChannel.socket());
+        RServerSocketListener(RServerSocket base) throws IOException {
+            super(base, 0, true);
+            channel = ServerSocketChannel.open();
+            channel.socket().setReuseAddress(true);
+            channel.socket().bind(new InetSocketAddress(base.port));
+            channel.configureBlocking(false);
+        }
+
+        @Override
+        public ByteChannel getChannel() throws IOException {
+            throw new IOException("cannot read from or write to a server socket");
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        @Override
+        public SelectableChannel getSelectableChannel() {
+            return channel;
+        }
+
+        @Override
+        public int getSelectOp(boolean write) {
+            return write ? 0 : SelectionKey.OP_ACCEPT;
+        }
+
+        @Override
+        public boolean hasBufferedInput() {
+            return false;
+        }
+
+        @Override
+        public boolean isSeekable() {
+            return false;
         }
     }
 }
@@ -26,7 +26,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RInternalError;
@@ -138,23 +138,106 @@ public class TextConnections {
         }
     }
 
+    /**
+     * Splits the text written to an output connection into lines. Complete lines are collected in
+     * a growable array and the text after the last newline is kept in a reused builder, so that
+     * writing many short pieces does not copy what has been written before.
+     */
+    private static final class LineBuffer {
+        private String[] lines = new String[16];
+        private int count;
+        private final StringBuilder incompleteLine = new StringBuilder();
+
+        void write(String s) {
+            int px = 0;
+            int nlIndex;
+            while ((nlIndex = s.indexOf('\n', px)) >= 0) {
+                if (incompleteLine.length() > 0) {
+                    incompleteLine.append(s, px, nlIndex);
+                    add(incompleteLine.toString());
+                    incompleteLine.setLength(0);
+                } else {
+                    add(s.substring(px, nlIndex));
+                }
+                px = nlIndex + 1;
+            }
+            if (px < s.length()) {
+                incompleteLine.append(s, px, s.length());
+            }
+        }
+
+        void writeLines(RAbstractStringVector v, String sep) {
+            for (int i = 0; i < v.getLength(); i++) {
+                write(v.getDataAt(i));
+                write(sep);
+            }
+        }
+
+        private void add(String line) {
+            if (count == lines.length) {
+                lines = Arrays.copyOf(lines, lines.length + (lines.length >> 1));
+            }
+            lines[count++] = line;
+        }
+
+        boolean hasIncompleteLine() {
+            return incompleteLine.length() > 0;
+        }
+
+        /**
+         * Turns the text after the last newline, if any, into a line.
+         */
+        void completeLine() {
+            if (incompleteLine.length() > 0) {
+                add(incompleteLine.toString());
+                incompleteLine.setLength(0);
+            }
+        }
+
+        int size() {
+            return count;
+        }
+
+        void copyLines(String[] dest, int destPos) {
+            System.arraycopy(lines, 0, dest, destPos, count);
+        }
+
+        void clearLines() {
+            Arrays.fill(lines, 0, count, null);
+            count = 0;
+        }
+
+        /**
+         * Returns all text written since the last call, lines joined by newlines.
+         */
+        String takeText() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                sb.append(lines[i]).append('\n');
+            }
+            sb.append(incompleteLine);
+            clearLines();
+            incompleteLine.setLength(0);
+            return sb.toString();
+        }
+    }
+
     private static class TextWriteRConnection extends DelegateWriteRConnection implements GetConnectionValue {
-        private String incompleteLine;
+        private final LineBuffer buffer = new LineBuffer();
+        /**
+         * The value of the variable of a named connection, or the value last returned by
+         * {@link #getValue()} of an anonymous connection.
+         */
         private RStringVector textVec;
         private String idName;
-        private RAbstractStringVector object;
 
         /** Indicates if the connection is anonymous, i.e., not input object has been provided. */
         private final boolean anonymous;
 
         private void initTextVec(RStringVector v, TextRConnection textBase) {
-
-            if (anonymous) {
-                object = v;
-            } else {
-                idName = object.getDataAt(0);
+            textVec = v;
+            if (!anonymous) {
                 try {
-                    textVec = v;
                     textBase.env.put(idName, textVec);
                 } catch (PutException ex) {
                     throw RError.error(RError.SHOW_CALLER2, ex);
@@ -166,8 +249,8 @@ public class TextConnections {
 
         protected TextWriteRConnection(BaseRConnection base, RAbstractStringVector object) {
             super(base);
-            this.object = object;
             this.anonymous = object == null;
+            this.idName = anonymous ? null : object.getDataAt(0);
             TextRConnection textBase = (TextRConnection) base;
             initTextVec(RDataFactory.createStringVector(0), textBase);
         }
@@ -180,10 +263,10 @@ public class TextConnections {
         @Override
         public void closeAndDestroy() throws IOException {
             /* Check if we ended up with an incomplete line */
-            if (incompleteLine != null) {
-                appendData(new String[]{incompleteLine});
-                incompleteLine = null;
+            if (buffer.hasIncompleteLine()) {
+                buffer.completeLine();
                 base.setIncomplete(false);
+                appendData();
             }
             base.closed = true;
             TextRConnection textBase = (TextRConnection) base;
@@ -201,66 +284,49 @@ public class TextConnections {
         }
 
         private void writeStringInternal(String result) {
-            int nlIndex;
-            int px = 0;
-            boolean endOfLine = false;
-            ArrayList<String> appendedLines = new ArrayList<>();
-            while ((nlIndex = result.indexOf('\n', px)) >= 0) {
-                if (incompleteLine != null) {
-                    appendedLines.add(new StringBuilder(incompleteLine).append(result.substring(px, nlIndex)).toString());
-                    incompleteLine = null;
-                    base.setIncomplete(false);
-                } else {
-                    appendedLines.add(result.substring(px, nlIndex));
-                }
-                nlIndex++;
-                px = nlIndex;
-                endOfLine = true;
-            }
-            if (incompleteLine != null && !endOfLine) {
-                // end of line not found - accumulate incomplete line
-                incompleteLine = new StringBuilder(incompleteLine).append(result).toString();
-                base.setIncomplete(true);
-            } else if (px < result.length()) {
-                // only reset incompleteLine if
-                incompleteLine = result.substring(px);
-                base.setIncomplete(true);
-            }
-            if (appendedLines.size() > 0) {
-                // update the vector data
-                String[] appendedData = new String[appendedLines.size()];
-                appendedLines.toArray(appendedData);
-                appendData(appendedData);
+            buffer.write(result);
+            written();
+        }
+
+        private void written() {
+            base.setIncomplete(buffer.hasIncompleteLine());
+            if (!anonymous && buffer.size() > 0) {
+                appendData();
             }
         }
 
-        void appendData(String[] appendedData) {
-            String[] updateData = appendedData;
-            if (textVec != null && textVec.getLength() > 0) {
-                String[] existingData = textVec.getReadonlyData();
-                updateData = new String[existingData.length + appendedData.length];
-                System.arraycopy(existingData, 0, updateData, 0, existingData.length);
-                System.arraycopy(appendedData, 0, updateData, existingData.length, appendedData.length);
+        /**
+         * Moves the complete lines from the buffer to the variable of a named connection. The
+         * vector bound to the variable grows in place unless it is referenced from elsewhere, the
+         * variable has been rebound or removed since, or the vector refuses to grow in place, in
+         * which case the variable is (like in GnuR) defined again with a copy. Anonymous
+         * connections keep the lines in the buffer until their value is requested.
+         */
+        private void appendData() {
+            if (anonymous) {
+                return;
             }
+            int length = textVec.getLength();
+            int newLength = length + buffer.size();
             TextRConnection textBase = (TextRConnection) base;
-            unlockBinding(textBase);
-            // TODO: is vector really complete?
-            initTextVec(RDataFactory.createStringVector(updateData, RDataFactory.COMPLETE_VECTOR), textBase);
+            if (!textVec.isShared() && textBase.env.get(idName) == textVec && textVec.growInPlace(newLength)) {
+                for (int i = 0; i < buffer.size(); i++) {
+                    textVec.setElement(length + i, buffer.lines[i]);
+                }
+                textVec.setComplete(true);
+            } else {
+                String[] data = Arrays.copyOf(textVec.getReadonlyData(), newLength);
+                buffer.copyLines(data, length);
+                unlockBinding(textBase);
+                initTextVec(RDataFactory.createStringVector(data, RDataFactory.COMPLETE_VECTOR), textBase);
+            }
+            buffer.clearLines();
         }
 
         @Override
         public void writeLines(RAbstractStringVector lines, String sep, boolean useBytes) throws IOException {
-            StringBuilder sb = new StringBuilder();
-            if (incompleteLine != null) {
-                sb.append(incompleteLine);
-                incompleteLine = null;
-                base.setIncomplete(false);
-            }
-            for (int i = 0; i < lines.getLength(); i++) {
-                sb.append(lines.getDataAt(i));
-                sb.append(sep);
-            }
-            writeStringInternal(sb.toString());
+            buffer.writeLines(lines, sep);
+            written();
         }
 
         @Override
@@ -269,7 +335,11 @@ public class TextConnections {
 
         @Override
         public void writeString(String s, boolean nl) throws IOException {
-            writeStringInternal(nl ? new StringBuilder(s).append('\n').toString() : s);
+            buffer.write(s);
+            if (nl) {
+                buffer.write("\n");
+            }
+            written();
         }
 
         @Override
@@ -284,7 +354,14 @@ public class TextConnections {
 
         @Override
         public RAbstractStringVector getValue() {
-            return object;
+            if (anonymous && buffer.size() > 0) {
+                int length = textVec.getLength();
+                String[] data = Arrays.copyOf(textVec.getReadonlyData(), length + buffer.size());
+                buffer.copyLines(data, length);
+                buffer.clearLines();
+                textVec = RDataFactory.createStringVector(data, RDataFactory.COMPLETE_VECTOR);
+            }
+            return textVec;
         }
 
         private class ConnectionOutputStream extends OutputStream {
@@ -328,7 +405,7 @@ public class TextConnections {
      * Strictly implementation-internal connection that is used to support the external debugger.
      */
     public static class InternalStringWriteConnection extends BaseRConnection {
-        private StringBuilder sb = new StringBuilder();
+        private final LineBuffer buffer = new LineBuffer();
 
         public InternalStringWriteConnection() throws IOException {
             super(ConnectionClass.Terminal, "w", AbstractOpenMode.Write);
@@ -346,25 +423,19 @@ public class TextConnections {
 
         @Override
         public void writeLines(RAbstractStringVector lines, String sep, boolean useBytes) throws IOException {
-            for (int i = 0; i < lines.getLength(); i++) {
-                String line = lines.getDataAt(i);
-                sb.append(line);
-                sb.append(sep);
-            }
+            buffer.writeLines(lines, sep);
         }
 
         @Override
         public void writeString(String s, boolean nl) throws IOException {
-            sb.append(s);
+            buffer.write(s);
             if (nl) {
-                sb.append('\n');
+                buffer.write("\n");
             }
         }
 
         public String getString() {
-            String result = sb.toString();
-            sb = new StringBuilder();
-            return result;
+            return buffer.takeText();
         }
     }
 }
@@ -84,6 +84,7 @@ public final class ChildContextInfo {
     private final OutputStream stderr;
     private final int id;
     private final int multiSlotInd;
+    private int[] rngStream;
     private TruffleContext truffleContext;
     private PolyglotEngine vm;
     public Executor executor;
@@ -201,6 +202,18 @@ public final class ChildContextInfo {
         return multiSlotInd;
     }
 
+    public int[] getRNGStream() {
+        return rngStream;
+    }
+
+    /**
+     * Sets the {@code .Random.seed} the context starts with, which is a random number stream of
+     * "L'Ecuyer-CMRG" derived from the parent's seeds, or {@code null} to seed it from the time.
+     */
+    public void setRNGStream(int[] rngStream) {
+        this.rngStream = rngStream;
+    }
+
     public TruffleContext getTruffleContext() {
         return truffleContext;
     }
@@ -248,6 +248,7 @@ public final class RContext {
     private final RContext parentContext;
     private final int id;
     private final int multiSlotIndex;
+    private final int[] initialRNGStream;
     private TruffleContext truffleContext;
     private PolyglotEngine vm;
 
@@ -411,6 +412,7 @@ public final class RContext {
             this.parentContext = null;
             this.id = ChildContextInfo.contextInfoIds.incrementAndGet();
             this.multiSlotIndex = 0;
+            this.initialRNGStream = null;
             this.truffleContext = null;
             this.executor = null;
             initialEnvVars = System.getenv();
@@ -423,6 +425,7 @@ public final class RContext {
             this.parentContext = info.getParent();
             this.id = info.getId();
             this.multiSlotIndex = info.getMultiSlotInd();
+            this.initialRNGStream = info.getRNGStream();
             this.truffleContext = info.getTruffleContext();
             this.executor = info.executor;
             initialEnvVars = info.getEnv() == null ? Collections.emptyMap() : info.getEnv();
@@ -632,6 +635,14 @@ public final class RContext {
         return multiSlotIndex;
     }
 
+    /**
+     * The random number stream assigned to this context by its parent, see
+     * {@link ChildContextInfo#setRNGStream(int[])}.
+     */
+    public int[] getInitialRNGStream() {
+        return initialRNGStream;
+    }
+
     public static boolean isSingle() {
         return isSingleContextAssumption.isValid();
     }
@@ -29,6 +29,7 @@ import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.r.runtime.RCaller;
+import com.oracle.truffle.r.runtime.RFrameStack;
 import com.oracle.truffle.r.runtime.Utils;
 import com.oracle.truffle.r.runtime.VirtualEvalFrame;
 import com.oracle.truffle.r.runtime.context.RContext;
@@ -126,7 +127,7 @@ public final class Closure {
             callTargets.put(desc, callTarget);
         }
         MaterializedFrame vFrame = VirtualEvalFrame.create(envir.getFrame(), (RFunction) null, caller);
-        return callTarget.call(vFrame);
+        return RFrameStack.call(callTarget, vFrame);
     }
 
     private RootCallTarget generateCallTarget(RNode n) {
@@ -117,6 +117,10 @@ public final class NativeDataAccess {
          * String.
          */
         private long length;
+        /**
+         * Number of bytes allocated by this mirror, which are accounted in {@link #nativeBytes}.
+         */
+        private long allocatedBytes;
 
         NativeMirror() {
             this.id = counter.incrementAndGet();
@@ -135,8 +139,10 @@ public final class NativeDataAccess {
         void allocateNative(Object source, int len, int elementBase, int elementSize) {
             assert dataAddress == 0;
             if (len != 0) {
-                dataAddress = UnsafeAdapter.UNSAFE.allocateMemory(len * elementSize);
-                UnsafeAdapter.UNSAFE.copyMemory(source, elementBase, null, dataAddress, len * elementSize);
+                long bytes = (long) len * elementSize;
+                dataAddress = UnsafeAdapter.UNSAFE.allocateMemory(bytes);
+                UnsafeAdapter.UNSAFE.copyMemory(source, elementBase, null, dataAddress, bytes);
+                allocated(bytes);
             } else {
                 dataAddress = EMPTY_DATA_ADDRESS;
             }
@@ -155,11 +161,21 @@ public final class NativeDataAccess {
             UnsafeAdapter.UNSAFE.putByte(dataAddress + bytes.length, (byte) 0); // C strings
                                                                                 // terminator
             this.length = bytes.length + 1;
+            allocated(this.length);
 
             // ensure that marker address is not used
             assert this.length == 0 || dataAddress != EMPTY_DATA_ADDRESS;
         }
 
+        private void allocated(long bytes) {
+            allocatedBytes = bytes;
+            long total = nativeBytes.addAndGet(bytes);
+            long max;
+            while (total > (max = maxNativeBytes.get()) && !maxNativeBytes.compareAndSet(max, total)) {
+                // retry
+            }
+        }
+
         // TODO: turn this into reference queues
         @Override
         protected void finalize() throws Throwable {
@@ -171,6 +187,7 @@ public final class NativeDataAccess {
             } else if (dataAddress != 0) {
                 // System.out.println(String.format("freeing data at %16x", dataAddress));
                 UnsafeAdapter.UNSAFE.freeMemory(dataAddress);
+                nativeBytes.addAndGet(-allocatedBytes);
                 assert (dataAddress = 0xbadbad) != 0;
             }
         }
@@ -179,6 +196,28 @@ public final class NativeDataAccess {
     private static final AtomicLong counter = new AtomicLong(0xdef000000000000L);
     private static final ConcurrentHashMap<Long, WeakReference<RObject>> nativeMirrors = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<Long, RuntimeException> nativeMirrorInfo = new ConcurrentHashMap<>();
+    private static final AtomicLong nativeBytes = new AtomicLong();
+    private static final AtomicLong maxNativeBytes = new AtomicLong();
+
+    /**
+     * Returns the number of bytes currently allocated for the native copies of vectors and strings.
+     * Memory is only released when the owning mirror is finalized.
+     */
+    public static long getNativeBytes() {
+        return nativeBytes.get();
+    }
+
+    /**
+     * Returns the maximum of {@link #getNativeBytes()} since startup or the last call to
+     * {@link #resetMaxNativeBytes()}.
+     */
+    public static long getMaxNativeBytes() {
+        return maxNativeBytes.get();
+    }
+
+    public static void resetMaxNativeBytes() {
+        maxNativeBytes.set(nativeBytes.get());
+    }
 
     public static CallTarget createIsPointer() {
         return Truffle.getRuntime().createCallTarget(new InteropRootNode() {
@@ -243,6 +282,18 @@ public final class NativeDataAccess {
         nativeMirrorInfo.put(mirror.id, new RuntimeException(arg.getClass().getSimpleName() + " " + argInfo));
     }
 
+    /**
+     * Returns the address of the native memory holding the data of given object, or {@code 0} if
+     * the data are not (or not yet) in native memory.
+     */
+    public static long getNativeDataAddress(RObject obj) {
+        NativeMirror mirror = (NativeMirror) obj.getNativeMirror();
+        if (mirror == null || mirror.dataAddress == EMPTY_DATA_ADDRESS) {
+            return 0;
+        }
+        return mirror.dataAddress;
+    }
+
     public static Object toNative(Object obj) {
         assert obj instanceof RObject : "non-RObjects will not be able to provide native pointers";
         return obj;
@@ -124,7 +124,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
 
     @Override
     public int getLength() {
-        return NativeDataAccess.getDataLength(this, data);
+        return growableLength >= 0 ? growableLength : NativeDataAccess.getDataLength(this, data);
     }
 
     @Override
@@ -135,7 +135,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
     @Override
     public double[] getDataCopy() {
         if (data != null) {
-            return Arrays.copyOf(data, data.length);
+            return Arrays.copyOf(data, getLength());
         } else {
             return NativeDataAccess.copyDoubleNativeData(getNativeMirror());
         }
@@ -144,7 +144,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
     @Override
     public double[] getReadonlyData() {
         if (data != null) {
-            return data;
+            return growableLength >= 0 ? Arrays.copyOf(data, growableLength) : data;
         } else {
             return NativeDataAccess.copyDoubleNativeData(getNativeMirror());
         }
@@ -197,6 +197,30 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
         return RDataFactory.createDoubleVector(copyResizedData(size, fillNA), isComplete, dimensions);
     }
 
+    @Override
+    public boolean growInPlace(int newLength) {
+        assert !isShared() && newLength >= getLength();
+        if (data == null) {
+            return false;
+        }
+        int length = getLength();
+        if (newLength > data.length) {
+            data = Arrays.copyOf(data, growCapacity(data.length, newLength));
+        }
+        Arrays.fill(data, length, newLength, RRuntime.DOUBLE_NA);
+        growableLength = newLength == data.length ? -1 : newLength;
+        complete &= length == newLength;
+        return true;
+    }
+
+    @Override
+    public void trimToLength() {
+        if (growableLength >= 0) {
+            data = Arrays.copyOf(data, growableLength);
+            growableLength = -1;
+        }
+    }
+
     @Override
     public RDoubleVector materialize() {
         return this;
@@ -218,6 +242,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
     }
 
     public long allocateNativeContents() {
+        trimToLength();
         try {
             return NativeDataAccess.allocateNativeContents(this, data, getLength());
         } finally {
@@ -55,7 +55,7 @@ public final class RExpression extends RListBase implements RAbstractVector {
     @Override
     @TruffleBoundary
     protected RExpression internalCopy() {
-        return new RExpression(Arrays.copyOf(data, data.length), getDimensions(), null, null);
+        return new RExpression(Arrays.copyOf(data, getLength()), getDimensions(), null, null);
     }
 
     @Override
@@ -63,7 +63,7 @@ public final class RExpression extends RListBase implements RAbstractVector {
     protected RExpression internalDeepCopy() {
         // TOOD: only used for nested list updates, but still could be made faster (through a
         // separate AST node?)
-        RExpression listCopy = new RExpression(Arrays.copyOf(data, data.length), getDimensions(), null, null);
+        RExpression listCopy = new RExpression(Arrays.copyOf(data, getLength()), getDimensions(), null, null);
         for (int i = 0; i < listCopy.getLength(); i++) {
             Object el = listCopy.getDataAt(i);
             if (el instanceof RVector) {
@@ -81,7 +81,7 @@ public final class RExpression extends RListBase implements RAbstractVector {
 
     @Override
     public RExpression copyWithNewDimensions(int[] newDimensions) {
-        return RDataFactory.createExpression(data, newDimensions);
+        return RDataFactory.createExpression(getReadonlyData(), newDimensions);
     }
 
     @Override
@@ -106,7 +106,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
     @Override
     protected RIntVector internalCopy() {
         if (data != null) {
-            return new RIntVector(Arrays.copyOf(data, data.length), isComplete());
+            return new RIntVector(Arrays.copyOf(data, getLength()), isComplete());
         } else {
             return new RIntVector(getDataCopy(), isComplete());
         }
@@ -127,13 +127,13 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
 
     @Override
     public int getLength() {
-        return NativeDataAccess.getDataLength(this, data);
+        return growableLength >= 0 ? growableLength : NativeDataAccess.getDataLength(this, data);
     }
 
     @Override
     public int[] getDataCopy() {
         if (data != null) {
-            return Arrays.copyOf(data, data.length);
+            return Arrays.copyOf(data, getLength());
         } else {
             return NativeDataAccess.copyIntNativeData(getNativeMirror());
         }
@@ -147,7 +147,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
     @Override
     public int[] getReadonlyData() {
         if (data != null) {
-            return data;
+            return growableLength >= 0 ? Arrays.copyOf(data, growableLength) : data;
         } else {
             return NativeDataAccess.copyIntNativeData(getNativeMirror());
         }
@@ -200,6 +200,30 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
         return RDataFactory.createIntVector(copyResizedData(size, fillNA), isComplete, dimensions);
     }
 
+    @Override
+    public boolean growInPlace(int newLength) {
+        assert !isShared() && newLength >= getLength();
+        if (data == null) {
+            return false;
+        }
+        int length = getLength();
+        if (newLength > data.length) {
+            data = Arrays.copyOf(data, growCapacity(data.length, newLength));
+        }
+        Arrays.fill(data, length, newLength, RRuntime.INT_NA);
+        growableLength = newLength == data.length ? -1 : newLength;
+        complete &= length == newLength;
+        return true;
+    }
+
+    @Override
+    public void trimToLength() {
+        if (growableLength >= 0) {
+            data = Arrays.copyOf(data, growableLength);
+            growableLength = -1;
+        }
+    }
+
     @Override
     public RIntVector materialize() {
         return this;
@@ -226,6 +250,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
     }
 
     public long allocateNativeContents() {
+        trimToLength();
         try {
             return NativeDataAccess.allocateNativeContents(this, data, getLength());
         } finally {
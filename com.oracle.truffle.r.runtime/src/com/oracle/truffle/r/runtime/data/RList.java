@@ -57,7 +57,7 @@ public final class RList extends RListBase implements RAbstractListVector {
 
     @Override
     protected RList internalCopy() {
-        return new RList(Arrays.copyOf(data, data.length), getDimensionsInternal(), null, null);
+        return new RList(Arrays.copyOf(data, getLength()), getDimensionsInternal(), null, null);
     }
 
     @TruffleBoundary
@@ -69,7 +69,7 @@ public final class RList extends RListBase implements RAbstractListVector {
     protected RList internalDeepCopy() {
         // TOOD: only used for nested list updates, but still could be made faster (through a
         // separate AST node?)
-        RList listCopy = new RList(Arrays.copyOf(data, data.length), getDimensionsInternal(), null, null);
+        RList listCopy = new RList(Arrays.copyOf(data, getLength()), getDimensionsInternal(), null, null);
         for (int i = 0; i < listCopy.getLength(); i++) {
             Object el = listCopy.getDataAt(i);
             if (el instanceof RVector) {
@@ -87,7 +87,7 @@ public final class RList extends RListBase implements RAbstractListVector {
 
     @Override
     public RList copyWithNewDimensions(int[] newDimensions) {
-        return RDataFactory.createList(data, newDimensions);
+        return RDataFactory.createList(getReadonlyData(), newDimensions);
     }
 
     @Override
@@ -47,7 +47,7 @@ import com.oracle.truffle.r.runtime.ops.na.NACheck;
  */
 public abstract class RListBase extends RVector<Object[]> implements RAbstractListBaseVector {
 
-    protected final Object[] data;
+    protected Object[] data;
 
     RListBase(Object[] data) {
         super(false);
@@ -62,7 +62,7 @@ public abstract class RListBase extends RVector<Object[]> implements RAbstractLi
 
     @Override
     public final int getLength() {
-        return data.length;
+        return growableLength >= 0 ? growableLength : data.length;
     }
 
     @Override
@@ -104,7 +104,7 @@ public abstract class RListBase extends RVector<Object[]> implements RAbstractLi
      */
     @Override
     public final Object[] getReadonlyData() {
-        return data;
+        return growableLength >= 0 ? Arrays.copyOf(data, growableLength) : data;
     }
 
     public final Object[] getDataWithoutCopying() {
@@ -113,8 +113,8 @@ public abstract class RListBase extends RVector<Object[]> implements RAbstractLi
 
     @Override
     public final Object[] getDataCopy() {
-        Object[] copy = new Object[data.length];
-        System.arraycopy(data, 0, copy, 0, data.length);
+        Object[] copy = new Object[getLength()];
+        System.arraycopy(data, 0, copy, 0, copy.length);
         return copy;
     }
 
@@ -169,7 +169,7 @@ public abstract class RListBase extends RVector<Object[]> implements RAbstractLi
                     newData[i] = RNull.instance;
                 }
             } else {
-                for (int i = oldData.length, j = 0; i < newData.length; ++i, j = Utils.incMod(j, oldData.length)) {
+                for (int i = oldDataLength, j = 0; i < newData.length; ++i, j = Utils.incMod(j, oldDataLength)) {
                     newData[i] = oldData[j];
                 }
             }
@@ -181,4 +181,24 @@ public abstract class RListBase extends RVector<Object[]> implements RAbstractLi
     public final void setElement(int i, Object value) {
         data[i] = value;
     }
+
+    @Override
+    public final boolean growInPlace(int newLength) {
+        assert !isShared() && newLength >= getLength();
+        int length = getLength();
+        if (newLength > data.length) {
+            data = Arrays.copyOf(data, growCapacity(data.length, newLength));
+        }
+        Arrays.fill(data, length, newLength, RNull.instance);
+        growableLength = newLength == data.length ? -1 : newLength;
+        return true;
+    }
+
+    @Override
+    public final void trimToLength() {
+        if (growableLength >= 0) {
+            data = Arrays.copyOf(data, growableLength);
+            growableLength = -1;
+        }
+    }
 }
@@ -22,8 +22,14 @@
  */
 package com.oracle.truffle.r.runtime.data;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayDeque;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.interop.TruffleObject;
@@ -33,34 +39,124 @@ import com.oracle.truffle.api.object.Shape;
 import com.oracle.truffle.r.runtime.ArgumentsSignature;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
-import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
-import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
-import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractListBaseVector;
-import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
-import com.oracle.truffle.r.runtime.data.model.RAbstractRawVector;
-import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
-import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
-import com.oracle.truffle.r.runtime.env.REnvironment;
 
 import sun.misc.Unsafe;
 
 /**
  * Support for the sizing of the objects that flow through the interpreter, i.e., mostly
  * {@link RTypedValue}, but also including scalar types like {@code String}.
+ *
+ * The size of an object is the size of its Java instance as laid out by the VM plus the size of
+ * the arrays and strings it refers to directly, e.g. the data of a vector. The layout of each class
+ * is computed once from the field offsets reported by {@link Unsafe} and cached in
+ * {@link #LAYOUTS}.
  */
 public class RObjectSize {
     public static final int INT_SIZE = 4;
     public static final int DOUBLE_SIZE = 8;
     public static final int BYTE_SIZE = 1;
 
-    private static final int CHAR_SIZE = 2;
     private static final int OBJECT_SIZE = Unsafe.ARRAY_OBJECT_INDEX_SCALE;
-    private static final int OBJECT_HEADER_SIZE = Unsafe.ARRAY_BOOLEAN_BASE_OFFSET + OBJECT_SIZE * 2;
+    private static final int OBJECT_HEADER_SIZE = Unsafe.ARRAY_INT_BASE_OFFSET - INT_SIZE;
+    private static final int OBJECT_ALIGNMENT = 8;
 
     /**
-     * Returns an estimate of the size of the this object in bytes. This is a snapshot and the size
-     * can change as, e.g., attributes are added/removed.
+     * The instance size of a class together with the offsets of its fields that refer to arrays or
+     * strings, which are counted as part of the object.
+     */
+    private static final class Layout {
+        private final long instanceSize;
+        private final long[] ownedOffsets;
+
+        Layout(long instanceSize, long[] ownedOffsets) {
+            this.instanceSize = instanceSize;
+            this.ownedOffsets = ownedOffsets;
+        }
+    }
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<Layout>() {
+        @Override
+        protected Layout computeValue(Class<?> clazz) {
+            long end = OBJECT_HEADER_SIZE;
+            ArrayList<Long> owned = new ArrayList<>();
+            for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    long offset = UnsafeAdapter.UNSAFE.objectFieldOffset(field);
+                    Class<?> type = field.getType();
+                    end = Math.max(end, offset + fieldSize(type));
+                    if (type.isArray() || type == String.class) {
+                        owned.add(offset);
+                    }
+                }
+            }
+            long[] ownedOffsets = new long[owned.size()];
+            for (int i = 0; i < ownedOffsets.length; i++) {
+                ownedOffsets[i] = owned.get(i);
+            }
+            return new Layout(align(end), ownedOffsets);
+        }
+    };
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return OBJECT_SIZE;
+    }
+
+    private static long align(long size) {
+        return (size + OBJECT_ALIGNMENT - 1) & -OBJECT_ALIGNMENT;
+    }
+
+    /**
+     * Returns the size of the given Java object as laid out by the VM, including the arrays and
+     * strings it refers to directly. The elements of an {@code Object[]} other than strings are not
+     * included.
+     */
+    private static long getShallowSize(Object obj) {
+        Class<?> clazz = obj.getClass();
+        if (clazz.isArray()) {
+            return getArraySize(obj);
+        }
+        Layout layout = LAYOUTS.get(clazz);
+        long result = layout.instanceSize;
+        for (long offset : layout.ownedOffsets) {
+            Object value = UnsafeAdapter.UNSAFE.getObject(obj, offset);
+            if (value != null) {
+                result += value instanceof String ? getShallowSize(value) : getArraySize(value);
+            }
+        }
+        return result;
+    }
+
+    private static long getArraySize(Object array) {
+        Class<?> clazz = array.getClass();
+        int length = Array.getLength(array);
+        long result = align(UnsafeAdapter.UNSAFE.arrayBaseOffset(clazz) + (long) length * UnsafeAdapter.UNSAFE.arrayIndexScale(clazz));
+        if (array instanceof String[]) {
+            String[] strings = (String[]) array;
+            for (int i = 0; i < length; i++) {
+                if (strings[i] != null) {
+                    result += getShallowSize(strings[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the this object in bytes. This is a snapshot and the size can change as,
+     * e.g., attributes are added/removed.
      *
      * If called immediately after creation by {@link RDataFactory} provides an approximation of the
      * incremental memory usage of the system.
@@ -71,14 +167,14 @@ public class RObjectSize {
     }
 
     /**
-     * Returns an estimate of the size of the this object in bytes, including the recursive size of
-     * any attributes and elements, recursively. Evidently this is a snapshot and the size can
-     * change as, e.g., attributes are added/removed.
+     * Returns the size of the this object in bytes, including the recursive size of any
+     * attributes and elements, recursively. Evidently this is a snapshot and the size can change
+     * as, e.g., attributes are added/removed.
      */
     @TruffleBoundary
     public static long getRecursiveObjectSize(Object target) {
         ArrayDeque<Object> stack = new ArrayDeque<>();
-        HashSet<Object> visited = new HashSet<>();
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
         stack.push(target);
         visited.add(target);
 
@@ -93,7 +189,7 @@ public class RObjectSize {
         return result;
     }
 
-    private static void pushReferences(ArrayDeque<Object> stack, HashSet<Object> visited, Object obj) {
+    private static void pushReferences(ArrayDeque<Object> stack, Set<Object> visited, Object obj) {
         if (obj instanceof RAttributable) {
             DynamicObject attrs = ((RAttributable) obj).getAttributes();
             if (attrs != null) {
@@ -118,22 +214,17 @@ public class RObjectSize {
         // Note: environments are ignored
     }
 
-    private static void pushIfNotPresent(ArrayDeque<Object> stack, HashSet<Object> visited, Object obj) {
-        if (!visited.contains(obj)) {
+    private static void pushIfNotPresent(ArrayDeque<Object> stack, Set<Object> visited, Object obj) {
+        if (visited.add(obj)) {
             stack.push(obj);
-            visited.add(obj);
         }
     }
 
     private static long getObjectSizeImpl(Object obj) {
-        // Note: if this gets too complex, it may be replaced by a system of providers or getSize
-        // abstract method on RTypedValue. For now, we do not want to add yet another abstract
-        // method to already complicated hierarchy and providers would only mean OO version of the
-        // same code below.
         if (obj == null) {
             return 0;
         }
-        // Primitive types:
+        // Primitive types, which are unboxed in frames and vectors:
         if (obj instanceof Integer) {
             return INT_SIZE;
         } else if (obj instanceof Double) {
@@ -141,7 +232,7 @@ public class RObjectSize {
         } else if (obj instanceof Byte) {
             return BYTE_SIZE;
         } else if (obj instanceof String) {
-            return CHAR_SIZE * ((String) obj).length();
+            return getShallowSize(obj);
         }
         // Check that we have RTypedValue:
         if (!(obj instanceof RTypedValue)) {
@@ -151,74 +242,29 @@ public class RObjectSize {
             }
             return 0;
         }
-        long attributesSize = 0;
+        if (obj instanceof RScalar && !(obj instanceof RScalarVector)) {
+            // singletons like RNull or REmpty
+            return 0;
+        }
+        long result = getShallowSize(obj);
         if (obj instanceof RAttributable) {
             DynamicObject attrs = ((RAttributable) obj).getAttributes();
             if (attrs != null) {
-                attributesSize = OBJECT_HEADER_SIZE + attrs.size() * OBJECT_SIZE;
-            }
-        }
-        // Individual RTypedValues:
-        if (obj instanceof RPromise || obj instanceof REnvironment || obj instanceof RExternalPtr || obj instanceof RFunction || obj instanceof RSymbol || obj instanceof RPairList ||
-                        obj instanceof RLanguage || obj instanceof RS4Object) {
-            // promise: there is no value allocated yet, we may use the size of the closure
-            return OBJECT_HEADER_SIZE + attributesSize;
-        } else if (obj instanceof RStringSequence) {
-            RStringSequence seq = (RStringSequence) obj;
-            if (seq.getLength() == 0) {
-                return OBJECT_HEADER_SIZE + INT_SIZE * 2;  // we cannot get prefix/suffix...
-            } else {
-                return OBJECT_HEADER_SIZE + seq.getDataAt(0).length() * CHAR_SIZE;
-            }
-        } else if (obj instanceof RSequence) {
-            // count: start, stride, length
-            return OBJECT_HEADER_SIZE + 2 * getElementSize((RAbstractVector) obj) + INT_SIZE + attributesSize;
-        } else if (obj instanceof RAbstractStringVector) {
-            RAbstractStringVector strVec = (RAbstractStringVector) obj;
-            long result = OBJECT_HEADER_SIZE;
-            for (int i = 0; i < strVec.getLength(); i++) {
-                String data = strVec.getDataAt(i);
-                result += data == null ? 0 : data.length() * CHAR_SIZE;
+                result += getShallowSize(attrs);
             }
-            return result + attributesSize;
-        } else if (obj instanceof RAbstractVector) {
-            RAbstractVector vec = (RAbstractVector) obj;
-            return OBJECT_HEADER_SIZE + getElementSize(vec) * vec.getLength() + attributesSize;
-        } else if (obj instanceof RScalar) {
-            // E.g. singletons RNull or REmpty. RInteger, RLogical etc. already caught by
-            // RAbstractVector branch
-            return 0;
-        } else if (obj instanceof RArgsValuesAndNames) {
-            return getArgsAndValuesSize((RArgsValuesAndNames) obj);
-        } else {
-            reportWarning(obj);
-            return OBJECT_HEADER_SIZE;
         }
-    }
-
-    private static int getElementSize(RAbstractVector vector) {
-        if (vector instanceof RAbstractDoubleVector) {
-            return DOUBLE_SIZE;
-        } else if (vector instanceof RAbstractIntVector) {
-            return INT_SIZE;
-        } else if (vector instanceof RAbstractLogicalVector || vector instanceof RAbstractRawVector) {
-            return BYTE_SIZE;
-        } else if (vector instanceof RAbstractComplexVector) {
-            return DOUBLE_SIZE * 2;
-        } else if (vector instanceof RAbstractListBaseVector) {
-            return OBJECT_SIZE;
+        if (obj instanceof RArgsValuesAndNames) {
+            result += getSignatureSize(((RArgsValuesAndNames) obj).getSignature());
         }
-        reportWarning(vector);
-        return INT_SIZE;
+        return result;
     }
 
-    private static long getArgsAndValuesSize(RArgsValuesAndNames args) {
-        long result = OBJECT_HEADER_SIZE + args.getLength() * OBJECT_SIZE;
-        ArgumentsSignature signature = args.getSignature();
+    private static long getSignatureSize(ArgumentsSignature signature) {
+        long result = 0;
         for (int i = 0; i < signature.getLength(); i++) {
             String name = signature.getName(i);
             if (name != null) {
-                result += name.length() * CHAR_SIZE;
+                result += getShallowSize(name);
             }
         }
         return result;
@@ -40,7 +40,7 @@ import com.oracle.truffle.r.runtime.ops.na.NACheck;
 
 public final class RStringVector extends RVector<String[]> implements RAbstractStringVector {
 
-    private final String[] data;
+    private String[] data;
 
     RStringVector(String[] data, boolean complete) {
         super(complete);
@@ -90,18 +90,18 @@ public final class RStringVector extends RVector<String[]> implements RAbstractS
 
     @Override
     protected RStringVector internalCopy() {
-        return new RStringVector(Arrays.copyOf(data, data.length), isComplete());
+        return new RStringVector(Arrays.copyOf(data, getLength()), isComplete());
     }
 
     @Override
     public int getLength() {
-        return data.length;
+        return growableLength >= 0 ? growableLength : data.length;
     }
 
     @Override
     public String[] getDataCopy() {
-        String[] copy = new String[data.length];
-        System.arraycopy(data, 0, copy, 0, data.length);
+        String[] copy = new String[getLength()];
+        System.arraycopy(data, 0, copy, 0, copy.length);
         return copy;
     }
 
@@ -120,7 +120,7 @@ public final class RStringVector extends RVector<String[]> implements RAbstractS
 
     @Override
     public String[] getReadonlyData() {
-        return data;
+        return growableLength >= 0 ? Arrays.copyOf(data, growableLength) : data;
     }
 
     @Override
@@ -146,14 +146,15 @@ public final class RStringVector extends RVector<String[]> implements RAbstractS
     }
 
     private String[] copyResizedData(int size, String fill) {
+        int length = getLength();
         String[] newData = Arrays.copyOf(data, size);
-        if (size > this.getLength()) {
+        if (size > length) {
             if (fill != null) {
-                for (int i = data.length; i < size; i++) {
+                for (int i = length; i < size; i++) {
                     newData[i] = fill;
                 }
             } else {
-                for (int i = data.length, j = 0; i < size; ++i, j = Utils.incMod(j, data.length)) {
+                for (int i = length, j = 0; i < size; ++i, j = Utils.incMod(j, length)) {
                     newData[i] = data[j];
                 }
             }
@@ -167,7 +168,7 @@ public final class RStringVector extends RVector<String[]> implements RAbstractS
 
     @Override
     protected RStringVector internalCopyResized(int size, boolean fillNA, int[] dimensions) {
-        boolean isComplete = isComplete() && ((data.length >= size) || !fillNA);
+        boolean isComplete = isComplete() && ((getLength() >= size) || !fillNA);
         return RDataFactory.createStringVector(copyResizedData(size, fillNA ? RRuntime.STRING_NA : null), isComplete, dimensions);
     }
 
@@ -188,7 +189,28 @@ public final class RStringVector extends RVector<String[]> implements RAbstractS
 
     @Override
     public RStringVector copyWithNewDimensions(int[] newDimensions) {
-        return RDataFactory.createStringVector(data, isComplete(), newDimensions);
+        return RDataFactory.createStringVector(getReadonlyData(), isComplete(), newDimensions);
+    }
+
+    @Override
+    public boolean growInPlace(int newLength) {
+        assert !isShared() && newLength >= getLength();
+        int length = getLength();
+        if (newLength > data.length) {
+            data = Arrays.copyOf(data, growCapacity(data.length, newLength));
+        }
+        Arrays.fill(data, length, newLength, RRuntime.STRING_NA);
+        growableLength = newLength == data.length ? -1 : newLength;
+        complete &= length == newLength;
+        return true;
+    }
+
+    @Override
+    public void trimToLength() {
+        if (growableLength >= 0) {
+            data = Arrays.copyOf(data, growableLength);
+            growableLength = -1;
+        }
     }
 
     @Override
@@ -60,6 +60,16 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
 
     protected boolean complete; // "complete" means: does not contain NAs
 
+    /**
+     * The length of a vector whose backing array has spare capacity after
+     * {@link #growInPlace(int)}, or {@code -1} if the length of the backing array is the length of
+     * the vector. The getters do not change the backing array: {@link #getInternalManagedData()}
+     * returns it with the spare capacity, {@link #getReadonlyData()} returns a copy of the right
+     * length while there is spare capacity. The array is only trimmed by {@link #trimToLength()}
+     * where it escapes the vector.
+     */
+    protected int growableLength = -1;
+
     protected RVector(boolean complete) {
         this.complete = complete;
     }
@@ -69,7 +79,7 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
             return null;
         } else {
             RIntVector dims = (RIntVector) attributes.get(RRuntime.DIM_ATTR_KEY);
-            return dims == null ? null : dims.getInternalStore();
+            return dims == null ? null : dims.getReadonlyData();
         }
     }
 
@@ -84,7 +94,9 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
     /**
      * Returns the internal data Java array for read only purposes only or {@code null} if the
      * vector has been materialized to native mirror and it does not hold managed data anymore. This
-     * method is for only very specific purposes especially of {@link GetReadonlyData}.
+     * method is for only very specific purposes especially of {@link GetReadonlyData}. The array
+     * may be longer than the vector (see {@link #growInPlace(int)}), reads must be bounded by
+     * {@link #getLength()}.
      *
      * @return vector data
      */
@@ -544,6 +556,37 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
      */
     public abstract RVector<ArrayT> updateDataAtAsObject(int i, Object o, NACheck naCheck);
 
+    /**
+     * Increases the length of this vector to {@code newLength} in place, the new elements are NA
+     * (NULL for lists). The backing array is over-allocated, so that repeated appends like
+     * {@code x[[length(x) + 1]] <- v} take amortized constant time. The vector must not be shared,
+     * its attributes are left untouched.
+     *
+     * @return {@code false} if this vector cannot grow in place, e.g. because its data are in
+     *         native memory, the caller has to create a resized copy in that case
+     */
+    public boolean growInPlace(@SuppressWarnings("unused") int newLength) {
+        return false;
+    }
+
+    /**
+     * Drops the spare capacity left by {@link #growInPlace(int)}, so that the backing array has
+     * exactly the length of the vector. This is only meant for the places where the array escapes
+     * the vector, e.g. when it is exposed through interop or moved to native memory, because arrays
+     * obtained from this vector earlier are no longer its backing array afterwards.
+     */
+    public void trimToLength() {
+    }
+
+    /**
+     * The capacity of a backing array that is grown from {@code capacity} to hold at least
+     * {@code newLength} elements.
+     */
+    protected static int growCapacity(int capacity, int newLength) {
+        long newCapacity = Math.min(capacity + (capacity >> 1) + 4L, Integer.MAX_VALUE - 8);
+        return (int) Math.max(newCapacity, newLength);
+    }
+
     public abstract void transferElementSameType(int toIndex, RAbstractVector fromVector, int fromIndex);
 
     public final RAttributable copyAttributesFrom(RAbstractContainer vector) {
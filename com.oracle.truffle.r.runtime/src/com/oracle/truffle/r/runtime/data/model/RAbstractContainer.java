@@ -67,6 +67,14 @@ public interface RAbstractContainer extends RAttributable, RTypedValue {
      * {@code getDataAsObject} overloads with {@code store} parameter do not have to load the
      * vector's fields, but instead read the necessary data from a local variable, which could be
      * beneficial when in loop.
+     *
+     * The {@code store} of a vector that has been grown in place (see
+     * {@link com.oracle.truffle.r.runtime.data.RVector#growInPlace(int)}) may be longer than the
+     * vector, and it is only valid until the vector replaces its backing array, i.e., until it is
+     * grown again or trimmed to its length where the array escapes (see
+     * {@link com.oracle.truffle.r.runtime.data.RVector#trimToLength()}). Such calls must not be
+     * made on a vector while its {@code store} is in use, the {@code store} overloads of the
+     * vectors assert this.
      */
     Object getInternalStore();
 
@@ -47,7 +47,7 @@ public class GetReadonlyData {
 
         @Specialization(guards = "!vec.hasNativeMemoryData()")
         protected double[] doManagedRVector(RDoubleVector vec) {
-            return vec.getInternalManagedData();
+            return vec.getReadonlyData();
         }
 
         @Specialization(guards = "vec.hasNativeMemoryData()")
@@ -65,7 +65,7 @@ public class GetReadonlyData {
 
         @Specialization(guards = "!vec.hasNativeMemoryData()")
         protected int[] doManagedRVector(RIntVector vec) {
-            return vec.getInternalManagedData();
+            return vec.getReadonlyData();
         }
 
         @Specialization(guards = "vec.hasNativeMemoryData()")
@@ -83,7 +83,7 @@ public class GetReadonlyData {
 
         @Specialization(guards = "!vec.hasNativeMemoryData()")
         protected Object[] doManagedRVector(RList vec) {
-            return vec.getInternalManagedData();
+            return vec.getReadonlyData();
         }
 
         @Specialization(guards = "vec.hasNativeMemoryData()")
@@ -93,7 +93,7 @@ public class GetReadonlyData {
 
         @Specialization
         protected Object[] doGeneric(RAbstractListVector vec) {
-            return vec.materialize().getInternalManagedData();
+            return vec.materialize().getReadonlyData();
         }
 
         public static ListData create() {
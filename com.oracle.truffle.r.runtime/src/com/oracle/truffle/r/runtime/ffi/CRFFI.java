@@ -227,7 +227,7 @@ final class StringWrapper extends TemporaryWrapper {
         RStringVector result = ((RAbstractStringVector) vector).materialize();
         boolean reuseResult = result.isTemporary() && !result.hasNativeMemoryData();
         String[] data = reuseResult ? result.getInternalManagedData() : new String[result.getLength()];
-        for (int i = 0; i < data.length; i++) {
+        for (int i = 0; i < result.getLength(); i++) {
             long ptr = UnsafeAdapter.UNSAFE.getLong(address + i * 8);
             int length = 0;
             while (UnsafeAdapter.UNSAFE.getByte(ptr + length) != 0) {
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.instrument;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.r.runtime.RInternalError;
+
+/**
+ * Collects per-builtin and per-closure call metrics: number of calls, self and total time,
+ * allocated bytes and the number of calls that entered compiled code but left in the interpreter,
+ * i.e., that were deoptimized. The metrics are global (shared by all contexts) and keyed by the
+ * name of the builtin or closure.
+ *
+ * The call sites check {@link #isEnabled()}, which folds to a constant in compiled code as long as
+ * the metrics were never enabled, and only then call {@link #enter(Entry, boolean)} and
+ * {@link #exit(boolean)}. Nested calls are tracked on a per-thread stack so that the time and
+ * allocations of callees can be subtracted from the self metrics of the caller.
+ *
+ * Allocated bytes are available only on JVMs that support
+ * {@code com.sun.management.ThreadMXBean.getThreadAllocatedBytes}, zero is reported otherwise.
+ */
+public final class CallMetrics {
+
+    public static final String BUILTIN = "builtin";
+    public static final String CLOSURE = "closure";
+
+    private static final Assumption noCallMetricsAssumption = Truffle.getRuntime().createAssumption("no call metrics");
+    private static volatile boolean enabled;
+
+    private static final ConcurrentHashMap<String, Entry> builtins = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Entry> closures = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<CallStack> stacks = ThreadLocal.withInitial(CallStack::new);
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private static final boolean allocationSupported = threadBean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported();
+
+    private static ScheduledExecutorService dumpExecutor;
+    private static ScheduledFuture<?> dumpTask;
+    private static String dumpFile;
+    private static boolean shutdownHookInstalled;
+
+    private CallMetrics() {
+        // only static methods
+    }
+
+    /**
+     * Metrics of one builtin or closure. Updated concurrently by all threads.
+     */
+    public static final class Entry {
+        private final String name;
+        private final String kind;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder selfNanos = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+        private final LongAdder deopts = new LongAdder();
+
+        private Entry(String name, String kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        private void reset() {
+            calls.reset();
+            selfNanos.reset();
+            totalNanos.reset();
+            allocated.reset();
+            deopts.reset();
+        }
+    }
+
+    /**
+     * Immutable copy of the metrics of one {@link Entry}.
+     */
+    public static final class Snapshot {
+        public final String name;
+        public final String kind;
+        public final long calls;
+        public final long selfNanos;
+        public final long totalNanos;
+        public final long allocated;
+        public final long deopts;
+
+        private Snapshot(Entry entry) {
+            this.name = entry.name;
+            this.kind = entry.kind;
+            this.calls = entry.calls.sum();
+            this.selfNanos = entry.selfNanos.sum();
+            this.totalNanos = entry.totalNanos.sum();
+            this.allocated = entry.allocated.sum();
+            this.deopts = entry.deopts.sum();
+        }
+    }
+
+    /**
+     * Stack of the active calls of one thread, stored in parallel arrays to avoid allocation per
+     * call.
+     */
+    private static final class CallStack {
+        private Entry[] entries = new Entry[64];
+        private long[] startNanos = new long[64];
+        private long[] startAllocated = new long[64];
+        private long[] childNanos = new long[64];
+        private long[] childAllocated = new long[64];
+        private boolean[] compiled = new boolean[64];
+        private int depth;
+
+        private void push(Entry entry, long nanos, long alloc, boolean inCompiledCode) {
+            if (depth == entries.length) {
+                int newLength = depth * 2;
+                entries = Arrays.copyOf(entries, newLength);
+                startNanos = Arrays.copyOf(startNanos, newLength);
+                startAllocated = Arrays.copyOf(startAllocated, newLength);
+                childNanos = Arrays.copyOf(childNanos, newLength);
+                childAllocated = Arrays.copyOf(childAllocated, newLength);
+                compiled = Arrays.copyOf(compiled, newLength);
+            }
+            entries[depth] = entry;
+            startNanos[depth] = nanos;
+            startAllocated[depth] = alloc;
+            childNanos[depth] = 0;
+            childAllocated[depth] = 0;
+            compiled[depth] = inCompiledCode;
+            depth++;
+        }
+
+        private void pop(long nanos, long alloc, boolean inInterpreter) {
+            if (depth == 0) {
+                // metrics were reset or the thread was interrupted in an unusual way
+                return;
+            }
+            depth--;
+            Entry entry = entries[depth];
+            entries[depth] = null;
+            long total = nanos - startNanos[depth];
+            long totalAllocated = alloc - startAllocated[depth];
+            entry.calls.increment();
+            entry.totalNanos.add(total);
+            entry.selfNanos.add(total - childNanos[depth]);
+            entry.allocated.add(totalAllocated - childAllocated[depth]);
+            if (compiled[depth] && inInterpreter) {
+                entry.deopts.increment();
+            }
+            if (depth > 0) {
+                childNanos[depth - 1] += total;
+                childAllocated[depth - 1] += totalAllocated;
+            }
+        }
+    }
+
+    public static boolean isEnabled() {
+        return !noCallMetricsAssumption.isValid() && enabled;
+    }
+
+    /**
+     * Starts collecting the metrics. If {@code file} is not {@code null}, the metrics are written
+     * to it every {@code intervalSeconds} seconds (if positive), when the collection is stopped
+     * and on exit.
+     */
+    @TruffleBoundary
+    public static synchronized void start(String file, long intervalSeconds) {
+        cancelDump();
+        dumpFile = file;
+        if (file != null) {
+            if (intervalSeconds > 0) {
+                if (dumpExecutor == null) {
+                    dumpExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "R call metrics");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                }
+                dumpTask = dumpExecutor.scheduleWithFixedDelay(CallMetrics::dumpQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+            }
+            if (!shutdownHookInstalled) {
+                Runtime.getRuntime().addShutdownHook(new Thread(CallMetrics::dumpQuietly));
+                shutdownHookInstalled = true;
+            }
+        }
+        noCallMetricsAssumption.invalidate();
+        enabled = true;
+    }
+
+    /**
+     * Stops collecting the metrics, the collected data are retained until {@link #reset()}.
+     */
+    @TruffleBoundary
+    public static synchronized void stop() {
+        enabled = false;
+        cancelDump();
+        dumpQuietly();
+        dumpFile = null;
+    }
+
+    private static void cancelDump() {
+        if (dumpTask != null) {
+            dumpTask.cancel(false);
+            dumpTask = null;
+        }
+    }
+
+    /**
+     * Zeroes all the metrics. The entries themselves are kept, since they are cached in the AST.
+     */
+    @TruffleBoundary
+    public static void reset() {
+        for (Entry entry : builtins.values()) {
+            entry.reset();
+        }
+        for (Entry entry : closures.values()) {
+            entry.reset();
+        }
+    }
+
+    @TruffleBoundary
+    public static Entry getBuiltinEntry(String name) {
+        return builtins.computeIfAbsent(name, n -> new Entry(n, BUILTIN));
+    }
+
+    @TruffleBoundary
+    public static Entry getClosureEntry(String name) {
+        return closures.computeIfAbsent(name == null ? "<anonymous>" : name, n -> new Entry(n, CLOSURE));
+    }
+
+    /**
+     * Records the start of a call, {@code inCompiledCode} should be the value of
+     * {@code CompilerDirectives.inCompiledCode()} at the call site.
+     */
+    @TruffleBoundary
+    public static void enter(Entry entry, boolean inCompiledCode) {
+        stacks.get().push(entry, System.nanoTime(), allocatedBytes(), inCompiledCode);
+    }
+
+    /**
+     * Records the end of the innermost call started by {@link #enter(Entry, boolean)},
+     * {@code inInterpreter} should be the value of {@code CompilerDirectives.inInterpreter()} at the
+     * call site.
+     */
+    @TruffleBoundary
+    public static void exit(boolean inInterpreter) {
+        stacks.get().pop(System.nanoTime(), allocatedBytes(), inInterpreter);
+    }
+
+    /**
+     * Returns the metrics of all builtins and closures called at least once since the last
+     * {@link #reset()}.
+     */
+    @TruffleBoundary
+    public static Collection<Snapshot> snapshot() {
+        ArrayList<Snapshot> result = new ArrayList<>();
+        for (Entry entry : builtins.values()) {
+            addSnapshot(result, entry);
+        }
+        for (Entry entry : closures.values()) {
+            addSnapshot(result, entry);
+        }
+        result.sort((a, b) -> Long.compare(b.selfNanos, a.selfNanos));
+        return result;
+    }
+
+    private static void addSnapshot(ArrayList<Snapshot> result, Entry entry) {
+        Snapshot s = new Snapshot(entry);
+        if (s.calls > 0) {
+            result.add(s);
+        }
+    }
+
+    /**
+     * Writes the metrics as a tab separated table, which can be read with
+     * {@code read.delim(file)}.
+     */
+    @TruffleBoundary
+    public static void dump(String file) throws IOException {
+        try (PrintStream out = new PrintStream(new FileOutputStream(file))) {
+            out.println("name\tkind\tcalls\tself.time\ttotal.time\tallocated\tdeopts");
+            for (Snapshot s : snapshot()) {
+                out.printf("%s\t%s\t%d\t%.3f\t%.3f\t%d\t%d%n", s.name, s.kind, s.calls, s.selfNanos / 1E6, s.totalNanos / 1E6, s.allocated, s.deopts);
+            }
+        }
+    }
+
+    private static void dumpQuietly() {
+        String file = dumpFile;
+        if (file != null) {
+            try {
+                dump(file);
+            } catch (IOException ex) {
+                RInternalError.reportError(ex);
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        if (allocationSupported) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
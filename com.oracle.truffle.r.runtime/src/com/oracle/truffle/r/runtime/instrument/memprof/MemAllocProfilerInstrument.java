@@ -81,7 +81,7 @@ public class MemAllocProfilerInstrument extends TruffleInstrument {
         @Override
         @TruffleBoundary
         public void onReturnValue(AllocationEvent event) {
-            memAllocStacks.reportAllocation(event.getNewSize() - event.getOldSize());
+            memAllocStacks.reportAllocation(event.getValue(), event.getNewSize() - event.getOldSize());
         }
 
         public MemAllocProfilerStacks getStacks() {
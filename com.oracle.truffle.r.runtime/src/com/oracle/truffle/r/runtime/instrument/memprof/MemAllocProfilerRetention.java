@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.instrument.memprof;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.java.JavaInterop;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.data.RTypedValue;
+import com.oracle.truffle.r.runtime.instrument.memprof.MemAllocProfilerPaths.Entry;
+
+/**
+ * Tracks which of the allocations recorded by {@link MemAllocProfilerStacks} are still alive. In
+ * order to keep the overhead bounded, only a sample of the allocations is tracked: on average one
+ * sample is taken per {@link FastROptions#MemAllocSampleInterval} allocated bytes and each sample
+ * stands for that many bytes (or for its own size, if it is larger). The sampled objects are held
+ * by weak references, which are swept from the reference queue whenever a new sample is taken or
+ * the live statistics are queried, so the statistics approximate the bytes retained per allocation
+ * site and per R type.
+ *
+ * Comparing two {@link Snapshot snapshots} of the live statistics reveals the allocation sites
+ * whose retained memory keeps growing, i.e., potential leaks.
+ */
+public final class MemAllocProfilerRetention {
+
+    /**
+     * Upper bound of simultaneously tracked samples, new samples are dropped beyond it.
+     */
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private final Set<Sample> samples = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<Entry, Live> sites = new ConcurrentHashMap<>();
+    private final Map<String, Live> types = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ThreadLocal<long[]> bytesUntilSample = ThreadLocal.withInitial(() -> new long[]{nextSampleDistance()});
+
+    private static final class Sample extends WeakReference<Object> {
+        private final Entry site;
+        private final String type;
+        private final long bytes;
+        private final long count;
+
+        Sample(Object referent, ReferenceQueue<Object> queue, Entry site, String type, long bytes, long count) {
+            super(referent, queue);
+            this.site = site;
+            this.type = type;
+            this.bytes = bytes;
+            this.count = count;
+        }
+    }
+
+    private static final class Live {
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong count = new AtomicLong();
+
+        void add(long b, long c) {
+            bytes.addAndGet(b);
+            count.addAndGet(c);
+        }
+    }
+
+    /**
+     * Live bytes and object count of one allocation site or R type.
+     */
+    public static final class Row {
+        private final int id;
+        private final String name;
+        private final String location;
+        private final long bytes;
+        private final long count;
+
+        Row(int id, String name, String location, long bytes, long count) {
+            this.id = id;
+            this.name = name;
+            this.location = location;
+            this.bytes = bytes;
+            this.count = count;
+        }
+
+        /**
+         * @return the id of the allocation entry, or -1 for rows grouped by R type
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * @return the name of the function containing the allocation site, or the R type name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the source location of the allocation site, or {@code null} for rows grouped by
+         *         R type
+         */
+        public String getLocation() {
+            return location;
+        }
+
+        /**
+         * @return the estimated number of live bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the estimated number of live objects
+         */
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Immutable copy of the live statistics at some point of time.
+     */
+    public static final class Snapshot {
+        private final Map<Entry, Row> bySite;
+        private final Map<String, Row> byType;
+
+        Snapshot(Map<Entry, Row> bySite, Map<String, Row> byType) {
+            this.bySite = bySite;
+            this.byType = byType;
+        }
+
+        public List<Row> getSites() {
+            return sorted(bySite.values());
+        }
+
+        public List<Row> getTypes() {
+            return sorted(byType.values());
+        }
+
+        /**
+         * @return the allocation sites whose live bytes grew since {@code before}, with the growth
+         *         as bytes and count, largest growth first
+         */
+        public List<Row> sitesGrownSince(Snapshot before) {
+            List<Row> result = new ArrayList<>();
+            for (Map.Entry<Entry, Row> e : bySite.entrySet()) {
+                Row now = e.getValue();
+                Row then = before.bySite.get(e.getKey());
+                long grown = then == null ? now.bytes : now.bytes - then.bytes;
+                if (grown > 0) {
+                    result.add(new Row(now.id, now.name, now.location, grown, then == null ? now.count : now.count - then.count));
+                }
+            }
+            return sorted(result);
+        }
+
+        public TruffleObject toTruffleObject() {
+            return JavaInterop.asTruffleObject(this);
+        }
+
+        public static boolean isSnapshot(TruffleObject to) {
+            return JavaInterop.isJavaObject(Snapshot.class, to);
+        }
+
+        public static Snapshot fromTruffleObject(TruffleObject to) {
+            return JavaInterop.asJavaObject(Snapshot.class, to);
+        }
+
+        private static List<Row> sorted(Iterable<Row> rows) {
+            List<Row> result = new ArrayList<>();
+            for (Row row : rows) {
+                result.add(row);
+            }
+            result.sort((a, b) -> Long.compare(b.bytes, a.bytes));
+            return result;
+        }
+    }
+
+    /**
+     * @return the number of samples that were not tracked because of the {@link #MAX_SAMPLES}
+     *         limit
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private static long interval() {
+        return FastROptions.MemAllocSampleInterval.getNonNegativeIntValue();
+    }
+
+    void reportAllocation(Object value, Entry site, long size) {
+        long interval = interval();
+        if (interval == 0 || size <= 0) {
+            return;
+        }
+        long[] remaining = bytesUntilSample.get();
+        remaining[0] -= size;
+        if (remaining[0] > 0) {
+            return;
+        }
+        remaining[0] = nextSampleDistance();
+        sweep();
+        if (samples.size() >= MAX_SAMPLES) {
+            dropped.incrementAndGet();
+            return;
+        }
+        long bytes = Math.max(size, interval);
+        long count = Math.max(1, interval / size);
+        String type = value instanceof RTypedValue ? ((RTypedValue) value).getRType().getName() : value.getClass().getSimpleName();
+        samples.add(new Sample(value, queue, site, type, bytes, count));
+        sites.computeIfAbsent(site, s -> new Live()).add(bytes, count);
+        types.computeIfAbsent(type, t -> new Live()).add(bytes, count);
+    }
+
+    /**
+     * Exponentially distributed distances make the sampling independent of any regular allocation
+     * pattern of the program.
+     */
+    private static long nextSampleDistance() {
+        long interval = interval();
+        if (interval == 0) {
+            return Long.MAX_VALUE;
+        }
+        double u = ThreadLocalRandom.current().nextDouble();
+        return 1 + (long) (-Math.log(1 - u) * interval);
+    }
+
+    /**
+     * Removes the samples whose objects were collected from the live statistics.
+     */
+    public void sweep() {
+        Reference<?> ref;
+        while ((ref = queue.poll()) != null) {
+            Sample sample = (Sample) ref;
+            if (samples.remove(sample)) {
+                sites.get(sample.site).add(-sample.bytes, -sample.count);
+                types.get(sample.type).add(-sample.bytes, -sample.count);
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of the live statistics.
+     *
+     * @param gc if true, a garbage collection is requested first so that the statistics do not
+     *            include objects that are unreachable already
+     */
+    public Snapshot snapshot(boolean gc) {
+        if (gc) {
+            System.gc();
+            System.runFinalization();
+        }
+        sweep();
+        Map<Entry, Row> bySite = new HashMap<>();
+        for (Map.Entry<Entry, Live> e : sites.entrySet()) {
+            long bytes = e.getValue().bytes.get();
+            if (bytes > 0) {
+                Entry site = e.getKey();
+                bySite.put(site, new Row(site.getId(), site.getName(), location(site.getSourceSection()), bytes, e.getValue().count.get()));
+            }
+        }
+        Map<String, Row> byType = new HashMap<>();
+        for (Map.Entry<String, Live> e : types.entrySet()) {
+            long bytes = e.getValue().bytes.get();
+            if (bytes > 0) {
+                byType.put(e.getKey(), new Row(-1, e.getKey(), null, bytes, e.getValue().count.get()));
+            }
+        }
+        return new Snapshot(bySite, byType);
+    }
+
+    private static String location(SourceSection section) {
+        if (section == null || !section.isAvailable()) {
+            return null;
+        }
+        return RSource.getOrigin(section.getSource()) + ":" + section.getStartLine();
+    }
+
+    void clear() {
+        samples.clear();
+        sites.clear();
+        types.clear();
+        dropped.set(0);
+        while (queue.poll() != null) {
+            // drain
+        }
+    }
+}
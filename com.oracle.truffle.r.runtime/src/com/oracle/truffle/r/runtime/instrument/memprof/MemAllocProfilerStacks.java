@@ -42,6 +42,7 @@ public final class MemAllocProfilerStacks {
     final MemAllocProfilerPaths stackPaths = new MemAllocProfilerPaths();
     final ConcurrentHashMap<Thread, Deque<Entry>> stacks = new ConcurrentHashMap<>();
     final MemAllocProfilerPaths.Stats globalStats = new MemAllocProfilerPaths.Stats();
+    final MemAllocProfilerRetention retention = new MemAllocProfilerRetention();
 
     private MemAllocProfilerStacks() {
 
@@ -61,6 +62,7 @@ public final class MemAllocProfilerStacks {
         stackPaths.clear();
         globalStats.clear();
         stacks.clear();
+        retention.clear();
     }
 
     /**
@@ -80,6 +82,13 @@ public final class MemAllocProfilerStacks {
         return stackPaths.getEntry(id);
     }
 
+    /**
+     * @return the tracking of the retained (live) allocations
+     */
+    public MemAllocProfilerRetention getRetention() {
+        return retention;
+    }
+
     /**
      * @return the global (overall) allocations statistic
      */
@@ -116,12 +125,15 @@ public final class MemAllocProfilerStacks {
         }
     }
 
-    void reportAllocation(long size) {
+    void reportAllocation(Object value, long size) {
         Deque<Entry> stack = stacks.get(Thread.currentThread());
         if (stack != null) {
             Entry entry = stack.peek();
             globalStats.add(size, 1);
             entry.stats.add(size, 1);
+            if (value != null) {
+                retention.reportAllocation(value, entry, size);
+            }
         }
     }
 
@@ -0,0 +1,489 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.instrument.sampler;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.frame.FrameInstance.FrameAccess;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.EventBinding;
+import com.oracle.truffle.api.instrumentation.EventContext;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNode;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNodeFactory;
+import com.oracle.truffle.api.instrumentation.Instrumenter;
+import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.runtime.RArguments;
+import com.oracle.truffle.r.runtime.RCaller;
+import com.oracle.truffle.r.runtime.data.MemoryCopyTracer;
+import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RObjectSize;
+import com.oracle.truffle.r.runtime.data.RTypedValue;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.instrument.sampler.RSamplerStack.Site;
+
+/**
+ * Sampling profiler service provided by {@link RSamplerInstrument}.
+ *
+ * While a session is active, root and (for line profiling) statement event nodes maintain a
+ * {@link RSamplerStack shadow stack} for every thread executing R code, including threads of child
+ * contexts. A daemon thread periodically copies all the shadow stacks and writes them either in the
+ * GNU R {@code Rprof} format, including the memory and line profiling columns and {@code "<GC>"}
+ * entries, or aggregates them into folded stacks (one {@code frame;frame;...;frame count} line per
+ * distinct stack) suitable for flame graph tools. Frames that were entered in compiled code are
+ * marked with the {@code _[j]} suffix in the folded output.
+ *
+ * The event nodes are only attached while a session is active, so the instrument has no cost
+ * otherwise.
+ */
+public final class RSampler {
+
+    /**
+     * Vectors at least this large (in bytes) are accounted as "large vectors" in the memory
+     * profiling columns.
+     */
+    public static final int LARGE_VECTOR = 128;
+
+    /**
+     * Configuration of a profiling session.
+     */
+    public static final class Config {
+        final String rprofFile;
+        final boolean append;
+        final String foldedFile;
+        final long intervalMicros;
+        final boolean lineProfiling;
+        final boolean memoryProfiling;
+        final boolean gcProfiling;
+
+        /**
+         * @param rprofFile file to write {@code Rprof} output to or {@code null}
+         * @param append whether {@code rprofFile} should be appended to
+         * @param foldedFile file to write folded stacks to when the session ends or {@code null}
+         * @param intervalMicros sampling interval in microseconds
+         */
+        public Config(String rprofFile, boolean append, String foldedFile, long intervalMicros, boolean lineProfiling, boolean memoryProfiling, boolean gcProfiling) {
+            this.rprofFile = rprofFile;
+            this.append = append;
+            this.foldedFile = foldedFile;
+            this.intervalMicros = Math.max(1, intervalMicros);
+            this.lineProfiling = lineProfiling;
+            this.memoryProfiling = memoryProfiling;
+            this.gcProfiling = gcProfiling;
+        }
+    }
+
+    private final Instrumenter instrumenter;
+    private final Map<Thread, RSamplerStack> stacks = new ConcurrentHashMap<>();
+    private final ThreadLocal<RSamplerStack> currentStack = new ThreadLocal<>();
+    private final LongAdder compiledSamples = new LongAdder();
+    private final LongAdder interpretedSamples = new LongAdder();
+
+    private EventBinding<?> rootBinding;
+    private EventBinding<?> statementBinding;
+    private Session session;
+
+    RSampler(Instrumenter instrumenter) {
+        this.instrumenter = instrumenter;
+    }
+
+    public synchronized boolean isActive() {
+        return session != null;
+    }
+
+    /**
+     * Starts a new profiling session, ending the current one if there is any. The R functions
+     * active on the calling thread are recorded as the bottom of its stack.
+     *
+     * @param skipFrames the number of innermost active R functions not to record, e.g. the
+     *            {@code Rprof} closure that starts the session and returns right away
+     */
+    public synchronized void start(Config config, int skipFrames) throws IOException {
+        stop();
+        PrintStream out = config.rprofFile == null ? null : new PrintStream(new FileOutputStream(config.rprofFile, config.append));
+        for (RSamplerStack stack : stacks.values()) {
+            stack.reset();
+        }
+        seedStack(skipFrames);
+        session = new Session(config, out);
+        rootBinding = instrumenter.attachFactory(SourceSectionFilter.newBuilder().tagIs(StandardTags.RootTag.class).build(), new RootEventFactory());
+        if (config.lineProfiling) {
+            statementBinding = instrumenter.attachFactory(SourceSectionFilter.newBuilder().tagIs(StandardTags.StatementTag.class).build(), new StatementEventFactory());
+        }
+        if (config.memoryProfiling) {
+            RDataFactory.addListener(session);
+            MemoryCopyTracer.addListener(session);
+            MemoryCopyTracer.setTracingState(true);
+        }
+        session.start();
+    }
+
+    /**
+     * Ends the current profiling session (if any) and writes out the collected data.
+     */
+    public synchronized void stop() {
+        if (session == null) {
+            return;
+        }
+        Session s = session;
+        session = null;
+        s.finish();
+        rootBinding.dispose();
+        rootBinding = null;
+        if (statementBinding != null) {
+            statementBinding.dispose();
+            statementBinding = null;
+        }
+        if (s.config.memoryProfiling) {
+            RDataFactory.removeListener(s);
+            MemoryCopyTracer.removeListener(s);
+            MemoryCopyTracer.setTracingState(false);
+        }
+        s.close();
+    }
+
+    /**
+     * Returns the number of samples of the last or current session whose innermost function was
+     * entered in compiled code.
+     */
+    public long getCompiledSamples() {
+        return compiledSamples.sum();
+    }
+
+    /**
+     * Returns the number of samples of the last or current session whose innermost function was
+     * entered in the interpreter.
+     */
+    public long getInterpretedSamples() {
+        return interpretedSamples.sum();
+    }
+
+    @TruffleBoundary
+    private RSamplerStack getStack() {
+        RSamplerStack stack = currentStack.get();
+        if (stack == null) {
+            Thread thread = Thread.currentThread();
+            stack = new RSamplerStack(thread.getName());
+            currentStack.set(stack);
+            stacks.put(thread, stack);
+        }
+        return stack;
+    }
+
+    /**
+     * Records the R functions active on the current thread, the root event nodes only see the
+     * functions entered after they are attached.
+     */
+    @TruffleBoundary
+    private void seedStack(int skipFrames) {
+        ArrayList<Site> sites = new ArrayList<>();
+        ArrayList<Integer> callDepths = new ArrayList<>();
+        Truffle.getRuntime().iterateFrames(frameInstance -> {
+            Frame f = RArguments.unwrap(frameInstance.getFrame(FrameAccess.READ_ONLY));
+            if (RArguments.isRFrame(f)) {
+                RFunction function = RArguments.getFunction(f);
+                RCaller call = RArguments.getCall(f);
+                if (function != null && !function.isBuiltin() && call != null && call.isValidCaller() && !call.isPromise()) {
+                    RootNode root = function.getRootNode();
+                    sites.add(new Site(root.getName(), root.getSourceSection()));
+                    callDepths.add(call.getDepth());
+                }
+            }
+            return null;
+        });
+        // the frames were visited innermost first
+        int length = Math.max(0, sites.size() - skipFrames);
+        Site[] seededSites = new Site[length];
+        int[] seededDepths = new int[length];
+        for (int i = 0; i < length; i++) {
+            seededSites[i] = sites.get(sites.size() - 1 - i);
+            seededDepths[i] = callDepths.get(sites.size() - 1 - i);
+        }
+        getStack().seed(seededSites, seededDepths);
+    }
+
+    @TruffleBoundary
+    private void push(Site site, boolean compiled, int callDepth) {
+        getStack().push(site, compiled, callDepth);
+    }
+
+    @TruffleBoundary
+    private void pop() {
+        getStack().pop();
+    }
+
+    @TruffleBoundary
+    private void setLine(int line) {
+        getStack().setLine(line);
+    }
+
+    private final class RootEventFactory implements ExecutionEventNodeFactory {
+        @Override
+        public ExecutionEventNode create(EventContext context) {
+            Site site = new Site(context.getInstrumentedNode().getRootNode().getName(), context.getInstrumentedSourceSection());
+            return new ExecutionEventNode() {
+                @Override
+                protected void onEnter(VirtualFrame frame) {
+                    push(site, CompilerDirectives.inCompiledCode(), RArguments.getDepth(frame));
+                }
+
+                @Override
+                protected void onReturnValue(VirtualFrame frame, Object result) {
+                    pop();
+                }
+
+                @Override
+                protected void onReturnExceptional(VirtualFrame frame, Throwable exception) {
+                    pop();
+                }
+            };
+        }
+    }
+
+    private final class StatementEventFactory implements ExecutionEventNodeFactory {
+        @Override
+        public ExecutionEventNode create(EventContext context) {
+            SourceSection section = context.getInstrumentedSourceSection();
+            int line = section == null ? 0 : section.getStartLine();
+            return new ExecutionEventNode() {
+                @Override
+                protected void onEnter(VirtualFrame frame) {
+                    setLine(line);
+                }
+            };
+        }
+    }
+
+    private static long getGCTime() {
+        long result = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long time = bean.getCollectionTime();
+            if (time > 0) {
+                result += time;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A profiling session: the sampling thread, the memory accounting and the output.
+     */
+    private final class Session extends Thread implements RDataFactory.Listener, MemoryCopyTracer.Listener {
+        private final Config config;
+        private final PrintStream out;
+        private final HashMap<String, Integer> fileIndices = new HashMap<>();
+        private final LinkedHashMap<String, long[]> folded = new LinkedHashMap<>();
+        private final LongAdder smallV = new LongAdder();
+        private final LongAdder largeV = new LongAdder();
+        private final LongAdder nodes = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private volatile boolean running = true;
+        private long lastGCTime;
+
+        Session(Config config, PrintStream out) {
+            super("FastR sampling profiler");
+            setDaemon(true);
+            this.config = config;
+            this.out = out;
+            this.lastGCTime = getGCTime();
+            compiledSamples.reset();
+            interpretedSamples.reset();
+            if (out != null) {
+                if (config.memoryProfiling) {
+                    out.print("memory profiling: ");
+                }
+                if (config.gcProfiling) {
+                    out.print("GC profiling: ");
+                }
+                if (config.lineProfiling) {
+                    out.print("line profiling: ");
+                }
+                out.printf("sample.interval=%d\n", config.intervalMicros);
+            }
+        }
+
+        @Override
+        public void run() {
+            long millis = config.intervalMicros / 1000;
+            int nanos = (int) (config.intervalMicros % 1000) * 1000;
+            while (running) {
+                try {
+                    Thread.sleep(millis, nanos);
+                } catch (InterruptedException ex) {
+                    // woken up by finish
+                }
+                if (running) {
+                    sample();
+                }
+            }
+        }
+
+        private synchronized void sample() {
+            boolean inGC = false;
+            if (config.gcProfiling) {
+                long gcTime = getGCTime();
+                inGC = gcTime > lastGCTime;
+                lastGCTime = gcTime;
+            }
+            String memory = null;
+            if (config.memoryProfiling) {
+                memory = ":" + smallV.sumThenReset() + ":" + largeV.sumThenReset() + ":" + nodes.sumThenReset() + ":" + duplicates.sumThenReset() + ":";
+            }
+            Iterator<Map.Entry<Thread, RSamplerStack>> iter = stacks.entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<Thread, RSamplerStack> entry = iter.next();
+                if (!entry.getKey().isAlive()) {
+                    iter.remove();
+                    continue;
+                }
+                RSamplerStack.Frame[] frames = entry.getValue().snapshot();
+                if (frames.length == 0) {
+                    continue;
+                }
+                (frames[0].compiled ? compiledSamples : interpretedSamples).increment();
+                if (out != null) {
+                    writeRprof(frames, memory, inGC);
+                    memory = null;
+                }
+                if (config.foldedFile != null) {
+                    addFolded(entry.getValue().threadName, frames, inGC);
+                }
+            }
+        }
+
+        private void writeRprof(RSamplerStack.Frame[] frames, String memory, boolean inGC) {
+            StringBuilder line = new StringBuilder();
+            if (memory != null) {
+                line.append(memory);
+            } else if (config.memoryProfiling) {
+                line.append(":0:0:0:0:");
+            }
+            if (inGC) {
+                line.append("\"<GC>\" ");
+            }
+            for (RSamplerStack.Frame frame : frames) {
+                if (frame.site == null) {
+                    continue;
+                }
+                if (config.lineProfiling && frame.site.path != null && frame.line > 0) {
+                    Integer index = fileIndices.get(frame.site.path);
+                    if (index == null) {
+                        index = fileIndices.size() + 1;
+                        fileIndices.put(frame.site.path, index);
+                        out.printf("#File %d: %s\n", index, frame.site.path);
+                    }
+                    line.append(index).append('#').append(frame.line).append(' ');
+                }
+                line.append('"').append(frame.site.name).append("\" ");
+            }
+            out.println(line);
+        }
+
+        private void addFolded(String threadName, RSamplerStack.Frame[] frames, boolean inGC) {
+            StringBuilder key = new StringBuilder(threadName);
+            for (int i = frames.length - 1; i >= 0; i--) {
+                Frame frame = frames[i];
+                if (frame.site == null) {
+                    continue;
+                }
+                key.append(';').append(frame.site.name.replace(';', ':').replace(' ', '_'));
+                if (config.lineProfiling && frame.line > 0) {
+                    key.append(':').append(frame.line);
+                }
+                if (frame.compiled) {
+                    key.append("_[j]");
+                }
+            }
+            if (inGC) {
+                key.append(";<GC>");
+            }
+            folded.computeIfAbsent(key.toString(), k -> new long[1])[0]++;
+        }
+
+        void finish() {
+            running = false;
+            interrupt();
+            try {
+                join();
+            } catch (InterruptedException e) {
+                // ignore, the sampling thread does not write anything after running was reset
+            }
+        }
+
+        synchronized void close() {
+            if (out != null) {
+                out.close();
+            }
+            if (config.foldedFile != null) {
+                try (PrintStream foldedOut = new PrintStream(new FileOutputStream(config.foldedFile))) {
+                    for (Map.Entry<String, long[]> entry : folded.entrySet()) {
+                        foldedOut.print(entry.getKey());
+                        foldedOut.print(' ');
+                        foldedOut.println(entry.getValue()[0]);
+                    }
+                } catch (IOException e) {
+                    // nothing sensible to do in the middle of shutting down the session
+                }
+            }
+        }
+
+        @Override
+        @TruffleBoundary
+        public void reportAllocation(RTypedValue data) {
+            long size = RObjectSize.getObjectSize(data);
+            if (data instanceof RAbstractVector) {
+                if (size >= LARGE_VECTOR) {
+                    largeV.add(size);
+                } else {
+                    smallV.add(size);
+                }
+            } else {
+                nodes.add(size);
+            }
+        }
+
+        @Override
+        @TruffleBoundary
+        public void reportCopying(RAbstractVector source, RAbstractVector dest) {
+            duplicates.increment();
+        }
+    }
+}
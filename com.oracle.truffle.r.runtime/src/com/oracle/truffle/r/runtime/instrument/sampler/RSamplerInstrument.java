@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.instrument.sampler;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.instrumentation.TruffleInstrument;
+import com.oracle.truffle.api.instrumentation.TruffleInstrument.Registration;
+import com.oracle.truffle.api.vm.PolyglotEngine;
+import com.oracle.truffle.api.vm.PolyglotRuntime.Instrument;
+import com.oracle.truffle.r.runtime.context.RContext;
+
+/**
+ * Provides the {@link RSampler} service. Enabling the instrument does not attach anything, the
+ * sampler instruments the code only while a session started by {@link RSampler#start} is active.
+ */
+@Registration(name = "RSampler", id = RSamplerInstrument.ID)
+public class RSamplerInstrument extends TruffleInstrument {
+
+    public static final String ID = "r-sampler";
+
+    private RSampler sampler;
+
+    @Override
+    protected void onCreate(TruffleInstrument.Env env) {
+        sampler = new RSampler(env.getInstrumenter());
+        env.registerService(sampler);
+    }
+
+    @Override
+    protected void onDispose(Env env) {
+        sampler.stop();
+    }
+
+    /**
+     * Enables the instrument in the engine of the given context (or of its closest ancestor that
+     * has one, for child contexts) and returns the sampler, or {@code null} if there is no engine.
+     */
+    @TruffleBoundary
+    public static RSampler getSampler(RContext context) {
+        RContext current = context;
+        while (current != null && current.getVM() == null) {
+            current = current.getParent();
+        }
+        if (current == null) {
+            return null;
+        }
+        PolyglotEngine vm = current.getVM();
+        Instrument instrument = vm.getRuntime().getInstruments().get(ID);
+        if (instrument == null) {
+            return null;
+        }
+        if (!instrument.isEnabled()) {
+            instrument.setEnabled(true);
+        }
+        return instrument.lookup(RSampler.class);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.instrument.sampler;
+
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.runtime.RSource;
+
+/**
+ * Shadow stack of R function activations of one thread, maintained by the root and statement
+ * event nodes of {@link RSampler}. It is written only by the owning thread and read by the
+ * sampling thread without synchronization, which can at worst produce a slightly inconsistent
+ * sample. A {@link #reset()} requested by another thread is only recorded and the owning thread
+ * carries it out on its next push, a snapshot that overlaps with a reset is dropped.
+ *
+ * The functions that are already active when a session starts are {@link #seed(Site[], int[])
+ * seeded} from a frame walk. No return events are delivered for them, so a seeded activation is
+ * dropped once a function is entered at its call depth or above.
+ */
+final class RSamplerStack {
+
+    /**
+     * Identifies a function, i.e. an instrumented root.
+     */
+    static final class Site {
+        final String name;
+        final String path;
+
+        Site(String name, SourceSection section) {
+            this.name = name;
+            this.path = section == null ? null : RSource.getPath(section.getSource());
+        }
+    }
+
+    private static final class Slot {
+        Site site;
+        int line;
+        boolean compiled;
+        int callDepth;
+    }
+
+    /**
+     * Immutable copy of an activation taken by the sampling thread.
+     */
+    static final class Frame {
+        final Site site;
+        final int line;
+        final boolean compiled;
+
+        Frame(Site site, int line, boolean compiled) {
+            this.site = site;
+            this.line = line;
+            this.compiled = compiled;
+        }
+    }
+
+    private static final Frame[] EMPTY = new Frame[0];
+
+    final String threadName;
+    private volatile Slot[] slots = createSlots(new Slot[0], 32);
+    private volatile int depth;
+    /**
+     * The number of seeded activations at the bottom of the stack, only used by the owning thread.
+     */
+    private int seededDepth;
+
+    /**
+     * Incremented by {@link #reset()}, the owning thread publishes the last generation it has
+     * carried out in {@link #appliedGeneration}.
+     */
+    private volatile int resetGeneration;
+    private volatile int appliedGeneration;
+
+    RSamplerStack(String threadName) {
+        this.threadName = threadName;
+    }
+
+    private static Slot[] createSlots(Slot[] old, int length) {
+        Slot[] result = new Slot[length];
+        System.arraycopy(old, 0, result, 0, old.length);
+        for (int i = old.length; i < length; i++) {
+            result[i] = new Slot();
+        }
+        return result;
+    }
+
+    void push(Site site, boolean compiled, int callDepth) {
+        Slot[] s = slots;
+        int generation = resetGeneration;
+        int d;
+        if (generation == appliedGeneration) {
+            d = depth;
+            if (d > 0 && d == seededDepth) {
+                // seeded activations at or above the call depth of this one have returned
+                while (d > 0 && s[d - 1].callDepth >= callDepth) {
+                    d--;
+                }
+                seededDepth = d;
+            }
+        } else {
+            d = 0;
+            seededDepth = 0;
+        }
+        if (d == s.length) {
+            s = createSlots(s, s.length * 2);
+            slots = s;
+        }
+        Slot slot = s[d];
+        slot.site = site;
+        slot.line = 0;
+        slot.compiled = compiled;
+        slot.callDepth = callDepth;
+        depth = d + 1;
+        if (generation != appliedGeneration) {
+            appliedGeneration = generation;
+        }
+    }
+
+    void pop() {
+        int d = depth;
+        // the sampler may have been started while some functions were already active
+        if (d > 0) {
+            depth = d - 1;
+            if (seededDepth >= d) {
+                seededDepth = d - 1;
+            }
+        }
+    }
+
+    /**
+     * Forgets all activations, used when a new session starts since the pops of the previous
+     * session may be incomplete. Can be called by any thread, but only by one at a time.
+     */
+    void reset() {
+        resetGeneration++;
+    }
+
+    /**
+     * Replaces the activations with the given ones, outermost first. Must only be called by the
+     * owning thread, it also carries out a pending {@link #reset()}.
+     */
+    void seed(Site[] sites, int[] callDepths) {
+        Slot[] s = slots;
+        if (sites.length > s.length) {
+            s = createSlots(s, sites.length * 2);
+            slots = s;
+        }
+        // hide the stack from the sampling thread while the slots are overwritten
+        depth = 0;
+        for (int i = 0; i < sites.length; i++) {
+            Slot slot = s[i];
+            slot.site = sites[i];
+            slot.line = 0;
+            slot.compiled = false;
+            slot.callDepth = callDepths[i];
+        }
+        seededDepth = sites.length;
+        depth = sites.length;
+        appliedGeneration = resetGeneration;
+    }
+
+    void setLine(int line) {
+        int d = depth;
+        if (d > 0) {
+            slots[d - 1].line = line;
+        }
+    }
+
+    /**
+     * Copies the current activations, innermost first.
+     */
+    Frame[] snapshot() {
+        int generation = appliedGeneration;
+        if (generation != resetGeneration) {
+            // the activations are stale until the owning thread carries out the reset
+            return EMPTY;
+        }
+        Slot[] s = slots;
+        int d = Math.min(depth, s.length);
+        if (d == 0) {
+            return EMPTY;
+        }
+        Frame[] result = new Frame[d];
+        for (int i = 0; i < d; i++) {
+            Slot slot = s[d - 1 - i];
+            result[i] = new Frame(slot.site, slot.line, slot.compiled);
+        }
+        return generation == appliedGeneration && generation == resetGeneration ? result : EMPTY;
+    }
+}
@@ -99,6 +99,10 @@ public abstract class ForeignArray2R extends RBaseNode {
      *
      */
     public Object convert(Object obj, boolean recursive) {
+        RAbstractVector primitiveArray = wrapJavaPrimitiveArray(obj, true);
+        if (primitiveArray != null) {
+            return primitiveArray;
+        }
         if (FastROptions.ForeignObjectWrappers.getBooleanValue()) {
             if (isForeignArray(obj)) {
                 TruffleObject truffleObject = (TruffleObject) obj;
@@ -140,6 +144,39 @@ public abstract class ForeignArray2R extends RBaseNode {
         }
     }
 
+    /**
+     * Non-empty Java {@code double[]} and {@code int[]} arrays map one-to-one onto R double and
+     * integer vectors, so instead of reading them element by element through interop the array is
+     * copied in bulk, or with {@code copy == false} becomes the backing store of the vector. The
+     * latter is only meant for an explicit request like {@code .fastr.interop.fromArray}: the
+     * vector is made shared permanent, so the Java array is never written through R, but writes on
+     * the Java side are visible in the vector. Empty arrays keep converting to an empty list like
+     * any other empty foreign array.
+     *
+     * @return the vector, or {@code null} if obj is not such an array
+     */
+    @TruffleBoundary
+    public static RAbstractVector wrapJavaPrimitiveArray(Object obj, boolean copy) {
+        if (!(obj instanceof TruffleObject) || !JavaInterop.isJavaObject((TruffleObject) obj)) {
+            return null;
+        }
+        Object array = JavaInterop.asJavaObject(Object.class, (TruffleObject) obj);
+        RVector<?> result;
+        if (array instanceof double[] && ((double[]) array).length > 0) {
+            double[] data = (double[]) array;
+            result = RDataFactory.createDoubleVector(copy ? data.clone() : data, RDataFactory.INCOMPLETE_VECTOR);
+        } else if (array instanceof int[] && ((int[]) array).length > 0) {
+            int[] data = (int[]) array;
+            result = RDataFactory.createIntVector(copy ? data.clone() : data, RDataFactory.INCOMPLETE_VECTOR);
+        } else {
+            return null;
+        }
+        if (!copy) {
+            result.makeSharedPermanent();
+        }
+        return result;
+    }
+
     protected abstract Object execute(Object obj, boolean recursive, ForeignArrayData arrayData, int depth);
 
     @Specialization(guards = {"isForeignArray(obj)"})
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.interop;
+
+import com.oracle.truffle.api.interop.Message;
+
+/**
+ * Additional interop messages understood by R atomic vectors that let host code access the vector
+ * data in bulk instead of sending one {@link Message#READ} or {@link Message#WRITE} per element.
+ * Send them via {@code ForeignAccess.send(message.createNode(), vector, args...)}.
+ *
+ * Only double, integer and raw vectors support these messages, their data maps to
+ * {@code double[]}, {@code int[]} and {@code byte[]} respectively. Other vectors answer with
+ * {@code UnsupportedMessageException}.
+ */
+public abstract class RVectorBufferMessage extends Message {
+
+    /**
+     * Returns the Java array backing the vector without copying it. Fails if the data currently
+     * live in native memory (see {@link #GET_DATA_ADDRESS}). The vector is marked as shared
+     * permanently, so R never modifies it in place afterwards and the array stays valid as long as
+     * the vector is alive. The host must not write into the returned array.
+     */
+    public static final Message GET_BUFFER = new GetBuffer();
+
+    /**
+     * Returns the address (as {@code long}) of the native memory holding the vector data. Fails
+     * if the data are held in a Java array (see {@link #GET_BUFFER}).
+     */
+    public static final Message GET_DATA_ADDRESS = new GetDataAddress();
+
+    /**
+     * Arguments: {@code offset}, {@code length}. Returns a fresh Java array with a copy of given
+     * range of the vector.
+     */
+    public static final Message READ_RANGE = new ReadRange();
+
+    /**
+     * Arguments: {@code offset}, Java array of values. Writes the values starting at given
+     * (zero-based) offset and, like {@link Message#WRITE}, returns the updated vector, which is a
+     * copy of the receiver if the receiver was shared.
+     */
+    public static final Message WRITE_RANGE = new WriteRange();
+
+    @Override
+    public boolean equals(Object message) {
+        return message != null && message.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    // the subclasses must be public and have a public default constructor for Message.valueOf
+
+    public static final class GetBuffer extends RVectorBufferMessage {
+    }
+
+    public static final class GetDataAddress extends RVectorBufferMessage {
+    }
+
+    public static final class ReadRange extends RVectorBufferMessage {
+    }
+
+    public static final class WriteRange extends RVectorBufferMessage {
+    }
+}
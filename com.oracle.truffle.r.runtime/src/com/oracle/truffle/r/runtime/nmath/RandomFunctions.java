@@ -22,10 +22,12 @@
  */
 package com.oracle.truffle.r.runtime.nmath;
 
+import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.nmath.distr.SExp;
 import com.oracle.truffle.r.runtime.nmath.distr.SNorm;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 import com.oracle.truffle.r.runtime.rng.RRNG;
+import com.oracle.truffle.r.runtime.rng.RRNG.Kind;
 import com.oracle.truffle.r.runtime.rng.RRNG.NormKind;
 import com.oracle.truffle.r.runtime.rng.RandomNumberGenerator;
 
@@ -36,6 +38,16 @@ import com.oracle.truffle.r.runtime.rng.RandomNumberGenerator;
 public class RandomFunctions {
     public abstract static class RandFunction3_Double extends RBaseNode {
         public abstract double execute(double a, double b, double c, RandomNumberProvider rand);
+
+        /**
+         * Returns {@code true} if every call to {@link #execute} with the given parameters draws at
+         * least one uniform number from {@code rand}. Only then can the uniform numbers for a whole
+         * vector be generated in blocks without drawing more of them than the element-wise loop.
+         */
+        public boolean alwaysDraws(@SuppressWarnings("unused") double a, @SuppressWarnings("unused") double b, @SuppressWarnings("unused") double c,
+                        @SuppressWarnings("unused") RandomNumberProvider rand) {
+            return false;
+        }
     }
 
     public abstract static class RandFunction2_Double extends RandFunction3_Double {
@@ -45,6 +57,15 @@ public class RandomFunctions {
         public final double execute(double a, double b, double c, RandomNumberProvider rand) {
             return execute(a, b, rand);
         }
+
+        public boolean alwaysDraws(@SuppressWarnings("unused") double a, @SuppressWarnings("unused") double b, @SuppressWarnings("unused") RandomNumberProvider rand) {
+            return false;
+        }
+
+        @Override
+        public final boolean alwaysDraws(double a, double b, double c, RandomNumberProvider rand) {
+            return alwaysDraws(a, b, rand);
+        }
     }
 
     public abstract static class RandFunction1_Double extends RandFunction3_Double {
@@ -54,6 +75,15 @@ public class RandomFunctions {
         public final double execute(double a, double b, double c, RandomNumberProvider rand) {
             return execute(a, rand);
         }
+
+        public boolean alwaysDraws(@SuppressWarnings("unused") double a, @SuppressWarnings("unused") RandomNumberProvider rand) {
+            return false;
+        }
+
+        @Override
+        public final boolean alwaysDraws(double a, double b, double c, RandomNumberProvider rand) {
+            return alwaysDraws(a, rand);
+        }
     }
 
     /**
@@ -76,6 +106,35 @@ public class RandomFunctions {
             return this.generator == other.generator && this.normKind == other.normKind;
         }
 
+        /**
+         * Returns {@code true} if every call to {@link #normRand()} draws at least one uniform
+         * number. Box-Muller returns every other value from its cache.
+         */
+        public boolean normRandAlwaysDraws() {
+            return normKind != NormKind.BOX_MULLER && normKind != NormKind.USER_NORM;
+        }
+
+        /**
+         * Creates a provider that takes the uniform numbers from the generator in blocks. It may
+         * only be used to produce {@code values} values each of which draws at least one uniform
+         * number (see {@link RandFunction3_Double#alwaysDraws}), and {@link #nextValue(int)} must be
+         * called before each of them. This way the blocks never reach beyond the uniform numbers
+         * the element-wise loop would consume and the generator ends up in the same state.
+         */
+        public RandomNumberProvider withBlocks(int values) {
+            return new RandomNumberProvider(new UniformBlock(generator, values), normKind);
+        }
+
+        /**
+         * Tells a provider created by {@link #withBlocks(int)} how many values, including the one
+         * that is about to be produced, remain to be produced. Does nothing for other providers.
+         */
+        public void nextValue(int remainingValues) {
+            if (generator instanceof UniformBlock) {
+                ((UniformBlock) generator).remainingValues = remainingValues;
+            }
+        }
+
         public double unifRand() {
             return generator.genrandDouble();
         }
@@ -88,4 +147,65 @@ public class RandomFunctions {
             return SExp.expRand(generator);
         }
     }
+    /**
+     * Serves the uniform numbers of a generator from a buffer that is refilled with
+     * {@link RandomNumberGenerator#genrandDoubles} as needed. Each refill is bounded by the number
+     * of values remaining to be produced, which is a lower bound of the uniform numbers still to be
+     * consumed.
+     */
+    private static final class UniformBlock implements RandomNumberGenerator {
+        private static final int BLOCK_SIZE = 1024;
+
+        private final RandomNumberGenerator generator;
+        private final double[] buffer;
+        private int index;
+        private int end;
+        private int remainingValues;
+
+        UniformBlock(RandomNumberGenerator generator, int values) {
+            this.generator = generator;
+            this.buffer = new double[Math.min(values, BLOCK_SIZE)];
+        }
+
+        @Override
+        public double genrandDouble() {
+            if (index == end) {
+                assert remainingValues > 0 : "block generation requires at least one draw per value";
+                end = Math.min(buffer.length, remainingValues);
+                index = 0;
+                generator.genrandDoubles(buffer, 0, end);
+            }
+            return buffer[index++];
+        }
+
+        @Override
+        public void init(int seed) {
+            throw RInternalError.shouldNotReachHere();
+        }
+
+        @Override
+        public void fixupSeeds(boolean initial) {
+            throw RInternalError.shouldNotReachHere();
+        }
+
+        @Override
+        public int[] getSeeds() {
+            return generator.getSeeds();
+        }
+
+        @Override
+        public Kind getKind() {
+            return generator.getKind();
+        }
+
+        @Override
+        public int getNSeed() {
+            return generator.getNSeed();
+        }
+
+        @Override
+        public void setISeed(int[] seeds) {
+            throw RInternalError.shouldNotReachHere();
+        }
+    }
 }
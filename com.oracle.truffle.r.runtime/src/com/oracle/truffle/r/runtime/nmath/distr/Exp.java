@@ -52,6 +52,11 @@ public final class Exp {
             }
             return scale * rand.expRand();
         }
+
+        @Override
+        public boolean alwaysDraws(double scale, RandomNumberProvider rand) {
+            return Double.isFinite(scale) && scale > 0.;
+        }
     }
 
     public static final class PExp implements Function2_2 {
@@ -279,4 +279,10 @@ public final class RPois extends RandFunction1_Double {
     public double execute(double mu, RandomNumberProvider rand) {
         return rpois(mu, rand);
     }
+
+    @Override
+    public boolean alwaysDraws(double mu, RandomNumberProvider rand) {
+        // for mu >= 10, the normal deviate alone may decide the result
+        return Double.isFinite(mu) && mu > 0. && (mu < 10. || rand.normRandAlwaysDraws());
+    }
 }
@@ -245,4 +245,9 @@ public final class Rbinom extends RandFunction2_Double {
         }
         return ix;
     }
+
+    @Override
+    public boolean alwaysDraws(double n, double p, RandomNumberProvider rand) {
+        return Double.isFinite(n) && n > 0 && RMath.forceint(n) == n && p > 0. && p < 1.;
+    }
 }
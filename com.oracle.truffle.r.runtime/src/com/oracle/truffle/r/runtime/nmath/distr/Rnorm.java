@@ -38,4 +38,9 @@ public final class Rnorm extends RandFunction2_Double {
             return mu + sigma * rand.normRand();
         }
     }
+
+    @Override
+    public boolean alwaysDraws(double mu, double sigma, RandomNumberProvider rand) {
+        return Double.isFinite(mu) && Double.isFinite(sigma) && sigma > 0. && rand.normRandAlwaysDraws();
+    }
 }
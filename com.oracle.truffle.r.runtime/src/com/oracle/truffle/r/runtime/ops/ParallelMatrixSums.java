@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.ops;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.RLogicalVector;
+
+/**
+ * Parallel and cache-blocked implementations of {@code colSums}, {@code colMeans},
+ * {@code rowSums} and {@code rowMeans} for large materialized double, integer and logical
+ * matrices (see {@link ParallelReduce#isApplicable(Object)}).
+ *
+ * Column sums are split across threads by ranges of columns. Row sums are computed per tile of
+ * {@link #ROW_BLOCK} rows times a block of columns: every tile walks each of its column segments
+ * sequentially and accumulates into a row block sized buffer that stays in cache. The partial
+ * results of the column blocks are combined in column order, so the result only depends on the
+ * matrix dimensions. As in the sequential implementations, the first NA or NaN encountered in a
+ * row or column determines the result unless {@code naRm} is {@code true}.
+ */
+public final class ParallelMatrixSums {
+
+    private static final int ROW_BLOCK = 1024;
+
+    private static final byte NONE = 0;
+    private static final byte NA = 1;
+    private static final byte NAN = 2;
+
+    /**
+     * Transformation of the sum of (non-NA) values and their count into the final result, i.e.
+     * identity for sums and division for means.
+     */
+    @FunctionalInterface
+    public interface FinalTransform {
+        double get(double sum, int notNACount);
+    }
+
+    /**
+     * Per-row (or per-column) accumulation state.
+     */
+    private static final class Sums {
+        private final double[] sum;
+        private final int[] count;
+        private final byte[] state;
+
+        Sums(int length) {
+            this.sum = new double[length];
+            this.count = new int[length];
+            this.state = new byte[length];
+        }
+
+        void addDouble(int index, double value, boolean naRm) {
+            if (Double.isNaN(value)) {
+                if (!naRm && state[index] == NONE) {
+                    state[index] = RRuntime.isNA(value) ? NA : NAN;
+                }
+            } else {
+                sum[index] += value;
+                count[index]++;
+            }
+        }
+
+        void addInt(int index, int value, boolean naRm) {
+            if (value == RRuntime.INT_NA) {
+                if (!naRm && state[index] == NONE) {
+                    state[index] = NA;
+                }
+            } else {
+                sum[index] += value;
+                count[index]++;
+            }
+        }
+
+        /**
+         * Adds the partial sums of {@code other} (covering the following columns) to
+         * {@code [offset, offset + other.length)}.
+         */
+        void combine(Sums other, int offset) {
+            for (int i = 0; i < other.sum.length; i++) {
+                if (state[offset + i] == NONE) {
+                    state[offset + i] = other.state[i];
+                }
+                sum[offset + i] += other.sum[i];
+                count[offset + i] += other.count[i];
+            }
+        }
+
+        RDoubleVector toVector(FinalTransform finalTransform) {
+            double[] result = new double[sum.length];
+            boolean complete = true;
+            for (int i = 0; i < result.length; i++) {
+                if (state[i] == NA) {
+                    result[i] = RRuntime.DOUBLE_NA;
+                    complete = false;
+                } else if (state[i] == NAN) {
+                    result[i] = finalTransform.get(Double.NaN, count[i]);
+                } else {
+                    result[i] = finalTransform.get(sum[i], count[i]);
+                }
+            }
+            return RDataFactory.createDoubleVector(result, complete);
+        }
+    }
+
+    private ParallelMatrixSums() {
+        // only static members
+    }
+
+    @TruffleBoundary
+    public static RDoubleVector colSums(Object x, int rowNum, int colNum, boolean naRm, FinalTransform finalTransform) {
+        Object data = getData(x);
+        Sums sums = new Sums(colNum);
+        int colsPerChunk = Math.max(1, ParallelReduce.CHUNK_SIZE / Math.max(1, rowNum));
+        int chunks = (colNum + colsPerChunk - 1) / colsPerChunk;
+        ParallelReduce.forEachChunk(chunks, chunk -> {
+            int fromCol = chunk * colsPerChunk;
+            int toCol = Math.min(colNum, fromCol + colsPerChunk);
+            for (int c = fromCol; c < toCol; c++) {
+                accumulate(data, sums, c, c * rowNum, rowNum, true, naRm);
+            }
+        });
+        return sums.toVector(finalTransform);
+    }
+
+    @TruffleBoundary
+    public static RDoubleVector rowSums(Object x, int rowNum, int colNum, boolean naRm, FinalTransform finalTransform) {
+        Object data = getData(x);
+        int rowBlocks = (rowNum + ROW_BLOCK - 1) / ROW_BLOCK;
+        int colsPerBlock = Math.max(1, ParallelReduce.CHUNK_SIZE / Math.max(1, Math.min(rowNum, ROW_BLOCK)));
+        int colBlocks = (colNum + colsPerBlock - 1) / colsPerBlock;
+        Sums[] tiles = new Sums[rowBlocks * colBlocks];
+        ParallelReduce.forEachChunk(tiles.length, tile -> {
+            int fromRow = (tile / colBlocks) * ROW_BLOCK;
+            int rows = Math.min(rowNum - fromRow, ROW_BLOCK);
+            int fromCol = (tile % colBlocks) * colsPerBlock;
+            int toCol = Math.min(colNum, fromCol + colsPerBlock);
+            Sums sums = new Sums(rows);
+            for (int c = fromCol; c < toCol; c++) {
+                accumulate(data, sums, 0, c * rowNum + fromRow, rows, false, naRm);
+            }
+            tiles[tile] = sums;
+        });
+        Sums result = new Sums(rowNum);
+        for (int tile = 0; tile < tiles.length; tile++) {
+            result.combine(tiles[tile], (tile / colBlocks) * ROW_BLOCK);
+        }
+        return result.toVector(finalTransform);
+    }
+
+    /**
+     * Returns the backing array of {@code x}. This is called once on the calling thread, the
+     * workers only read from the array.
+     */
+    private static Object getData(Object x) {
+        if (x instanceof RDoubleVector) {
+            return ((RDoubleVector) x).getInternalManagedData();
+        } else if (x instanceof RIntVector) {
+            return ((RIntVector) x).getInternalManagedData();
+        } else if (x instanceof RLogicalVector) {
+            return ((RLogicalVector) x).getInternalManagedData();
+        }
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    /**
+     * Accumulates {@code length} consecutive elements of the array {@code x} starting at
+     * {@code offset} either all into {@code sums[index]} ({@code single == true}) or into
+     * {@code sums[index + i]}.
+     */
+    private static void accumulate(Object x, Sums sums, int index, int offset, int length, boolean single, boolean naRm) {
+        if (x instanceof double[]) {
+            double[] data = (double[]) x;
+            for (int i = 0; i < length; i++) {
+                sums.addDouble(single ? index : index + i, data[offset + i], naRm);
+            }
+        } else if (x instanceof int[]) {
+            int[] data = (int[]) x;
+            for (int i = 0; i < length; i++) {
+                sums.addInt(single ? index : index + i, data[offset + i], naRm);
+            }
+        } else if (x instanceof byte[]) {
+            byte[] data = (byte[]) x;
+            for (int i = 0; i < length; i++) {
+                byte value = data[offset + i];
+                sums.addInt(single ? index : index + i, value == RRuntime.LOGICAL_NA ? RRuntime.INT_NA : value, naRm);
+            }
+        } else {
+            throw RInternalError.shouldNotReachHere();
+        }
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.ops;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.RLogicalVector;
+import com.oracle.truffle.r.runtime.data.RVector;
+
+/**
+ * Chunked parallel reductions used by the summary builtins ({@code sum}, {@code prod},
+ * {@code min}, {@code max}, {@code range} and {@code mean}) for large materialized vectors.
+ *
+ * The vector is split into chunks of {@link #CHUNK_SIZE} elements, the chunks are reduced on the
+ * common fork-join pool and the per-chunk {@link Partial} results are combined sequentially in
+ * chunk order. Since the chunk boundaries depend only on the vector length, the result does not
+ * depend on the number of available threads or on the scheduling.
+ *
+ * Sums are accumulated in a double-double (hi/lo) accumulator, which is at least as precise as the
+ * {@code long double} accumulator used by GNU R, and integer sums are accumulated in a
+ * {@code long} and checked for overflow only at the end, like in GNU R.
+ */
+public final class ParallelReduce {
+
+    public static final int CHUNK_SIZE = 1 << 16;
+
+    public enum Kind {
+        SUM,
+        PROD,
+        MIN,
+        MAX;
+
+        public static Kind fromFactory(BinaryArithmeticFactory factory) {
+            if (factory == BinaryArithmetic.ADD) {
+                return SUM;
+            } else if (factory == BinaryArithmetic.MULTIPLY) {
+                return PROD;
+            } else if (factory == BinaryArithmetic.MIN) {
+                return MIN;
+            } else if (factory == BinaryArithmetic.MAX) {
+                return MAX;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Result of reducing a chunk or, after combining, of reducing the whole vector.
+     */
+    public static final class Partial {
+        private final Kind kind;
+        private double hi;
+        private double lo;
+        private long longValue;
+        private long count;
+        private boolean na;
+        private double firstNaN = Double.NaN;
+        private boolean hasNaN;
+
+        private Partial(Kind kind) {
+            this.kind = kind;
+            switch (kind) {
+                case SUM:
+                    hi = 0;
+                    break;
+                case PROD:
+                    hi = 1;
+                    break;
+                case MIN:
+                    hi = Double.POSITIVE_INFINITY;
+                    longValue = Long.MAX_VALUE;
+                    break;
+                case MAX:
+                    hi = Double.NEGATIVE_INFINITY;
+                    longValue = Long.MIN_VALUE;
+                    break;
+                default:
+                    throw RInternalError.shouldNotReachHere();
+            }
+        }
+
+        /**
+         * {@code true} if an NA was encountered and NAs were not to be removed.
+         */
+        public boolean isNA() {
+            return na;
+        }
+
+        /**
+         * {@code true} if no element took part in the reduction (e.g. all were removed).
+         */
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        public double getDoubleValue() {
+            return Double.isFinite(hi) ? hi + lo : hi;
+        }
+
+        public long getLongValue() {
+            return longValue;
+        }
+
+        private void addDouble(double value) {
+            switch (kind) {
+                case SUM:
+                    // Knuth's two-sum, the rounding error is collected in 'lo', there is no
+                    // rounding error to collect once the sum is infinite (or NaN)
+                    double s = hi + value;
+                    if (Double.isFinite(s) && Double.isFinite(value)) {
+                        double bp = s - hi;
+                        lo += (hi - (s - bp)) + (value - bp);
+                    }
+                    hi = s;
+                    break;
+                case PROD:
+                    hi *= value;
+                    break;
+                case MIN:
+                    hi = min(hi, value);
+                    break;
+                case MAX:
+                    hi = max(hi, value);
+                    break;
+                default:
+                    throw RInternalError.shouldNotReachHere();
+            }
+        }
+
+        private void addLong(long value) {
+            switch (kind) {
+                case SUM:
+                    longValue += value;
+                    break;
+                case PROD:
+                    hi *= value;
+                    break;
+                case MIN:
+                    longValue = Math.min(longValue, value);
+                    break;
+                case MAX:
+                    longValue = Math.max(longValue, value);
+                    break;
+                default:
+                    throw RInternalError.shouldNotReachHere();
+            }
+        }
+
+        private void combine(Partial other) {
+            if (other.na) {
+                na = true;
+            }
+            if (other.hasNaN && !hasNaN) {
+                hasNaN = true;
+                firstNaN = other.firstNaN;
+            }
+            if (other.count == 0) {
+                return;
+            }
+            count += other.count;
+            if (kind == Kind.SUM) {
+                addDouble(other.hi);
+                addDouble(other.lo);
+                longValue += other.longValue;
+            } else {
+                addDouble(other.hi);
+                if (kind != Kind.PROD) {
+                    addLong(other.longValue);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reduces a slice of the source array into a fresh {@link Partial}.
+     */
+    @FunctionalInterface
+    private interface ChunkReducer {
+        Partial reduce(int from, int to);
+    }
+
+    /**
+     * Runs {@code body} for every chunk index in {@code [fromChunk, toChunk)} by recursively
+     * splitting the range in halves.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer body;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkTask(IntConsumer body, int fromChunk, int toChunk) {
+            this.body = body;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                body.accept(fromChunk);
+            } else {
+                int mid = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ChunkTask(body, fromChunk, mid), new ChunkTask(body, mid, toChunk));
+            }
+        }
+    }
+
+    private ParallelReduce() {
+        // only static members
+    }
+
+    /**
+     * Determines whether the given value is a materialized vector long enough to use the parallel
+     * path. Vectors whose data live in a native mirror, sequences and wrappers are not supported.
+     */
+    public static boolean isApplicable(Object value) {
+        int threshold = FastROptions.ParallelReduceThreshold.getNonNegativeIntValue();
+        if (threshold == 0) {
+            return false;
+        }
+        if (value instanceof RDoubleVector || value instanceof RIntVector || value instanceof RLogicalVector) {
+            RVector<?> vector = (RVector<?>) value;
+            return vector.getLength() >= threshold && !vector.hasNativeMemoryData();
+        }
+        return false;
+    }
+
+    /**
+     * Reduces a vector accepted by {@link #isApplicable(Object)}. For double vectors and
+     * {@link Kind#PROD} the result is in {@link Partial#getDoubleValue()}, otherwise in
+     * {@link Partial#getLongValue()}. NaN values are passed to the operation, i.e., they are not
+     * considered NAs, unless {@code naRm} is {@code true}. If {@code finite} is {@code true},
+     * infinite values are ignored.
+     */
+    @TruffleBoundary
+    public static Partial reduce(Kind kind, Object value, boolean naRm, boolean finite) {
+        // the backing array may be longer than the vector, see RVector.growInPlace
+        int length = ((RVector<?>) value).getLength();
+        if (value instanceof RDoubleVector) {
+            double[] data = ((RDoubleVector) value).getInternalManagedData();
+            return reduceChunks(kind, length, (from, to) -> reduceDoubles(kind, data, from, to, naRm, finite));
+        } else if (value instanceof RIntVector) {
+            int[] data = ((RIntVector) value).getInternalManagedData();
+            return reduceChunks(kind, length, (from, to) -> reduceInts(kind, data, from, to, naRm));
+        } else if (value instanceof RLogicalVector) {
+            byte[] data = ((RLogicalVector) value).getInternalManagedData();
+            return reduceChunks(kind, length, (from, to) -> reduceLogicals(kind, data, from, to, naRm));
+        }
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    /**
+     * Computes the arithmetic mean of a vector accepted by {@link #isApplicable(Object)} with the
+     * same semantics as the {@code mean} internal: the first NA or NaN (in vector order) is the
+     * result if there is any. For double vectors, the mean is refined with a second pass as in
+     * GNU R.
+     */
+    @TruffleBoundary
+    public static double mean(Object value) {
+        Partial sum = reduce(Kind.SUM, value, false, false);
+        if (sum.hasNaN) {
+            return sum.firstNaN;
+        }
+        int length = ((RVector<?>) value).getLength();
+        if (!(value instanceof RDoubleVector)) {
+            return (double) sum.longValue / length;
+        }
+        double mean = sum.getDoubleValue() / length;
+        if (!Double.isFinite(mean)) {
+            return mean;
+        }
+        double[] data = ((RDoubleVector) value).getInternalManagedData();
+        Partial correction = reduceChunks(Kind.SUM, length, (from, to) -> {
+            Partial p = new Partial(Kind.SUM);
+            for (int i = from; i < to; i++) {
+                p.addDouble(data[i] - mean);
+            }
+            p.count = to - from;
+            return p;
+        });
+        return mean + correction.getDoubleValue() / length;
+    }
+
+    /**
+     * Runs {@code body} for each chunk index in {@code [0, chunks)} on the common fork-join pool and
+     * returns when all of them are finished. The chunks must not write to shared locations.
+     */
+    static void forEachChunk(int chunks, IntConsumer body) {
+        if (chunks == 1) {
+            body.accept(0);
+        } else if (chunks > 1) {
+            ForkJoinPool.commonPool().invoke(new ChunkTask(body, 0, chunks));
+        }
+    }
+
+    private static Partial reduceChunks(Kind kind, int length, ChunkReducer reducer) {
+        int chunks = (int) (((long) length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        Partial result = new Partial(kind);
+        if (chunks == 0) {
+            return result;
+        }
+        Partial[] partials = new Partial[chunks];
+        forEachChunk(chunks, c -> {
+            int from = c * CHUNK_SIZE;
+            partials[c] = reducer.reduce(from, Math.min(length, from + CHUNK_SIZE));
+        });
+        for (Partial partial : partials) {
+            result.combine(partial);
+        }
+        return result;
+    }
+
+    private static Partial reduceDoubles(Kind kind, double[] data, int from, int to, boolean naRm, boolean finite) {
+        Partial p = new Partial(kind);
+        for (int i = from; i < to; i++) {
+            double d = data[i];
+            if (Double.isNaN(d)) {
+                if (!p.hasNaN) {
+                    p.hasNaN = true;
+                    p.firstNaN = d;
+                }
+                if (naRm) {
+                    continue;
+                } else if (RRuntime.isNA(d)) {
+                    p.na = true;
+                    return p;
+                }
+            } else if (finite && Double.isInfinite(d)) {
+                continue;
+            }
+            p.addDouble(d);
+            p.count++;
+        }
+        return p;
+    }
+
+    private static Partial reduceInts(Kind kind, int[] data, int from, int to, boolean naRm) {
+        Partial p = new Partial(kind);
+        for (int i = from; i < to; i++) {
+            int d = data[i];
+            if (d == RRuntime.INT_NA) {
+                if (!p.hasNaN) {
+                    p.hasNaN = true;
+                    p.firstNaN = RRuntime.DOUBLE_NA;
+                }
+                if (naRm) {
+                    continue;
+                }
+                p.na = true;
+                return p;
+            }
+            p.addLong(d);
+            p.count++;
+        }
+        return p;
+    }
+
+    private static Partial reduceLogicals(Kind kind, byte[] data, int from, int to, boolean naRm) {
+        Partial p = new Partial(kind);
+        for (int i = from; i < to; i++) {
+            byte d = data[i];
+            if (d == RRuntime.LOGICAL_NA) {
+                if (!p.hasNaN) {
+                    p.hasNaN = true;
+                    p.firstNaN = RRuntime.DOUBLE_NA;
+                }
+                if (naRm) {
+                    continue;
+                }
+                p.na = true;
+                return p;
+            }
+            p.addLong(d);
+            p.count++;
+        }
+        return p;
+    }
+
+    // same semantics as BinaryArithmetic.Min/Max (NaN sticks, 0 vs. -0 distinguished)
+
+    private static double min(double left, double right) {
+        if (left != left) {
+            return left;
+        } else if (left == 0.0d && right == 0.0d && Double.doubleToRawLongBits(right) == Double.doubleToRawLongBits(-0.0d)) {
+            return right;
+        } else {
+            return left <= right ? left : right;
+        }
+    }
+
+    private static double max(double left, double right) {
+        if (left != left) {
+            return left;
+        } else if (left == 0.0d && right == 0.0d && Double.doubleToRawLongBits(left) == Double.doubleToRawLongBits(-0.0d)) {
+            return right;
+        } else {
+            return left >= right ? left : right;
+        }
+    }
+}
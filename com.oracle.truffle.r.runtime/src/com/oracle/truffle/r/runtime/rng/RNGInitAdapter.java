@@ -20,7 +20,18 @@ public abstract class RNGInitAdapter implements RandomNumberGenerator {
     protected static final int MAX_ISEED_SIZE = 625;
 
     // TODO: it seems like GNU R this is shared between the generators (does it matter?)
-    private int[] iSeed = new int[MAX_ISEED_SIZE + 1];
+    private int[] iSeed;
+
+    protected RNGInitAdapter() {
+        this(MAX_ISEED_SIZE);
+    }
+
+    /**
+     * Allows generators with few seeds to keep {@code .Random.seed} as short as in GnuR.
+     */
+    protected RNGInitAdapter(int nSeed) {
+        iSeed = new int[nSeed + 1];
+    }
 
     @Override
     public void setISeed(int[] seeds) {
@@ -12,6 +12,7 @@
 package com.oracle.truffle.r.runtime.rng;
 
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.function.Supplier;
 
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
@@ -32,14 +33,15 @@ import com.oracle.truffle.r.runtime.env.REnvironment;
 import com.oracle.truffle.r.runtime.env.frame.ActiveBinding;
 import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 import com.oracle.truffle.r.runtime.ffi.BaseRFFI;
+import com.oracle.truffle.r.runtime.rng.lecuyer.LecuyerCMRG;
 import com.oracle.truffle.r.runtime.rng.mm.MarsagliaMulticarry;
 import com.oracle.truffle.r.runtime.rng.mt.MersenneTwister;
 import com.oracle.truffle.r.runtime.rng.user.UserRNG;
 
 /**
  * Facade class to the R random number generators, (see src/main/RNG.c in GnuR). The individual
- * generators are implemented in their own class. Currently there are only two implemented, the
- * default, {@link MersenneTwister} and {@link MarsagliaMulticarry}.
+ * generators are implemented in their own class. Currently there are only three implemented, the
+ * default, {@link MersenneTwister}, {@link MarsagliaMulticarry} and {@link LecuyerCMRG}.
  *
  * The fact that the R programmer can set {@code .Random.seed} explicitly, as opposed to the
  * recommended approach of calling {@code set.seed}, is something of a pain as it changes the
@@ -62,7 +64,7 @@ public class RRNG {
         KNUTH_TAOCP(),
         USER_UNIF(UserRNG::new),
         KNUTH_TAOCP2(),
-        LECUYER_CMRG();
+        LECUYER_CMRG(LecuyerCMRG::new);
 
         @CompilationFinal(dimensions = 1) static final Kind[] VALUES = values();
 
@@ -127,9 +129,18 @@ public class RRNG {
 
         @Override
         public RContext.ContextState initialize(RContext context) {
-            int seed = timeToSeed();
-            RandomNumberGenerator rng = DEFAULT_KIND.create();
-            initGenerator(rng, seed);
+            int[] stream = context.getInitialRNGStream();
+            RandomNumberGenerator rng;
+            if (stream != null) {
+                // a child context continues with the stream its parent assigned to it
+                rng = Kind.LECUYER_CMRG.create();
+                rng.setISeed(stream);
+                this.currentNormKind = NormKind.VALUES[stream[0] / 100];
+                this.currentSeeds = stream;
+            } else {
+                rng = DEFAULT_KIND.create();
+                initGenerator(rng, timeToSeed());
+            }
             this.currentGenerator = rng;
             this.allGenerators[rng.getKind().ordinal()] = rng;
             return this;
@@ -194,6 +205,9 @@ public class RRNG {
             FrameSlot slot = FrameSlotChangeMonitor.findOrAddFrameSlot(frame.getFrameDescriptor(), RRNG.RANDOM_SEED, FrameSlotKind.Object);
             FrameSlotChangeMonitor.setActiveBinding(frame, slot, dotRandomSeed, false, null);
             dotRandomSeedBinding = new WeakReference<>(dotRandomSeed);
+            if (currentSeeds != null) {
+                dotRandomSeed.setInitialized(true);
+            }
         }
 
         public void setCurrentSeeds(Object seeds) {
@@ -448,6 +462,45 @@ public class RRNG {
         }
     }
 
+    /**
+     * Returns the seeds of the random number stream for a child context that is about to be
+     * created by the current context, or {@code null} if the current generator is not
+     * "L'Ecuyer-CMRG". The child gets the stream following the current one and the current context
+     * continues with the stream after that (cf. {@code mc.advance.stream} in the parallel package),
+     * so that the random numbers of the children neither overlap with each other nor with the
+     * parent, regardless of how many numbers the parent draws in between, and can be reproduced
+     * with {@code set.seed}.
+     */
+    @TruffleBoundary
+    public static int[] nextChildStream() {
+        // avoid loading the RNG state when the generator is not in use
+        Object seedsObj = getDotRandomSeed();
+        if (seedsObj == null || firstSeed(seedsObj) % 100 != Kind.LECUYER_CMRG.ordinal()) {
+            return null;
+        }
+        getRNGState();
+        if (currentKind() != Kind.LECUYER_CMRG) {
+            return null;
+        }
+        int[] seeds = Arrays.copyOf(currentGenerator().getSeeds(), currentGenerator().getNSeed() + 1);
+        seeds[0] = currentKind().ordinal() + 100 * currentNormKind().ordinal();
+        int[] stream = LecuyerCMRG.nextStream(seeds);
+        currentGenerator().setISeed(LecuyerCMRG.nextStream(stream));
+        putRNGState();
+        return stream;
+    }
+
+    private static int firstSeed(Object seedsObj) {
+        if (seedsObj instanceof Integer) {
+            return (int) seedsObj;
+        } else if (seedsObj instanceof RIntVector && ((RIntVector) seedsObj).getLength() > 0) {
+            return ((RIntVector) seedsObj).getDataAt(0);
+        } else if (seedsObj instanceof int[] && ((int[]) seedsObj).length > 0) {
+            return ((int[]) seedsObj)[0];
+        }
+        return -1;
+    }
+
     /**
      * Saves the state of RNG into global environment under {@code .Random.seed}. This should be
      * invoked after any random numbers generation.
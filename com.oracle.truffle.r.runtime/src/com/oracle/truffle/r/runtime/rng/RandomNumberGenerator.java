@@ -29,6 +29,17 @@ public interface RandomNumberGenerator {
 
     double genrandDouble();
 
+    /**
+     * Fills {@code count} elements of {@code target} starting at {@code offset} with the values
+     * that {@code count} successive calls to {@link #genrandDouble()} would return. Generators that
+     * produce their values in batches override this to copy whole runs at once.
+     */
+    default void genrandDoubles(double[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = genrandDouble();
+        }
+    }
+
     Kind getKind();
 
     /**
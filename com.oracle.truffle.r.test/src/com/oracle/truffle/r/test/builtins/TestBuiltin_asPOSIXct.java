@@ -81,4 +81,15 @@ public class TestBuiltin_asPOSIXct extends TestBase {
     public void testasPOSIXct13() {
         assertEval("argv <- list(structure(list(sec = 0, min = 0L, hour = 0L, mday = c(2L, 4L, 6L, 8L, 10L, 12L, 14L, 16L, 18L, 20L, 22L, 24L, 26L, 28L, 30L, 32L), mon = 1L, year = 102L, wday = 6L, yday = 32L, isdst = -1L), .Names = c('sec', 'min', 'hour', 'mday', 'mon', 'year', 'wday', 'yday', 'isdst'), class = c('POSIXlt', 'POSIXt'), tzone = c('', 'EST', 'EDT')), ''); .Internal(as.POSIXct(argv[[1]], argv[[2]]))");
     }
+
+    @Test
+    public void testCharacter() {
+        assertEvalFastR("{ x <- as.POSIXct(c(a='2017-03-01 10:20:30.25', b=NA, c='1969-12-31 23:59:59'), tz='UTC'); list(unclass(x), names(x)) }",
+                        "list(structure(c(a=1488363630.25, b=NA, c=-1), tzone='UTC'), c('a', 'b', 'c'))");
+        assertEvalFastR("{ unclass(as.POSIXct(c('2017/03/01 10:20', '2016/02/29 00:00'), tz='GMT')) }", "structure(c(1488363600, 1456704000), tzone='GMT')");
+        assertEvalFastR("{ unclass(as.POSIXct('2017-03-01', tz='Etc/GMT+1')) }", "structure(1488330000, tzone='Etc/GMT+1')");
+        assertEvalFastR("{ unclass(as.POSIXct(c('01.03.2017', '30.02.2017'), format='%d.%m.%Y', tz='UTC')) }", "structure(c(1488326400, NA), tzone='UTC')");
+        assertEvalFastR("{ tryCatch(as.POSIXct('2017-03-01xyz 10', tz='UTC'), error=function(e) 'error') }", "as.POSIXct('2017-03-01', tz='UTC')");
+        assertEvalFastR("{ tryCatch(as.POSIXct('March 1st', tz='UTC'), error=function(e) 'error') }", "'error'");
+    }
 }
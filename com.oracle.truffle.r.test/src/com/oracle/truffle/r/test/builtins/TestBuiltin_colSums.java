@@ -94,4 +94,13 @@ public class TestBuiltin_colSums extends TestBase {
         // colSums on array have correct values
         assertEval("{ a = colSums(array(1:24,c(2,3,4))); c(a[1,1],a[2,2],a[3,3],a[3,4]) }");
     }
+
+    @Test
+    public void testColSumsLargeMatrices() {
+        // large enough to be summed up in parallel
+        assertEval("{ m <- matrix(as.numeric(1:2000000), 2000); r <- colSums(m); c(length(r), r[1], r[1000], sum(r)) }");
+        assertEval("{ m <- matrix(1:2000000, ncol=2); colSums(m); colMeans(m) }");
+        assertEval("{ m <- matrix(as.numeric(1:2000000), 1000); m[3, 7] <- NA; m[4, 5] <- NaN; r <- colSums(m); r[1:8]; colMeans(m, na.rm=TRUE)[1:8] }");
+        assertEval("{ m <- matrix(rep(c(TRUE, NA, FALSE), 700000), 3000); colSums(m, na.rm=TRUE)[1:4]; colMeans(m)[1:4] }");
+    }
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.builtins;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestBuiltin_gc extends TestBase {
+
+    @Test
+    public void testgc() {
+        assertEvalFastR("{ x <- gc(); list(dim(x), rownames(x)) }", "list(c(2L, 7L), c('Ncells', 'Vcells'))");
+        assertEvalFastR("{ x <- gc(reset = TRUE); all(x[, 'used'] <= x[, 'max used']) && x[2, 'used'] > 0 }", "TRUE");
+        assertEvalFastR("{ x <- .Internal(gc(FALSE, FALSE)); length(x) == 14 && !anyNA(x[c(1, 2, 11, 12)]) }", "TRUE");
+    }
+
+    @Test
+    public void testmemoryprofile() {
+        assertEvalFastR("{ x <- memory.profile(); list(names(x)[1:5], typeof(x)) }", "list(c('NULL', 'symbol', 'pairlist', 'closure', 'environment'), 'integer')");
+        assertEvalFastR("{ x <- memory.profile(); x[['closure']] > 0 && x[['environment']] > 0 }", "TRUE");
+    }
+}
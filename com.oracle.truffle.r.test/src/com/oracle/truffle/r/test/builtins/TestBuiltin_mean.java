@@ -141,4 +141,15 @@ public class TestBuiltin_mean extends TestBase {
         assertEval("{ mean(c(TRUE, TRUE))}");
         assertEval("{ mean(c(TRUE, FALSE))}");
     }
+
+    @Test
+    public void testMeanLargeVectors() {
+        // long enough to be reduced in parallel
+        assertEval("x <- as.numeric(1:2000000) / 3; mean(x)");
+        assertEval("x <- rep(c(0.1, 0.2, 0.7), 700000); mean(x)");
+        assertEval("x <- as.numeric(1:2000000); x[1500000] <- NaN; x[1700000] <- NA; mean(x)");
+        assertEval("x <- 1:2000000; mean(x)");
+        assertEval("set.seed(42); mean(c(-Inf, runif(2e6)))");
+        assertEval("mean(c(as.numeric(1:2e6), Inf))");
+    }
 }
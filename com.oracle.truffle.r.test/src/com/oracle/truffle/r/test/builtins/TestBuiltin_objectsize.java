@@ -34,4 +34,12 @@ public class TestBuiltin_objectsize extends TestBase {
         assertEval("{ object.size(list(c(1,2,3,6,11,20,1,5,9))) > object.size(list(c(1,10))) }");
         assertEvalFastR("{ object.size(1:100) < object.size(c(1,2,3,10)) }", "print(TRUE)");
     }
+
+    @Test
+    public void testLayout() {
+        assertEvalFastR("{ as.integer(object.size(double(1000)) - object.size(double(500))) }", "4000L");
+        assertEvalFastR("{ as.integer(object.size(integer(1000)) - object.size(integer(500))) }", "2000L");
+        assertEvalFastR("{ x <- c(1, 2); object.size(list(x, x)) < 2 * object.size(x) + object.size(list(1, 2)) }", "TRUE");
+        assertEvalFastR("{ object.size(c(a = 1)) > object.size(1) }", "TRUE");
+    }
 }
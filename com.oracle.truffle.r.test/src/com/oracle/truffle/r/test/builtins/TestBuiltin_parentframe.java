@@ -26,6 +26,7 @@ import static com.oracle.truffle.r.test.builtins.TestBuiltin_sysparent.SYS_PAREN
 
 import org.junit.Test;
 
+import com.oracle.truffle.r.runtime.FastROptions;
 import com.oracle.truffle.r.test.TestBase;
 
 public class TestBuiltin_parentframe extends TestBase {
@@ -55,6 +56,29 @@ public class TestBuiltin_parentframe extends TestBase {
         assertEval("{ f <- function(frame) frame; g <- function() f(parent.frame(3)); g() }");
     }
 
+    @Test
+    public void testIndexedFrames() {
+        // the index is enabled by the first stack walk and stays enabled for the following tests,
+        // which is fine since it must give the same results as the walk
+        boolean saved = FastROptions.FrameStackIndex.getBooleanValue();
+        FastROptions.setValue("FrameStackIndex", true);
+        try {
+            // the first call walks the stack, the repeated calls look the frames up in the index
+            assertEvalFastR("{ f <- function() g(); g <- function() h(); h <- function() get('a', envir = parent.frame(2)); k <- function() { a <- 42; f() }; c(k(), k(), k()) }", "c(0, 0, 0) + 42");
+            assertEvalFastR("{ f <- function(x) x; g <- function() f(parent.frame()); h <- function() identical(g(), environment()); c(h(), h(), h()) }", "c(TRUE, TRUE, TRUE)");
+            assertEvalFastR("{ f <- function() g(); g <- function() sys.function(-1); r <- logical(3); for (i in 1:3) r[[i]] <- identical(f(), f); r }", "c(TRUE, TRUE, TRUE)");
+            assertEvalFastR("{ f <- function(n) if (n == 0) parent.frame(3) else f(n - 1); g <- function() { b <- 'g'; f(2) }; c(get('b', g()), get('b', g())) }", "c('g', 'g')");
+            // a promise forced deeper in the stack shadows the frame recorded for its depth, which
+            // is not on the call chain of the promise and must not be returned
+            assertEvalFastR("{ p <- function() parent.frame(); k <- function(e) { a <- 'k'; force(e); e }; g <- function() { a <- 'g'; k(p()) }; c(get('a', g()), get('a', g())) }", "c('g', 'g')");
+            assertEvalFastR("{ s <- function() sys.function(1); k <- function(e) { e; e }; g <- function() k(s()); c(identical(g(), g), identical(g(), g)) }", "c(TRUE, TRUE)");
+            // the recorded frames are restored on exit, also if the call fails
+            assertEvalFastR("{ f <- function() stop('x'); q <- function() get('a', parent.frame()); g <- function() { a <- 'g'; try(f(), silent = TRUE); q() }; h <- function() { a <- 'h'; try(f(), silent = TRUE); g() }; c(h(), h()) }", "c('g', 'g')");
+        } finally {
+            FastROptions.setValue("FrameStackIndex", saved);
+        }
+    }
+
     @Test
     public void frameAccessCommonTest() {
         assertEval("{ foo <- function(x) sapply(1:7, function(fr) sort(tolower(ls(parent.frame(fr)))));" + SYS_PARENT_SETUP + "}");
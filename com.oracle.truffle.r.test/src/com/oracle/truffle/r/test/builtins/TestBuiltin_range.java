@@ -186,4 +186,13 @@ public class TestBuiltin_range extends TestBase {
         assertEval(template("range(c('a', 'b', 'c')%0)", OPTIONAL_ARGS));
         assertEval(template("range(c('1', '2', '3')%0)", OPTIONAL_ARGS));
     }
+
+    @Test
+    public void testRangeLargeVectors() {
+        // long enough to be reduced in parallel
+        assertEval("x <- sin(1:2000000); range(x); min(x); max(x)");
+        assertEval("x <- c(as.numeric(1:2000000), Inf, NA); range(x); range(x, na.rm=TRUE); range(x, finite=TRUE)");
+        assertEval("x <- rev(1:2000000); range(x); prod(rep(c(1L, 2L, 1L), 700000))");
+        assertEval("x <- rep(c(1.000001, 0.999999, 1), 700000); prod(x)");
+    }
 }
@@ -102,4 +102,13 @@ public class TestBuiltin_rowSums extends TestBase {
 
         assertEval("{x<-matrix(c(\"1\",\"2\",\"3\",\"4\"),ncol=2);rowSums(x)}");
     }
+
+    @Test
+    public void testRowSumsLargeMatrices() {
+        // large enough to be summed up in parallel
+        assertEval("{ m <- matrix(as.numeric(1:2000000), 2000); r <- rowSums(m); c(length(r), r[1], r[2000], sum(r)) }");
+        assertEval("{ m <- matrix(1:2000000, 2); rowSums(m) }");
+        assertEval("{ m <- matrix(as.numeric(1:2000000), 1000); m[3, 7] <- NA; m[4, 5] <- NaN; r <- rowSums(m); r[1:5]; rowSums(m, na.rm=TRUE)[1:5] }");
+        assertEval("{ m <- matrix(rep(c(TRUE, NA, FALSE), 700000), 3000); r <- rowMeans(m, na.rm=TRUE); r[1:4]; rowMeans(m)[1:4] }");
+    }
 }
@@ -184,4 +184,17 @@ public class TestBuiltin_sprintf extends TestBase {
         // Note: as.raw may be problematic also in the case of %d, %f, ...
         assertEval(Ignored.Unimplemented, "{ sprintf('%s', as.raw(1)) }");
     }
+
+    @Test
+    public void testCompiledFormat() {
+        // the format is parsed once and then applied to every element
+        assertEval("{ sprintf('%5d|%-5d|%05d|%+d|% d', 1:3, -1:1, c(7L, -7L, NA), 10L, -2:0) }");
+        assertEval("{ sprintf('%s and %3s, 100%%', c('a', 'bb', NA), c('x', NA, 'zzzz')) }");
+        assertEval("{ sprintf('%*d|%.*s', c(3L, -3L), 1:2, 2L, 'abc') }");
+        // fixed notation rounds the exact binary value like C does
+        assertEval("{ sprintf('%.2f', c(0.125, 0.375, 2.675, 1.005, -0.001, 1e10 + 0.5)) }");
+        assertEval("{ sprintf('%08.3f|%.0f|%f', c(-3.14159, 2.5), c(0.5, 1.5), c(1e22, -0)) }");
+        assertEval("{ formatC(c(1L, 10L, 100L), width = 5, format = 'd', flag = '0') }");
+        assertEval("{ formatC(c(0.125, 3.14159, -2.675), width = 8, format = 'f', digits = 2) }");
+    }
 }
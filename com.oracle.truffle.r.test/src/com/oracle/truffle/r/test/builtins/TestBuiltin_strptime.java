@@ -76,4 +76,14 @@ public class TestBuiltin_strptime extends TestBase {
         assertEval(Output.IgnoreErrorContext, "{ .Internal(strptime('',,'')); }");
         assertEval(Output.IgnoreErrorContext, "{ .Internal(strptime('','',)); }");
     }
+
+    @Test
+    public void testNumericFormats() {
+        assertEvalFastR("{ x <- strptime(c('2017-03-05 7:08:09.5', '2017-02-29 10:00:00', NA), '%Y-%m-%d %H:%M:%OS', tz='UTC'); list(x$sec, x$min, x$hour, x$mday, x$mon, x$year, x$wday, x$yday) }",
+                        "list(c(9.5, NA, NA), c(8L, NA, NA), c(7L, NA, NA), c(5L, NA, NA), c(2L, NA, NA), c(117L, NA, NA), c(0L, NA, NA), c(63L, NA, NA))");
+        assertEvalFastR("{ x <- strptime(c('2016-12-31', '  2000-1-2trailing'), '%Y-%m-%d', tz='UTC'); list(x$mday, x$mon, x$year, x$wday, x$yday) }",
+                        "list(c(31L, 2L), c(11L, 0L), c(116L, 100L), c(6L, 0L), c(365L, 1L))");
+        assertEvalFastR("{ format(strptime(c('2017-03-05 07:08:09.123456', '1999-12-31 23:59:59'), '%F %H:%M:%OS', tz='UTC'), '%Y/%m/%d %H:%M:%OS3') }",
+                        "c('2017/03/05 07:08:09.123', '1999/12/31 23:59:59.000')");
+    }
 }
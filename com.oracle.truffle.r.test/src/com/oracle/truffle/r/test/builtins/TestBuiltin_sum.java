@@ -198,4 +198,20 @@ public class TestBuiltin_sum extends TestBase {
         assertEval("sum(c(2147483647L), 1)");
         assertEval("sum(c(-2147483647L), -1)");
     }
+
+    @Test
+    public void testLargeVectors() {
+        // long enough to be reduced in parallel
+        assertEval("x <- as.numeric(1:2000000); sum(x)");
+        assertEval("x <- rep(c(0.1, 1e10, -1e10), 700000); sum(x)");
+        assertEval("x <- as.numeric(1:2000000); x[1500000] <- NA; sum(x)");
+        assertEval("x <- as.numeric(1:2000000); x[1500000] <- NA; sum(x, na.rm=TRUE)");
+        assertEval("x <- rep(c(1L, NA, 3L), 700000); sum(x); sum(x, na.rm=TRUE)");
+        assertEval("x <- rep(c(TRUE, FALSE, NA), 700000); sum(x, na.rm=TRUE)");
+        assertEval("x <- rep(2147483647L, 2000000); sum(x)");
+        assertEval("sum(c(Inf, as.numeric(1:2e6)))");
+        assertEval("sum(c(as.numeric(1:2e6), -Inf))");
+        assertEval("sum(c(Inf, as.numeric(1:2e6), -Inf))");
+        assertEval("sum(rep(1e308, 2e6))");
+    }
 }
@@ -22,6 +22,7 @@
  */
 package com.oracle.truffle.r.test.engine.interop;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -35,10 +36,12 @@ import com.oracle.truffle.api.interop.UnknownIdentifierException;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.interop.java.JavaInterop;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RObject;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+import com.oracle.truffle.r.runtime.interop.RVectorBufferMessage;
 import static org.junit.Assert.assertEquals;
 
 public class VectorMRTest extends AbstractMRTest {
@@ -78,6 +81,38 @@ public class VectorMRTest extends AbstractMRTest {
         });
     }
 
+    @Test
+    public void testBufferMessages() throws Exception {
+        execInContext(() -> {
+            RDoubleVector vd = RDataFactory.createDoubleVector(new double[]{1.1, 2.2, 3.3, 4.4}, true);
+            TruffleObject buffer = (TruffleObject) ForeignAccess.send(RVectorBufferMessage.GET_BUFFER.createNode(), vd);
+            assertTrue(JavaInterop.asJavaObject(Object.class, buffer) == vd.getInternalManagedData());
+            assertTrue(vd.isSharedPermanent());
+            assertInteropException(() -> ForeignAccess.send(RVectorBufferMessage.GET_DATA_ADDRESS.createNode(), vd), UnsupportedMessageException.class);
+
+            TruffleObject range = (TruffleObject) ForeignAccess.send(RVectorBufferMessage.READ_RANGE.createNode(), vd, 1, 2);
+            assertArrayEquals(new double[]{2.2, 3.3}, (double[]) JavaInterop.asJavaObject(Object.class, range), 0);
+            assertInteropException(() -> ForeignAccess.send(RVectorBufferMessage.READ_RANGE.createNode(), vd, 3, 2), UnknownIdentifierException.class);
+
+            TruffleObject vi = RDataFactory.createIntSequence(1, 1, 10);
+            range = (TruffleObject) ForeignAccess.send(RVectorBufferMessage.READ_RANGE.createNode(), vi, 8L, 2L);
+            assertArrayEquals(new int[]{9, 10}, (int[]) JavaInterop.asJavaObject(Object.class, range));
+            assertInteropException(() -> ForeignAccess.send(RVectorBufferMessage.GET_BUFFER.createNode(), vi), UnsupportedMessageException.class);
+
+            TruffleObject nvi = (TruffleObject) ForeignAccess.send(RVectorBufferMessage.WRITE_RANGE.createNode(), vi, 2, JavaInterop.asTruffleObject(new int[]{42, 43}));
+            RAbstractIntVector returnedVec = JavaInterop.asJavaObject(RAbstractIntVector.class, nvi);
+            assertEquals(10, returnedVec.getLength());
+            assertEquals(2, returnedVec.getDataAt(1));
+            assertEquals(42, returnedVec.getDataAt(2));
+            assertEquals(43, returnedVec.getDataAt(3));
+            assertEquals(5, returnedVec.getDataAt(4));
+
+            TruffleObject vs = RDataFactory.createStringVector(new String[]{"a"}, true);
+            assertInteropException(() -> ForeignAccess.send(RVectorBufferMessage.READ_RANGE.createNode(), vs, 0, 1), UnsupportedMessageException.class);
+            return null;
+        });
+    }
+
     @Test
     public void testKeyInfo() throws Exception {
         execInContext(() -> {
@@ -154,6 +154,16 @@ public class TestConnections extends TestRBase {
         assertEval("{ c <- textConnection(NULL, 'w'); cat('testtext\\n', file=c); textConnectionValue(c) }");
 
         assertEval("{ d<-data.frame(c(1,2), c(10, 20)); buf<-character(); c<-textConnection(\"buf\", open=\"w\", local=T); write.table(d, c); buf }");
+
+        // the variable grows with every completed line, copies taken in between are not affected
+        assertEvalFastR("{ con <- textConnection('tcval', open='w'); for (i in 1:1000) cat(i, if (i %% 3 == 0) '\\n' else ' ', file=con); snap <- tcval; writeLines('x', con); close(con); list(length(snap), length(tcval), tcval[[1]], tcval[[334]]) }",
+                        "list(333L, 334L, '1  2  3 ', '1000  x')");
+        // a variable rebound or removed by the user is defined again on the next line
+        assertEvalFastR("{ con <- textConnection('tcreb', open='w'); writeLines('a', con); unlockBinding('tcreb', environment()); tcreb <- 'other'; writeLines('b', con); r1 <- tcreb; " +
+                        "unlockBinding('tcreb', environment()); rm(tcreb); cat('c\\nd', file=con); r2 <- tcreb; close(con); list(r1, r2, tcreb) }",
+                        "list(c('a', 'b'), c('a', 'b', 'c'), c('a', 'b', 'c', 'd'))");
+        assertEvalFastR("{ con <- textConnection(NULL, 'w'); writeLines(c('a', 'b'), con); v1 <- textConnectionValue(con); cat('c\\nd', file=con); v2 <- textConnectionValue(con); close(con); list(v1, v2) }", "list(c('a', 'b'), c('a', 'b', 'c'))");
+        assertEvalFastR("{ out <- capture.output(for (i in 1:500) print(i)); c(length(out), out[[500]]) }", "c('500', '[1] 500')");
     }
 
     @Test
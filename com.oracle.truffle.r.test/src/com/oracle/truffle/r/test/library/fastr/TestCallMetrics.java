@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestCallMetrics extends TestBase {
+
+    @Test
+    public void testCallMetrics() {
+        assertEvalFastR("{ invisible(.fastr.stats.calls.data(reset=TRUE)); .fastr.stats.calls(); f <- function(x) x + 1; for (i in 1:10) f(i); .fastr.stats.calls(FALSE); d <- .fastr.stats.calls.data(reset=TRUE); d[d$name == 'f', 'calls'] }",
+                        "10");
+        assertEvalFastR("{ d <- .fastr.stats.calls.data(); c(is.data.frame(d), names(d)) }", "c('TRUE', 'name', 'kind', 'calls', 'self.time', 'total.time', 'allocated', 'deopts')");
+        assertEvalFastR("{ .fastr.stats.calls(); invisible(nchar('abc')); .fastr.stats.calls(FALSE); d <- .fastr.stats.calls.data(reset=TRUE); 'builtin' %in% d[d$name == 'nchar', 'kind'] }", "TRUE");
+    }
+}
@@ -295,6 +295,13 @@ public class TestJavaInterop extends TestBase {
         assertEvalFastR(CREATE_TRUFFLE_OBJECT + " v <- .fastr.interop.fromArray(to$hasNullIntArray); v[3]", "list(3)");
 
         assertEvalFastR("ja <- new.java.array('java.lang.String', 0L); .fastr.interop.fromArray(ja)", "list()");
+
+        // primitive arrays are wrapped without copying, modifications on the R side must not leak
+        assertEvalFastR("a <- as.java.array(c(1.5, 2.5, NA)); v <- .fastr.interop.fromArray(a); v[1] <- 42; c(v, a[1])", "c(42, 2.5, NA, 1.5)");
+        assertEvalFastR("a <- as.java.array(1:4); v <- .fastr.interop.fromArray(a); v[[2]] <- 10L; c(v, a[2])", "c(1L, 10L, 3L, 4L, 2L)");
+        // implicit conversions copy, later writes to the Java array must not change the result
+        assertEvalFastR("a <- as.java.array(c(1.5, 2.5)); v <- as.vector(a); a[1] <- 99; c(v, a[1])", "c(1.5, 2.5, 99)");
+        assertEvalFastR("a <- as.java.array(1:3); v <- as.integer(a); a[2] <- 99L; c(v, a[2])", "c(1L, 2L, 3L, 99L)");
     }
 
     public void testAsVectorFromArray(String field, String type) {
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestProfmemRetained extends TestBase {
+
+    @Test
+    public void testRetained() {
+        assertEvalFastR("{ d <- .fastr.profmem.retained(); c(is.data.frame(d), names(d)) }", "c('TRUE', 'id', 'name', 'location', 'bytes', 'count')");
+        assertEvalFastR("{ d <- .fastr.profmem.retained(by='type', gc=FALSE); c(is.data.frame(d), names(d)) }", "c('TRUE', 'type', 'bytes', 'count')");
+        assertEvalFastR("{ .fastr.profmem(TRUE); x <- lapply(1:1000, function(i) double(1000)); d <- .fastr.profmem.retained(by='type'); .fastr.profmem(FALSE); 'double' %in% d$type && all(d$bytes > 0) }", "TRUE");
+    }
+
+    @Test
+    public void testRetainedSince() {
+        assertEvalFastR("{ s <- .fastr.profmem.retained.snapshot(); d <- .fastr.profmem.retained(since=s); c(is.data.frame(d), names(d)) }", "c('TRUE', 'id', 'name', 'location', 'bytes', 'count')");
+        assertEvalFastR("{ s <- .fastr.profmem.retained.snapshot(); tryCatch(.fastr.profmem.retained(by='type', since=s), error=function(e) conditionMessage(e)) }",
+                        "'growth since a snapshot is reported only by site'");
+        assertEvalFastR("{ tryCatch(.fastr.profmem.retained(since=1), error=function(e) conditionMessage(e)) }", "\"'since' must be a snapshot taken by .fastr.profmem.retained.snapshot\"");
+        assertEvalFastR("{ tryCatch(.fastr.profmem.retained(since=new.env()), error=function(e) conditionMessage(e)) }", "\"'since' must be a snapshot taken by .fastr.profmem.retained.snapshot\"");
+    }
+}
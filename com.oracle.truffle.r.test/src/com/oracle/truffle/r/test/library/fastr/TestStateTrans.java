@@ -41,4 +41,55 @@ public class TestStateTrans extends TestBase {
         assertEvalFastR("{ x<-rep(1, 100); xi1<-.fastr.identity(x); f<-function(x) { x }; f(x); x[1]<-7; xi2<-.fastr.identity(x); xi1 == xi2 }", "TRUE");
         assertEvalFastR("{ x<-rep(1, 100); xi1<-.fastr.identity(x); f<-function(x) { y<-x; y }; f(x); x[1]<-7; xi2<-.fastr.identity(x); xi1 == xi2 }", "TRUE");
     }
+
+    @Test
+    public void testReplacementInLoop() {
+        // a shared target is copied once, the following replacements update the copy in place
+        assertEvalFastR("{ f<-function(x) { x[1]<-0; xi1<-.fastr.identity(x); for (i in seq_along(x)) x[i]<-i; xi2<-.fastr.identity(x); c(xi1 == xi2, .fastr.refcountinfo(x)) }; f(rep(1, 100)) }",
+                        "c(1, 1)");
+        assertEvalFastR("{ f<-function(x) { for (i in seq_along(x)) x[[i]]<-i; .fastr.refcountinfo(x) }; f(rep(1, 100)) }", "1");
+        // the other references must not observe the updates
+        assertEvalFastR("{ x<-c(1,2,3); y<-x; for (i in 1:3) y[i]<-i*10; list(x, y) }", "list(c(1,2,3), c(10,20,30))");
+        assertEvalFastR("{ f<-function(x) { for (i in seq_along(x)) x[i]<-0; x }; x<-c(1,2,3); y<-f(x); list(x, y) }", "list(c(1,2,3), c(0,0,0))");
+        assertEvalFastR("{ x<-list(a=1, b=2); y<-x; for (n in names(y)) y[[n]]<-3; list(x, y) }", "list(list(a=1, b=2), list(a=3, b=3))");
+        assertEvalFastR("{ x<-c(1,2,3); f<-function() { for (i in 1:3) x[i]<<-0; x }; y<-x; f(); list(x, y) }", "list(c(0,0,0), c(1,2,3))");
+        // an active binding is read and written exactly once
+        assertEvalFastR("{ f<-function() { n<-0; v<-c(1,2,3); w<-v; makeActiveBinding('x', function(val) { if (missing(val)) v else { n<<-n+1; v<<-val } }, environment()); x[2]<-10; c(n, x, w) }; f() }",
+                        "c(1, 1, 10, 3, 1, 2, 3)");
+    }
+
+    @Test
+    public void testAppendInPlace() {
+        // appending to a non-shared vector grows it in place
+        assertEvalFastR("{ x<-c(1,2); x[[3]]<-3; xi1<-.fastr.identity(x); for (i in 4:100) x[[i]]<-i; xi2<-.fastr.identity(x); c(xi1 == xi2, length(x), sum(x)) }", "c(1, 100, 5050)");
+        assertEvalFastR("{ l<-list(); for (i in 1:20) l[[length(l)+1]]<-i; identical(l, as.list(1:20)) }", "TRUE");
+        assertEvalFastR("{ s<-character(); for (i in 1:20) s[length(s)+1]<-as.character(i); identical(s, as.character(1:20)) }", "TRUE");
+        assertEvalFastR("{ x<-1:3; for (i in 4:10) x[i]<-i; x[15]<-15L; x }", "c(1:10, NA, NA, NA, NA, 15L)");
+        assertEvalFastR("{ x<-c(a=1); x[['b']]<-2; x[['c']]<-3; x }", "c(a=1, b=2, c=3)");
+        // other references to the vector are not affected
+        assertEvalFastR("{ x<-1:3; y<-x; y[[4]]<-4L; list(x, y) }", "list(1:3, 1:4)");
+        assertEvalFastR("{ x<-c(1,2); x[[3]]<-3; y<-x; x[[4]]<-4; list(x, y) }", "list(c(1,2,3,4), c(1,2,3))");
+        // reading the data of a grown vector does not give up its spare capacity
+        assertEvalFastR("{ x<-c(1,2); x[[3]]<-3; xi1<-.fastr.identity(x); s<-0; for (i in 4:50) { x[[i]]<-i; s<-s+sum(x) }; c(xi1 == .fastr.identity(x), s) }", "c(1, 22090)");
+        // the grown vector is trimmed when its data escape
+        assertEvalFastR("{ x<-list(); for (i in 1:10) x[[i]]<-i; identical(unserialize(serialize(x, NULL)), as.list(1:10)) }", "TRUE");
+        assertEvalFastR("{ x<-double(); for (i in 1:10) x[i]<-i; m<-x; dim(m)<-c(2,5); c(sum(x), mean(x), dim(m)) }", "c(55, 5.5, 2, 5)");
+    }
+
+    @Test
+    public void testCombineAppend() {
+        // x <- c(x, value) grows a non-shared x in place
+        assertEvalFastR("{ x<-numeric(); x<-c(x, 1); xi1<-.fastr.identity(x); for (i in 2:100) x<-c(x, i); xi2<-.fastr.identity(x); c(xi1 == xi2, length(x), sum(x)) }", "c(1, 100, 5050)");
+        assertEvalFastR("{ s<-character(); for (i in 1:3) { v<-as.character(i); s<-c(s, v) }; s<-c(s, 'z'); s }", "c('1', '2', '3', 'z')");
+        assertEvalFastR("{ x<-c(1L, 2L); v<-c(NA, 4L); x<-c(x, v); c(anyNA(x), length(x)) }", "c(TRUE, 4)");
+        assertEvalFastR("{ x<-c(1, 2); x<-c(x, x); x }", "c(1, 2, 1, 2)");
+        // the result of c is computed as usual in all other cases
+        assertEvalFastR("{ x<-c(1, 2); y<-x; x<-c(x, 3); list(x, y) }", "list(c(1, 2, 3), c(1, 2))");
+        assertEvalFastR("{ x<-c(1, 2); v<-c(a=3); x<-c(x, v); x }", "c(1, 2, a=3)");
+        assertEvalFastR("{ x<-c(1L, 2L); x<-c(x, 3L); x<-c(x, 4.5); x }", "c(1, 2, 3, 4.5)");
+        assertEvalFastR("{ l<-list(1); l<-c(l, 2); l }", "list(1, 2)");
+        assertEvalFastR("local({ c<-function(...) 42; x<-1; x<-c(x, 2); x })", "42");
+        assertEvalFastR("{ f<-function(x) { x<-c(x, 3); x }; y<-c(1, 2); list(f(y), y) }", "list(c(1, 2, 3), c(1, 2))");
+        assertEvalFastR("{ x<-c(1, 2); f<-function() { x<-c(x, 3); x }; list(f(), x) }", "list(c(1, 2, 3), c(1, 2))");
+    }
 }
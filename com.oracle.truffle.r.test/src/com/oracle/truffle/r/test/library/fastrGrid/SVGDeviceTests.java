@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastrGrid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.library.fastrGrid.device.DrawingContext;
+import com.oracle.truffle.r.library.fastrGrid.device.GridColor;
+import com.oracle.truffle.r.library.fastrGrid.device.SVGDevice;
+import com.oracle.truffle.r.test.TestBase;
+
+public class SVGDeviceTests extends TestBase {
+    private static final GridColor RED = new GridColor(255, 0, 0, GridColor.OPAQUE_ALPHA);
+
+    @Test
+    public void streamedContentsSameAsInMemory() throws IOException {
+        Path dir = Files.createTempDirectory("svgtest");
+        try {
+            // the temporary page file cannot be created in a non-existent directory, so the
+            // document is kept in memory
+            SVGDevice inMemory = new SVGDevice(dir.resolve("missing").resolve("plot.svg").toString(), 7, 7);
+            SVGDevice streamed = new SVGDevice(dir.resolve("plot.svg").toString(), 7, 7);
+            draw(inMemory);
+            draw(streamed);
+            String expected = inMemory.closeAndGetContents();
+            assertTrue(expected.length() > 64 * 1024);
+            assertTrue(expected.endsWith("</svg>"));
+            assertEquals(expected, streamed.closeAndGetContents());
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    @Test
+    public void savedFileEndsWithNewLine() throws Exception {
+        Path dir = Files.createTempDirectory("svgtest");
+        try {
+            Path file = dir.resolve("plot.svg");
+            SVGDevice inMemory = new SVGDevice(dir.resolve("missing").resolve("plot.svg").toString(), 7, 7);
+            draw(inMemory);
+            String expected = inMemory.closeAndGetContents() + System.lineSeparator();
+            SVGDevice streamed = new SVGDevice(file.toString(), 7, 7);
+            draw(streamed);
+            streamed.close();
+            assertEquals(expected, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    @Test
+    public void unfilledCirclesAreMerged() throws IOException {
+        Path dir = Files.createTempDirectory("svgtest");
+        try {
+            SVGDevice device = new SVGDevice(dir.resolve("plot.svg").toString(), 7, 7);
+            device.openNewPage();
+            TestDrawingContext ctx = new TestDrawingContext(GridColor.BLACK, GridColor.TRANSPARENT);
+            for (int i = 0; i < 100; i++) {
+                device.drawCircle(ctx, i / 20., i / 20., 0.05);
+            }
+            // a filled circle cannot be merged
+            device.drawCircle(new TestDrawingContext(GridColor.BLACK, RED), 1, 1, 0.05);
+            String contents = device.closeAndGetContents();
+            assertEquals(1, count(contents, "<path "));
+            assertEquals(1, count(contents, "<circle "));
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    private static void draw(SVGDevice device) {
+        device.openNewPage();
+        TestDrawingContext black = new TestDrawingContext(GridColor.BLACK, GridColor.TRANSPARENT);
+        TestDrawingContext red = new TestDrawingContext(RED, GridColor.TRANSPARENT);
+        TestDrawingContext filled = new TestDrawingContext(GridColor.BLACK, RED);
+        double[] x = new double[10];
+        double[] y = new double[10];
+        for (int i = 0; i < 2000; i++) {
+            for (int j = 0; j < x.length; j++) {
+                x[j] = (i + j) % 70 / 10.;
+                y[j] = (i * j) % 70 / 10.;
+            }
+            device.drawPolyLines(i % 3 == 0 ? red : black, x, y, 0, x.length);
+            device.drawCircle(black, x[0], y[0], 0.05);
+            device.drawPolygon(filled, x, y, 2, 4);
+            if (i % 100 == 0) {
+                device.drawRect(filled, x[1], y[1], 0.5, 0.5, 0);
+            }
+        }
+    }
+
+    private static int count(String text, String pattern) {
+        int result = 0;
+        for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1)) {
+            result++;
+        }
+        return result;
+    }
+
+    private static void deleteDir(Path dir) throws IOException {
+        Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+    }
+
+    private static final class TestDrawingContext implements DrawingContext {
+        private final GridColor color;
+        private final GridColor fillColor;
+
+        TestDrawingContext(GridColor color, GridColor fillColor) {
+            this.color = color;
+            this.fillColor = fillColor;
+        }
+
+        @Override
+        public byte[] getLineType() {
+            return GRID_LINE_SOLID;
+        }
+
+        @Override
+        public double getLineWidth() {
+            return 1;
+        }
+
+        @Override
+        public GridLineJoin getLineJoin() {
+            return GridLineJoin.ROUND;
+        }
+
+        @Override
+        public GridLineEnd getLineEnd() {
+            return GridLineEnd.ROUND;
+        }
+
+        @Override
+        public double getLineMitre() {
+            return 10;
+        }
+
+        @Override
+        public GridColor getColor() {
+            return color;
+        }
+
+        @Override
+        public double getFontSize() {
+            return 12;
+        }
+
+        @Override
+        public GridFontStyle getFontStyle() {
+            return GridFontStyle.PLAIN;
+        }
+
+        @Override
+        public String getFontFamily() {
+            return "sans";
+        }
+
+        @Override
+        public double getLineHeight() {
+            return 1;
+        }
+
+        @Override
+        public GridColor getFillColor() {
+            return fillColor;
+        }
+    }
+}
@@ -102,6 +102,39 @@ public class TestRandGenerationFunctions extends TestBase {
         assertEval("for(gen in c(\"Buggy Kinderman-Ramage\", \"Ahrens-Dieter\", \"Box-Muller\", \"Inversion\", \"Kinderman-Ramage\", \"default\")) { print(paste0(gen, \":\")); RNGkind(NULL,gen); set.seed(42); print(rnorm(30)); }");
     }
 
+    @Test
+    public void testBlockGeneration() {
+        // scalar parameters generate the uniform numbers in blocks, recycled vectors of parameters
+        // draw them one by one: both must produce the same values and leave the same seed behind
+        String[] calls = {"runif(%s, 1, 3)", "runif(%s, c(1, 1), 3)", "rnorm(%s, 2, 0.5)", "rnorm(%s, c(2, 2), 0.5)", "rexp(%s, 2)", "rexp(%s, c(2, 2))", "rpois(%s, 3)", "rpois(%s, c(3, 3))",
+                        "rpois(%s, 50)", "rpois(%s, c(50, 50))", "rbinom(%s, 10, 0.3)", "rbinom(%s, c(10, 10), 0.3)"};
+        for (int i = 0; i < calls.length; i += 2) {
+            String blocks = String.format(calls[i], 2001);
+            String values = String.format(calls[i + 1], 2001);
+            assertEvalFastR(String.format("set.seed(7); x <- %s; s <- .Random.seed; set.seed(7); identical(x, %s) && identical(s, .Random.seed)", blocks, values), "TRUE");
+        }
+        assertEvalFastR("RNGkind(normal.kind = 'Box-Muller'); set.seed(7); x <- rnorm(11); set.seed(7); y <- rnorm(11, c(0, 0)); RNGkind(normal.kind = 'default'); identical(x, y)", "TRUE");
+    }
+
+    @Test
+    public void testLecuyerCMRG() {
+        assertEvalFastR("set.seed(123, kind = \"L'Ecuyer-CMRG\"); s <- .Random.seed; RNGkind('default'); s", "c(407L, 1806547166L, -983674937L, 643431772L, 1162448557L, -959247990L, -133913213L)");
+        assertEvalFastR("set.seed(123, kind = \"L'Ecuyer-CMRG\"); x <- runif(3); RNGkind('default'); x", "c(0.166374215531591, 0.389845657881325, 0.7599398486939)");
+        assertEvalFastR("set.seed(123, kind = \"L'Ecuyer-CMRG\"); s <- parallel::nextRNGStream(.Random.seed); RNGkind('default'); s",
+                        "c(407L, 1801422725L, -2057975723L, 1156894209L, 1595475487L, 210384600L, -1655729657L)");
+        assertEvalFastR("set.seed(123, kind = \"L'Ecuyer-CMRG\"); s <- parallel::nextRNGSubStream(.Random.seed); RNGkind('default'); s",
+                        "c(407L, 701401935L, -355687987L, 1513178397L, 1735140456L, -1584327974L, -452417912L)");
+        // every child context gets the next stream of its parent, which moves to the stream after
+        assertEvalFastR("set.seed(123, kind = \"L'Ecuyer-CMRG\"); x <- .fastr.parallel.lapply(1:2, function(i) runif(1), fastr.workers = 2L); RNGkind('default'); unlist(x)",
+                        "c(0.341106395225537, 0.1494334410136)");
+        assertEvalFastR("set.seed(123, kind = \"L'Ecuyer-CMRG\"); invisible(.fastr.parallel.lapply(1:2, function(i) 0, fastr.workers = 2L)); x <- runif(1); RNGkind('default'); x",
+                        "0.776761472589892");
+        assertEvalFastR("set.seed(1, kind = \"L'Ecuyer-CMRG\"); f <- function(i) runif(3); a <- .fastr.parallel.lapply(1:2, f, fastr.workers = 2L); p <- runif(1); b <- .fastr.parallel.lapply(1:2, f, fastr.workers = 2L); RNGkind('default'); !any(duplicated(c(unlist(a), p, unlist(b))))",
+                        "TRUE");
+        assertEvalFastR("RNGkind(\"L'Ecuyer-CMRG\"); f <- function() { set.seed(42); .fastr.parallel.lapply(1:4, function(i) rnorm(2), fastr.workers = 4L) }; x <- f(); y <- f(); RNGkind('default'); identical(x, y) && !any(duplicated(x))",
+                        "TRUE");
+    }
+
     @Test
     public void testDotRandomSeed() {
         assertEval(Output.IgnoreErrorContext, "{ .Random.seed }");
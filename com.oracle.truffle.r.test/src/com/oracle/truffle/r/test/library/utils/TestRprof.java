@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.utils;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestRprof extends TestBase {
+
+    private static final String BUSY = "busy <- function() { t <- Sys.time(); while (Sys.time() - t < 0.2) NULL }; ";
+
+    @Test
+    public void testRprof() {
+        assertEvalFastR("{ " + BUSY + "f <- tempfile(); Rprof(f, interval=0.001); busy(); Rprof(NULL); l <- readLines(f); unlink(f); c(l[[1]], length(l) > 1, any(grepl('\"busy\"', l[-1]))) }",
+                        "c('sample.interval=1000', 'TRUE', 'TRUE')");
+        assertEvalFastR("{ " + BUSY + "f <- tempfile(); Rprof(f, interval=0.001, memory.profiling=TRUE); busy(); Rprof(NULL); l <- readLines(f); unlink(f); c(l[[1]], all(grepl('^:[0-9]+:[0-9]+:[0-9]+:[0-9]+:', l[-1]))) }",
+                        "c('memory profiling: sample.interval=1000', 'TRUE')");
+        // a second session starts with an empty stack
+        assertEvalFastR("{ " + BUSY + "f <- tempfile(); Rprof(f, interval=0.001); busy(); Rprof(f, interval=0.001); busy(); Rprof(NULL); l <- readLines(f); unlink(f); c(l[[1]], any(grepl('\"busy\"', l[-1]))) }",
+                        "c('sample.interval=1000', 'TRUE')");
+        // functions that are already active when profiling starts appear as callers
+        assertEvalFastR("{ inner <- function(f) { Rprof(f, interval=0.001); t <- Sys.time(); while (Sys.time() - t < 0.2) NULL; Rprof(NULL) }; outer <- function(f) inner(f); f <- tempfile(); outer(f); l <- readLines(f); unlink(f); any(grepl('\"inner\" \"outer\"', l[-1])) }",
+                        "TRUE");
+    }
+
+    @Test
+    public void testFoldedStacks() {
+        assertEvalFastR("{ " + BUSY + "f <- tempfile(); .fastr.prof.sample(f, 0.001); busy(); r <- .fastr.prof.sample(NULL); l <- readLines(f); unlink(f); c(names(r), sum(r) > 0, any(grepl(';busy(_\\\\[j\\\\])?(;| )', l))) }",
+                        "c('compiled', 'interpreted', 'TRUE', 'TRUE')");
+    }
+}
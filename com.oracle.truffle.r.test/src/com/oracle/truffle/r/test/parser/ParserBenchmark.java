@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.r.nodes.RASTBuilder;
+import com.oracle.truffle.r.parser.RLexer;
+import com.oracle.truffle.r.parser.RParser;
+import com.oracle.truffle.r.parser.RTokenSource;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
+
+/**
+ * Measures the lexing and parsing throughput of the ANTLR generated {@link RLexer} and of the
+ * hand-written {@link RTokenSource} on all .r/.R files found in the given directories, e.g., the
+ * R sources of the base and recommended packages. Files that either lexer or parser fails on are
+ * reported and left out of the measurements, a failure during the measurements aborts the run:
+ *
+ * <pre>
+ * mx java -cp ... com.oracle.truffle.r.test.parser.ParserBenchmark library/base/R library/stats/R
+ * </pre>
+ */
+public class ParserBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 10;
+
+    private interface Lexer {
+        TokenSource create(Source source);
+    }
+
+    private static final Lexer ANTLR = source -> new RLexer(new ANTLRStringStream(source.getCharacters().toString()));
+    private static final Lexer HANDWRITTEN = source -> new RTokenSource(source.getCharacters());
+
+    public static void main(String[] args) throws IOException, RecognitionException {
+        List<Source> sources = new ArrayList<>();
+        for (String arg : args) {
+            collect(new File(arg), sources);
+        }
+        int failed = 0;
+        for (Iterator<Source> iter = sources.iterator(); iter.hasNext();) {
+            Source source = iter.next();
+            String error = check(source);
+            if (error != null) {
+                System.err.printf("skipping %s: %s%n", source.getPath(), error);
+                iter.remove();
+                failed++;
+            }
+        }
+        long chars = 0;
+        for (Source source : sources) {
+            chars += source.getLength();
+        }
+        System.out.printf("%d files, %d characters, %d files skipped%n", sources.size(), chars, failed);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            lex(sources, ANTLR);
+            lex(sources, HANDWRITTEN);
+            parse(sources, ANTLR);
+            parse(sources, HANDWRITTEN);
+        }
+        report("lex (ANTLR)", chars, sources, source -> lex(source, ANTLR));
+        report("lex (handwritten)", chars, sources, source -> lex(source, HANDWRITTEN));
+        report("parse (ANTLR)", chars, sources, source -> parse(source, ANTLR));
+        report("parse (handwritten)", chars, sources, source -> parse(source, HANDWRITTEN));
+    }
+
+    private interface Task {
+        void run(Source source) throws RecognitionException;
+    }
+
+    /**
+     * Returns why lexing or parsing {@code source} fails with either lexer, or {@code null}.
+     */
+    private static String check(Source source) {
+        for (Lexer lexer : new Lexer[]{ANTLR, HANDWRITTEN}) {
+            try {
+                lex(source, lexer);
+                parse(source, lexer);
+            } catch (RecognitionException | RuntimeException e) {
+                return (lexer == ANTLR ? "ANTLR" : "handwritten") + " lexer: " + e;
+            }
+        }
+        return null;
+    }
+
+    private static void report(String name, long chars, List<Source> sources, Task task) throws RecognitionException {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (Source source : sources) {
+                task.run(source);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-20s %8.1f ms/iteration %8.2f MB/s%n", name, seconds * 1000 / ITERATIONS, chars * ITERATIONS / seconds / (1024 * 1024));
+    }
+
+    private static void lex(List<Source> sources, Lexer lexer) {
+        for (Source source : sources) {
+            lex(source, lexer);
+        }
+    }
+
+    private static void parse(List<Source> sources, Lexer lexer) throws RecognitionException {
+        for (Source source : sources) {
+            parse(source, lexer);
+        }
+    }
+
+    private static void lex(Source source, Lexer lexer) {
+        TokenSource tokens = lexer.create(source);
+        while (tokens.nextToken().getType() != Token.EOF) {
+            // only count the tokens
+        }
+    }
+
+    private static void parse(Source source, Lexer lexer) throws RecognitionException {
+        new RParser<RSyntaxNode>(source, new RASTBuilder(), null, lexer.create(source)).script();
+    }
+
+    private static void collect(File file, List<Source> sources) throws IOException {
+        if (file.isDirectory()) {
+            for (File sub : file.listFiles()) {
+                collect(sub, sources);
+            }
+        } else {
+            String name = file.getName();
+            if (name.endsWith(".r") || name.endsWith(".R")) {
+                sources.add(RSource.fromFile(file));
+            }
+        }
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.r.nodes.RASTBuilder;
+import com.oracle.truffle.r.runtime.ArgumentsSignature;
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.RParseCache;
+import com.oracle.truffle.r.runtime.RParserFactory;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.context.Engine.ParseException;
+import com.oracle.truffle.r.runtime.context.TruffleRLanguage;
+import com.oracle.truffle.r.runtime.nodes.RCodeBuilder;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxCall;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxConstant;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxElement;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxFunction;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxLookup;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxNode;
+import com.oracle.truffle.r.runtime.nodes.RSyntaxVisitor;
+import com.oracle.truffle.r.test.TestBase;
+
+/**
+ * Tests the persistent parse cache and the startup image in {@link RParseCache} directly, with a
+ * parser that counts how often it actually parses.
+ */
+public class TestParseCache extends TestBase {
+
+    private Path cacheDir;
+    private Path imageDir;
+
+    private boolean savedParseCache;
+    private String savedParseCacheDir;
+    private int savedParseCacheSize;
+    private boolean savedStartupImage;
+    private String savedStartupImageDir;
+
+    private static final class CountingParser implements RParserFactory.Parser<RSyntaxNode> {
+        private final RParserFactory.Parser<RSyntaxNode> delegate = RParserFactory.getParser();
+        private int count;
+
+        @Override
+        public List<RSyntaxNode> script(Source source, RCodeBuilder<RSyntaxNode> builder, TruffleRLanguage language) throws ParseException {
+            count++;
+            return delegate.script(source, builder, language);
+        }
+
+        @Override
+        public RootCallTarget rootFunction(Source source, String name, RCodeBuilder<RSyntaxNode> builder, TruffleRLanguage language) throws ParseException {
+            return delegate.rootFunction(source, name, builder, language);
+        }
+
+        @Override
+        public boolean isRecognitionException(Throwable t) {
+            return delegate.isRecognitionException(t);
+        }
+
+        @Override
+        public int line(Throwable t) {
+            return delegate.line(t);
+        }
+
+        @Override
+        public int charPositionInLine(Throwable t) {
+            return delegate.charPositionInLine(t);
+        }
+
+        @Override
+        public Class<?>[] getImplementationClasses() {
+            return delegate.getImplementationClasses();
+        }
+    }
+
+    /**
+     * Describes a tree including the source sections of all its elements.
+     */
+    private static final class Describer extends RSyntaxVisitor<String> {
+
+        private static String section(RSyntaxElement element) {
+            SourceSection section = element.getSourceSection();
+            return section == null ? "-" : section.isAvailable() ? section.getCharIndex() + ":" + section.getCharLength() : "?";
+        }
+
+        private String arguments(ArgumentsSignature signature, RSyntaxElement[] arguments) {
+            StringBuilder str = new StringBuilder();
+            for (int i = 0; i < arguments.length; i++) {
+                str.append(' ').append(signature.getName(i)).append('=').append(arguments[i] == null ? "<empty>" : accept(arguments[i]));
+            }
+            return str.toString();
+        }
+
+        @Override
+        protected String visit(RSyntaxCall element) {
+            return "(call@" + section(element) + " " + accept(element.getSyntaxLHS()) + arguments(element.getSyntaxSignature(), element.getSyntaxArguments()) + ")";
+        }
+
+        @Override
+        protected String visit(RSyntaxConstant element) {
+            Object value = element.getValue();
+            return "(constant@" + section(element) + " " + value.getClass().getSimpleName() + " " + value + ")";
+        }
+
+        @Override
+        protected String visit(RSyntaxLookup element) {
+            return "(lookup@" + section(element) + " " + element.getIdentifier() + " " + element.isFunctionLookup() + ")";
+        }
+
+        @Override
+        protected String visit(RSyntaxFunction element) {
+            return "(function@" + section(element) + arguments(element.getSyntaxSignature(), element.getSyntaxArgumentDefaults()) + " " + accept(element.getSyntaxBody()) + ")";
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        savedParseCache = FastROptions.ParseCache.getBooleanValue();
+        savedParseCacheDir = FastROptions.ParseCacheDir.getStringValue();
+        savedParseCacheSize = FastROptions.ParseCacheSize.getNonNegativeIntValue();
+        savedStartupImage = FastROptions.StartupImage.getBooleanValue();
+        savedStartupImageDir = FastROptions.StartupImageDir.getStringValue();
+        cacheDir = Files.createTempDirectory("fastr-parse-cache");
+        imageDir = Files.createTempDirectory("fastr-startup-image");
+        FastROptions.setValue("ParseCache", true);
+        FastROptions.setValue("ParseCacheDir", cacheDir.toString());
+        FastROptions.setValue("ParseCacheSize", 64);
+        FastROptions.setValue("StartupImage", false);
+        FastROptions.setValue("StartupImageDir", imageDir.toString());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FastROptions.setValue("ParseCache", savedParseCache);
+        FastROptions.setValue("ParseCacheDir", savedParseCacheDir);
+        FastROptions.setValue("ParseCacheSize", savedParseCacheSize);
+        FastROptions.setValue("StartupImage", savedStartupImage);
+        FastROptions.setValue("StartupImageDir", savedStartupImageDir);
+        deleteDir(cacheDir);
+        deleteDir(imageDir);
+    }
+
+    private static void deleteDir(Path dir) throws IOException {
+        for (Path file : entries(dir)) {
+            Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    private static List<Path> entries(Path dir) throws IOException {
+        ArrayList<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                result.add(path);
+            }
+        }
+        return result;
+    }
+
+    private static Source source(String variant, int repetitions) throws URISyntaxException {
+        StringBuilder str = new StringBuilder("# ").append(variant).append('\n');
+        for (int i = 0; i < repetitions; i++) {
+            str.append("f").append(i).append(" <- function(x, y = 2L, ...) {\n");
+            str.append("    z <- x + y * 3.5e-2 - 1i; if (is.na(z)) NA_character_ else paste0('a\\tb\\u00e9', \"c\", z, TRUE, NULL)\n");
+            str.append("    g <- function(a) a[[1]]$b@c; lapply(list(x, , -Inf), g, ...)\n");
+            str.append("}\n");
+            str.append("y ~ x + 1; `my var` <<- -(1:10) %in% c(a = 1, b = 0x10L); repeat break\n");
+        }
+        return RSource.fromFileName(str.toString(), variant + ".R", false);
+    }
+
+    private static List<String> parse(CountingParser parser, Source source) throws ParseException {
+        ArrayList<String> result = new ArrayList<>();
+        for (RSyntaxNode node : RParseCache.script(parser, source, new RASTBuilder(), null)) {
+            result.add(new Describer().accept(node));
+        }
+        return result;
+    }
+
+    private List<Path> cacheEntries() throws IOException {
+        return entries(cacheDir);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        CountingParser parser = new CountingParser();
+        Source source = source("replay", 10);
+        List<String> fresh = parse(parser, source);
+        assertEquals(1, cacheEntries().size());
+        List<String> replayed = parse(parser, source);
+        assertEquals(1, parser.count);
+        assertEquals(fresh, replayed);
+
+        // the same contents in another source are replayed with that source's sections
+        Source other = RSource.fromFileName(source.getCharacters().toString(), "other.R", false);
+        RSyntaxNode first = RParseCache.script(parser, other, new RASTBuilder(), null).get(0);
+        assertEquals(1, parser.count);
+        assertTrue(first.getSourceSection().getSource() == other);
+    }
+
+    @Test
+    public void testSmallSourcesNotCached() throws Exception {
+        CountingParser parser = new CountingParser();
+        Source source = source("small", 1);
+        parse(parser, source);
+        parse(parser, source);
+        assertEquals(2, parser.count);
+        assertTrue(cacheEntries().isEmpty());
+    }
+
+    @Test
+    public void testBrokenEntries() throws Exception {
+        CountingParser parser = new CountingParser();
+        Source source = source("broken", 10);
+        List<String> fresh = parse(parser, source);
+        Path entry = cacheEntries().get(0);
+        byte[] data = Files.readAllBytes(entry);
+
+        // truncated entry
+        Files.write(entry, Arrays.copyOf(data, data.length / 2));
+        assertEquals(fresh, parse(parser, source));
+        assertEquals(2, parser.count);
+        assertTrue(Arrays.equals(data, Files.readAllBytes(entry)));
+
+        // corrupt entry, with a node reference out of range
+        byte[] corrupt = data.clone();
+        for (int i = 16; i < corrupt.length; i++) {
+            corrupt[i] = (byte) 0x7f;
+        }
+        Files.write(entry, corrupt);
+        assertEquals(fresh, parse(parser, source));
+        assertEquals(3, parser.count);
+        assertTrue(Arrays.equals(data, Files.readAllBytes(entry)));
+
+        assertEquals(fresh, parse(parser, source));
+        assertEquals(3, parser.count);
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        FastROptions.setValue("ParseCacheSize", 1);
+        long now = System.currentTimeMillis();
+        Path[] fillers = new Path[5];
+        for (int i = 0; i < fillers.length; i++) {
+            fillers[i] = cacheDir.resolve("filler" + i + ".ast");
+            Files.write(fillers[i], new byte[300 * 1024]);
+            Files.setLastModifiedTime(fillers[i], FileTime.fromMillis(now - (fillers.length - i) * 60000L));
+        }
+        CountingParser parser = new CountingParser();
+        Source used = source("used", 10);
+        parse(parser, used);
+        Path usedEntry = null;
+        for (Path path : cacheEntries()) {
+            if (!path.getFileName().toString().startsWith("filler")) {
+                usedEntry = path;
+            }
+        }
+        // the entries are evicted in the order of their last use until the cache is below 3/4 of
+        // the limit, a hit counts as a use
+        assertFalse(Files.exists(fillers[0]));
+        assertFalse(Files.exists(fillers[1]));
+        assertFalse(Files.exists(fillers[2]));
+        assertTrue(Files.exists(fillers[3]));
+        assertTrue(Files.exists(fillers[4]));
+        assertTrue(usedEntry != null);
+
+        Files.setLastModifiedTime(usedEntry, FileTime.fromMillis(now - 10 * 60000L));
+        parse(parser, used);
+        assertEquals(1, parser.count);
+        assertTrue(Files.getLastModifiedTime(usedEntry).toMillis() >= now);
+
+        // without the hit, the entry would be the first to be evicted now
+        Path large = cacheDir.resolve("large.ast");
+        Files.write(large, new byte[500 * 1024]);
+        parse(parser, source("other", 10));
+        assertFalse(Files.exists(fillers[3]));
+        assertFalse(Files.exists(fillers[4]));
+        assertTrue(Files.exists(usedEntry));
+        assertTrue(Files.exists(large));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        FastROptions.setValue("ParseCache", false);
+        CountingParser parser = new CountingParser();
+        Source source = source("disabled", 10);
+        List<String> fresh = parse(parser, source);
+        assertEquals(fresh, parse(parser, source));
+        assertEquals(2, parser.count);
+        assertTrue(cacheEntries().isEmpty());
+    }
+
+    @Test
+    public void testStartupImage() throws Exception {
+        // build the image like "mx r-startup-image" does, i.e. through the cache
+        FastROptions.setValue("ParseCacheDir", imageDir.toString());
+        CountingParser parser = new CountingParser();
+        Source source = source("image", 10);
+        List<String> fresh = parse(parser, source);
+        assertEquals(1, entries(imageDir).size());
+
+        // the image is read even with the cache disabled and it is never written to
+        FastROptions.setValue("ParseCacheDir", cacheDir.toString());
+        FastROptions.setValue("ParseCache", false);
+        FastROptions.setValue("StartupImage", true);
+        assertEquals(fresh, parse(parser, source));
+        assertEquals(1, parser.count);
+        parse(parser, source("not in image", 10));
+        assertEquals(2, parser.count);
+        assertEquals(1, entries(imageDir).size());
+
+        // the image does not depend on its location
+        Path moved = Files.createTempDirectory("fastr-startup-image-moved");
+        try {
+            Path entry = entries(imageDir).get(0);
+            Files.copy(entry, moved.resolve(entry.getFileName()));
+            FastROptions.setValue("StartupImageDir", moved.toString());
+            assertEquals(fresh, parse(parser, source));
+            assertEquals(2, parser.count);
+        } finally {
+            deleteDir(moved);
+        }
+
+        FastROptions.setValue("StartupImage", false);
+        parse(parser, source);
+        assertEquals(3, parser.count);
+    }
+}
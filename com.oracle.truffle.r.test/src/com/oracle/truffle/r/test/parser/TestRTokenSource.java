@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.r.parser.RLexer;
+import com.oracle.truffle.r.parser.RTokenSource;
+
+/**
+ * Checks that the hand-written {@link RTokenSource} produces the same tokens as the ANTLR generated
+ * {@link RLexer}.
+ */
+public class TestRTokenSource {
+
+    private static final String[] SNIPPETS = new String[]{
+                    "x <- 1; y <<- 2L; 3 -> z; 4 ->> w; v := 5",
+                    "a == b; a != b; a >= b; a <= b; a > b; a < b; !a; a = b",
+                    "a && b || c & d | e",
+                    "x^2; x**2; x * y / z + w - v ~ u; ?help",
+                    "base::c; base:::c; a:b; x$y; x@y",
+                    "x %% y; x %in% y; x %*% y; x %<>% y; x %o% y",
+                    "x[1]; x[[1]]; x[[1]][2]; f(a, b = 1, ...)",
+                    "{\n a\n b\n}\n(a\n+\nb)\n[\n]",
+                    "f <- function(x) { # comment\n  x + 1 # another one\n}\n# last",
+                    "if (a) b else c; while (TRUE) next; repeat break; for (i in 1:10) i",
+                    "NULL; NA; NA_integer_; NA_real_; NA_character_; NA_complex_; TRUE; FALSE; Inf; NaN",
+                    "1; 1.; 1.5; .5; 1e10; 1E-3; 1.5e+3; .5e2; 1L; 1e3L; .5L; 1.5L; 1.5e3L; 1i; 1.5i; 1e2i",
+                    "0x10; 0xFFL; 0x1p2; 0x1.8p3; 0xa.p2; 0xa.bp1i; 0x0p0; 0x1.aP2",
+                    ". .. ... .... ..... .x ..x ...x ..1 ..12 ..1x ...1 x.y x_y x1 .x.1",
+                    "\"a\\tb\\nc\\\\d\\\"e\" 'it\\'s' \"\\a\\v\\r\\b\\f\\`\\ \"",
+                    "\"\\101\\7\\77\\1234\" \"\\x41\\x4a\" \"\\u41\\u00e9\\u20AC\" \"\\U1F600\"",
+                    "`a b` `\\`x\\`` `if` \"multi\nline\" 'and\\\nescaped'",
+                    "αβγ <- Ω; _x",
+                    "a\r\nb\rc\fd\n\re\f\n",
+                    "x\t\u00A0<- 1",
+    };
+
+    private static final String[] ERRORS = new String[]{
+                    "\"unterminated", "`unterminated", "``", "x %op", "x %op\n%", "1 % 2", "\"\\q\"", "\"\\x4\"", "\"\\u\"", "a # b \\", "\u00E9",
+    };
+
+    @Test
+    public void testTokens() {
+        for (String snippet : SNIPPETS) {
+            Assert.assertEquals(snippet, describe(new RLexer(new ANTLRStringStream(snippet))), describe(new RTokenSource(snippet)));
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        for (String snippet : ERRORS) {
+            Assert.assertEquals(snippet, describe(new RLexer(new ANTLRStringStream(snippet))), describe(new RTokenSource(snippet)));
+        }
+    }
+
+    private static String describe(TokenSource tokens) {
+        List<String> result = new ArrayList<>();
+        try {
+            Token token;
+            do {
+                token = tokens.nextToken();
+                if (token.getChannel() == Token.DEFAULT_CHANNEL) {
+                    result.add(token.getType() + ":" + token.getText() + "@" + token.getLine() + ":" + token.getCharPositionInLine() + "[" + token.getStartIndex() + "-" + token.getStopIndex() + "]");
+                }
+            } while (token.getType() != Token.EOF);
+        } catch (IllegalArgumentException e) {
+            if (e.getCause() instanceof RecognitionException) {
+                RecognitionException re = (RecognitionException) e.getCause();
+                result.add(re.getClass().getSimpleName() + "@" + re.line + ":" + re.charPositionInLine + " " + re.getUnexpectedType());
+            } else {
+                result.add(e.toString());
+            }
+        } catch (RuntimeException e) {
+            result.add(e.getClass().getSimpleName());
+        }
+        return result.toString();
+    }
+}
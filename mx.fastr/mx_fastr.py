@@ -20,7 +20,7 @@
 # or visit www.oracle.com if you need additional information or have any
 # questions.
 #
-import platform, subprocess, sys, shlex
+import platform, subprocess, sys, shlex, json, re, tempfile
 from os.path import join, sep
 from argparse import ArgumentParser
 import mx
@@ -240,6 +240,20 @@ def rscript(args, parser=None, **kwargs):
     '''run Rscript'''
     return run_r(args, 'rscript', parser=parser, **kwargs)
 
+def r_startup_image(args):
+    '''
+    build the startup image, i.e., the parse results of the R sources evaluated when starting
+    FastR and loading the default packages, into R_HOME/etc/startup-image; this is a manual step
+    that is not part of 'mx build' or the release distribution
+    '''
+    image_dir = join(_fastr_suite.dir, 'etc', 'startup-image')
+    if os.path.exists(image_dir):
+        shutil.rmtree(image_dir)
+    os.makedirs(image_dir)
+    load_default_packages = 'invisible(lapply(getOption("defaultPackages"), library, character.only=TRUE))'
+    image_options = ['-DR:ParseCacheDir=' + image_dir, '-DR:ParseCacheSize=1024', '-DR:-StartupImage']
+    return rscript(['-e', load_default_packages] + args, extraVmArgs=image_options)
+
 def rrepl(args, nonZeroIsFatal=True, extraVmArgs=None):
     '''run R repl'''
     run_r(args, 'rrepl')
@@ -438,6 +452,131 @@ def rbdiag(args):
     vmArgs += ['com.oracle.truffle.r.nodes.test.RBuiltinDiagnostics']
     mx.run_java(vmArgs + args)
 
+def rjmh(args):
+    '''
+    Runs the JMH benchmarks in the com.oracle.truffle.r.benchmarks project, e.g.
+    "mx rjmh -p snippet=functionCalls RSnippetBenchmark". The arguments are passed to the JMH
+    runner, see "mx rjmh -h". Unless another profiler is requested, the gc profiler is used so
+    that the allocation per operation is reported along with the throughput.
+    '''
+    env = os.environ
+    setREnvironment(env)
+    jdk = get_default_jdk()
+    vmArgs = mx.get_runtime_jvm_args(['com.oracle.truffle.r.benchmarks'], jdk=jdk)
+    vmArgs += set_graal_options()
+    vmArgs = _sanitize_vmArgs(jdk, vmArgs)
+    if not '-prof' in args and not '-h' in args and not '-l' in args:
+        args = ['-prof', 'gc'] + args
+    return mx.run_java(vmArgs + ['org.openjdk.jmh.Main'] + args, jdk=jdk, env=env)
+
+def _rbenchmark_dir():
+    return join(_fastr_suite.dir, 'com.oracle.truffle.r.test.benchmarks')
+
+def rbenchmark(args):
+    '''
+    Runs the R macro benchmarks in the com.oracle.truffle.r.test.benchmarks project, each one in a
+    separate Rscript process using r/harness.R, and writes the results as JSON. On a Graal-enabled
+    JDK, the number of Truffle compilations of every benchmark is added to the results. Unless
+    --update-baseline is given, the results are compared against the baseline and the command fails
+    if the median time or the peak memory of a benchmark exceeds the baseline by more than the
+    threshold. A "threshold" defined in a benchmark file takes precedence over --threshold.
+    '''
+    parser = ArgumentParser(prog='mx rbenchmark')
+    parser.add_argument('--warmup', action='store', default='5', help='number of warmup iterations')
+    parser.add_argument('--iterations', action='store', default='10', help='number of measured iterations')
+    parser.add_argument('--output', action='store', default=join(_fastr_suite.dir, 'rbenchmark.json'), help='results file')
+    parser.add_argument('--baseline', action='store', default=join(_rbenchmark_dir(), 'baseline.json'), help='baseline file')
+    parser.add_argument('--threshold', action='store', type=float, default=0.1, help='tolerated relative increase of the median time')
+    parser.add_argument('--memory-threshold', action='store', type=float, default=0.2, help='tolerated relative increase of the peak memory')
+    parser.add_argument('--update-baseline', action='store_true', help='store the results as the new baseline')
+    parser.add_argument('filter', nargs='?', help='regular expression selecting the benchmark files')
+    args = parser.parse_args(args)
+
+    rdir = join(_rbenchmark_dir(), 'r')
+    files = sorted([f for f in os.listdir(join(rdir, 'benchmarks')) if f.endswith('.R') and (not args.filter or re.search(args.filter, f))])
+    if not files:
+        mx.abort('no benchmarks match ' + str(args.filter))
+
+    vmArgs = ['-da']
+    if _mx_graal:
+        vmArgs += ['-Dgraal.TraceTruffleCompilation=true']
+    results = None
+    tmpdir = tempfile.mkdtemp()
+    try:
+        for f in files:
+            resultFile = join(tmpdir, f + '.json')
+            compilations = [0]
+            def _out(line):
+                if 'opt done' in line:
+                    compilations[0] += 1
+                else:
+                    sys.stdout.write(line)
+            harnessArgs = [join(rdir, 'harness.R'), '--warmup', args.warmup, '--iterations', args.iterations, '--output', resultFile, join(rdir, 'benchmarks', f)]
+            if do_run_r(harnessArgs, 'rscript', extraVmArgs=vmArgs, nonZeroIsFatal=False, out=_out, err=_out) != 0:
+                mx.abort('benchmark ' + f + ' failed')
+            with open(resultFile) as fp:
+                part = json.load(fp)
+            for benchmark in part['benchmarks'].values():
+                benchmark['truffleCompilations'] = compilations[0] if _mx_graal else None
+            if results is None:
+                results = part
+            else:
+                results['benchmarks'].update(part['benchmarks'])
+    finally:
+        shutil.rmtree(tmpdir)
+
+    with open(args.output, 'w') as fp:
+        json.dump(results, fp, indent=2, sort_keys=True)
+    mx.log('results written to ' + args.output)
+
+    if args.update_baseline:
+        shutil.copyfile(args.output, args.baseline)
+        mx.log('baseline updated: ' + args.baseline)
+        return 0
+    if not os.path.exists(args.baseline):
+        mx.log('no baseline found at ' + args.baseline + ', use --update-baseline to create one')
+        return 0
+    with open(args.baseline) as fp:
+        baseline = json.load(fp)
+    regressions = _compare_rbenchmark(results, baseline, args.threshold, args.memory_threshold)
+    if regressions:
+        mx.abort('regressions against ' + args.baseline + ': ' + ', '.join(regressions))
+    return 0
+
+def _compare_rbenchmark(results, baseline, threshold, memoryThreshold):
+    '''
+    Prints the comparison of the results against the baseline and returns the names of the
+    regressed benchmarks.
+    '''
+    def _change(current, base):
+        if current is None or not base:
+            return None
+        return float(current) / base - 1
+
+    def _format(change):
+        return '       n/a' if change is None else '{:+9.1f}%'.format(change * 100)
+
+    regressions = []
+    mx.log('{:<20} {:>12} {:>12} {:>10} {:>10} {:>12}'.format('benchmark', 'baseline ms', 'median ms', 'time', 'memory', 'compilations'))
+    for name in sorted(results['benchmarks']):
+        current = results['benchmarks'][name]
+        base = baseline['benchmarks'].get(name)
+        if base is None:
+            mx.log('{:<20} {:>12} {:>12.1f}   (not in baseline)'.format(name, '-', current['median']))
+            continue
+        limit = current.get('threshold')
+        if limit is None:
+            limit = threshold
+        timeChange = _change(current['median'], base['median'])
+        memoryChange = _change(current['peakMemoryMb'], base['peakMemoryMb'])
+        regressed = (timeChange is not None and timeChange > limit) or (memoryChange is not None and memoryChange > memoryThreshold)
+        compilations = '{} -> {}'.format(base.get('truffleCompilations'), current.get('truffleCompilations'))
+        mx.log('{:<20} {:>12.1f} {:>12.1f} {} {} {:>12}{}'.format(name, base['median'], current['median'], _format(timeChange),
+                                                                _format(memoryChange), compilations, '  REGRESSION' if regressed else ''))
+        if regressed:
+            regressions.append(name)
+    return regressions
+
 def _gnur_path():
     gnurHome = os.environ.get('GNUR_HOME_BINARY', join(_fastr_suite.dir, 'libdownloads'))
     return join(gnurHome, r_version(), 'bin')
@@ -547,6 +686,7 @@ _commands = {
     'rbcheck' : [rbcheck, '--filter [gnur-only,fastr-only,both,both-diff]'],
     'rbdiag' : [rbdiag, '(builtin)* [-v] [-n] [-m] [--sweep | --sweep=lite | --sweep=total] [--mnonly] [--noSelfTest] [--matchLevel=same | --matchLevel=error] [--maxSweeps=N] [--outMaxLev=N]'],
     'rrepl' : [rrepl, '[options]'],
+    'r-startup-image' : [r_startup_image, '[options]'],
     'rembed' : [rembed, '[options]'],
     'r-cp' : [r_classpath, '[options]'],
     'pkgtest' : [mx_fastr_pkgs.pkgtest, ['options']],
@@ -562,6 +702,8 @@ _commands = {
     'gnu-rscript' : [gnu_rscript, '[]'],
     'gnu-rtests' : [gnu_rtests, '[]'],
     'nativebuild' : [nativebuild, '[]'],
+    'rjmh' : [rjmh, '[JMH options] [benchmark regexp]'],
+    'rbenchmark' : [rbenchmark, '[options] [benchmark file regexp]'],
     }
 
 mx.update_commands(_fastr_suite, _commands)
@@ -181,6 +181,12 @@ suite = {
       "workingSets" : "FastR",
     },
 
+    "com.oracle.truffle.r.test.benchmarks" : {
+      "sourceDirs" : ["r"],
+      "javaCompliance" : "1.8",
+      "workingSets" : "FastR,Bench",
+    },
+
     "com.oracle.truffle.r.test.packages.analyzer" : {
       "sourceDirs" : ["src"],
       "dependencies" : [
@@ -326,6 +332,20 @@ suite = {
       "javaCompliance" : "1.8",
       "workingSets" : "FastR,Test",
     },
+
+    "com.oracle.truffle.r.benchmarks" : {
+      "sourceDirs" : ["src"],
+      "dependencies" : [
+        "com.oracle.truffle.r.engine",
+        "mx:JMH_1_18",
+      ],
+      "annotationProcessors" : [
+        "mx:JMH_1_18",
+      ],
+      "checkstyle" : "com.oracle.truffle.r.runtime",
+      "javaCompliance" : "1.8",
+      "workingSets" : "FastR,Bench",
+    },
   },
 
   "distributions" : {